@@ -0,0 +1,57 @@
+package imran.exercise.library.management.benchmark;
+
+import imran.exercise.library.management.adapter.BookDtoToBookEntityAdapter;
+import imran.exercise.library.management.adapter.BookEntityToBookDtoAdapter;
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.dto.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Conversions between entities and DTOs, for one book and for a list of an author's books.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookAdapterBenchmark {
+
+    private final BookEntityToBookDtoAdapter toBookDtoAdapter = new BookEntityToBookDtoAdapter();
+    private final BookDtoToBookEntityAdapter toBookDomainAdapter = new BookDtoToBookEntityAdapter();
+
+    private BookEntity bookEntity;
+    private Book book;
+    private List<BookEntity> bookEntities;
+
+    @Setup
+    public void setUp() {
+        bookEntity = new BookEntity("isbn-0000001", "Title 1", "Author 1", 2000, 1);
+        book = new Book("isbn-0000001", "Title 1", "Author 1", 2000, 1);
+        bookEntities = IntStream.range(0, LibraryContext.BOOKS_PER_AUTHOR)
+            .mapToObj(i -> new BookEntity(LibraryContext.isbn(i), "Title " + i, "Author 1", 2000, 1))
+            .toList();
+    }
+
+    @Benchmark
+    public Book toBookDto() {
+        return toBookDtoAdapter.adapt(bookEntity);
+    }
+
+    @Benchmark
+    public BookEntity toBookEntity() {
+        return toBookDomainAdapter.adapt(book);
+    }
+
+    @Benchmark
+    public List<Book> toBookDtos_AuthorList() {
+        return toBookDtoAdapter.adapt(bookEntities);
+    }
+}
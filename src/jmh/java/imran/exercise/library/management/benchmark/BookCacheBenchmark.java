@@ -0,0 +1,79 @@
+package imran.exercise.library.management.benchmark;
+
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.cache.BoundedBookCache;
+import imran.exercise.library.management.cache.OffHeapBookCache;
+import imran.exercise.library.management.cache.SimpleNoExpiryCache;
+import imran.exercise.library.management.dto.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache hits and misses on all cache engines, from one thread and from many threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookCacheBenchmark {
+
+    private static final int MASK = (1 << 16) - 1;
+
+    @Param({"simple", "bounded", "off-heap"})
+    public String type;
+
+    @Param({"100000"})
+    public int size;
+
+    private BookCache cache;
+    private String[] presentIsbns;
+    private String[] absentIsbns;
+
+    @Setup
+    public void setUp() {
+        cache = switch (type) {
+            case "simple" -> new SimpleNoExpiryCache();
+            case "off-heap" -> new OffHeapBookCache();
+            default -> new BoundedBookCache(size, 0, null, null);
+        };
+        for (int i = 0; i < size; i++) {
+            String isbn = LibraryContext.isbn(i);
+            cache.put(isbn, new Book(isbn, "Title " + i, LibraryContext.author(i, size), 2000, 1));
+        }
+        presentIsbns = new String[MASK + 1];
+        absentIsbns = new String[MASK + 1];
+        for (int i = 0; i <= MASK; i++) {
+            presentIsbns[i] = LibraryContext.isbn((int) ((i * 2_654_435_761L) % size));
+            absentIsbns[i] = "absent-" + i;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public Book get_Hit(Cursor cursor) {
+        return cache.get(presentIsbns[cursor.next++ & MASK]);
+    }
+
+    @Benchmark
+    public Book get_Miss(Cursor cursor) {
+        return cache.get(absentIsbns[cursor.next++ & MASK]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Book get_Hit_8Threads(Cursor cursor) {
+        return cache.get(presentIsbns[cursor.next++ & MASK]);
+    }
+}
@@ -0,0 +1,80 @@
+package imran.exercise.library.management.benchmark;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.service.Library;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Borrowing and returning a copy of a book, either all threads on the same book or each thread on its own book,
+ * with guarded updates of the database or appends to the loan ledger.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class BorrowReturnBenchmark {
+
+    private static final int books = 64;
+    private static final String contendedIsbn = LibraryContext.isbn(0);
+
+    @Param({"database", "ledger"})
+    public String loans;
+
+    private ConfigurableApplicationContext context;
+    private Library library;
+    private Path ledgerDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        ledgerDir = Files.createTempDirectory("jmh-ledger");
+        context = LibraryContext.start(books, Integer.MAX_VALUE / 2,
+            "--spring.datasource.url=" + LibraryContext.inMemoryUrl(), "--spring.jpa.show-sql=false",
+            "--library.ledger.enabled=" + loans.equals("ledger"), "--library.ledger.directory=" + ledgerDir);
+        library = context.getBean(Library.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(ledgerDir);
+    }
+
+    @State(Scope.Thread)
+    public static class OwnBook {
+        String isbn;
+
+        @Setup
+        public void setUp(ThreadParams threadParams) {
+            isbn = LibraryContext.isbn(threadParams.getThreadIndex() % books);
+        }
+    }
+
+    @Benchmark
+    public Book borrowAndReturn_Contended() {
+        library.borrowBook(contendedIsbn);
+        return library.returnBook(contendedIsbn);
+    }
+
+    @Benchmark
+    public Book borrowAndReturn_Uncontended(OwnBook ownBook) {
+        library.borrowBook(ownBook.isbn);
+        return library.returnBook(ownBook.isbn);
+    }
+}
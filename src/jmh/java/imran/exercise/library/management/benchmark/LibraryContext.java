@@ -0,0 +1,67 @@
+package imran.exercise.library.management.benchmark;
+
+import imran.exercise.library.management.LibraryManagementApplication;
+import imran.exercise.library.management.cache.AbsentIsbnFilterLoader;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts the application without a web server, by default against its own in-memory database without SQL
+ * logging, seeded with a catalogue of books "isbn-0000000", "isbn-0000001", ... written by "Author 0" to
+ * "Author n", 100 books per author.  The absent ISBN filter is loaded once the catalogue is seeded.
+ */
+final class LibraryContext {
+
+    static final int BOOKS_PER_AUTHOR = 100;
+
+    private LibraryContext() {
+    }
+
+    static ConfigurableApplicationContext start(int catalogueSize, int availableCopies) {
+        return start(catalogueSize, availableCopies, "--spring.datasource.url=" + inMemoryUrl(), "--spring.jpa.show-sql=false");
+    }
+
+    /**
+     * @param args - Command line arguments overriding the application configuration, e.g. the profile
+     */
+    static ConfigurableApplicationContext start(int catalogueSize, int availableCopies, String... args) {
+        SpringApplication application = new SpringApplication(LibraryManagementApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        String[] allArgs = Arrays.copyOf(args, args.length + 2);
+        allArgs[args.length] = "--logging.level.root=WARN";
+        allArgs[args.length + 1] = "--library.cache.warmup.enabled=false";
+        ConfigurableApplicationContext context = application.run(allArgs);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (int from = 0; from < catalogueSize; from += 10_000) {
+            List<Object[]> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(from + 10_000, catalogueSize); i++) {
+                batch.add(new Object[]{isbn(i), "Title " + i, author(i, catalogueSize), 1900 + i % 125, availableCopies});
+            }
+            jdbcTemplate.batchUpdate(
+                "insert into book_entity (isbn, title, author, publication_year, available_copies, version) values (?, ?, ?, ?, ?, 0)",
+                batch);
+        }
+        context.getBean(AbsentIsbnFilterLoader.class).run(new DefaultApplicationArguments());
+        return context;
+    }
+
+    static String inMemoryUrl() {
+        return "jdbc:h2:mem:jmh-" + System.nanoTime();
+    }
+
+    static String isbn(int i) {
+        return "isbn-%07d".formatted(i);
+    }
+
+    static String author(int i, int catalogueSize) {
+        return "Author " + i % Math.max(1, catalogueSize / BOOKS_PER_AUTHOR);
+    }
+}
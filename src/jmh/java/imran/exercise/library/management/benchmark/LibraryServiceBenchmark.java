@@ -0,0 +1,105 @@
+package imran.exercise.library.management.benchmark;
+
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.service.Library;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Book lookups through {@link Library} against the H2 database, at different catalogue sizes.  Cache
+ * misses remove the book from the cache before looking it up, and uncached author scans go straight
+ * to the repository query behind a cache miss.  Absent lookups ask for ISBNs that are not in the catalogue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LibraryServiceBenchmark {
+
+    @Param({"10000", "100000"})
+    public int catalogueSize;
+
+    private ConfigurableApplicationContext context;
+    private Library library;
+    private LibraryRepository libraryRepository;
+    private BookCache cache;
+    private String[] isbns;
+    private String[] absentIsbns;
+    private String[] authors;
+
+    @Setup
+    public void setUp() {
+        context = LibraryContext.start(catalogueSize, 1);
+        library = context.getBean(Library.class);
+        libraryRepository = context.getBean(LibraryRepository.class);
+        cache = context.getBean(BookCache.class);
+        isbns = new String[catalogueSize];
+        absentIsbns = new String[catalogueSize];
+        authors = new String[catalogueSize];
+        for (int i = 0; i < catalogueSize; i++) {
+            isbns[i] = LibraryContext.isbn(i);
+            absentIsbns[i] = LibraryContext.isbn(catalogueSize + i);
+            authors[i] = LibraryContext.author(i, catalogueSize);
+            library.findBookByISBN(isbns[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int next(int bound) {
+            next = (next + 7919) % bound;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public Book findBookByISBN_CacheHit(Cursor cursor) {
+        return library.findBookByISBN(isbns[cursor.next(catalogueSize)]);
+    }
+
+    @Benchmark
+    public Book findBookByISBN_CacheMiss(Cursor cursor) {
+        String isbn = isbns[cursor.next(catalogueSize)];
+        cache.remove(isbn);
+        return library.findBookByISBN(isbn);
+    }
+
+    @Benchmark
+    public Object findBookByISBN_Absent(Cursor cursor) {
+        try {
+            return library.findBookByISBN(absentIsbns[cursor.next(catalogueSize)]);
+        } catch (BookNotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public List<Book> findBooksByAuthor_Cached(Cursor cursor) {
+        return library.findBooksByAuthor(authors[cursor.next(catalogueSize)]);
+    }
+
+    @Benchmark
+    public List<Book> findBooksByAuthor_Uncached(Cursor cursor) {
+        return libraryRepository.findBooksByAuthor(authors[cursor.next(catalogueSize)]);
+    }
+}
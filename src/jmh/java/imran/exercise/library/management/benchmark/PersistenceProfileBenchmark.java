@@ -0,0 +1,96 @@
+package imran.exercise.library.management.benchmark;
+
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.service.Library;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database bound operations from 8 threads with the default configuration (in-memory database, SQL
+ * logging) and with the prod profile (file database, tuned connection pool, statement cache, no SQL logging).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class PersistenceProfileBenchmark {
+
+    private static final int catalogueSize = 10_000;
+
+    @Param({"default", "prod"})
+    public String profile;
+
+    private Path dataDir;
+    private ConfigurableApplicationContext context;
+    private Library library;
+    private BookCache cache;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (profile.equals("prod")) {
+            dataDir = Files.createTempDirectory("library-jmh");
+            context = LibraryContext.start(catalogueSize, Integer.MAX_VALUE / 2,
+                "--spring.profiles.active=prod", "--library.data-dir=" + dataDir);
+        } else {
+            context = LibraryContext.start(catalogueSize, Integer.MAX_VALUE / 2,
+                "--spring.datasource.url=" + LibraryContext.inMemoryUrl());
+        }
+        library = context.getBean(Library.class);
+        cache = context.getBean(BookCache.class);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        if (dataDir != null) {
+            FileSystemUtils.deleteRecursively(dataDir);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        String ownIsbn;
+        int next;
+
+        @Setup
+        public void setUp(ThreadParams threadParams) {
+            ownIsbn = LibraryContext.isbn(threadParams.getThreadIndex());
+            next = threadParams.getThreadIndex() * 1_000;
+        }
+
+        String nextIsbn() {
+            next = (next + 7919) % catalogueSize;
+            return LibraryContext.isbn(next);
+        }
+    }
+
+    @Benchmark
+    public Book borrowAndReturn(Cursor cursor) {
+        library.borrowBook(cursor.ownIsbn);
+        return library.returnBook(cursor.ownIsbn);
+    }
+
+    @Benchmark
+    public Book findBookByISBN_CacheMiss(Cursor cursor) {
+        String isbn = cursor.nextIsbn();
+        cache.remove(isbn);
+        return library.findBookByISBN(isbn);
+    }
+}
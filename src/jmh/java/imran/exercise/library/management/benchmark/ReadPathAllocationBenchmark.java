@@ -0,0 +1,113 @@
+package imran.exercise.library.management.benchmark;
+
+import imran.exercise.library.management.adapter.BookEntityToBookDtoAdapter;
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The database reads behind a cache miss of {@code GET /api/books/{isbn}} and behind {@code GET /api/books?author=}:
+ * reading managed entities and adapting them to DTOs, projecting them into DTOs with JPQL, and mapping the JDBC
+ * rows straight into DTOs as the repository does.  {@code gc.alloc.rate.norm} compares the bytes allocated per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadPathAllocationBenchmark {
+
+    private static final int CATALOGUE_SIZE = 10_000;
+    private static final String SELECT_BOOK =
+        "select new imran.exercise.library.management.dto.Book(b.isbn, b.title, b.author, b.publicationYear, b.availableCopies) " +
+        "from BookEntity b ";
+    private static final String SELECT_VERSIONED_BOOK =
+        "select new imran.exercise.library.management.persistence.VersionedBook(b.isbn, b.title, b.author, b.publicationYear, b.availableCopies, b.version) " +
+        "from BookEntity b ";
+
+    private final BookEntityToBookDtoAdapter toBookDtoAdapter = new BookEntityToBookDtoAdapter();
+
+    private ConfigurableApplicationContext context;
+    private LibraryRepository libraryRepository;
+    private EntityManager entityManager;
+    private String[] isbns;
+    private String[] authors;
+
+    @Setup
+    public void setUp() {
+        context = LibraryContext.start(CATALOGUE_SIZE, 1);
+        libraryRepository = context.getBean(LibraryRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        isbns = new String[CATALOGUE_SIZE];
+        authors = new String[CATALOGUE_SIZE];
+        for (int i = 0; i < CATALOGUE_SIZE; i++) {
+            isbns[i] = LibraryContext.isbn(i);
+            authors[i] = LibraryContext.author(i, CATALOGUE_SIZE);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int next(int bound) {
+            next = (next + 7919) % bound;
+            return next;
+        }
+    }
+
+    @Benchmark
+    public Book findBookByIsbn_Entity(Cursor cursor) {
+        return libraryRepository.findById(isbns[cursor.next(CATALOGUE_SIZE)]).map(toBookDtoAdapter::adapt).orElseThrow();
+    }
+
+    @Benchmark
+    public VersionedBook findBookByIsbn_JpqlProjection(Cursor cursor) {
+        return entityManager.createQuery(SELECT_VERSIONED_BOOK + "where b.isbn = :isbn", VersionedBook.class)
+            .setParameter("isbn", isbns[cursor.next(CATALOGUE_SIZE)])
+            .getSingleResult();
+    }
+
+    @Benchmark
+    public VersionedBook findBookByIsbn_JdbcProjection(Cursor cursor) {
+        return libraryRepository.findVersionedBook(isbns[cursor.next(CATALOGUE_SIZE)]).orElseThrow();
+    }
+
+    @Benchmark
+    public List<Book> findBooksByAuthor_Entity(Cursor cursor) {
+        List<BookEntity> bookEntities = entityManager
+            .createQuery("select b from BookEntity b where b.author = :author order by b.isbn", BookEntity.class)
+            .setParameter("author", authors[cursor.next(CATALOGUE_SIZE)])
+            .getResultList();
+        return toBookDtoAdapter.adapt(bookEntities);
+    }
+
+    @Benchmark
+    public List<Book> findBooksByAuthor_JpqlProjection(Cursor cursor) {
+        return entityManager.createQuery(SELECT_BOOK + "where b.author = :author order by b.isbn", Book.class)
+            .setParameter("author", authors[cursor.next(CATALOGUE_SIZE)])
+            .getResultList();
+    }
+
+    @Benchmark
+    public List<Book> findBooksByAuthor_JdbcProjection(Cursor cursor) {
+        return libraryRepository.findBooksByAuthor(authors[cursor.next(CATALOGUE_SIZE)]);
+    }
+}
@@ -2,8 +2,13 @@ package imran.exercise.library.management;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+/**
+ * The R2DBC connection factory is created by {@code ReactiveDatabaseConfiguration} from the JDBC data source
+ * settings, as an auto-configured one would replace the JDBC data source.
+ */
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class LibraryManagementApplication {
 
     public static void main(String[] args) {
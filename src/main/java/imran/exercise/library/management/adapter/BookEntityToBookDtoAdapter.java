@@ -4,6 +4,7 @@ import imran.exercise.library.management.domain.BookEntity;
 import imran.exercise.library.management.dto.Book;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Component
@@ -19,6 +20,10 @@ public class BookEntityToBookDtoAdapter {
     }
 
     public List<Book> adapt(List<BookEntity> bookEntities) {
-            return bookEntities.stream().map(this::adapt).toList();
+            List<Book> books = new ArrayList<>(bookEntities.size());
+            for (BookEntity bookEntity : bookEntities) {
+                books.add(adapt(bookEntity));
+            }
+            return books;
     }
 }
@@ -0,0 +1,167 @@
+package imran.exercise.library.management.cache;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers lookups of ISBNs that are not in the library without reading the database.
+ * <p>
+ * A counting Bloom filter holds the ISBNs of all books once loaded at startup and is kept up to date as
+ * books are added and removed.  An ISBN it does not contain is certainly absent, while an ISBN it contains
+ * may be a false positive.  Until the filter is loaded every ISBN is assumed to exist.  ISBNs found absent
+ * in the database are additionally remembered for a short time, so that repeated lookups of a false
+ * positive, or of any ISBN before the filter is loaded, are answered in memory too.
+ * <p>
+ * The filter is loaded off to the side and swapped in once complete, so that a reload never answers a book
+ * as absent.  A removal is only applied once per ISBN until the ISBN is added again, so that a removal
+ * recorded twice, e.g. by a redelivered event, does not decrement the counters of other ISBNs.
+ * <p>
+ * The filter only sees books added and removed through this application instance.
+ */
+public class AbsentIsbnFilter {
+
+    private final boolean enabled;
+    private final long expectedBooks;
+    private final double falsePositiveProbability;
+    private final long ttlNanos;
+    private final int maximumAbsentIsbns;
+    private final ConcurrentHashMap<String, Long> absentIsbns = new ConcurrentHashMap<>();
+    private final Set<String> removedIsbns = ConcurrentHashMap.newKeySet();
+    private volatile CountingBloomFilter knownIsbns;
+    private volatile CountingBloomFilter loadingIsbns;
+    private volatile boolean loaded;
+
+    public AbsentIsbnFilter(BookCacheProperties.Negative properties) {
+        this.enabled = properties.enabled();
+        this.expectedBooks = properties.enabled() ? properties.expectedBooks() : 1;
+        this.falsePositiveProbability = properties.falsePositiveProbability();
+        this.knownIsbns = new CountingBloomFilter(expectedBooks, falsePositiveProbability);
+        this.ttlNanos = properties.ttl().toNanos();
+        this.maximumAbsentIsbns = properties.maximumSize();
+    }
+
+    /**
+     * @param isbn - The ISBN of a book
+     * @return true if the book is known not to exist, false if it may exist
+     */
+    public boolean isAbsent(String isbn) {
+        if (!enabled) {
+            return false;
+        }
+        if (loaded && !knownIsbns.mightContain(isbn)) {
+            return true;
+        }
+        Long expiry = absentIsbns.get(isbn);
+        if (expiry == null) {
+            return false;
+        }
+        if (expiry - System.nanoTime() > 0) {
+            return true;
+        }
+        absentIsbns.remove(isbn, expiry);
+        return false;
+    }
+
+    /**
+     * Remembers that the book was not found in the database, for the configured time
+     * @param isbn - The ISBN of the book
+     */
+    public void markAbsent(String isbn) {
+        if (!enabled || ttlNanos == 0) {
+            return;
+        }
+        if (absentIsbns.size() >= maximumAbsentIsbns) {
+            absentIsbns.clear();
+        }
+        absentIsbns.put(isbn, System.nanoTime() + ttlNanos);
+    }
+
+    /**
+     * Records a book added to the library, or loaded from the database
+     * @param isbn - The ISBN of the book
+     */
+    public void added(String isbn) {
+        if (!enabled) {
+            return;
+        }
+        CountingBloomFilter loading = loadingIsbns;
+        knownIsbns.add(isbn);
+        if (loading != null) {
+            loading.add(isbn);
+        }
+        removedIsbns.remove(isbn);
+        absentIsbns.remove(isbn);
+    }
+
+    /**
+     * Records a book removed from the library, once until the book is added again.  Removals before the
+     * filter is loaded are ignored, as the book may not have been added to the filter yet, and so are removals
+     * of ISBNs the filter does not contain.  A filter being loaded keeps the removed book, which at worst
+     * answers it as present.
+     * @param isbn - The ISBN of the book
+     */
+    public void removed(String isbn) {
+        if (!enabled || !loaded || !knownIsbns.mightContain(isbn)) {
+            return;
+        }
+        if (removedIsbns.size() >= maximumAbsentIsbns) {
+            removedIsbns.clear();
+        }
+        if (removedIsbns.add(isbn)) {
+            knownIsbns.remove(isbn);
+        }
+    }
+
+    /**
+     * Starts loading the ISBNs of all books into a new filter, while the current filter keeps answering
+     */
+    public void startLoading() {
+        if (enabled) {
+            loadingIsbns = new CountingBloomFilter(expectedBooks, falsePositiveProbability);
+        }
+    }
+
+    /**
+     * Records a book read from the database by the load started last
+     * @param isbn - The ISBN of the book
+     */
+    public void loaded(String isbn) {
+        CountingBloomFilter loading = loadingIsbns;
+        if (loading != null) {
+            loading.add(isbn);
+        }
+    }
+
+    /**
+     * Replaces the current filter by the filter loaded since {@link #startLoading()}, which holds all books
+     */
+    public void finishLoading() {
+        CountingBloomFilter loading = loadingIsbns;
+        if (loading != null) {
+            knownIsbns = loading;
+            loadingIsbns = null;
+        }
+        markLoaded();
+    }
+
+    /**
+     * Marks the filter as holding all books, so that ISBNs it does not contain are answered as absent
+     */
+    public void markLoaded() {
+        loaded = enabled;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Empties the filter, which then assumes every ISBN exists until it is loaded again
+     */
+    public void clear() {
+        loaded = false;
+        knownIsbns.clear();
+        removedIsbns.clear();
+        absentIsbns.clear();
+    }
+}
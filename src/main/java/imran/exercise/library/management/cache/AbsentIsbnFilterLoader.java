@@ -0,0 +1,53 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.persistence.LibraryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the ISBNs of all books into the {@link AbsentIsbnFilter} at startup, reading them page by page in
+ * ISBN order into a new filter that replaces the current one once complete, so that requests served while
+ * loading never find a book absent.  Books added while loading are recorded by the filter as they are added.
+ */
+@Component
+public class AbsentIsbnFilterLoader implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AbsentIsbnFilterLoader.class);
+    private static final int PAGE_SIZE = 10_000;
+
+    private final AbsentIsbnFilter absentIsbnFilter;
+    private final LibraryRepository libraryRepository;
+
+    public AbsentIsbnFilterLoader(AbsentIsbnFilter absentIsbnFilter, LibraryRepository libraryRepository) {
+        this.absentIsbnFilter = absentIsbnFilter;
+        this.libraryRepository = libraryRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        long loadedIsbns = 0;
+        String lastIsbn = "";
+        List<String> page;
+        absentIsbnFilter.startLoading();
+        do {
+            page = libraryRepository.findIsbnsAfter(lastIsbn, Limit.of(PAGE_SIZE));
+            page.forEach(absentIsbnFilter::loaded);
+            loadedIsbns += page.size();
+            if (!page.isEmpty()) {
+                lastIsbn = page.get(page.size() - 1);
+            }
+        } while (page.size() == PAGE_SIZE);
+        absentIsbnFilter.finishLoading();
+
+        log.info("Absent ISBN filter loaded {} ISBNs in {} ms",
+            loadedIsbns, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
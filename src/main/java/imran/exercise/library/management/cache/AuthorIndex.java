@@ -0,0 +1,164 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.dto.Book;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * A secondary index from an author to the ISBNs of the author's cached books.
+ * <p>
+ * An author is only indexed once all the author's books have been cached, so a lookup either returns
+ * every book by the author or nothing.  Books put in the cache are added to their author's index.  A
+ * removed, evicted or expired book drops its author from the index, so the author's books are loaded
+ * again.  Caches that do not report evictions have them detected on lookup instead.
+ * <p>
+ * The index holds at most a maximum number of authors, including authors without books, dropping an
+ * arbitrary other author when it is full, so it stays bounded however many distinct authors are queried.
+ * <p>
+ * Every put or remove advances a stamp for the author, which is used to discard an author's books
+ * loaded concurrently with a change to them.
+ */
+class AuthorIndex {
+
+    private static final int STRIPES = 64;
+    static final long DEFAULT_MAXIMUM_AUTHORS = 100_000;
+
+    private final ConcurrentHashMap<String, Set<String>> isbnsByAuthor = new ConcurrentHashMap<>();
+    private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+    private final long maximumAuthors;
+
+    AuthorIndex() {
+        this(DEFAULT_MAXIMUM_AUTHORS);
+    }
+
+    /**
+     * @param maximumAuthors - The maximum number of indexed authors
+     */
+    AuthorIndex(long maximumAuthors) {
+        this.maximumAuthors = Math.max(1, maximumAuthors);
+    }
+
+    long stamp(String author) {
+        return stamps.get(stripe(author));
+    }
+
+    void beforePut(Book book) {
+        if (book.author() != null) {
+            stamps.incrementAndGet(stripe(book.author()));
+        }
+    }
+
+    void afterPut(Book previous, Book book) {
+        if (previous != null && !Objects.equals(previous.author(), book.author())) {
+            invalidate(previous.author());
+        }
+        Set<String> isbns = book.author() == null ? null : isbnsByAuthor.get(book.author());
+        if (isbns != null) {
+            isbns.add(book.isbn());
+        }
+    }
+
+    void afterRemove(Book removed) {
+        if (removed == null) {
+            for (int i = 0; i < STRIPES; i++) {
+                stamps.incrementAndGet(i);
+            }
+        } else if (removed.author() != null) {
+            stamps.incrementAndGet(stripe(removed.author()));
+            invalidate(removed.author());
+        }
+    }
+
+    /**
+     * Drops the author of a book evicted or expired from the cache, as the author's books are no longer all cached
+     */
+    void afterEvict(Book evicted) {
+        if (evicted != null) {
+            invalidate(evicted.author());
+        }
+    }
+
+    List<Book> lookup(String author, Function<String, Book> cachedBook) {
+        Set<String> isbns = isbnsByAuthor.get(author);
+        if (isbns == null) {
+            return null;
+        }
+
+        List<Book> books = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            Book book = cachedBook.apply(isbn);
+            if (book == null) {
+                isbnsByAuthor.remove(author, isbns);
+                return null;
+            }
+            if (author.equals(book.author())) {
+                books.add(book);
+            }
+        }
+        return books;
+    }
+
+    boolean index(String author, List<Book> books, long stamp, BookCache cache) {
+        if (stamp(author) != stamp) {
+            return false;
+        }
+
+        List<Book> added = new ArrayList<>(books.size());
+        Set<String> isbns = new ConcurrentSkipListSet<>();
+        for (Book book : books) {
+            if (cache.putIfAbsent(book.isbn(), book) == null) {
+                added.add(book);
+            }
+            isbns.add(book.isbn());
+        }
+        isbnsByAuthor.put(author, isbns);
+        trim(author);
+
+        if (stamp(author) != stamp) {
+            isbnsByAuthor.remove(author, isbns);
+            added.forEach(book -> cache.remove(book.isbn(), book));
+            return false;
+        }
+        return true;
+    }
+
+    void clear() {
+        isbnsByAuthor.clear();
+    }
+
+    /**
+     * @return The number of indexed authors
+     */
+    int size() {
+        return isbnsByAuthor.size();
+    }
+
+    private void trim(String indexedAuthor) {
+        Iterator<String> authors = isbnsByAuthor.keySet().iterator();
+        while (isbnsByAuthor.size() > maximumAuthors && authors.hasNext()) {
+            String author = authors.next();
+            if (!author.equals(indexedAuthor)) {
+                authors.remove();
+            }
+        }
+    }
+
+    private void invalidate(String author) {
+        if (author != null) {
+            isbnsByAuthor.remove(author);
+        }
+    }
+
+    private static int stripe(String author) {
+        int hash = author.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,119 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.dto.Book;
+
+import java.util.List;
+
+public interface BookCache {
+
+    /**
+     * Caches a book by its ISBN
+     * @param isbn - The ISBN of the book
+     * @param value - The book to be cached
+     * @return The previously cached book, or null
+     */
+    Book put(String isbn, Book value);
+
+    /**
+     * Caches a book by its ISBN, unless a book is already cached for the ISBN
+     * @param isbn - The ISBN of the book
+     * @param value - The book to be cached
+     * @return The already cached book, or null when the given book was cached
+     */
+    Book putIfAbsent(String isbn, Book value);
+
+    /**
+     * Caches a book by its ISBN, unless the same or a newer version of the book is already cached
+     * @param isbn - The ISBN of the book
+     * @param value - The book to be cached
+     * @param version - The version of the book in the database
+     * @return true if the book was cached
+     */
+    boolean putIfNewer(String isbn, Book value, long version);
+
+    /**
+     * Returns the current removal stamp of an ISBN, to be taken before the book is read from the database
+     * @param isbn - The ISBN of the book
+     * @return The stamp to be passed to {@link #putIfNewer(String, Book, long, long)}
+     */
+    long removalStamp(String isbn);
+
+    /**
+     * Caches a book read from the database like {@link #putIfNewer(String, Book, long)}, unless the book was
+     * removed from the cache since the removal stamp was taken
+     * @param isbn - The ISBN of the book
+     * @param value - The book to be cached
+     * @param version - The version of the book in the database
+     * @param removalStamp - The removal stamp of the ISBN taken before the book was read
+     * @return true if the book was cached
+     */
+    boolean putIfNewer(String isbn, Book value, long version, long removalStamp);
+
+    /**
+     * Returns a cached book by its ISBN
+     * @param isbn - The ISBN of the book
+     * @return The cached book, or null when the book is not cached
+     */
+    Book get(String isbn);
+
+    /**
+     * Returns all the books by a given author, if all of them are cached
+     * @param author - The author of the book(s)
+     * @return The list of books by the given author, or null when the author's books are not all cached
+     */
+    List<Book> getByAuthor(String author);
+
+    /**
+     * Returns the current stamp of an author, to be taken before the author's books are loaded
+     * @param author - The author of the book(s)
+     * @return The stamp to be passed to {@link #putAuthor(String, List, long)}
+     */
+    long authorStamp(String author);
+
+    /**
+     * Caches all the books by a given author, so that they are returned by {@link #getByAuthor(String)}
+     * @param author - The author of the book(s)
+     * @param books - All the books by the author
+     * @param stamp - The stamp of the author taken before the books were loaded
+     * @return true if the books were cached, false when the author's books changed since the stamp was taken
+     */
+    boolean putAuthor(String author, List<Book> books, long stamp);
+
+    /**
+     * Returns all cached books
+     * @return The list of cached books
+     */
+    List<Book> getAll();
+
+    /**
+     * Removes a book from the cache by its ISBN
+     * @param isbn - The ISBN of the book
+     * @return The removed book, or null
+     */
+    Book remove(String isbn);
+
+    /**
+     * Removes a book from the cache by its ISBN, only if the given book is cached
+     * @param isbn - The ISBN of the book
+     * @param value - The book expected to be cached
+     * @return true if the book was removed
+     */
+    boolean remove(String isbn, Book value);
+
+    /**
+     * Removes all books from the cache
+     */
+    void clear();
+
+    /**
+     * Returns the number of cached books
+     * @return The number of cached books
+     */
+    long size();
+
+    /**
+     * Returns the hit, miss and eviction counters of this cache
+     * @return The cache statistics
+     */
+    CacheStats stats();
+}
@@ -0,0 +1,28 @@
+package imran.exercise.library.management.cache;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(BookCacheProperties.class)
+public class BookCacheConfiguration {
+
+    @Bean
+    public BookCache bookCache(BookCacheProperties properties) {
+        return switch (properties.type()) {
+            case SIMPLE -> new SimpleNoExpiryCache();
+            case OFF_HEAP -> new OffHeapBookCache();
+            case BOUNDED -> new BoundedBookCache(
+                properties.maximumSize(),
+                properties.maximumWeight(),
+                properties.expireAfterWrite(),
+                properties.expireAfterAccess());
+        };
+    }
+
+    @Bean
+    public AbsentIsbnFilter absentIsbnFilter(BookCacheProperties properties) {
+        return new AbsentIsbnFilter(properties.negative());
+    }
+}
@@ -0,0 +1,48 @@
+package imran.exercise.library.management.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the book cache statistics: hits and misses as {@code library.cache.gets} tagged by result,
+ * evictions, the number of cached books and the hit ratio.
+ */
+@Component
+public class BookCacheMetrics implements MeterBinder {
+
+    private final BookCache cache;
+
+    public BookCacheMetrics(BookCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("library.cache.gets", cache, c -> c.stats().hitCount())
+            .tag("result", "hit")
+            .description("The number of cache lookups that found a book")
+            .register(registry);
+        FunctionCounter.builder("library.cache.gets", cache, c -> c.stats().missCount())
+            .tag("result", "miss")
+            .description("The number of cache lookups that did not find a book")
+            .register(registry);
+        FunctionCounter.builder("library.cache.evictions", cache, c -> c.stats().evictionCount())
+            .description("The number of books evicted or expired from the cache")
+            .register(registry);
+        Gauge.builder("library.cache.size", cache, BookCache::size)
+            .description("The number of cached books")
+            .register(registry);
+        Gauge.builder("library.cache.hit.ratio", cache, c -> c.stats().hitRate())
+            .description("The ratio of cache lookups that found a book")
+            .register(registry);
+        if (cache instanceof OffHeapBookCache offHeapCache) {
+            Gauge.builder("library.cache.off.heap.bytes", offHeapCache, OffHeapBookCache::offHeapBytes)
+                .description("The off-heap memory allocated by the cache")
+                .baseUnit("bytes")
+                .register(registry);
+        }
+    }
+}
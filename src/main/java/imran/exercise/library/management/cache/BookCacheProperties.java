@@ -0,0 +1,74 @@
+package imran.exercise.library.management.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param type - The cache engine, either a bounded W-TinyLFU cache, a simple cache that never evicts or an off-heap
+ *             cache that never evicts
+ * @param maximumSize - The maximum number of cached books of the bounded cache
+ * @param maximumWeight - The maximum total weight (estimated bytes) of the bounded cache, or 0 for no limit
+ * @param expireAfterWrite - The time after which a book expires once cached, or null for no expiry
+ * @param expireAfterAccess - The time after which a book expires once last read, or null for no expiry
+ * @param warmup - The loading of the cache from the database at startup
+ * @param negative - The in-memory answering of lookups of ISBNs that are not in the library
+ */
+@ConfigurationProperties(prefix = "library.cache")
+public record BookCacheProperties(
+    @DefaultValue("bounded") Type type,
+    @DefaultValue("100000") long maximumSize,
+    @DefaultValue("0") long maximumWeight,
+    Duration expireAfterWrite,
+    Duration expireAfterAccess,
+    @DefaultValue Warmup warmup,
+    @DefaultValue Negative negative) {
+
+    public enum Type {
+        SIMPLE, BOUNDED, OFF_HEAP
+    }
+
+    /**
+     * @param enabled - Whether the cache is loaded from the database at startup
+     * @param pageSize - The number of books read from the database per page
+     * @param parallelism - The number of threads caching the pages read from the database
+     * @param maximumEntries - The maximum number of books loaded, or 0 for up to the maximum size of the cache
+     * @param readinessGate - Whether the application only reports it is ready once the warm-up completed
+     * @param readinessTimeout - The maximum time the readiness of the application waits for the warm-up
+     */
+    public record Warmup(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("1000") int pageSize,
+        @DefaultValue("4") int parallelism,
+        @DefaultValue("0") long maximumEntries,
+        @DefaultValue("true") boolean readinessGate,
+        @DefaultValue("5m") Duration readinessTimeout) {
+    }
+
+    /**
+     * @param enabled - Whether lookups of absent ISBNs are answered without reading the database
+     * @param expectedBooks - The number of books the Bloom filter of known ISBNs is sized for
+     * @param falsePositiveProbability - The probability of the Bloom filter wrongly reporting an ISBN as known
+     *                                 when it holds the expected number of books
+     * @param ttl - The time an ISBN not found in the database is remembered as absent, or 0 to not remember it
+     * @param maximumSize - The maximum number of ISBNs remembered as absent
+     */
+    public record Negative(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("1000000") long expectedBooks,
+        @DefaultValue("0.01") double falsePositiveProbability,
+        @DefaultValue("10s") Duration ttl,
+        @DefaultValue("10000") int maximumSize) {
+    }
+
+    /**
+     * Returns the maximum number of books loaded by the warm-up
+     */
+    public long warmupMaximumEntries() {
+        if (warmup.maximumEntries() > 0) {
+            return warmup.maximumEntries();
+        }
+        return type == Type.BOUNDED ? maximumSize : Long.MAX_VALUE;
+    }
+}
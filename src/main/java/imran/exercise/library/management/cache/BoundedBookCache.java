@@ -0,0 +1,515 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.dto.Book;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * A bounded cache with a W-TinyLFU eviction policy.  New books enter a small LRU window and are
+ * then admitted into the main segmented LRU (probation and protected) only if they were accessed
+ * more often than the entry they would evict, as estimated by a {@link FrequencySketch}.
+ * <p>
+ * Lookups never block: accesses are recorded in a lossy buffer that is replayed against the
+ * policy under a lock, together with writes, expiration and eviction.
+ */
+public class BoundedBookCache implements BookCache {
+
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int EXPIRY_SCAN_LIMIT = 32;
+    private static final long UNVERSIONED = Long.MIN_VALUE;
+
+    private final ConcurrentHashMap<String, Node> data = new ConcurrentHashMap<>();
+    private final AuthorIndex authorIndex;
+    private final RemovalStamps removalStamps = new RemovalStamps();
+    private final Queue<Node> readBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger readBufferSize = new AtomicInteger();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final long maximumSize;
+    private final long maximumWeight;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final ToIntFunction<Book> weigher;
+    private final LongSupplier ticker;
+
+    // guarded by evictionLock
+    private final FrequencySketch sketch;
+    private final AccessOrderDeque window = new AccessOrderDeque();
+    private final AccessOrderDeque probation = new AccessOrderDeque();
+    private final AccessOrderDeque protectedSegment = new AccessOrderDeque();
+    private final long windowMaximum;
+    private final long protectedMaximum;
+
+    /**
+     * @param maximumSize - The maximum number of cached books
+     * @param maximumWeight - The maximum total weight (estimated bytes) of cached books, or 0 for no limit
+     * @param expireAfterWrite - The time after which a book expires once cached, or null for no expiry
+     * @param expireAfterAccess - The time after which a book expires once last read, or null for no expiry
+     */
+    public BoundedBookCache(long maximumSize, long maximumWeight, Duration expireAfterWrite, Duration expireAfterAccess) {
+        this(maximumSize, maximumWeight, expireAfterWrite, expireAfterAccess, BoundedBookCache::estimateWeight, System::nanoTime);
+    }
+
+    BoundedBookCache(long maximumSize, long maximumWeight, Duration expireAfterWrite, Duration expireAfterAccess,
+                     ToIntFunction<Book> weigher, LongSupplier ticker) {
+        if (maximumSize <= 0 || maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumSize must be positive and maximumWeight must not be negative");
+        }
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+        this.expireAfterWriteNanos = expireAfterWrite == null ? Long.MAX_VALUE : expireAfterWrite.toNanos();
+        this.expireAfterAccessNanos = expireAfterAccess == null ? Long.MAX_VALUE : expireAfterAccess.toNanos();
+        this.weigher = weigher;
+        this.ticker = ticker;
+        this.authorIndex = new AuthorIndex(maximumSize);
+        this.sketch = new FrequencySketch(maximumSize);
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (maximumSize - windowMaximum) * 80 / 100;
+    }
+
+    /**
+     * Estimates the number of bytes retained by a cached book, including its strings and cache node
+     */
+    static int estimateWeight(Book book) {
+        return 160 + length(book.isbn()) + length(book.title()) + length(book.author());
+    }
+
+    @Override
+    public Book put(String isbn, Book value) {
+        Objects.requireNonNull(isbn);
+        Node node = new Node(isbn, value, UNVERSIONED, weigher.applyAsInt(value), ticker.getAsLong());
+        authorIndex.beforePut(value);
+        Node previous = data.put(isbn, node);
+        afterWrite(node, previous);
+
+        Book previousValue = previous == null || hasExpired(previous, node.writeTime) ? null : previous.value;
+        authorIndex.afterPut(previousValue, value);
+        return previousValue;
+    }
+
+    @Override
+    public Book putIfAbsent(String isbn, Book value) {
+        Objects.requireNonNull(isbn);
+        Node node = new Node(isbn, value, UNVERSIONED, weigher.applyAsInt(value), ticker.getAsLong());
+        while (true) {
+            Node existing = data.putIfAbsent(isbn, node);
+            if (existing != null && !hasExpired(existing, node.writeTime)) {
+                return existing.value;
+            }
+            if (existing == null || data.replace(isbn, existing, node)) {
+                afterWrite(node, existing);
+                authorIndex.afterPut(null, value);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public boolean putIfNewer(String isbn, Book value, long version) {
+        Objects.requireNonNull(isbn);
+        Node node = new Node(isbn, value, version, weigher.applyAsInt(value), ticker.getAsLong());
+        while (true) {
+            Node existing = data.get(isbn);
+            boolean live = existing != null && !hasExpired(existing, node.writeTime);
+            if (live && existing.version >= version) {
+                return false;
+            }
+            if (existing == null ? data.putIfAbsent(isbn, node) == null : data.replace(isbn, existing, node)) {
+                afterWrite(node, existing);
+                authorIndex.afterPut(live ? existing.value : null, value);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long removalStamp(String isbn) {
+        Objects.requireNonNull(isbn);
+        return removalStamps.stamp(isbn);
+    }
+
+    @Override
+    public boolean putIfNewer(String isbn, Book value, long version, long removalStamp) {
+        return removalStamps.putIfNewer(isbn, value, version, removalStamp, this);
+    }
+
+    @Override
+    public Book get(String isbn) {
+        Objects.requireNonNull(isbn);
+        Node node = data.get(isbn);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+
+        long now = ticker.getAsLong();
+        if (hasExpired(node, now)) {
+            misses.increment();
+            if (removeNode(node)) {
+                authorIndex.afterEvict(node.value);
+            }
+            return null;
+        }
+
+        node.accessTime = now;
+        hits.increment();
+        afterRead(node);
+        return node.value;
+    }
+
+    @Override
+    public List<Book> getByAuthor(String author) {
+        Objects.requireNonNull(author);
+        return authorIndex.lookup(author, this::lookup);
+    }
+
+    @Override
+    public long authorStamp(String author) {
+        Objects.requireNonNull(author);
+        return authorIndex.stamp(author);
+    }
+
+    @Override
+    public boolean putAuthor(String author, List<Book> books, long stamp) {
+        Objects.requireNonNull(author);
+        return authorIndex.index(author, books, stamp, this);
+    }
+
+    @Override
+    public List<Book> getAll() {
+        long now = ticker.getAsLong();
+        List<Book> books = new ArrayList<>(data.size());
+        for (Node node : data.values()) {
+            if (!hasExpired(node, now)) {
+                books.add(node.value);
+            }
+        }
+        return books;
+    }
+
+    @Override
+    public Book remove(String isbn) {
+        Objects.requireNonNull(isbn);
+        removalStamps.beforeRemove(isbn);
+        Node node = data.get(isbn);
+        if (node == null || !removeNode(node)) {
+            authorIndex.afterRemove(null);
+            return null;
+        }
+        authorIndex.afterRemove(node.value);
+        return hasExpired(node, ticker.getAsLong()) ? null : node.value;
+    }
+
+    @Override
+    public boolean remove(String isbn, Book value) {
+        Objects.requireNonNull(isbn);
+        Node node = data.get(isbn);
+        if (node == null || !Objects.equals(node.value, value) || !removeNode(node)) {
+            return false;
+        }
+        authorIndex.afterRemove(value);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        removalStamps.beforeClear();
+        evictionLock.lock();
+        try {
+            data.clear();
+            authorIndex.clear();
+            readBuffer.clear();
+            readBufferSize.set(0);
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public long size() {
+        return data.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * Returns the number of authors whose books are all cached
+     */
+    int indexedAuthors() {
+        return authorIndex.size();
+    }
+
+    /**
+     * Returns the total weight of the books currently held by the eviction policy
+     */
+    long weightedSize() {
+        evictionLock.lock();
+        try {
+            return window.weight + probation.weight + protectedSegment.weight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void afterWrite(Node node, Node previous) {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            if (previous != null) {
+                unlink(previous);
+            }
+            if (data.get(node.key) == node) {
+                sketch.increment(node.key);
+                window.addLast(node);
+            }
+            expireEntries(node.writeTime);
+            evictEntries();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private Book lookup(String isbn) {
+        Node node = data.get(isbn);
+        if (node == null) {
+            return null;
+        }
+        long now = ticker.getAsLong();
+        if (hasExpired(node, now)) {
+            removeNode(node);
+            return null;
+        }
+        node.accessTime = now;
+        afterRead(node);
+        return node.value;
+    }
+
+    private void afterRead(Node node) {
+        if (readBufferSize.get() < READ_BUFFER_SIZE) {
+            readBufferSize.incrementAndGet();
+            readBuffer.offer(node);
+        }
+        if (readBufferSize.get() >= READ_BUFFER_SIZE / 2 && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private boolean removeNode(Node node) {
+        if (!data.remove(node.key, node)) {
+            return false;
+        }
+        evictionLock.lock();
+        try {
+            unlink(node);
+        } finally {
+            evictionLock.unlock();
+        }
+        return true;
+    }
+
+    private void drainReadBuffer() {
+        Node node;
+        while ((node = readBuffer.poll()) != null) {
+            readBufferSize.decrementAndGet();
+            if (node.queue != null) {
+                onAccess(node);
+            }
+        }
+    }
+
+    private void onAccess(Node node) {
+        sketch.increment(node.key);
+        if (node.queue == probation) {
+            probation.remove(node);
+            protectedSegment.addLast(node);
+            while (protectedSegment.size > protectedMaximum) {
+                Node demoted = protectedSegment.head;
+                protectedSegment.remove(demoted);
+                probation.addLast(demoted);
+            }
+        } else {
+            node.queue.moveToLast(node);
+        }
+    }
+
+    private void expireEntries(long now) {
+        for (AccessOrderDeque queue : List.of(window, probation, protectedSegment)) {
+            Node node = queue.head;
+            for (int i = 0; i < EXPIRY_SCAN_LIMIT && node != null; i++) {
+                Node next = node.next;
+                if (hasExpired(node, now) && data.remove(node.key, node)) {
+                    unlink(node);
+                    authorIndex.afterEvict(node.value);
+                }
+                node = next;
+            }
+        }
+    }
+
+    private void evictEntries() {
+        Node candidate = null;
+        while (window.size > windowMaximum) {
+            Node node = window.head;
+            window.remove(node);
+            probation.addLast(node);
+            if (candidate == null) {
+                candidate = node;
+            }
+        }
+
+        while (isOverCapacity()) {
+            Node victim = probation.head != null ? probation.head
+                : protectedSegment.head != null ? protectedSegment.head
+                : window.head;
+
+            if (candidate != null && candidate != victim && victim.queue == probation
+                && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                Node next = candidate.next;
+                evict(candidate);
+                candidate = next;
+            } else {
+                if (victim == candidate) {
+                    candidate = candidate.next;
+                }
+                evict(victim);
+            }
+        }
+    }
+
+    private boolean isOverCapacity() {
+        long size = window.size + probation.size + protectedSegment.size;
+        long weight = window.weight + probation.weight + protectedSegment.weight;
+        return size > maximumSize || (maximumWeight > 0 && weight > maximumWeight);
+    }
+
+    private void evict(Node node) {
+        unlink(node);
+        if (data.remove(node.key, node)) {
+            evictions.increment();
+            authorIndex.afterEvict(node.value);
+        }
+    }
+
+    private void unlink(Node node) {
+        if (node.queue != null) {
+            node.queue.remove(node);
+        }
+    }
+
+    private boolean hasExpired(Node node, long now) {
+        return now - node.writeTime >= expireAfterWriteNanos || now - node.accessTime >= expireAfterAccessNanos;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static final class Node {
+        private final String key;
+        private final Book value;
+        private final long version;
+        private final int weight;
+        private final long writeTime;
+        private volatile long accessTime;
+
+        // guarded by evictionLock
+        private AccessOrderDeque queue;
+        private Node prev;
+        private Node next;
+
+        private Node(String key, Book value, long version, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.version = version;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    private static final class AccessOrderDeque {
+        private Node head;
+        private Node tail;
+        private long size;
+        private long weight;
+
+        private void addLast(Node node) {
+            node.queue = this;
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            size++;
+            weight += node.weight;
+        }
+
+        private void remove(Node node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.queue = null;
+            node.prev = null;
+            node.next = null;
+            size--;
+            weight -= node.weight;
+        }
+
+        private void moveToLast(Node node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+
+        private void clear() {
+            Node node = head;
+            while (node != null) {
+                Node next = node.next;
+                node.queue = null;
+                node.prev = null;
+                node.next = null;
+                node = next;
+            }
+            head = null;
+            tail = null;
+            size = 0;
+            weight = 0;
+        }
+    }
+}
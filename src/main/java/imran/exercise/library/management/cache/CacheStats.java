@@ -0,0 +1,9 @@
+package imran.exercise.library.management.cache;
+
+public record CacheStats(long hitCount, long missCount, long evictionCount) {
+
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+}
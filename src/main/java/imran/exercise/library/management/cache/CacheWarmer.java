@@ -0,0 +1,177 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loads the cache from the database at startup, when enabled by {@code library.cache.warmup.enabled}.
+ * <p>
+ * The ISBNs are read page by page in ISBN order from the primary key index, and the books of each page,
+ * a range of ISBNs, are read and cached by a pool of threads while the next page of ISBNs is read.  The
+ * removal stamps of a page are taken before its books are read, so a book removed meanwhile is not cached.  With the readiness gate enabled the application runner waits for the warm-up,
+ * and Spring Boot only reports the application ready to accept traffic once all runners completed.
+ * <p>
+ * The books and pages loaded are counted by {@code library.cache.warmup.books} and
+ * {@code library.cache.warmup.pages}, and {@code library.cache.warmup.state} is 1 for the state the warm-up
+ * ended in, complete or failed.
+ */
+@Component
+public class CacheWarmer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final BookCache cache;
+    private final LibraryRepository libraryRepository;
+    private final BookCacheProperties.Warmup properties;
+    private final long maximumEntries;
+
+    private final AtomicLong loadedBooks = new AtomicLong();
+    private final AtomicLong loadedPages = new AtomicLong();
+    private volatile boolean complete;
+    private volatile boolean failed;
+
+    public CacheWarmer(
+        BookCache cache, LibraryRepository libraryRepository, BookCacheProperties properties, MeterRegistry registry) {
+        this.cache = cache;
+        this.libraryRepository = libraryRepository;
+        this.properties = properties.warmup();
+        this.maximumEntries = properties.warmupMaximumEntries();
+
+        FunctionCounter.builder("library.cache.warmup.books", loadedBooks, AtomicLong::get)
+            .description("The books loaded into the cache by the warm-up")
+            .register(registry);
+        FunctionCounter.builder("library.cache.warmup.pages", loadedPages, AtomicLong::get)
+            .description("The pages of books loaded into the cache by the warm-up")
+            .register(registry);
+        Gauge.builder("library.cache.warmup.state", this, warmer -> warmer.complete ? 1 : 0)
+            .description("Whether the warm-up ended in this state")
+            .tag("state", "complete")
+            .register(registry);
+        Gauge.builder("library.cache.warmup.state", this, warmer -> warmer.failed ? 1 : 0)
+            .description("Whether the warm-up ended in this state")
+            .tag("state", "failed")
+            .register(registry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!properties.enabled()) {
+            return;
+        }
+
+        Thread warmup = new Thread(this::warmUp, "book-cache-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+
+        if (properties.readinessGate()) {
+            warmup.join(properties.readinessTimeout().toMillis());
+            if (!complete && !failed) {
+                log.warn("Book cache warm-up did not complete within {}, {} books loaded so far",
+                    properties.readinessTimeout(), loadedBooks.get());
+            }
+        }
+    }
+
+    public long loadedBooks() {
+        return loadedBooks.get();
+    }
+
+    public long loadedPages() {
+        return loadedPages.get();
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    void warmUp() {
+        long start = System.nanoTime();
+        int permits = properties.parallelism() * 2;
+        Semaphore pagesInFlight = new Semaphore(permits);
+        ExecutorService executor = Executors.newFixedThreadPool(properties.parallelism());
+        AtomicReference<RuntimeException> pageFailure = new AtomicReference<>();
+        try {
+            String lastIsbn = "";
+            long remaining = maximumEntries;
+            while (remaining > 0) {
+                int limit = (int) Math.min(properties.pageSize(), remaining);
+                List<String> page = libraryRepository.findIsbnsAfter(lastIsbn, Limit.of(limit));
+                if (page.isEmpty()) {
+                    break;
+                }
+                lastIsbn = page.get(page.size() - 1);
+                remaining -= page.size();
+
+                pagesInFlight.acquire();
+                executor.execute(() -> {
+                    try {
+                        cachePage(page);
+                    } catch (RuntimeException e) {
+                        pageFailure.compareAndSet(null, e);
+                    } finally {
+                        pagesInFlight.release();
+                    }
+                });
+
+                if (page.size() < limit) {
+                    break;
+                }
+            }
+            pagesInFlight.acquire(permits);
+            if (pageFailure.get() != null) {
+                throw pageFailure.get();
+            }
+            complete = true;
+            log.info("Book cache warm-up loaded {} books in {} pages in {} ms",
+                loadedBooks.get(), loadedPages.get(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            failed = true;
+            log.error("Book cache warm-up failed after loading {} books", loadedBooks.get(), e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Reads the books of a page of ISBNs and caches them, unless they were removed since the page was read
+     */
+    private void cachePage(List<String> page) {
+        Map<String, Long> removalStamps = new HashMap<>();
+        page.forEach(isbn -> removalStamps.put(isbn, cache.removalStamp(isbn)));
+        List<VersionedBook> books = libraryRepository.findVersionedBooks(page);
+        for (VersionedBook versionedBook : books) {
+            String isbn = versionedBook.book().isbn();
+            cache.putIfNewer(isbn, versionedBook.book(), versionedBook.version(), removalStamps.get(isbn));
+        }
+        loadedBooks.addAndGet(books.size());
+        long pages = loadedPages.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("Book cache warm-up loaded {} pages, {} books", pages, loadedBooks.get());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package imran.exercise.library.management.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counting Bloom filter of 4-bit counters, sized for an expected number of keys and false positive
+ * probability.  Unlike a plain Bloom filter, keys can be removed: a counter is decremented unless it
+ * saturated at 15, in which case it stays set and only adds false positives.  A key must only be
+ * removed once for each time it was added.  This class is thread-safe.
+ */
+class CountingBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long COUNTER_MASK = 0xfL;
+
+    private final AtomicLongArray table;
+    private final long counters;
+    private final int hashes;
+
+    CountingBloomFilter(long expectedKeys, double falsePositiveProbability) {
+        long keys = Math.max(expectedKeys, 1);
+        long bits = (long) Math.ceil(-keys * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        long words = Math.min(Math.max((bits + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD, 1), Integer.MAX_VALUE - 8);
+        table = new AtomicLongArray((int) words);
+        counters = words * COUNTERS_PER_WORD;
+        hashes = (int) Math.max(1, Math.min(16, Math.round((double) counters / keys * Math.log(2))));
+    }
+
+    void add(String key) {
+        long hash = hash(key);
+        for (int i = 0; i < hashes; i++) {
+            increment(index(hash, i));
+        }
+    }
+
+    void remove(String key) {
+        long hash = hash(key);
+        for (int i = 0; i < hashes; i++) {
+            decrement(index(hash, i));
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        for (int i = 0; i < hashes; i++) {
+            if (count(index(hash, i)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void clear() {
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, 0);
+        }
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    private int count(long index) {
+        int offset = offset(index);
+        return (int) ((table.get(word(index)) >>> offset) & COUNTER_MASK);
+    }
+
+    private void increment(long index) {
+        int word = word(index);
+        int offset = offset(index);
+        long current;
+        do {
+            current = table.get(word);
+            if (((current >>> offset) & COUNTER_MASK) == COUNTER_MASK) {
+                return;
+            }
+        } while (!table.compareAndSet(word, current, current + (1L << offset)));
+    }
+
+    private void decrement(long index) {
+        int word = word(index);
+        int offset = offset(index);
+        long current;
+        do {
+            current = table.get(word);
+            long count = (current >>> offset) & COUNTER_MASK;
+            if (count == 0 || count == COUNTER_MASK) {
+                return;
+            }
+        } while (!table.compareAndSet(word, current, current - (1L << offset)));
+    }
+
+    /**
+     * Derives the i-th counter from two halves of a 64-bit hash (Kirsch-Mitzenmacher double hashing)
+     */
+    private long index(long hash, int i) {
+        long combined = (int) hash + (long) i * (int) (hash >>> 32);
+        return Long.remainderUnsigned(combined, counters);
+    }
+
+    private static int word(long index) {
+        return (int) (index / COUNTERS_PER_WORD);
+    }
+
+    private static int offset(long index) {
+        return (int) (index % COUNTERS_PER_WORD) << 2;
+    }
+
+    private static long hash(String key) {
+        long h = 0x9e3779b97f4a7c15L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0xbf58476d1ce4e5b9L;
+        }
+        h ^= h >>> 31;
+        h *= 0x94d049bb133111ebL;
+        return h ^ (h >>> 29);
+    }
+}
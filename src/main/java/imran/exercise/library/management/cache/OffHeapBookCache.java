@@ -0,0 +1,593 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.dto.Book;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A cache that never evicts and keeps the books off the Java heap, so a catalogue of tens of millions of
+ * books does not fill the old generation and lengthen the pauses of the garbage collector.
+ * <p>
+ * Books are encoded into direct byte buffers: an ISBN-13 is stored as a long key instead of a string, the
+ * title and author as UTF-8 bytes and the publication year and available copies as ints.  A {@link Book}
+ * is only materialized when read.  Any other ISBN is keyed by a 64-bit hash and stored as UTF-8 bytes.
+ * <p>
+ * The cache is split into segments guarded by a read-write lock, each with an open addressing table of
+ * keys and record offsets and an append-only record area.  The records of replaced and removed books are
+ * reclaimed when the record area of their segment is compacted as it grows.
+ */
+public class OffHeapBookCache implements BookCache {
+
+    private static final int SEGMENTS = 64;
+    private static final long UNVERSIONED = Long.MIN_VALUE;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final AuthorIndex authorIndex = new AuthorIndex();
+    private final RemovalStamps removalStamps = new RemovalStamps();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public OffHeapBookCache() {
+        Arrays.setAll(segments, i -> new Segment());
+    }
+
+    @Override
+    public Book put(String isbn, Book value) {
+        long key = key(isbn, value);
+        Segment segment = segment(key);
+        authorIndex.beforePut(value);
+        Book previous;
+        segment.lock.writeLock().lock();
+        try {
+            int slot = segment.find(key, isbn);
+            previous = slot >= 0 ? segment.book(slot, isbn) : null;
+            segment.write(slot, key, isbn, value, UNVERSIONED);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+        authorIndex.afterPut(previous, value);
+        return previous;
+    }
+
+    @Override
+    public Book putIfAbsent(String isbn, Book value) {
+        long key = key(isbn, value);
+        Segment segment = segment(key);
+        segment.lock.writeLock().lock();
+        try {
+            int slot = segment.find(key, isbn);
+            if (slot >= 0) {
+                return segment.book(slot, isbn);
+            }
+            segment.write(slot, key, isbn, value, UNVERSIONED);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+        authorIndex.afterPut(null, value);
+        return null;
+    }
+
+    @Override
+    public boolean putIfNewer(String isbn, Book value, long version) {
+        long key = key(isbn, value);
+        Segment segment = segment(key);
+        Book previous;
+        segment.lock.writeLock().lock();
+        try {
+            int slot = segment.find(key, isbn);
+            if (slot >= 0 && segment.version(slot) >= version) {
+                return false;
+            }
+            previous = slot >= 0 ? segment.book(slot, isbn) : null;
+            segment.write(slot, key, isbn, value, version);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+        authorIndex.afterPut(previous, value);
+        return true;
+    }
+
+    @Override
+    public long removalStamp(String isbn) {
+        Objects.requireNonNull(isbn);
+        return removalStamps.stamp(isbn);
+    }
+
+    @Override
+    public boolean putIfNewer(String isbn, Book value, long version, long removalStamp) {
+        return removalStamps.putIfNewer(isbn, value, version, removalStamp, this);
+    }
+
+    @Override
+    public Book get(String isbn) {
+        Book book = read(isbn);
+        (book == null ? misses : hits).increment();
+        return book;
+    }
+
+    @Override
+    public List<Book> getByAuthor(String author) {
+        Objects.requireNonNull(author);
+        return authorIndex.lookup(author, this::read);
+    }
+
+    @Override
+    public long authorStamp(String author) {
+        Objects.requireNonNull(author);
+        return authorIndex.stamp(author);
+    }
+
+    @Override
+    public boolean putAuthor(String author, List<Book> books, long stamp) {
+        Objects.requireNonNull(author);
+        return authorIndex.index(author, books, stamp, this);
+    }
+
+    @Override
+    public List<Book> getAll() {
+        List<Book> books = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.lock.readLock().lock();
+            try {
+                for (int slot = 0; slot < segment.capacity; slot++) {
+                    if (segment.offsets.get(slot) > 0) {
+                        books.add(segment.book(slot));
+                    }
+                }
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        return books;
+    }
+
+    @Override
+    public Book remove(String isbn) {
+        long key = key(isbn);
+        removalStamps.beforeRemove(isbn);
+        Segment segment = segment(key);
+        Book removed = null;
+        segment.lock.writeLock().lock();
+        try {
+            int slot = segment.find(key, isbn);
+            if (slot >= 0) {
+                removed = segment.book(slot, isbn);
+                segment.delete(slot);
+            }
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+        authorIndex.afterRemove(removed);
+        return removed;
+    }
+
+    @Override
+    public boolean remove(String isbn, Book value) {
+        long key = key(isbn);
+        Segment segment = segment(key);
+        segment.lock.writeLock().lock();
+        try {
+            int slot = segment.find(key, isbn);
+            if (slot < 0 || !Objects.equals(segment.book(slot, isbn), value)) {
+                return false;
+            }
+            segment.delete(slot);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+        authorIndex.afterRemove(value);
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        removalStamps.beforeClear();
+        for (Segment segment : segments) {
+            segment.lock.writeLock().lock();
+            try {
+                segment.reset();
+            } finally {
+                segment.lock.writeLock().unlock();
+            }
+        }
+        authorIndex.clear();
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            segment.lock.readLock().lock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), 0);
+    }
+
+    /**
+     * Returns the off-heap memory allocated by the cache, including free space of its tables and record areas
+     * @return The number of bytes allocated
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            segment.lock.readLock().lock();
+            try {
+                bytes += segment.allocatedBytes();
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        return bytes;
+    }
+
+    private Book read(String isbn) {
+        long key = key(isbn);
+        Segment segment = segment(key);
+        segment.lock.readLock().lock();
+        try {
+            int slot = segment.find(key, isbn);
+            return slot >= 0 ? segment.book(slot, isbn) : null;
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+
+    private Segment segment(long key) {
+        return segments[(int) (spread(key) >>> 58)];
+    }
+
+    private static long key(String isbn, Book value) {
+        if (!isbn.equals(value.isbn())) {
+            throw new IllegalArgumentException("A book must be cached under its own ISBN: " + isbn);
+        }
+        return key(isbn);
+    }
+
+    /**
+     * Returns the ISBN-13 as a (non-negative) number, or a 64-bit FNV-1a hash of any other ISBN with the sign bit set
+     */
+    static long key(String isbn) {
+        if (isbn.length() == 13) {
+            long key = 0;
+            for (int i = 0; i < 13 && key >= 0; i++) {
+                char c = isbn.charAt(i);
+                key = c >= '0' && c <= '9' ? key * 10 + (c - '0') : -1;
+            }
+            if (key >= 0) {
+                return key;
+            }
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < isbn.length(); i++) {
+            hash = (hash ^ isbn.charAt(i)) * 0x100000001b3L;
+        }
+        return hash | Long.MIN_VALUE;
+    }
+
+    private static long spread(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+
+    /**
+     * Records are laid out as the version (long), publication year (int), available copies (int), a byte of
+     * null flags, the lengths of the ISBN, title and author (unsigned shorts) and their UTF-8 bytes.  The ISBN
+     * is only stored when it is not an ISBN-13.
+     */
+    private static final class Segment {
+
+        private static final int INITIAL_CAPACITY = 16;
+        private static final int INITIAL_RECORDS_SIZE = 1024;
+        private static final int MAXIMUM_RECORDS_SIZE = Integer.MAX_VALUE - 8;
+        private static final int EMPTY = 0;
+        private static final int REMOVED = -1;
+        private static final int FIRST_RECORD = 1;
+
+        private static final int VERSION = 0;
+        private static final int PUBLICATION_YEAR = 8;
+        private static final int AVAILABLE_COPIES = 12;
+        private static final int FLAGS = 16;
+        private static final int ISBN_LENGTH = 17;
+        private static final int TITLE_LENGTH = 19;
+        private static final int AUTHOR_LENGTH = 21;
+        private static final int HEADER_SIZE = 23;
+
+        private static final byte NULL_TITLE = 1;
+        private static final byte NULL_AUTHOR = 2;
+        private static final byte NULL_PUBLICATION_YEAR = 4;
+        private static final byte NULL_AVAILABLE_COPIES = 8;
+        private static final byte[] NO_BYTES = new byte[0];
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        // guarded by lock
+        private LongBuffer keys;
+        private IntBuffer offsets;
+        private ByteBuffer records;
+        private int capacity;
+        private int size;
+        private int removed;
+        private int end;
+        private long garbage;
+
+        Segment() {
+            reset();
+        }
+
+        void reset() {
+            allocateTable(INITIAL_CAPACITY);
+            records = ByteBuffer.allocateDirect(INITIAL_RECORDS_SIZE);
+            size = 0;
+            removed = 0;
+            end = FIRST_RECORD;
+            garbage = 0;
+        }
+
+        long allocatedBytes() {
+            return (long) capacity * (Long.BYTES + Integer.BYTES) + records.capacity();
+        }
+
+        /**
+         * Returns the slot of the key, or -(the slot to insert it at) - 1 when absent
+         */
+        int find(long key, String isbn) {
+            int mask = capacity - 1;
+            int slot = (int) spread(key) & mask;
+            int insertAt = -1;
+            while (true) {
+                int offset = offsets.get(slot);
+                if (offset == EMPTY) {
+                    return -(insertAt >= 0 ? insertAt : slot) - 1;
+                }
+                if (offset == REMOVED) {
+                    if (insertAt < 0) {
+                        insertAt = slot;
+                    }
+                } else if (keys.get(slot) == key && (key >= 0 || isbnEquals(offset, isbn))) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        long version(int slot) {
+            return records.getLong(offsets.get(slot) + VERSION);
+        }
+
+        Book book(int slot) {
+            return book(slot, null);
+        }
+
+        /**
+         * Materializes the book of the slot, with the given ISBN of its key, or the ISBN decoded from the record when null
+         */
+        Book book(int slot, String isbn) {
+            long key = keys.get(slot);
+            int offset = offsets.get(slot);
+            byte flags = records.get(offset + FLAGS);
+            int position = offset + HEADER_SIZE;
+
+            int isbnLength = isbnLength(offset);
+            if (isbn == null) {
+                isbn = key >= 0 ? isbn13(key) : string(position, isbnLength);
+            }
+            position += isbnLength;
+            int titleLength = records.getChar(offset + TITLE_LENGTH);
+            String title = (flags & NULL_TITLE) != 0 ? null : string(position, titleLength);
+            position += titleLength;
+            String author = (flags & NULL_AUTHOR) != 0 ? null : string(position, records.getChar(offset + AUTHOR_LENGTH));
+            Integer publicationYear = (flags & NULL_PUBLICATION_YEAR) != 0 ? null : records.getInt(offset + PUBLICATION_YEAR);
+            Integer availableCopies = (flags & NULL_AVAILABLE_COPIES) != 0 ? null : records.getInt(offset + AVAILABLE_COPIES);
+            return new Book(isbn, title, author, publicationYear, availableCopies);
+        }
+
+        /**
+         * Writes the book to a new record, replacing the record of the slot or inserting the key when the slot is negative
+         */
+        void write(int slot, long key, String isbn, Book book, long version) {
+            byte[] isbnBytes = key >= 0 ? NO_BYTES : utf8(isbn);
+            byte[] title = utf8(book.title());
+            byte[] author = utf8(book.author());
+            int length = HEADER_SIZE + isbnBytes.length + lengthOf(title) + lengthOf(author);
+            int offset = allocateRecord(length);
+
+            byte flags = 0;
+            flags |= title == null ? NULL_TITLE : 0;
+            flags |= author == null ? NULL_AUTHOR : 0;
+            flags |= book.publicationYear() == null ? NULL_PUBLICATION_YEAR : 0;
+            flags |= book.availableCopies() == null ? NULL_AVAILABLE_COPIES : 0;
+            records.putLong(offset + VERSION, version)
+                .putInt(offset + PUBLICATION_YEAR, book.publicationYear() == null ? 0 : book.publicationYear())
+                .putInt(offset + AVAILABLE_COPIES, book.availableCopies() == null ? 0 : book.availableCopies())
+                .put(offset + FLAGS, flags)
+                .putChar(offset + ISBN_LENGTH, (char) isbnBytes.length)
+                .putChar(offset + TITLE_LENGTH, (char) lengthOf(title))
+                .putChar(offset + AUTHOR_LENGTH, (char) lengthOf(author));
+            int position = offset + HEADER_SIZE;
+            records.put(position, isbnBytes);
+            position += isbnBytes.length;
+            if (title != null) {
+                records.put(position, title);
+                position += title.length;
+            }
+            if (author != null) {
+                records.put(position, author);
+            }
+
+            if (slot >= 0) {
+                // the record area may have been compacted, so the replaced record is looked up after allocating
+                garbage += recordLength(offsets.get(slot));
+                offsets.put(slot, offset);
+                return;
+            }
+            if ((size + removed + 1) * 4L > capacity * 3L) {
+                rehash();
+            }
+            slot = -find(key, isbn) - 1;
+            if (offsets.get(slot) == REMOVED) {
+                removed--;
+            }
+            keys.put(slot, key);
+            offsets.put(slot, offset);
+            size++;
+        }
+
+        void delete(int slot) {
+            garbage += recordLength(offsets.get(slot));
+            offsets.put(slot, REMOVED);
+            size--;
+            removed++;
+        }
+
+        private int allocateRecord(int length) {
+            if ((long) end + length > records.capacity()) {
+                compact(length);
+            }
+            int offset = end;
+            end += length;
+            return offset;
+        }
+
+        /**
+         * Copies the live records to a new record area, large enough for twice the live records and the new record
+         */
+        private void compact(int length) {
+            long needed = end - garbage + length;
+            if (needed > MAXIMUM_RECORDS_SIZE) {
+                throw new IllegalStateException("The off-heap book cache segment is full");
+            }
+            long newSize = records.capacity();
+            while (newSize < needed * 2 && newSize < MAXIMUM_RECORDS_SIZE) {
+                newSize = Math.min(newSize * 2, MAXIMUM_RECORDS_SIZE);
+            }
+            ByteBuffer compacted = ByteBuffer.allocateDirect((int) newSize);
+            int position = FIRST_RECORD;
+            for (int slot = 0; slot < capacity; slot++) {
+                int offset = offsets.get(slot);
+                if (offset > 0) {
+                    int recordLength = recordLength(offset);
+                    compacted.put(position, records, offset, recordLength);
+                    offsets.put(slot, position);
+                    position += recordLength;
+                }
+            }
+            records = compacted;
+            end = position;
+            garbage = 0;
+        }
+
+        /**
+         * Rebuilds the table without removed slots, growing it so it is at most half full
+         */
+        private void rehash() {
+            LongBuffer oldKeys = keys;
+            IntBuffer oldOffsets = offsets;
+            int oldCapacity = capacity;
+            int newCapacity = capacity;
+            while ((size + 1) * 2L > newCapacity) {
+                newCapacity <<= 1;
+            }
+            allocateTable(newCapacity);
+            removed = 0;
+            int mask = newCapacity - 1;
+            for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+                int offset = oldOffsets.get(oldSlot);
+                if (offset > 0) {
+                    long key = oldKeys.get(oldSlot);
+                    int slot = (int) spread(key) & mask;
+                    while (offsets.get(slot) != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys.put(slot, key);
+                    offsets.put(slot, offset);
+                }
+            }
+        }
+
+        private void allocateTable(int capacity) {
+            this.capacity = capacity;
+            keys = ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+            offsets = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+
+        private int recordLength(int offset) {
+            return HEADER_SIZE + isbnLength(offset)
+                + records.getChar(offset + TITLE_LENGTH) + records.getChar(offset + AUTHOR_LENGTH);
+        }
+
+        private int isbnLength(int offset) {
+            return records.getChar(offset + ISBN_LENGTH);
+        }
+
+        /**
+         * Compares the ISBN of a record with the given ISBN, without decoding ASCII ISBNs
+         */
+        private boolean isbnEquals(int offset, String isbn) {
+            int length = isbnLength(offset);
+            int position = offset + HEADER_SIZE;
+            if (length == isbn.length()) {
+                for (int i = 0; i < length; i++) {
+                    byte b = records.get(position + i);
+                    if (b < 0) {
+                        return isbn.equals(string(position, length));
+                    }
+                    if (b != isbn.charAt(i)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return length > isbn.length() && isbn.equals(string(position, length));
+        }
+
+        private String string(int position, int length) {
+            byte[] bytes = new byte[length];
+            records.get(position, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static byte[] utf8(String value) {
+            if (value == null) {
+                return null;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Character.MAX_VALUE) {
+                throw new IllegalArgumentException("A string of a cached book is longer than 65535 bytes");
+            }
+            return bytes;
+        }
+
+        private static int lengthOf(byte[] bytes) {
+            return bytes == null ? 0 : bytes.length;
+        }
+
+        private static String isbn13(long key) {
+            char[] digits = new char[13];
+            for (int i = 12; i >= 0; i--) {
+                digits[i] = (char) ('0' + key % 10);
+                key /= 10;
+            }
+            return new String(digits);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.dto.Book;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Striped stamps of the ISBNs removed from a cache, which are used to discard a book read from the database
+ * concurrently with its removal, so a book deleted from the database is not cached again by a slower read.
+ * <p>
+ * A removal advances the stamp of the ISBN before the book is removed.  A book read under a stamp is only
+ * cached while the stamp is unchanged, and removed again when the stamp advanced while it was being cached.
+ */
+class RemovalStamps {
+
+    private static final int STRIPES = 64;
+
+    private final AtomicLongArray stamps = new AtomicLongArray(STRIPES);
+
+    long stamp(String isbn) {
+        return stamps.get(stripe(isbn));
+    }
+
+    void beforeRemove(String isbn) {
+        stamps.incrementAndGet(stripe(isbn));
+    }
+
+    void beforeClear() {
+        for (int i = 0; i < STRIPES; i++) {
+            stamps.incrementAndGet(i);
+        }
+    }
+
+    boolean putIfNewer(String isbn, Book value, long version, long stamp, BookCache cache) {
+        if (stamp(isbn) != stamp || !cache.putIfNewer(isbn, value, version)) {
+            return false;
+        }
+        if (stamp(isbn) != stamp) {
+            cache.remove(isbn, value);
+            return false;
+        }
+        return true;
+    }
+
+    private static int stripe(String isbn) {
+        int hash = isbn.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
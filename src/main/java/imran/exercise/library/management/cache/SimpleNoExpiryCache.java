@@ -1,38 +1,143 @@
 package imran.exercise.library.management.cache;
 
 import imran.exercise.library.management.dto.Book;
-import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
-@Component
-public class SimpleNoExpiryCache {
+public class SimpleNoExpiryCache implements BookCache {
 
-    public final ConcurrentHashMap<String, Book> cache = new ConcurrentHashMap<>();
+    private static final long UNVERSIONED = Long.MIN_VALUE;
 
+    private final ConcurrentHashMap<String, VersionedBook> cache = new ConcurrentHashMap<>();
+    private final AuthorIndex authorIndex = new AuthorIndex();
+    private final RemovalStamps removalStamps = new RemovalStamps();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Override
     public Book put(String isbn, Book value) {
         Objects.requireNonNull(isbn);
-        return cache.put(isbn, value);
+        authorIndex.beforePut(value);
+        Book previous = bookOf(cache.put(isbn, new VersionedBook(value, UNVERSIONED)));
+        authorIndex.afterPut(previous, value);
+        return previous;
+    }
+
+    @Override
+    public Book putIfAbsent(String isbn, Book value) {
+        Objects.requireNonNull(isbn);
+        Book previous = bookOf(cache.putIfAbsent(isbn, new VersionedBook(value, UNVERSIONED)));
+        if (previous == null) {
+            authorIndex.afterPut(null, value);
+        }
+        return previous;
     }
 
+    @Override
+    public boolean putIfNewer(String isbn, Book value, long version) {
+        Objects.requireNonNull(isbn);
+        VersionedBook entry = new VersionedBook(value, version);
+        while (true) {
+            VersionedBook existing = cache.get(isbn);
+            if (existing != null && existing.version() >= version) {
+                return false;
+            }
+            if (existing == null ? cache.putIfAbsent(isbn, entry) == null : cache.replace(isbn, existing, entry)) {
+                authorIndex.afterPut(bookOf(existing), value);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long removalStamp(String isbn) {
+        Objects.requireNonNull(isbn);
+        return removalStamps.stamp(isbn);
+    }
+
+    @Override
+    public boolean putIfNewer(String isbn, Book value, long version, long removalStamp) {
+        return removalStamps.putIfNewer(isbn, value, version, removalStamp, this);
+    }
+
+    @Override
     public Book get(String isbn) {
         Objects.requireNonNull(isbn);
-        return cache.get(isbn);
+        Book book = bookOf(cache.get(isbn));
+        (book == null ? misses : hits).increment();
+        return book;
     }
 
+    @Override
+    public List<Book> getByAuthor(String author) {
+        Objects.requireNonNull(author);
+        return authorIndex.lookup(author, isbn -> bookOf(cache.get(isbn)));
+    }
+
+    @Override
+    public long authorStamp(String author) {
+        Objects.requireNonNull(author);
+        return authorIndex.stamp(author);
+    }
+
+    @Override
+    public boolean putAuthor(String author, List<Book> books, long stamp) {
+        Objects.requireNonNull(author);
+        return authorIndex.index(author, books, stamp, this);
+    }
+
+    @Override
     public List<Book> getAll() {
-        return new ArrayList<>(cache.values());
+        List<Book> books = new ArrayList<>(cache.size());
+        cache.values().forEach(entry -> books.add(entry.book()));
+        return books;
     }
 
+    @Override
     public Book remove(String isbn) {
         Objects.requireNonNull(isbn);
-        return cache.remove(isbn);
+        removalStamps.beforeRemove(isbn);
+        Book removed = bookOf(cache.remove(isbn));
+        authorIndex.afterRemove(removed);
+        return removed;
     }
 
+    @Override
+    public boolean remove(String isbn, Book value) {
+        Objects.requireNonNull(isbn);
+        VersionedBook existing = cache.get(isbn);
+        if (existing == null || !Objects.equals(existing.book(), value) || !cache.remove(isbn, existing)) {
+            return false;
+        }
+        authorIndex.afterRemove(value);
+        return true;
+    }
+
+    @Override
     public void clear() {
+        removalStamps.beforeClear();
         cache.clear();
+        authorIndex.clear();
+    }
+
+    @Override
+    public long size() {
+        return cache.size();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), 0);
+    }
+
+    private static Book bookOf(VersionedBook entry) {
+        return entry == null ? null : entry.book();
+    }
+
+    private record VersionedBook(Book book, long version) {
     }
 }
@@ -0,0 +1,94 @@
+package imran.exercise.library.management.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key, so that only one caller runs the loader of a key while the
+ * other callers wait for and share its result, or its exception.  A load that completed is not remembered:
+ * the next caller runs the loader again, typically after finding the result in the cache.
+ * <p>
+ * Loads are counted as {@code library.cache.loads}, tagged by the name of the loaded data and by result:
+ * {@code loaded} for the loads that ran, {@code coalesced} for the callers that waited for another load.
+ *
+ * @param <K> - The type of the keys
+ * @param <V> - The type of the loaded values
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loadsInFlight = new ConcurrentHashMap<>();
+    private final LongAdder loaded = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * @param name - The name of the loaded data, tagging the metrics
+     * @param registry - The registry of the metrics
+     */
+    public SingleFlight(String name, MeterRegistry registry) {
+        FunctionCounter.builder("library.cache.loads", loaded, LongAdder::sum)
+            .tag("cache", name)
+            .tag("result", "loaded")
+            .description("The number of cache misses that loaded the data")
+            .register(registry);
+        FunctionCounter.builder("library.cache.loads", coalesced, LongAdder::sum)
+            .tag("cache", name)
+            .tag("result", "coalesced")
+            .description("The number of cache misses that waited for a concurrent load of the same data")
+            .register(registry);
+    }
+
+    /**
+     * Runs the loader, unless a load of the same key is in flight, in which case its result is returned
+     * @param key - The key of the data
+     * @param loader - The loader of the data
+     * @return The loaded data
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> loadInFlight = loadsInFlight.putIfAbsent(key, load);
+        if (loadInFlight != null) {
+            coalesced.increment();
+            return await(loadInFlight);
+        }
+
+        loaded.increment();
+        try {
+            V value = loader.get();
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadsInFlight.remove(key, load);
+        }
+    }
+
+    public long loadedCount() {
+        return loaded.sum();
+    }
+
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
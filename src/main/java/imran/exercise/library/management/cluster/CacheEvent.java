@@ -0,0 +1,21 @@
+package imran.exercise.library.management.cluster;
+
+/**
+ * A change of a book made by one application instance, to be applied to the caches of the other instances.
+ *
+ * @param nodeId - The id of the instance that changed the book
+ * @param type - The change
+ * @param isbn - The ISBN of the book
+ * @param version - The version of the book after the change, or 0 for a removed book
+ */
+public record CacheEvent(String nodeId, Type type, String isbn, long version) {
+
+    public enum Type {
+        /** The book was added to the library */
+        ADDED,
+        /** The available copies of the book changed */
+        UPDATED,
+        /** The book was removed from the library */
+        REMOVED
+    }
+}
@@ -0,0 +1,73 @@
+package imran.exercise.library.management.cluster;
+
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.search.BookSearchIndex;
+
+/**
+ * Applies the changes of books made by the other application instances to the cache, the absent ISBN
+ * filter and the search index of this instance.  Events published by this instance are ignored.
+ * <p>
+ * An added book is read from the database, as the event only carries its ISBN.  A cached updated book is read
+ * again and replaced when the database holds at least the version of the event, otherwise it is removed
+ * so that the next lookup reads the new version.  A book not cached here stays uncached.
+ */
+public class CacheEventListener {
+
+    private final String nodeId;
+    private final BookCache cache;
+    private final AbsentIsbnFilter absentIsbnFilter;
+    private final BookSearchIndex searchIndex;
+    private final LibraryRepository libraryRepository;
+
+    public CacheEventListener(
+        CacheInvalidationBus bus, BookCache cache, AbsentIsbnFilter absentIsbnFilter,
+        BookSearchIndex searchIndex, LibraryRepository libraryRepository) {
+        this.nodeId = bus.nodeId();
+        this.cache = cache;
+        this.absentIsbnFilter = absentIsbnFilter;
+        this.searchIndex = searchIndex;
+        this.libraryRepository = libraryRepository;
+        if (bus.transport() != null) {
+            bus.transport().subscribe(this::apply);
+        }
+    }
+
+    void apply(CacheEvent event) {
+        if (nodeId.equals(event.nodeId())) {
+            return;
+        }
+        switch (event.type()) {
+            case ADDED -> {
+                absentIsbnFilter.added(event.isbn());
+                long removalStamp = cache.removalStamp(event.isbn());
+                long indexRemovalStamp = searchIndex.removalStamp(event.isbn());
+                libraryRepository.findVersionedBook(event.isbn()).ifPresent(versionedBook -> {
+                    cache.putIfNewer(event.isbn(), versionedBook.book(), versionedBook.version(), removalStamp);
+                    searchIndex.put(versionedBook.book(), indexRemovalStamp);
+                });
+            }
+            case UPDATED -> updated(event);
+            case REMOVED -> {
+                cache.remove(event.isbn());
+                absentIsbnFilter.removed(event.isbn());
+                searchIndex.remove(event.isbn());
+            }
+        }
+    }
+
+    private void updated(CacheEvent event) {
+        if (cache.get(event.isbn()) == null) {
+            // Fences a read of the previous version still in flight on this instance
+            cache.remove(event.isbn());
+            return;
+        }
+        long removalStamp = cache.removalStamp(event.isbn());
+        libraryRepository.findVersionedBook(event.isbn())
+            .filter(versionedBook -> versionedBook.version() >= event.version())
+            .ifPresentOrElse(
+                versionedBook -> cache.putIfNewer(event.isbn(), versionedBook.book(), versionedBook.version(), removalStamp),
+                () -> cache.remove(event.isbn()));
+    }
+}
@@ -0,0 +1,23 @@
+package imran.exercise.library.management.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache events between the application instances sharing the library database.  A transport
+ * delivers every published event to the listeners of every instance, including the publishing one, at
+ * least once and in the order the events were published by an instance.
+ */
+public interface CacheEventTransport {
+
+    /**
+     * Publishes an event to all instances
+     * @param event - The event
+     */
+    void publish(CacheEvent event);
+
+    /**
+     * Registers a listener of the events published by all instances
+     * @param listener - The listener
+     */
+    void subscribe(Consumer<CacheEvent> listener);
+}
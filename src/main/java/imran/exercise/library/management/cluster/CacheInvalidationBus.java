@@ -0,0 +1,46 @@
+package imran.exercise.library.management.cluster;
+
+/**
+ * Publishes the changes of books made by this application instance, so that the other instances sharing
+ * the library database update their caches.
+ */
+public class CacheInvalidationBus {
+
+    private final String nodeId;
+    private final CacheEventTransport transport;
+
+    /**
+     * @param nodeId - The id of this instance, unique in the cluster
+     * @param transport - The transport of the events, or null for a single instance
+     */
+    public CacheInvalidationBus(String nodeId, CacheEventTransport transport) {
+        this.nodeId = nodeId;
+        this.transport = transport;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public CacheEventTransport transport() {
+        return transport;
+    }
+
+    public void bookAdded(String isbn) {
+        publish(CacheEvent.Type.ADDED, isbn, 0);
+    }
+
+    public void bookUpdated(String isbn, long version) {
+        publish(CacheEvent.Type.UPDATED, isbn, version);
+    }
+
+    public void bookRemoved(String isbn) {
+        publish(CacheEvent.Type.REMOVED, isbn, 0);
+    }
+
+    private void publish(CacheEvent.Type type, String isbn, long version) {
+        if (transport != null) {
+            transport.publish(new CacheEvent(nodeId, type, isbn, version));
+        }
+    }
+}
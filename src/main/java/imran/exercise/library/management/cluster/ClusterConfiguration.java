@@ -0,0 +1,49 @@
+package imran.exercise.library.management.cluster;
+
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.search.BookSearchIndex;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+
+@Configuration
+@EnableConfigurationProperties(ClusterProperties.class)
+public class ClusterConfiguration {
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(
+        ClusterProperties properties, ObjectProvider<CacheEventTransport> transport) {
+        String nodeId = properties.nodeId() == null ? UUID.randomUUID().toString() : properties.nodeId();
+        return new CacheInvalidationBus(nodeId, transport.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.cluster.transport", havingValue = "loopback")
+    public LoopbackCacheEventTransport loopbackCacheEventTransport() {
+        return new LoopbackCacheEventTransport();
+    }
+
+    /**
+     * The jdbc transport is a bean of its own, so that its poller is stopped when the context is closed
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "library.cluster.transport", havingValue = "jdbc")
+    public JdbcCacheEventTransport jdbcCacheEventTransport(ClusterProperties properties, JdbcTemplate jdbcTemplate) {
+        return new JdbcCacheEventTransport(
+            jdbcTemplate, properties.pollInterval(), properties.retention(), properties.lookBack());
+    }
+
+    @Bean(destroyMethod = "")
+    public CacheEventListener cacheEventListener(
+        CacheInvalidationBus bus, BookCache cache, AbsentIsbnFilter absentIsbnFilter,
+        BookSearchIndex searchIndex, LibraryRepository libraryRepository) {
+        return new CacheEventListener(bus, cache, absentIsbnFilter, searchIndex, libraryRepository);
+    }
+}
@@ -0,0 +1,27 @@
+package imran.exercise.library.management.cluster;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param transport - The transport of cache events between the instances sharing the database
+ * @param nodeId - The id of this instance, unique in the cluster, or null for a random id
+ * @param pollInterval - The time between two polls of new events by the jdbc transport
+ * @param retention - The time after which the jdbc transport deletes events
+ * @param lookBack - The number of event ids behind the last polled one that the jdbc transport polls again, so
+ * that an event committed after an event with a larger id is not missed
+ */
+@ConfigurationProperties(prefix = "library.cluster")
+public record ClusterProperties(
+    @DefaultValue("none") Transport transport,
+    String nodeId,
+    @DefaultValue("200ms") Duration pollInterval,
+    @DefaultValue("1m") Duration retention,
+    @DefaultValue("100") long lookBack) {
+
+    public enum Transport {
+        NONE, LOOPBACK, JDBC
+    }
+}
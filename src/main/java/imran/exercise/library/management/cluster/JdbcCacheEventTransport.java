@@ -0,0 +1,124 @@
+package imran.exercise.library.management.cluster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Carries events through a {@code cache_event} table of the database shared by the instances.  Events are
+ * inserted by the publishing instance and every instance polls the events inserted since its last poll,
+ * starting from the events inserted after it started.  Events older than the retention are deleted.
+ * <p>
+ * Ids are assigned when an event is inserted but become visible when its transaction commits, so a smaller id
+ * can appear after a larger one was polled.  Every poll reads again the last {@code lookBack} ids behind the
+ * largest polled id and skips the ids already delivered.
+ * <p>
+ * Events are published in the transaction of the change, if any, so that they are polled only once it commits.
+ * Polled events are delivered after the query completes, as listeners may query the database in turn.
+ */
+public class JdbcCacheEventTransport implements CacheEventTransport, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcCacheEventTransport.class);
+
+    static final long DEFAULT_LOOK_BACK = 100;
+
+    private static final String INSERT_EVENT =
+        "insert into cache_event (node_id, type, isbn, version, created_at) values (?, ?, ?, ?, ?)";
+    private static final String SELECT_EVENTS =
+        "select id, node_id, type, isbn, version from cache_event where id > ? order by id";
+    private static final String SELECT_EVENT_IDS = "select id from cache_event where id > ?";
+    private static final String DELETE_EVENTS = "delete from cache_event where created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    private final List<Consumer<CacheEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService poller;
+    private final long lookBack;
+    private final NavigableSet<Long> deliveredEventIds = new TreeSet<>();
+    private long lastEventId;
+    private Instant lastPurge = Instant.now();
+
+    public JdbcCacheEventTransport(JdbcTemplate jdbcTemplate, Duration pollInterval, Duration retention) {
+        this(jdbcTemplate, pollInterval, retention, DEFAULT_LOOK_BACK);
+    }
+
+    /**
+     * @param jdbcTemplate - The template of the shared database
+     * @param pollInterval - The time between two polls of new events
+     * @param retention - The time after which events are deleted, longer than the poll interval
+     * @param lookBack - The number of ids behind the largest polled id that are polled again
+     */
+    public JdbcCacheEventTransport(JdbcTemplate jdbcTemplate, Duration pollInterval, Duration retention, long lookBack) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retention = retention;
+        this.lookBack = Math.max(0, lookBack);
+        Long maxEventId = jdbcTemplate.queryForObject("select max(id) from cache_event", Long.class);
+        this.lastEventId = maxEventId == null ? 0 : maxEventId;
+        deliveredEventIds.addAll(jdbcTemplate.queryForList(SELECT_EVENT_IDS, Long.class, lastEventId - this.lookBack));
+
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-event-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void publish(CacheEvent event) {
+        jdbcTemplate.update(INSERT_EVENT,
+            event.nodeId(), event.type().name(), event.isbn(), event.version(), Timestamp.from(Instant.now()));
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        poller.shutdownNow();
+    }
+
+    void poll() {
+        try {
+            List<PolledEvent> polledEvents = jdbcTemplate.query(SELECT_EVENTS, (resultSet, rowNum) -> new PolledEvent(
+                resultSet.getLong(1),
+                new CacheEvent(
+                    resultSet.getString(2),
+                    CacheEvent.Type.valueOf(resultSet.getString(3)),
+                    resultSet.getString(4),
+                    resultSet.getLong(5))), lastEventId - lookBack);
+            for (PolledEvent polledEvent : polledEvents) {
+                if (deliveredEventIds.add(polledEvent.id())) {
+                    lastEventId = Math.max(lastEventId, polledEvent.id());
+                    listeners.forEach(listener -> listener.accept(polledEvent.event()));
+                }
+            }
+            deliveredEventIds.headSet(lastEventId - lookBack, true).clear();
+
+            Instant now = Instant.now();
+            if (Duration.between(lastPurge, now).compareTo(retention) > 0) {
+                jdbcTemplate.update(DELETE_EVENTS, Timestamp.from(now.minus(retention)));
+                lastPurge = now;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Polling cache events failed after event {}", lastEventId, e);
+        }
+    }
+
+    private record PolledEvent(long id, CacheEvent event) {
+    }
+}
@@ -0,0 +1,24 @@
+package imran.exercise.library.management.cluster;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers events to the listeners in the same JVM, synchronously on the publishing thread.  Several
+ * instances sharing one transport stand in for a cluster in tests.
+ */
+public class LoopbackCacheEventTransport implements CacheEventTransport {
+
+    private final List<Consumer<CacheEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheEvent event) {
+        listeners.forEach(listener -> listener.accept(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheEvent> listener) {
+        listeners.add(listener);
+    }
+}
@@ -2,10 +2,14 @@ package imran.exercise.library.management.domain;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import java.util.Objects;
 
 @Entity
+@Table(indexes = @Index(name = "book_entity_author_isbn_idx", columnList = "author, isbn"))
 public class BookEntity {
 
     @Id
@@ -14,6 +18,8 @@ public class BookEntity {
     private String author;
     private Integer publicationYear;
     private Integer availableCopies;
+    @Version
+    private Long version;
 
     public BookEntity() {
     }
@@ -66,6 +72,17 @@ public class BookEntity {
         this.availableCopies = availableCopies;
     }
 
+    /**
+     * @return The version of the book, incremented on every update, or 0 for a book that is not yet saved
+     */
+    public long version() {
+        return version == null ? 0 : version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,56 @@
+package imran.exercise.library.management.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * A physical copy of a book, on loan to a member or on the shelf.  The copies of a removed book are kept without
+ * their book, so that their closed loans are kept too.
+ */
+@Entity
+@Table(indexes = @Index(name = "copy_entity_isbn_on_loan_idx", columnList = "isbn, on_loan"))
+public class CopyEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "isbn", foreignKey = @ForeignKey(name = "copy_entity_book_fk"))
+    @OnDelete(action = OnDeleteAction.SET_NULL)
+    private BookEntity book;
+    @Column(name = "on_loan", nullable = false)
+    private boolean onLoan;
+
+    public CopyEntity() {
+    }
+
+    public CopyEntity(BookEntity book) {
+        this.book = book;
+    }
+
+    public Long id() {
+        return id;
+    }
+
+    /**
+     * @return The book of the copy, or null once the book is removed
+     */
+    public BookEntity book() {
+        return book;
+    }
+
+    public boolean onLoan() {
+        return onLoan;
+    }
+}
@@ -0,0 +1,80 @@
+package imran.exercise.library.management.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+/**
+ * A copy lent to a member, open until the copy is returned.  The open loans of a member are read with the
+ * member index, and the overdue loans with the index of the open loans by due date.
+ */
+@Entity
+@Table(indexes = {
+    @Index(name = "loan_entity_copy_idx", columnList = "copy_id"),
+    @Index(name = "loan_entity_member_returned_idx", columnList = "member_id, returned_at"),
+    @Index(name = "loan_entity_returned_due_idx", columnList = "returned_at, due_at")})
+public class LoanEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "copy_id", nullable = false, foreignKey = @ForeignKey(name = "loan_entity_copy_fk"))
+    private CopyEntity copy;
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "member_id", nullable = false, foreignKey = @ForeignKey(name = "loan_entity_member_fk"))
+    private MemberEntity member;
+    @Column(name = "borrowed_at", nullable = false)
+    private Instant borrowedAt;
+    @Column(name = "due_at", nullable = false)
+    private Instant dueAt;
+    @Column(name = "returned_at")
+    private Instant returnedAt;
+
+    public LoanEntity() {
+    }
+
+    public LoanEntity(CopyEntity copy, MemberEntity member, Instant borrowedAt, Instant dueAt) {
+        this.copy = copy;
+        this.member = member;
+        this.borrowedAt = borrowedAt;
+        this.dueAt = dueAt;
+    }
+
+    public Long id() {
+        return id;
+    }
+
+    public CopyEntity copy() {
+        return copy;
+    }
+
+    public MemberEntity member() {
+        return member;
+    }
+
+    public Instant borrowedAt() {
+        return borrowedAt;
+    }
+
+    public Instant dueAt() {
+        return dueAt;
+    }
+
+    /**
+     * @return The time the copy was returned, or null while the loan is open
+     */
+    public Instant returnedAt() {
+        return returnedAt;
+    }
+}
@@ -0,0 +1,64 @@
+package imran.exercise.library.management.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+
+import java.util.Objects;
+
+@Entity
+public class MemberEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String name;
+    @Column(name = "loan_limit", nullable = false)
+    private int loanLimit;
+
+    public MemberEntity() {
+    }
+
+    public MemberEntity(String name, int loanLimit) {
+        this.name = name;
+        this.loanLimit = loanLimit;
+    }
+
+    public Long id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return The maximum number of copies the member can have on loan at the same time
+     */
+    public int loanLimit() {
+        return loanLimit;
+    }
+
+    public void setLoanLimit(int loanLimit) {
+        this.loanLimit = loanLimit;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MemberEntity that = (MemberEntity) o;
+        return loanLimit == that.loanLimit && Objects.equals(id, that.id) && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, loanLimit);
+    }
+}
@@ -0,0 +1,4 @@
+package imran.exercise.library.management.dto;
+
+public record BookHit(String isbn, String title, String author, Integer publicationYear, double score) {
+}
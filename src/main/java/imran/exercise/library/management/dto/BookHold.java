@@ -0,0 +1,15 @@
+package imran.exercise.library.management.dto;
+
+/**
+ * @param id - The id of the hold
+ * @param isbn - The ISBN of the held book
+ * @param status - Whether the hold is waiting for a copy, was handed a copy, was cancelled or expired
+ * @param position - The position of a waiting hold in the queue of the book, starting at 1, otherwise 0
+ * @param book - The book once a copy was handed to the hold, otherwise null
+ */
+public record BookHold(String id, String isbn, Status status, int position, Book book) {
+
+    public enum Status {
+        WAITING, FULFILLED, CANCELLED, EXPIRED
+    }
+}
@@ -0,0 +1,6 @@
+package imran.exercise.library.management.dto;
+
+import java.util.List;
+
+public record BookPage(List<Book> books, String nextCursor) {
+}
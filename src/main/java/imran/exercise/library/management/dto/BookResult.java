@@ -0,0 +1,16 @@
+package imran.exercise.library.management.dto;
+
+public record BookResult(String isbn, Status status, Book book) {
+
+    public enum Status {
+        OK, NOT_FOUND, ALREADY_EXISTS, UNAVAILABLE
+    }
+
+    public static BookResult ok(Book book) {
+        return new BookResult(book.isbn(), Status.OK, book);
+    }
+
+    public static BookResult failed(String isbn, Status status) {
+        return new BookResult(isbn, status, null);
+    }
+}
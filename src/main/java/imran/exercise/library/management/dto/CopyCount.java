@@ -0,0 +1,8 @@
+package imran.exercise.library.management.dto;
+
+/**
+ * @param isbn - The ISBN of the book
+ * @param availableCopies - The number of copies of the book that are not on loan to a member
+ */
+public record CopyCount(String isbn, long availableCopies) {
+}
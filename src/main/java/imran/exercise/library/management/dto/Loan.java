@@ -0,0 +1,15 @@
+package imran.exercise.library.management.dto;
+
+import java.time.Instant;
+
+/**
+ * @param id - The id of the loan
+ * @param copyId - The id of the lent copy
+ * @param isbn - The ISBN of the lent book
+ * @param memberId - The id of the member
+ * @param borrowedAt - The time the copy was lent
+ * @param dueAt - The time the copy is due back
+ * @param returnedAt - The time the copy was returned, or null while the loan is open
+ */
+public record Loan(long id, long copyId, String isbn, long memberId, Instant borrowedAt, Instant dueAt, Instant returnedAt) {
+}
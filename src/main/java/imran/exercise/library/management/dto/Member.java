@@ -0,0 +1,10 @@
+package imran.exercise.library.management.dto;
+
+/**
+ * @param id - The id of the member, or null for a new member
+ * @param name - The name of the member
+ * @param loanLimit - The maximum number of copies on loan to the member at the same time, or null for
+ * {@code library.loans.default-loan-limit}
+ */
+public record Member(Long id, String name, Integer loanLimit) {
+}
@@ -1,4 +1,12 @@
 package imran.exercise.library.management.exception;
 
+/**
+ * Thrown for a book that does not exist.  Lookups of absent books are expected, e.g. from clients probing
+ * ISBNs, so the exception neither captures a stack trace nor supports suppressed exceptions.
+ */
 public class BookNotFoundException extends RuntimeException {
+
+    public BookNotFoundException() {
+        super(null, null, false, false);
+    }
 }
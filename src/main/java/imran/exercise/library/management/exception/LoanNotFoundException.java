@@ -0,0 +1,4 @@
+package imran.exercise.library.management.exception;
+
+public class LoanNotFoundException extends RuntimeException {
+}
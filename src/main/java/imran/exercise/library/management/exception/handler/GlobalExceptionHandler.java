@@ -2,7 +2,13 @@ package imran.exercise.library.management.exception.handler;
 
 import imran.exercise.library.management.exception.BookAlreadyExistsException;
 import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.exception.BookOnLoanException;
 import imran.exercise.library.management.exception.BookUnavailableException;
+import imran.exercise.library.management.exception.HoldNotFoundException;
+import imran.exercise.library.management.exception.LoanLimitExceededException;
+import imran.exercise.library.management.exception.LoanNotFoundException;
+import imran.exercise.library.management.exception.MemberNotFoundException;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -33,6 +39,42 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ex.getMessage();
     }
 
+    @ExceptionHandler(value = {HoldNotFoundException.class})
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    protected String holdNotFoundException(HoldNotFoundException ex) {
+        return ex.getMessage();
+    }
+
+    @ExceptionHandler(value = {MemberNotFoundException.class})
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    protected String memberNotFoundException(MemberNotFoundException ex) {
+        return ex.getMessage();
+    }
+
+    @ExceptionHandler(value = {LoanNotFoundException.class})
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    protected String loanNotFoundException(LoanNotFoundException ex) {
+        return ex.getMessage();
+    }
+
+    @ExceptionHandler(value = {LoanLimitExceededException.class})
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    protected String loanLimitExceededException(LoanLimitExceededException ex) {
+        return ex.getMessage();
+    }
+
+    @ExceptionHandler(value = {BookOnLoanException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    protected String bookOnLoanException(BookOnLoanException ex) {
+        return ex.getMessage();
+    }
+
+    @ExceptionHandler(value = {ConcurrencyFailureException.class})
+    @ResponseStatus(HttpStatus.CONFLICT)
+    protected String concurrencyFailureException(ConcurrencyFailureException ex) {
+        return ex.getMessage();
+    }
+
     @ExceptionHandler(value = {RuntimeException.class})
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     protected String runtimeException(RuntimeException ex) {
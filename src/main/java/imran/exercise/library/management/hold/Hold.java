@@ -0,0 +1,84 @@
+package imran.exercise.library.management.hold;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookHold;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A place in the queue of a book.  A hold completes once, when a copy is handed to it or when it is
+ * cancelled or expires, and completes its future without blocking any thread waiting for it.
+ */
+public class Hold {
+
+    private static final State WAITING = new State(BookHold.Status.WAITING, null, 0);
+
+    private final String id;
+    private final String isbn;
+    private final long createdAt;
+    private final AtomicReference<State> state = new AtomicReference<>(WAITING);
+    private final CompletableFuture<Hold> completion = new CompletableFuture<>();
+
+    Hold(String id, String isbn, long createdAt) {
+        this.id = id;
+        this.isbn = isbn;
+        this.createdAt = createdAt;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String isbn() {
+        return isbn;
+    }
+
+    public BookHold.Status status() {
+        return state.get().status();
+    }
+
+    /**
+     * Returns the book handed to the hold, or null when it is not fulfilled
+     */
+    public Book book() {
+        return state.get().book();
+    }
+
+    /**
+     * Returns a future completed with this hold once it is fulfilled, cancelled or expired
+     */
+    public CompletableFuture<Hold> completion() {
+        return completion;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    long completedAt() {
+        return state.get().completedAt();
+    }
+
+    boolean isWaiting() {
+        return state.get() == WAITING;
+    }
+
+    /**
+     * Completes a waiting hold
+     * @param newStatus - The status of the completed hold
+     * @param handedBook - The book handed to a fulfilled hold, or null
+     * @param now - The time of completion
+     * @return True when the hold was waiting, false when it was already completed
+     */
+    boolean complete(BookHold.Status newStatus, Book handedBook, long now) {
+        if (!state.compareAndSet(WAITING, new State(newStatus, handedBook, now))) {
+            return false;
+        }
+        completion.complete(this);
+        return true;
+    }
+
+    private record State(BookHold.Status status, Book book, long completedAt) {
+    }
+}
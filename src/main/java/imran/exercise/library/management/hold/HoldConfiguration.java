@@ -0,0 +1,16 @@
+package imran.exercise.library.management.hold;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(HoldProperties.class)
+public class HoldConfiguration {
+
+    @Bean
+    public HoldQueue holdQueue(HoldProperties properties, MeterRegistry registry) {
+        return new HoldQueue(properties, registry);
+    }
+}
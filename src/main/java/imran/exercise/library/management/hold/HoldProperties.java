@@ -0,0 +1,20 @@
+package imran.exercise.library.management.hold;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param maximumQueueLength - The maximum number of holds waiting for a copy of the same book
+ * @param expireAfter - The time after which a hold still waiting for a copy expires
+ * @param retention - The time a fulfilled, cancelled or expired hold can still be read
+ * @param pollTimeout - The time a long-poll request or an event stream waits for a hold to be fulfilled
+ */
+@ConfigurationProperties(prefix = "library.holds")
+public record HoldProperties(
+    @DefaultValue("1000") int maximumQueueLength,
+    @DefaultValue("1h") Duration expireAfter,
+    @DefaultValue("5m") Duration retention,
+    @DefaultValue("30s") Duration pollTimeout) {
+}
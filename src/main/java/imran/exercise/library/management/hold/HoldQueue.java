@@ -0,0 +1,237 @@
+package imran.exercise.library.management.hold;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookHold;
+import imran.exercise.library.management.exception.BookUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * First-in first-out queues of the holds waiting for a copy of each book.  A copy handed to a book goes
+ * to the oldest waiting hold.  Cancelled holds stay in their queue until reached or swept, and waiting
+ * holds expire after {@code library.holds.expire-after}.  Completed holds can still be read for
+ * {@code library.holds.retention}.
+ * <p>
+ * The holds are kept in memory by this application instance.
+ */
+public class HoldQueue {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Map<String, Queue<Hold>> holdsByIsbn = new ConcurrentHashMap<>();
+    private final Map<String, Hold> holdsById = new ConcurrentHashMap<>();
+    private final int maximumQueueLength;
+    private final long expireAfterNanos;
+    private final long retentionNanos;
+    private final LongSupplier ticker;
+    private final AtomicLong nextSweep;
+    private final Counter fulfilled;
+    private final Counter cancelled;
+    private final Counter expired;
+
+    public HoldQueue(HoldProperties properties, MeterRegistry registry) {
+        this(properties, registry, System::nanoTime);
+    }
+
+    HoldQueue(HoldProperties properties, MeterRegistry registry, LongSupplier ticker) {
+        this.maximumQueueLength = properties.maximumQueueLength();
+        this.expireAfterNanos = properties.expireAfter().toNanos();
+        this.retentionNanos = properties.retention().toNanos();
+        this.ticker = ticker;
+        this.nextSweep = new AtomicLong(ticker.getAsLong() + SWEEP_INTERVAL_NANOS);
+        this.fulfilled = completions(registry, "fulfilled");
+        this.cancelled = completions(registry, "cancelled");
+        this.expired = completions(registry, "expired");
+        Gauge.builder("library.holds.waiting", this, HoldQueue::waiting)
+            .description("The number of holds waiting for a copy")
+            .register(registry);
+    }
+
+    /**
+     * Records a hold fulfilled immediately with a borrowed copy, without queueing it
+     * @param isbn - The ISBN of the book
+     * @param book - The borrowed book
+     * @return The fulfilled hold
+     */
+    public Hold fulfilled(String isbn, Book book) {
+        Hold hold = newHold(isbn);
+        complete(hold, BookHold.Status.FULFILLED, book);
+        return hold;
+    }
+
+    /**
+     * Queues a hold for the next copy of a book
+     * @param isbn - The ISBN of the book
+     * @return The waiting hold
+     * @throws BookUnavailableException when the queue of the book is full
+     */
+    public Hold enqueue(String isbn) {
+        Hold hold = newHold(isbn);
+        holdsByIsbn.compute(isbn, (key, holds) -> {
+            Queue<Hold> queue = holds == null ? new ConcurrentLinkedQueue<>() : holds;
+            if (queue.size() >= maximumQueueLength) {
+                holdsById.remove(hold.id());
+                throw new BookUnavailableException();
+            }
+            queue.add(hold);
+            return queue;
+        });
+        return hold;
+    }
+
+    /**
+     * Returns whether holds may be waiting for a copy of a book
+     */
+    public boolean hasWaiting(String isbn) {
+        return holdsByIsbn.containsKey(isbn);
+    }
+
+    /**
+     * Hands a copy of a book to the oldest waiting hold
+     * @param isbn - The ISBN of the book
+     * @param book - The book
+     * @return True when a hold was fulfilled, false when no hold was waiting for the book
+     */
+    public boolean fulfilNext(String isbn, Book book) {
+        Queue<Hold> holds = holdsByIsbn.get(isbn);
+        if (holds == null) {
+            return false;
+        }
+        boolean handed = false;
+        Hold hold;
+        while (!handed && (hold = holds.poll()) != null) {
+            handed = !expireIfOld(hold) && complete(hold, BookHold.Status.FULFILLED, book);
+        }
+        holdsByIsbn.computeIfPresent(isbn, (key, queue) -> queue.isEmpty() ? null : queue);
+        return handed;
+    }
+
+    /**
+     * Returns a hold by its id
+     * @param id - The id of the hold
+     * @return The hold, or null when unknown or no longer retained
+     */
+    public Hold find(String id) {
+        sweepIfDue();
+        Hold hold = holdsById.get(id);
+        if (hold != null) {
+            expireIfOld(hold);
+        }
+        return hold;
+    }
+
+    /**
+     * Returns the position of a hold in the queue of its book
+     * @param hold - The hold
+     * @return The number of waiting holds up to and including the hold, or 0 when it is not waiting
+     */
+    public int position(Hold hold) {
+        Queue<Hold> holds = holdsByIsbn.get(hold.isbn());
+        if (holds == null || !hold.isWaiting()) {
+            return 0;
+        }
+        int position = 0;
+        for (Hold queued : holds) {
+            if (queued.isWaiting()) {
+                position++;
+            }
+            if (queued == hold) {
+                return position;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Cancels a waiting hold
+     * @param hold - The hold
+     * @return True when the hold was waiting
+     */
+    public boolean cancel(Hold hold) {
+        return complete(hold, BookHold.Status.CANCELLED, null);
+    }
+
+    /**
+     * Cancels all the holds of a book, e.g. when the book is removed
+     * @param isbn - The ISBN of the book
+     */
+    public void cancelAll(String isbn) {
+        Queue<Hold> holds = holdsByIsbn.remove(isbn);
+        if (holds != null) {
+            holds.forEach(this::cancel);
+        }
+    }
+
+    /**
+     * Returns the number of holds waiting for a copy of any book
+     */
+    public long waiting() {
+        return holdsByIsbn.values().stream().flatMap(Queue::stream).filter(Hold::isWaiting).count();
+    }
+
+    /**
+     * Expires the waiting holds older than the expiry, drops completed holds from the queues, and forgets
+     * the holds completed before the retention
+     */
+    void sweep() {
+        long now = ticker.getAsLong();
+        holdsByIsbn.keySet().forEach(isbn -> holdsByIsbn.computeIfPresent(isbn, (key, holds) -> {
+            holds.removeIf(hold -> {
+                expireIfOld(hold);
+                return !hold.isWaiting();
+            });
+            return holds.isEmpty() ? null : holds;
+        }));
+        holdsById.values().removeIf(hold -> !hold.isWaiting() && now - hold.completedAt() > retentionNanos);
+    }
+
+    private Hold newHold(String isbn) {
+        sweepIfDue();
+        Hold hold = new Hold(UUID.randomUUID().toString(), isbn, ticker.getAsLong());
+        holdsById.put(hold.id(), hold);
+        return hold;
+    }
+
+    private void sweepIfDue() {
+        long next = nextSweep.get();
+        if (ticker.getAsLong() - next >= 0 && nextSweep.compareAndSet(next, ticker.getAsLong() + SWEEP_INTERVAL_NANOS)) {
+            sweep();
+        }
+    }
+
+    private boolean expireIfOld(Hold hold) {
+        return hold.isWaiting() && ticker.getAsLong() - hold.createdAt() > expireAfterNanos
+            && complete(hold, BookHold.Status.EXPIRED, null);
+    }
+
+    private boolean complete(Hold hold, BookHold.Status status, Book book) {
+        if (!hold.complete(status, book, ticker.getAsLong())) {
+            return false;
+        }
+        switch (status) {
+            case FULFILLED -> fulfilled.increment();
+            case CANCELLED -> cancelled.increment();
+            case EXPIRED -> expired.increment();
+            default -> {
+            }
+        }
+        return true;
+    }
+
+    private static Counter completions(MeterRegistry registry, String result) {
+        return Counter.builder("library.holds")
+            .tag("result", result)
+            .description("The number of holds fulfilled with a copy, cancelled or expired")
+            .register(registry);
+    }
+}
@@ -0,0 +1,45 @@
+package imran.exercise.library.management.ledger;
+
+import imran.exercise.library.management.cluster.ClusterProperties;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+
+@Configuration
+@EnableConfigurationProperties(LedgerProperties.class)
+public class LedgerConfiguration {
+
+    static final String JOURNAL_FILE = "loans.journal";
+
+    @Bean
+    public LoanLedger loanLedger(
+        LedgerProperties properties, ClusterProperties clusterProperties, LibraryRepository libraryRepository)
+        throws IOException {
+        if (!properties.enabled()) {
+            return new LoanLedger(null, libraryRepository);
+        }
+        if (clusterProperties.transport() != ClusterProperties.Transport.NONE) {
+            throw new IllegalStateException("The loan ledger keeps the available copies in memory and cannot be used by a cluster");
+        }
+        LoanJournal journal = new LoanJournal(
+            properties.directory().resolve(JOURNAL_FILE), (int) properties.regionSize().toBytes(), properties.forceOnAppend());
+        return new LoanLedger(journal, libraryRepository);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.ledger.enabled", havingValue = "true")
+    public LoanProjector loanProjector(
+        LoanLedger loanLedger, LedgerProperties properties, JdbcTemplate jdbcTemplate,
+        PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        return new LoanProjector(
+            loanLedger, jdbcTemplate, new TransactionTemplate(transactionManager), properties.projectionInterval(), registry);
+    }
+}
@@ -0,0 +1,24 @@
+package imran.exercise.library.management.ledger;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * @param enabled - Whether borrow and return append to the loan journal instead of updating the database
+ * @param directory - The directory of the loan journal
+ * @param regionSize - The size of the segment files of the journal, each mapped in memory
+ * @param forceOnAppend - Whether every event is forced to disk, to survive a crash of the operating system
+ * @param projectionInterval - The time between two projections of the events to the database
+ */
+@ConfigurationProperties(prefix = "library.ledger")
+public record LedgerProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("./data/ledger") Path directory,
+    @DefaultValue("64MB") DataSize regionSize,
+    @DefaultValue("false") boolean forceOnAppend,
+    @DefaultValue("100ms") Duration projectionInterval) {
+}
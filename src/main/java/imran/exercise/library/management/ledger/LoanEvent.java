@@ -0,0 +1,33 @@
+package imran.exercise.library.management.ledger;
+
+/**
+ * A copy of a book borrowed or returned, or a book removed, as appended to the {@link LoanJournal}.
+ *
+ * @param sequence - The position of the event in the journal, starting at 1
+ * @param type - The change of the available copies, or the removal of the book
+ * @param isbn - The ISBN of the book
+ */
+public record LoanEvent(long sequence, Type type, String isbn) {
+
+    public enum Type {
+        BORROWED(-1),
+        RETURNED(1),
+        /**
+         * The book was removed, so the events before it are not applied to a book later added with the same ISBN
+         */
+        REMOVED(0);
+
+        private final int delta;
+
+        Type(int delta) {
+            this.delta = delta;
+        }
+
+        /**
+         * @return The change of the available copies of the book
+         */
+        public int delta() {
+            return delta;
+        }
+    }
+}
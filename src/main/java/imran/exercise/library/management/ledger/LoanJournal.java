@@ -0,0 +1,299 @@
+package imran.exercise.library.management.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of loan events in memory-mapped segment files.
+ * <p>
+ * The journal is split into segments of a fixed size, each a file named after the journal and the sequence of
+ * the last event before it, e.g. {@code loans.journal.1024}, and each holding whole records:
+ * <pre>
+ * int length | long sequence | byte type | short isbn length | isbn (UTF-8) | int CRC-32 of the previous fields
+ * </pre>
+ * The length is written last, so a record is only visible once complete.  A zero length ends the journal
+ * and a length of -1 continues it in the next segment.  On opening, the journal is read up to its first
+ * missing or corrupt record, e.g. one torn by a crash, and new records overwrite it.
+ * <p>
+ * The segments whose events are all applied to the database are deleted by {@link #truncate(long)}, so the
+ * journal only keeps the segments of the events not yet applied, and a replay starts from the segment of the
+ * first event it replays.
+ * <p>
+ * Appended records survive a crash of the process as soon as they are written to the mapping.  They only
+ * survive a crash of the operating system once forced to disk, on every append when {@code force} is set.
+ */
+public class LoanJournal implements AutoCloseable {
+
+    private static final int NEXT_SEGMENT = -1;
+    private static final int FIXED_LENGTH = Long.BYTES + Byte.BYTES + Short.BYTES;
+    private static final LoanEvent.Type[] TYPES = LoanEvent.Type.values();
+
+    private final Path file;
+    private final int regionSize;
+    private final boolean force;
+    private final CRC32 crc = new CRC32();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final NavigableMap<Long, Path> segments = new TreeMap<>();
+
+    private MappedByteBuffer region;
+    private long lastSequence;
+
+    /**
+     * Opens a journal, creating it if it does not exist
+     * @param file - The journal file, the name of which prefixes the names of its segments
+     * @param regionSize - The size of the segments of the journal, each mapped in memory
+     * @param force - Whether every append is forced to disk
+     */
+    public LoanJournal(Path file, int regionSize, boolean force) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.regionSize = regionSize;
+        this.force = force;
+        Files.createDirectories(this.file.getParent());
+        try (Stream<Path> paths = Files.list(this.file.getParent())) {
+            paths.forEach(path -> {
+                Long base = base(path);
+                if (base != null) {
+                    segments.put(base, path);
+                }
+            });
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, segment(0));
+        }
+
+        lastSequence = segments.firstKey();
+        long current = lastSequence;
+        int end = NEXT_SEGMENT;
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            current = segment.getKey();
+            region = map(segment.getValue());
+            end = read(region, 0, event -> lastSequence = event.sequence());
+            if (end != NEXT_SEGMENT) {
+                break;
+            }
+        }
+        delete(segments.tailMap(current, false));
+
+        if (end == NEXT_SEGMENT) {
+            nextSegment();
+            return;
+        }
+        region.position(end);
+        for (int i = end; i < regionSize; i++) {
+            region.put(i, (byte) 0);
+        }
+    }
+
+    /**
+     * Appends an event with the next sequence
+     * @param type - The change of the available copies
+     * @param isbn - The ISBN of the book
+     * @return The appended event
+     */
+    public LoanEvent append(LoanEvent.Type type, String isbn) {
+        byte[] isbnBytes = isbn.getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_LENGTH + isbnBytes.length;
+        int recordSize = Integer.BYTES + length + Integer.BYTES;
+        if (recordSize + Integer.BYTES > regionSize) {
+            throw new IllegalArgumentException("ISBN too long for the journal region size: " + isbn);
+        }
+        lock.lock();
+        try {
+            if (region.remaining() < recordSize + Integer.BYTES) {
+                region.putInt(region.position(), NEXT_SEGMENT);
+                if (force) {
+                    region.force();
+                }
+                nextSegment();
+            }
+
+            LoanEvent event = new LoanEvent(lastSequence + 1, type, isbn);
+            int offset = region.position();
+            region.position(offset + Integer.BYTES);
+            region.putLong(event.sequence()).put((byte) type.ordinal()).putShort((short) isbnBytes.length).put(isbnBytes);
+            region.putInt(checksum(region, offset + Integer.BYTES, length));
+            region.putInt(offset, length);
+            if (force) {
+                region.force();
+            }
+            lastSequence = event.sequence();
+            return event;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes the events after a given sequence to an action, in sequence order, reading from the segment of
+     * the first of them
+     * @param afterSequence - The sequence of the last event not to be replayed, 0 for all events
+     * @param action - The action handling each event
+     */
+    public void replay(long afterSequence, Consumer<LoanEvent> action) {
+        Consumer<LoanEvent> replayed = event -> {
+            if (event.sequence() > afterSequence) {
+                action.accept(event);
+            }
+        };
+        lock.lock();
+        try {
+            Long first = segments.floorKey(afterSequence);
+            for (Map.Entry<Long, Path> segment : segments.tailMap(first == null ? segments.firstKey() : first, true).entrySet()) {
+                ByteBuffer buffer = segment.getKey().equals(segments.lastKey()) ? region.duplicate() : map(segment.getValue());
+                if (read(buffer, 0, replayed) != NEXT_SEGMENT) {
+                    return;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the segments holding only events up to a given sequence, never the segment being appended to
+     * @param sequence - The sequence of the last event applied to the database
+     */
+    public void truncate(long sequence) {
+        lock.lock();
+        try {
+            Long first = segments.floorKey(sequence);
+            if (first != null) {
+                delete(segments.headMap(first, false));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The sequence of the last appended event, 0 for an empty journal
+     */
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of segment files of the journal
+     */
+    public int segments() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            region.force();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the records of a segment from an offset
+     * @return The offset of the end of the journal, or {@link #NEXT_SEGMENT} when it continues in the next segment
+     */
+    private int read(ByteBuffer buffer, int offset, Consumer<LoanEvent> action) {
+        while (offset + Integer.BYTES <= buffer.limit()) {
+            int length = buffer.getInt(offset);
+            if (length == NEXT_SEGMENT) {
+                return NEXT_SEGMENT;
+            }
+            int payload = offset + Integer.BYTES;
+            if (length < FIXED_LENGTH || payload + length + Integer.BYTES > buffer.limit()
+                || checksum(buffer, payload, length) != buffer.getInt(payload + length)) {
+                return offset;
+            }
+
+            int type = buffer.get(payload + Long.BYTES);
+            short isbnLength = buffer.getShort(payload + Long.BYTES + Byte.BYTES);
+            if (type < 0 || type >= TYPES.length || isbnLength != length - FIXED_LENGTH) {
+                return offset;
+            }
+            byte[] isbn = new byte[isbnLength];
+            buffer.get(payload + FIXED_LENGTH, isbn);
+            action.accept(new LoanEvent(buffer.getLong(payload), TYPES[type], new String(isbn, StandardCharsets.UTF_8)));
+            offset = payload + length + Integer.BYTES;
+        }
+        return offset;
+    }
+
+    private int checksum(ByteBuffer buffer, int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private void nextSegment() {
+        Path segment = segment(lastSequence);
+        segments.put(lastSequence, segment);
+        region = map(segment);
+    }
+
+    private Path segment(long base) {
+        return file.resolveSibling(file.getFileName() + "." + base);
+    }
+
+    /**
+     * @return The sequence of the last event before a segment, or null when the path is not a segment of the journal
+     */
+    private Long base(Path path) {
+        String prefix = file.getFileName() + ".";
+        String name = path.getFileName().toString();
+        if (!name.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(name.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private MappedByteBuffer map(Path segment) {
+        try (FileChannel channel = FileChannel.open(
+            segment, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(Map<Long, Path> deleted) {
+        List<Path> paths = new ArrayList<>(deleted.values());
+        deleted.clear();
+        for (Path path : paths) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package imran.exercise.library.management.ledger;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.exception.BookUnavailableException;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Borrows and returns copies of books by appending loan events to a {@link LoanJournal}, without updating
+ * the database, when enabled by {@code library.ledger.enabled}.  The {@link LoanProjector} applies the events
+ * to the database in the background.
+ * <p>
+ * The available copies and version of a book are read from the database when the book is first borrowed or
+ * returned, and from then on kept in memory, where borrows and returns compare-and-set them.  As every change
+ * of the available copies goes through the ledger, the database never holds a newer version of a book read
+ * into the ledger, and {@link #overlay(VersionedBook)} replaces a book read from the database by its current
+ * state.  The versions follow the database, the projector incrementing a version once per event.
+ * <p>
+ * Removing a book appends a {@link LoanEvent.Type#REMOVED} event, which fences off the events appended before
+ * it, and a borrow or return still holding the state of the removed book fails instead of appending an event.
+ */
+public class LoanLedger implements AutoCloseable {
+
+    private final LoanJournal journal;
+    private final LibraryRepository libraryRepository;
+    private final Map<String, LoanState> states = new ConcurrentHashMap<>();
+    private final AtomicLong removals = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private List<LoanEvent> pendingEvents = new ArrayList<>();
+    private long pendingSince;
+    private long drainedSince;
+
+    /**
+     * @param journal - The journal of the loan events, or null when the ledger is disabled
+     * @param libraryRepository - The repository reading the books when they are first borrowed or returned
+     */
+    public LoanLedger(LoanJournal journal, LibraryRepository libraryRepository) {
+        this.journal = journal;
+        this.libraryRepository = libraryRepository;
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    public LoanJournal journal() {
+        return journal;
+    }
+
+    /**
+     * Decreases the available copies of a book by 1 and appends a {@link LoanEvent.Type#BORROWED} event
+     * @param isbn - The ISBN of the book
+     * @return The book that is now borrowed and its version
+     */
+    public VersionedBook borrowCopy(String isbn) {
+        LoanState state = state(isbn);
+        Availability availability;
+        Availability borrowed;
+        do {
+            availability = state.availability.get();
+            if (availability.copies() <= 0) {
+                throw new BookUnavailableException();
+            }
+            borrowed = availability.next(-1);
+        } while (!state.availability.compareAndSet(availability, borrowed));
+        append(LoanEvent.Type.BORROWED, isbn, state);
+        return state.versionedBook(borrowed);
+    }
+
+    /**
+     * Increases the available copies of a book by 1 and appends a {@link LoanEvent.Type#RETURNED} event
+     * @param isbn - The ISBN of the book
+     * @return The book that is now returned and its version
+     */
+    public VersionedBook returnCopy(String isbn) {
+        LoanState state = state(isbn);
+        Availability returned = state.availability.updateAndGet(availability -> availability.next(1));
+        append(LoanEvent.Type.RETURNED, isbn, state);
+        return state.versionedBook(returned);
+    }
+
+    /**
+     * Returns the current state of a book read from the database
+     * @param versionedBook - The book and its version read from the database
+     * @return The book with its available copies and version in the ledger, or the given book when the ledger
+     * has no newer state of it
+     */
+    public VersionedBook overlay(VersionedBook versionedBook) {
+        LoanState state = journal == null ? null : states.get(versionedBook.book().isbn());
+        if (state == null) {
+            return versionedBook;
+        }
+        VersionedBook current = state.versionedBook(state.availability.get());
+        return current.version() >= versionedBook.version() ? current : versionedBook;
+    }
+
+    /**
+     * Forgets the state of a removed book, so that a book later added with the same ISBN is read again, and
+     * appends a {@link LoanEvent.Type#REMOVED} event when the book has events, so that they are not applied
+     * to that book
+     * @param isbn - The ISBN of the book
+     */
+    public void forget(String isbn) {
+        removals.incrementAndGet();
+        lock.lock();
+        try {
+            if (states.remove(isbn) != null && journal != null) {
+                appendPending(LoanEvent.Type.REMOVED, isbn);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of events appended but not yet taken by the projector
+     */
+    public int pendingEvents() {
+        lock.lock();
+        try {
+            return pendingEvents.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Takes the events appended since the last call, in sequence order
+     */
+    List<LoanEvent> drain() {
+        lock.lock();
+        try {
+            List<LoanEvent> events = pendingEvents;
+            pendingEvents = new ArrayList<>();
+            drainedSince = pendingSince;
+            return events;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the books removed by events appended since the last {@link #drain()}, whose rows may already belong
+     * to books added again with the same ISBN, so the drained events of these books must not be applied
+     */
+    Set<String> pendingRemovals() {
+        lock.lock();
+        try {
+            Set<String> isbns = new HashSet<>();
+            for (LoanEvent event : pendingEvents) {
+                if (event.type() == LoanEvent.Type.REMOVED) {
+                    isbns.add(event.isbn());
+                }
+            }
+            return isbns;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} at which the oldest event taken by the last {@link #drain()} was
+     * appended
+     */
+    long drainedSince() {
+        lock.lock();
+        try {
+            return drainedSince;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts back events taken by {@link #drain()} that could not be projected, before the events appended since
+     */
+    void requeue(List<LoanEvent> events) {
+        lock.lock();
+        try {
+            if (!events.isEmpty()) {
+                pendingEvents.addAll(0, events);
+                pendingSince = drainedSince;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends an event of a book, unless the book was removed since its state was read
+     */
+    private void append(LoanEvent.Type type, String isbn, LoanState state) {
+        lock.lock();
+        try {
+            if (states.get(isbn) != state) {
+                throw new BookNotFoundException();
+            }
+            appendPending(type, isbn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void appendPending(LoanEvent.Type type, String isbn) {
+        if (pendingEvents.isEmpty()) {
+            pendingSince = System.nanoTime();
+        }
+        pendingEvents.add(journal.append(type, isbn));
+    }
+
+    /**
+     * Returns the state of a book, reading it from the database outside the map of the states, and reading it
+     * again when a book was removed while it was read, as it may have been read before its delete
+     */
+    private LoanState state(String isbn) {
+        while (true) {
+            LoanState state = states.get(isbn);
+            if (state != null) {
+                return state;
+            }
+            long removal = removals.get();
+            LoanState read = libraryRepository.findVersionedBook(isbn)
+                .map(LoanState::new)
+                .orElseThrow(BookNotFoundException::new);
+            state = states.putIfAbsent(isbn, read);
+            if (state != null) {
+                return state;
+            }
+            if (removals.get() == removal) {
+                return read;
+            }
+            states.remove(isbn, read);
+        }
+    }
+
+    private record Availability(int copies, long version) {
+
+        Availability next(int delta) {
+            return new Availability(copies + delta, version + 1);
+        }
+    }
+
+    private static class LoanState {
+
+        private final Book book;
+        private final AtomicReference<Availability> availability;
+
+        LoanState(VersionedBook versionedBook) {
+            Integer copies = versionedBook.book().availableCopies();
+            this.book = versionedBook.book();
+            this.availability = new AtomicReference<>(new Availability(copies == null ? 0 : copies, versionedBook.version()));
+        }
+
+        VersionedBook versionedBook(Availability availability) {
+            return new VersionedBook(
+                new Book(book.isbn(), book.title(), book.author(), book.publicationYear(), availability.copies()),
+                availability.version());
+        }
+    }
+}
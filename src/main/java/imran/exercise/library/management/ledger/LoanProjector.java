@@ -0,0 +1,193 @@
+package imran.exercise.library.management.ledger;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applies the events of the {@link LoanLedger} to the available copies and versions of the books in the
+ * database, in a background thread.
+ * <p>
+ * The events appended since the last projection are summed by book and applied in one transaction, together
+ * with the sequence of the last applied event, so each event is applied exactly once.  On startup, the
+ * events of the journal after that sequence, appended before a crash, are applied before the ledger is used.
+ * The segments of the journal holding only applied events are then deleted.  The events of a book before its
+ * {@link LoanEvent.Type#REMOVED} event are not applied, as they belong to the removed book, whether the removal
+ * was drained with them or appended while they were being projected.  The tables are created by the schema
+ * migrations, or by {@code schema.sql} when these are disabled.
+ * <p>
+ * The database is thus written behind the ledger: {@code library.ledger.flush.lag} times how long the oldest
+ * event of each projection waited for its transaction, and {@code library.ledger.batch.events} and
+ * {@code library.ledger.batch.books} count the events of a projection and the rows they were summed into.
+ */
+public class LoanProjector implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanProjector.class);
+
+    private static final String FIND_SEQUENCE = "select sequence from loan_projection where id = 1";
+    private static final String INSERT_SEQUENCE = "insert into loan_projection (id, sequence) values (1, 0)";
+    private static final String UPDATE_SEQUENCE = "update loan_projection set sequence = ? where id = 1";
+    private static final String APPLY_EVENTS =
+        "update book_entity set available_copies = available_copies + ?, version = version + ? where isbn = ?";
+
+    private final LoanLedger ledger;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService executor;
+    private final AtomicLong projectedEvents = new AtomicLong();
+    private final Timer flushLag;
+    private final DistributionSummary batchEvents;
+    private final DistributionSummary batchBooks;
+
+    /**
+     * Applies the events of the journal not yet in the database, then projects new events periodically
+     * @param ledger - The enabled ledger
+     * @param jdbcTemplate - The template of the database
+     * @param transactionTemplate - The template of the transactions applying the events
+     * @param interval - The time between two projections
+     * @param registry - The registry of the metrics
+     */
+    public LoanProjector(
+        LoanLedger ledger, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+        Duration interval, MeterRegistry registry) {
+        this.ledger = ledger;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.flushLag = Timer.builder("library.ledger.flush.lag")
+            .description("The time from appending the oldest event of a projection to committing the projection")
+            .register(registry);
+        this.batchEvents = DistributionSummary.builder("library.ledger.batch.events")
+            .description("The loan events applied by a projection")
+            .register(registry);
+        this.batchBooks = DistributionSummary.builder("library.ledger.batch.books")
+            .description("The books updated by a projection, each with the sum of its events")
+            .register(registry);
+
+        recover();
+
+        FunctionCounter.builder("library.ledger.events", ledger.journal(), LoanJournal::lastSequence)
+            .description("The loan events appended to the journal")
+            .tag("state", "appended")
+            .register(registry);
+        FunctionCounter.builder("library.ledger.events", projectedEvents, AtomicLong::get)
+            .description("The loan events applied to the database since startup")
+            .tag("state", "projected")
+            .register(registry);
+        Gauge.builder("library.ledger.pending", ledger, LoanLedger::pendingEvents)
+            .description("The loan events appended but not yet applied to the database")
+            .register(registry);
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loan-projector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::project, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Applies the events appended since the last projection
+     * @return The number of applied events
+     */
+    public int project() {
+        List<LoanEvent> events = ledger.drain();
+        if (events.isEmpty()) {
+            return 0;
+        }
+        try {
+            apply(events);
+            flushLag.record(System.nanoTime() - ledger.drainedSince(), TimeUnit.NANOSECONDS);
+            return events.size();
+        } catch (RuntimeException e) {
+            ledger.requeue(events);
+            log.warn("Projecting {} loan events failed, retrying on the next projection", events.size(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * @return The number of events applied to the database since startup
+     */
+    public long projectedEvents() {
+        return projectedEvents.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        project();
+    }
+
+    private void recover() {
+        List<Long> sequences = jdbcTemplate.queryForList(FIND_SEQUENCE, Long.class);
+        if (sequences.isEmpty()) {
+            jdbcTemplate.update(INSERT_SEQUENCE);
+        }
+        long projectedSequence = sequences.isEmpty() ? 0 : sequences.get(0);
+
+        List<LoanEvent> events = new ArrayList<>();
+        ledger.journal().replay(projectedSequence, events::add);
+        if (!events.isEmpty()) {
+            apply(events);
+            log.info("Recovered {} loan events after sequence {}", events.size(), projectedSequence);
+        } else {
+            truncate(projectedSequence);
+        }
+    }
+
+    private void apply(List<LoanEvent> events) {
+        Map<String, int[]> changesByIsbn = new TreeMap<>();
+        for (LoanEvent event : events) {
+            if (event.type() == LoanEvent.Type.REMOVED) {
+                changesByIsbn.remove(event.isbn());
+                continue;
+            }
+            int[] changes = changesByIsbn.computeIfAbsent(event.isbn(), isbn -> new int[2]);
+            changes[0] += event.type().delta();
+            changes[1]++;
+        }
+        long lastSequence = events.get(events.size() - 1).sequence();
+
+        List<Object[]> updates = transactionTemplate.execute(status -> {
+            changesByIsbn.keySet().removeAll(ledger.pendingRemovals());
+            List<Object[]> rows = new ArrayList<>(changesByIsbn.size());
+            changesByIsbn.forEach((isbn, changes) -> rows.add(new Object[]{changes[0], changes[1], isbn}));
+            jdbcTemplate.batchUpdate(APPLY_EVENTS, rows);
+            jdbcTemplate.update(UPDATE_SEQUENCE, lastSequence);
+            return rows;
+        });
+        projectedEvents.addAndGet(events.size());
+        batchEvents.record(events.size());
+        batchBooks.record(updates.size());
+        truncate(lastSequence);
+    }
+
+    private void truncate(long projectedSequence) {
+        try {
+            ledger.journal().truncate(projectedSequence);
+        } catch (RuntimeException e) {
+            log.warn("Deleting the loan journal segments up to sequence {} failed", projectedSequence, e);
+        }
+    }
+}
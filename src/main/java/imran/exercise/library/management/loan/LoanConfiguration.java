@@ -0,0 +1,9 @@
+package imran.exercise.library.management.loan;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LoanProperties.class)
+public class LoanConfiguration {
+}
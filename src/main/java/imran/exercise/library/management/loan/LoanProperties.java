@@ -0,0 +1,16 @@
+package imran.exercise.library.management.loan;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * @param loanPeriod - The time a member can keep a lent copy before it is overdue
+ * @param defaultLoanLimit - The maximum number of copies on loan at the same time to a member added without a limit
+ */
+@ConfigurationProperties(prefix = "library.loans")
+public record LoanProperties(
+    @DefaultValue("21d") Duration loanPeriod,
+    @DefaultValue("5") int defaultLoanLimit) {
+}
@@ -0,0 +1,54 @@
+package imran.exercise.library.management.persistence;
+
+import imran.exercise.library.management.domain.CopyEntity;
+import imran.exercise.library.management.dto.CopyCount;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CopyRepository extends JpaRepository<CopyEntity, Long> {
+
+    /**
+     * Counts the copies of the given books that are not on loan, read from the ISBN and on loan index only
+     * @param isbns - The ISBNs of the books
+     * @return The count of each book with at least one copy not on loan, in no particular order
+     */
+    @Query("select new imran.exercise.library.management.dto.CopyCount(c.book.isbn, count(c)) " +
+        "from CopyEntity c where c.book.isbn in :isbns and c.onLoan = false group by c.book.isbn")
+    List<CopyCount> countAvailableCopies(@Param("isbns") Collection<String> isbns);
+
+    /**
+     * Returns the ids of copies of a book that are not on loan, read from the ISBN and on loan index only
+     * @param isbn - The ISBN of the book
+     * @param limit - The maximum number of ids
+     * @return The ids of the copies
+     */
+    @Query("select c.id from CopyEntity c where c.book.isbn = :isbn and c.onLoan = false")
+    List<Long> findAvailableCopyIds(@Param("isbn") String isbn, Limit limit);
+
+    /**
+     * Atomically marks a copy on loan, only if it is not on loan already
+     * @param id - The id of the copy
+     * @return The number of updated rows, 0 when the copy does not exist or is on loan
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update CopyEntity c set c.onLoan = true where c.id = :id and c.onLoan = false")
+    int lendCopy(@Param("id") long id);
+
+    /**
+     * Marks a copy back on the shelf
+     * @param id - The id of the copy
+     * @return The number of updated rows, 0 when the copy does not exist or is not on loan
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update CopyEntity c set c.onLoan = false where c.id = :id and c.onLoan = true")
+    int releaseCopy(@Param("id") long id);
+}
@@ -1,7 +1,104 @@
 package imran.exercise.library.management.persistence;
 
 import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.dto.Book;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface LibraryRepository extends JpaRepository<BookEntity, String> {
+import java.util.Collection;
+import java.util.List;
+
+public interface LibraryRepository extends JpaRepository<BookEntity, String>, LibraryRepositoryCustom {
+
+    /**
+     * Returns all books ordered by ISBN, read directly into DTOs without managing entities
+     * @return The list of all books
+     */
+    @Query("select new imran.exercise.library.management.dto.Book(b.isbn, b.title, b.author, b.publicationYear, b.availableCopies) " +
+        "from BookEntity b order by b.isbn")
+    List<Book> findAllBooks();
+
+    /**
+     * Returns the books with the given ISBNs and their versions, read directly into DTOs without managing entities
+     * @param isbns - The ISBNs of the books
+     * @return The existing books and their versions, in no particular order
+     */
+    @Query("select new imran.exercise.library.management.persistence.VersionedBook(b.isbn, b.title, b.author, b.publicationYear, b.availableCopies, b.version) " +
+        "from BookEntity b where b.isbn in :isbns")
+    List<VersionedBook> findVersionedBooks(@Param("isbns") Collection<String> isbns);
+
+    /**
+     * Returns which of the given ISBNs belong to existing books, without reading the books
+     * @param isbns - The ISBNs of the books
+     * @return The ISBNs of the existing books
+     */
+    @Query("select b.isbn from BookEntity b where b.isbn in :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    /**
+     * Returns a page of ISBNs in order, starting after the given ISBN, read from the primary key index only
+     * @param isbn - The last ISBN of the previous page, or an empty string for the first page
+     * @param limit - The maximum number of ISBNs in the page
+     * @return The page of ISBNs
+     */
+    @Query("select b.isbn from BookEntity b where b.isbn > :isbn order by b.isbn")
+    List<String> findIsbnsAfter(@Param("isbn") String isbn, Limit limit);
+
+    /**
+     * Returns a page of books ordered by ISBN, starting after the given ISBN, read directly into DTOs
+     * @param isbn - The last ISBN of the previous page, or an empty string for the first page
+     * @param limit - The maximum number of books in the page
+     * @return The page of books
+     */
+    @Query("select new imran.exercise.library.management.dto.Book(b.isbn, b.title, b.author, b.publicationYear, b.availableCopies) " +
+        "from BookEntity b where b.isbn > :isbn order by b.isbn")
+    List<Book> findBooksAfter(@Param("isbn") String isbn, Limit limit);
+
+    /**
+     * Returns a page of books by the given author ordered by ISBN, starting after the given ISBN, read with the
+     * author index directly into DTOs
+     * @param author - The author of the books
+     * @param isbn - The last ISBN of the previous page, or an empty string for the first page
+     * @param limit - The maximum number of books in the page
+     * @return The page of books
+     */
+    @Query("select new imran.exercise.library.management.dto.Book(b.isbn, b.title, b.author, b.publicationYear, b.availableCopies) " +
+        "from BookEntity b where b.author = :author and b.isbn > :isbn order by b.isbn")
+    List<Book> findBooksByAuthorAfter(@Param("author") String author, @Param("isbn") String isbn, Limit limit);
+
+    /**
+     * Deletes a book only if none of its copies is on loan to a member, checked in the same statement so that no
+     * copy can be lent in between, and so that only one of concurrent removals of the same book finds it deleted
+     * @param isbn - The ISBN of the book
+     * @return The number of deleted rows, 0 when the book does not exist or has a copy on loan
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("delete from BookEntity b where b.isbn = :isbn and not exists " +
+        "(select l from LoanEntity l join l.copy c where c.book.isbn = :isbn and l.returnedAt is null)")
+    int deleteBook(@Param("isbn") String isbn);
+
+    /**
+     * Atomically decreases the available copies of a book by 1, only if a copy is available, and increments its version
+     * @param isbn - The ISBN of the book
+     * @return The number of updated rows, 0 when the book does not exist or has no available copies
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update BookEntity b set b.availableCopies = b.availableCopies - 1, b.version = b.version + 1 where b.isbn = :isbn and b.availableCopies > 0")
+    int decrementAvailableCopies(@Param("isbn") String isbn);
+
+    /**
+     * Atomically increases the available copies of a book by 1 and increments its version
+     * @param isbn - The ISBN of the book
+     * @return The number of updated rows, 0 when the book does not exist
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update BookEntity b set b.availableCopies = b.availableCopies + 1, b.version = b.version + 1 where b.isbn = :isbn")
+    int incrementAvailableCopies(@Param("isbn") String isbn);
 }
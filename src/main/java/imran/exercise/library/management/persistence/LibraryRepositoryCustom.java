@@ -0,0 +1,57 @@
+package imran.exercise.library.management.persistence;
+
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.dto.Book;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface LibraryRepositoryCustom {
+
+    /**
+     * Returns the book with the given ISBN and its version, mapped straight from the JDBC row without an entity
+     * or a persistence context
+     * @param isbn - The ISBN of the book
+     * @return The book and its version, or empty when the book does not exist
+     */
+    Optional<VersionedBook> findVersionedBook(String isbn);
+
+    /**
+     * Returns the books by the given author ordered by ISBN, read with the author index and mapped straight from
+     * the JDBC rows without entities or a persistence context
+     * @param author - The author of the books
+     * @return The list of books by the given author
+     */
+    List<Book> findBooksByAuthor(String author);
+
+    /**
+     * Inserts new books using JDBC batching, in a single transaction
+     * @param bookEntities - The books to be inserted, none of which exists
+     * @throws org.springframework.dao.DataIntegrityViolationException when one of the books was inserted concurrently,
+     * inserting none of them
+     */
+    void insertAll(List<BookEntity> bookEntities);
+
+    /**
+     * Atomically decreases the available copies of each book by 1, only if a copy is available, in a single JDBC batch
+     * @param isbns - The ISBNs of the books, an ISBN appearing once per copy
+     * @return The number of updated rows for each ISBN, 0 when the book does not exist or has no available copies
+     */
+    int[] batchDecrementAvailableCopies(List<String> isbns);
+
+    /**
+     * Atomically increases the available copies of each book by 1 in a single JDBC batch
+     * @param isbns - The ISBNs of the books, an ISBN appearing once per copy
+     * @return The number of updated rows for each ISBN, 0 when the book does not exist
+     */
+    int[] batchIncrementAvailableCopies(List<String> isbns);
+
+    /**
+     * Streams the books ordered by ISBN to the given action within a read-only transaction, read directly into
+     * DTOs without managing entities so that memory use does not grow with the number of books
+     * @param author - The author of the books, or null for all books
+     * @param action - The action handling each book
+     */
+    void forEachBook(String author, Consumer<Book> action);
+}
@@ -0,0 +1,99 @@
+package imran.exercise.library.management.persistence;
+
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.dto.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class LibraryRepositoryCustomImpl implements LibraryRepositoryCustom {
+
+    private static final String FIND_VERSIONED_BOOK =
+        "select isbn, title, author, publication_year, available_copies, version from book_entity where isbn = ?";
+    private static final String FIND_BOOKS_BY_AUTHOR =
+        "select isbn, title, author, publication_year, available_copies from book_entity where author = ? order by isbn";
+    private static final String DECREMENT_AVAILABLE_COPIES =
+        "update book_entity set available_copies = available_copies - 1, version = version + 1 where isbn = ? and available_copies > 0";
+    private static final String INCREMENT_AVAILABLE_COPIES =
+        "update book_entity set available_copies = available_copies + 1, version = version + 1 where isbn = ?";
+
+    private static final String SELECT_BOOK =
+        "select new imran.exercise.library.management.dto.Book(b.isbn, b.title, b.author, b.publicationYear, b.availableCopies) " +
+        "from BookEntity b ";
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final RowMapper<Book> BOOK = (resultSet, rowNum) -> new Book(
+        resultSet.getString(1), resultSet.getString(2), resultSet.getString(3),
+        resultSet.getObject(4, Integer.class), resultSet.getObject(5, Integer.class));
+    private static final RowMapper<VersionedBook> VERSIONED_BOOK = (resultSet, rowNum) ->
+        new VersionedBook(BOOK.mapRow(resultSet, rowNum), resultSet.getLong(6));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public LibraryRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Optional<VersionedBook> findVersionedBook(String isbn) {
+        List<VersionedBook> books = jdbcTemplate.query(FIND_VERSIONED_BOOK, VERSIONED_BOOK, isbn);
+        return books.isEmpty() ? Optional.empty() : Optional.of(books.get(0));
+    }
+
+    @Override
+    public List<Book> findBooksByAuthor(String author) {
+        return jdbcTemplate.query(FIND_BOOKS_BY_AUTHOR, BOOK, author);
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<BookEntity> bookEntities) {
+        bookEntities.forEach(entityManager::persist);
+        entityManager.flush();
+    }
+
+    @Override
+    @Transactional
+    public int[] batchDecrementAvailableCopies(List<String> isbns) {
+        return batchUpdate(DECREMENT_AVAILABLE_COPIES, isbns);
+    }
+
+    @Override
+    @Transactional
+    public int[] batchIncrementAvailableCopies(List<String> isbns) {
+        return batchUpdate(INCREMENT_AVAILABLE_COPIES, isbns);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachBook(String author, Consumer<Book> action) {
+        TypedQuery<Book> query = author == null
+            ? entityManager.createQuery(SELECT_BOOK + "order by b.isbn", Book.class)
+            : entityManager.createQuery(SELECT_BOOK + "where b.author = :author order by b.isbn", Book.class)
+                .setParameter("author", author);
+
+        try (Stream<Book> books = query.setHint(AvailableHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE).getResultStream()) {
+            books.forEach(action);
+        }
+    }
+
+    private int[] batchUpdate(String sql, List<String> isbns) {
+        entityManager.flush();
+        int[] updated = jdbcTemplate.batchUpdate(sql, isbns.stream().map(isbn -> new Object[]{isbn}).toList());
+        entityManager.clear();
+        return updated;
+    }
+}
@@ -0,0 +1,65 @@
+package imran.exercise.library.management.persistence;
+
+import imran.exercise.library.management.domain.LoanEntity;
+import imran.exercise.library.management.dto.Loan;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface LoanRepository extends JpaRepository<LoanEntity, Long> {
+
+    /**
+     * Returns a loan, read directly into its DTO without managing entities
+     * @param id - The id of the loan
+     * @return The loan, or empty when the loan does not exist
+     */
+    @Query("select new imran.exercise.library.management.dto.Loan(l.id, c.id, c.book.isbn, l.member.id, l.borrowedAt, l.dueAt, l.returnedAt) " +
+        "from LoanEntity l join l.copy c where l.id = :id")
+    Optional<Loan> findLoan(@Param("id") long id);
+
+    /**
+     * Counts the open loans of a member, read from the member index only
+     * @param memberId - The id of the member
+     * @return The number of copies on loan to the member
+     */
+    @Query("select count(l) from LoanEntity l where l.member.id = :memberId and l.returnedAt is null")
+    long countOpenLoans(@Param("memberId") long memberId);
+
+    /**
+     * Returns the open loans of a member ordered by due date, found with the member index
+     * @param memberId - The id of the member
+     * @return The open loans
+     */
+    @Query("select new imran.exercise.library.management.dto.Loan(l.id, c.id, c.book.isbn, l.member.id, l.borrowedAt, l.dueAt, l.returnedAt) " +
+        "from LoanEntity l join l.copy c where l.member.id = :memberId and l.returnedAt is null order by l.dueAt")
+    List<Loan> findOpenLoans(@Param("memberId") long memberId);
+
+    /**
+     * Returns the open loans due before a time ordered by due date, read in order from the index of the open
+     * loans by due date, so only the overdue loans are visited
+     * @param asOf - The time the loans are overdue at
+     * @param limit - The maximum number of loans
+     * @return The overdue loans, longest overdue first
+     */
+    @Query("select new imran.exercise.library.management.dto.Loan(l.id, c.id, c.book.isbn, l.member.id, l.borrowedAt, l.dueAt, l.returnedAt) " +
+        "from LoanEntity l join l.copy c where l.returnedAt is null and l.dueAt < :asOf order by l.dueAt")
+    List<Loan> findOverdueLoans(@Param("asOf") Instant asOf, Limit limit);
+
+    /**
+     * Atomically closes a loan, only if it is open
+     * @param id - The id of the loan
+     * @param returnedAt - The time the copy was returned
+     * @return The number of updated rows, 0 when the loan does not exist or is closed already
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update LoanEntity l set l.returnedAt = :returnedAt where l.id = :id and l.returnedAt is null")
+    int closeLoan(@Param("id") long id, @Param("returnedAt") Instant returnedAt);
+}
@@ -0,0 +1,23 @@
+package imran.exercise.library.management.persistence;
+
+import imran.exercise.library.management.domain.MemberEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface MemberRepository extends JpaRepository<MemberEntity, Long> {
+
+    /**
+     * Reads a member and locks its row until the end of the transaction, so that the loans of a member are
+     * counted and added one transaction at a time
+     * @param id - The id of the member
+     * @return The locked member, or empty when the member does not exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select m from MemberEntity m where m.id = :id")
+    Optional<MemberEntity> lockMember(@Param("id") long id);
+}
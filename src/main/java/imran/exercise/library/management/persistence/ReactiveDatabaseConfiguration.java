@@ -0,0 +1,62 @@
+package imran.exercise.library.management.persistence;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Connects the reactive driver to the database of {@code spring.datasource.url}, so that the reactive and
+ * the blocking Library share the same books whatever database a profile or a test selects.
+ * <p>
+ * The connection pool is not a bean: Spring Boot does not configure a JDBC data source when a
+ * {@link ConnectionFactory} bean exists.
+ */
+@Configuration
+@EnableConfigurationProperties(ReactiveDatabaseProperties.class)
+public class ReactiveDatabaseConfiguration implements DisposableBean {
+
+    private static final String H2_URL_PREFIX = "jdbc:h2:";
+
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(DataSourceProperties dataSource, ReactiveDatabaseProperties properties) {
+        connectionPool = connectionPool(dataSource, properties);
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Override
+    public void destroy() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    private static ConnectionPool connectionPool(DataSourceProperties dataSource, ReactiveDatabaseProperties properties) {
+        String url = dataSource.determineUrl();
+        if (url == null || !url.startsWith(H2_URL_PREFIX)) {
+            throw new IllegalStateException("The reactive driver only supports H2 databases, not " + url);
+        }
+
+        H2ConnectionConfiguration.Builder configuration = H2ConnectionConfiguration.builder()
+            .url(url.substring(H2_URL_PREFIX.length()))
+            .username(dataSource.determineUsername());
+        if (dataSource.determinePassword() != null) {
+            configuration.password(dataSource.determinePassword());
+        }
+
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(new H2ConnectionFactory(configuration.build()))
+            .name("library-reactive")
+            .initialSize(properties.initialPoolSize())
+            .maxSize(properties.maximumPoolSize())
+            .build());
+    }
+}
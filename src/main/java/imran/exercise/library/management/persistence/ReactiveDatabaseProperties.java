@@ -0,0 +1,14 @@
+package imran.exercise.library.management.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * @param initialPoolSize - The number of connections opened at startup
+ * @param maximumPoolSize - The maximum number of connections, the maximum number of concurrent statements
+ */
+@ConfigurationProperties(prefix = "library.reactive")
+public record ReactiveDatabaseProperties(
+    @DefaultValue("4") int initialPoolSize,
+    @DefaultValue("4") int maximumPoolSize) {
+}
@@ -0,0 +1,146 @@
+package imran.exercise.library.management.persistence;
+
+import imran.exercise.library.management.dto.Book;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads and writes books with the reactive driver.  Rows are emitted as they are read, as requested by
+ * the subscriber, so a large result set is never held in memory.
+ */
+@Repository
+public class ReactiveLibraryRepository {
+
+    private static final String SELECT_BOOK =
+        "select isbn, title, author, publication_year, available_copies from book_entity ";
+    private static final String FIND_VERSIONED_BOOK =
+        "select isbn, title, author, publication_year, available_copies, version from book_entity where isbn = :isbn";
+    private static final String EXISTS_BY_ID = "select count(*) from book_entity where isbn = :isbn";
+    private static final String INSERT_BOOK =
+        "insert into book_entity (isbn, title, author, publication_year, available_copies, version) " +
+        "values (:isbn, :title, :author, :publicationYear, :availableCopies, 0)";
+    private static final String DELETE_BOOK =
+        "delete from book_entity b where isbn = :isbn and not exists (select 1 from copy_entity c " +
+        "join loan_entity l on l.copy_id = c.id where c.isbn = b.isbn and l.returned_at is null)";
+    private static final String DECREMENT_AVAILABLE_COPIES =
+        "update book_entity set available_copies = available_copies - 1, version = version + 1 where isbn = :isbn and available_copies > 0";
+    private static final String INCREMENT_AVAILABLE_COPIES =
+        "update book_entity set available_copies = available_copies + 1, version = version + 1 where isbn = :isbn";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveLibraryRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Returns a book and its version
+     * @param isbn - The ISBN of the book
+     * @return The book and its version, or empty when the book does not exist
+     */
+    public Mono<VersionedBook> findVersionedBook(String isbn) {
+        return databaseClient.sql(FIND_VERSIONED_BOOK)
+            .bind("isbn", isbn)
+            .map(row -> {
+                Long version = row.get(5, Long.class);
+                return new VersionedBook(book(row), version == null ? 0 : version);
+            })
+            .one();
+    }
+
+    /**
+     * Returns whether a book exists
+     * @param isbn - The ISBN of the book
+     * @return true if the book exists
+     */
+    public Mono<Boolean> existsById(String isbn) {
+        return databaseClient.sql(EXISTS_BY_ID)
+            .bind("isbn", isbn)
+            .map(row -> row.get(0, Long.class) > 0)
+            .one();
+    }
+
+    /**
+     * Returns the books by a given author ordered by ISBN
+     * @param author - The author of the books, or null for all books
+     * @return The books, read as they are requested
+     */
+    public Flux<Book> findBooksByAuthor(String author) {
+        return author == null
+            ? databaseClient.sql(SELECT_BOOK + "order by isbn").map(ReactiveLibraryRepository::book).all()
+            : databaseClient.sql(SELECT_BOOK + "where author = :author order by isbn")
+                .bind("author", author)
+                .map(ReactiveLibraryRepository::book)
+                .all();
+    }
+
+    /**
+     * Returns a page of books by a given author ordered by ISBN, starting after the given ISBN
+     * @param author - The author of the books, or null for all books
+     * @param isbn - The last ISBN of the previous page, or an empty string for the first page
+     * @param limit - The maximum number of books in the page
+     * @return The page of books
+     */
+    public Flux<Book> findBooksAfter(String author, String isbn, int limit) {
+        DatabaseClient.GenericExecuteSpec query = author == null
+            ? databaseClient.sql(SELECT_BOOK + "where isbn > :isbn order by isbn limit :limit")
+            : databaseClient.sql(SELECT_BOOK + "where author = :author and isbn > :isbn order by isbn limit :limit")
+                .bind("author", author);
+        return query.bind("isbn", isbn).bind("limit", limit).map(ReactiveLibraryRepository::book).all();
+    }
+
+    /**
+     * Inserts a new book with version 0
+     * @param book - The book
+     * @return The number of inserted rows
+     */
+    public Mono<Long> insert(Book book) {
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(INSERT_BOOK).bind("isbn", book.isbn());
+        insert = bindNullable(insert, "title", book.title(), String.class);
+        insert = bindNullable(insert, "author", book.author(), String.class);
+        insert = bindNullable(insert, "publicationYear", book.publicationYear(), Integer.class);
+        insert = bindNullable(insert, "availableCopies", book.availableCopies(), Integer.class);
+        return insert.fetch().rowsUpdated();
+    }
+
+    /**
+     * Atomically deletes a book, only if none of its copies is on loan to a member
+     * @param isbn - The ISBN of the book
+     * @return The number of deleted rows, 0 when the book does not exist or a copy of it is on loan
+     */
+    public Mono<Long> delete(String isbn) {
+        return databaseClient.sql(DELETE_BOOK).bind("isbn", isbn).fetch().rowsUpdated();
+    }
+
+    /**
+     * Atomically decreases the available copies of a book by 1, only if a copy is available, and increments its version
+     * @param isbn - The ISBN of the book
+     * @return The number of updated rows, 0 when the book does not exist or has no available copies
+     */
+    public Mono<Long> decrementAvailableCopies(String isbn) {
+        return databaseClient.sql(DECREMENT_AVAILABLE_COPIES).bind("isbn", isbn).fetch().rowsUpdated();
+    }
+
+    /**
+     * Atomically increases the available copies of a book by 1 and increments its version
+     * @param isbn - The ISBN of the book
+     * @return The number of updated rows, 0 when the book does not exist
+     */
+    public Mono<Long> incrementAvailableCopies(String isbn) {
+        return databaseClient.sql(INCREMENT_AVAILABLE_COPIES).bind("isbn", isbn).fetch().rowsUpdated();
+    }
+
+    private static Book book(Readable row) {
+        return new Book(
+            row.get(0, String.class), row.get(1, String.class), row.get(2, String.class),
+            row.get(3, Integer.class), row.get(4, Integer.class));
+    }
+
+    private static <T> DatabaseClient.GenericExecuteSpec bindNullable(
+        DatabaseClient.GenericExecuteSpec spec, String name, T value, Class<T> type) {
+        return value == null ? spec.bindNull(name, type) : spec.bind(name, value);
+    }
+}
@@ -0,0 +1,20 @@
+package imran.exercise.library.management.persistence;
+
+import imran.exercise.library.management.dto.Book;
+
+/**
+ * A book read directly into its DTO together with its version, for caching it without managing an entity.
+ *
+ * @param book - The book
+ * @param version - The version of the book, incremented on every update
+ */
+public record VersionedBook(Book book, long version) {
+
+    /**
+     * Constructor used by JPQL constructor expressions, selecting the columns of a book and its version
+     */
+    public VersionedBook(
+        String isbn, String title, String author, Integer publicationYear, Integer availableCopies, Long version) {
+        this(new Book(isbn, title, author, publicationYear, availableCopies), version == null ? 0 : version);
+    }
+}
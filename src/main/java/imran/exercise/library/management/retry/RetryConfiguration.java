@@ -0,0 +1,16 @@
+package imran.exercise.library.management.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RetryProperties.class)
+public class RetryConfiguration {
+
+    @Bean
+    public RetryPolicy retryPolicy(RetryProperties properties, MeterRegistry registry) {
+        return new RetryPolicy(properties, registry);
+    }
+}
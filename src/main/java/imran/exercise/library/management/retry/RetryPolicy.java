@@ -0,0 +1,90 @@
+package imran.exercise.library.management.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Retries an operation failing with a {@link PessimisticLockingFailureException}, i.e. a lock timeout or a
+ * deadlock on the row locks of concurrent updates, up to a maximum number of attempts.  The retried operations
+ * are guarded single statements without a version to conflict on, so optimistic locking failures are not
+ * retried.  Retries are delayed by a random time up to an exponentially growing bound ("full jitter"), so that
+ * conflicting callers spread out instead of conflicting again.
+ * <p>
+ * Lock conflicts are counted as {@code library.concurrency.conflicts}, tagged by operation and by outcome:
+ * {@code retried}, or {@code exhausted} when the operation failed after its last attempt.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final MeterRegistry registry;
+
+    public RetryPolicy(RetryProperties properties, MeterRegistry registry) {
+        if (properties.maxAttempts() < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.maxAttempts = properties.maxAttempts();
+        this.initialBackoffNanos = properties.initialBackoff().toNanos();
+        this.maxBackoffNanos = properties.maxBackoff().toNanos();
+        this.registry = registry;
+    }
+
+    /**
+     * @param operation - The name of the operation, used to tag its lock conflicts
+     * @param action - The operation
+     * @return The result of the first successful attempt
+     * @throws PessimisticLockingFailureException when the last attempt failed on a lock conflict
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == maxAttempts) {
+                    conflicts(operation, "exhausted").increment();
+                    throw e;
+                }
+                conflicts(operation, "retried").increment();
+                if (!backOff(attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    long backoffBoundNanos(int attempt) {
+        int shift = attempt - 1;
+        if (shift >= Long.numberOfLeadingZeros(initialBackoffNanos) - 1) {
+            return initialBackoffNanos == 0 ? 0 : maxBackoffNanos;
+        }
+        return Math.min(initialBackoffNanos << shift, maxBackoffNanos);
+    }
+
+    private boolean backOff(int attempt) {
+        long bound = backoffBoundNanos(attempt);
+        if (bound == 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Counter conflicts(String operation, String outcome) {
+        return Counter.builder("library.concurrency.conflicts")
+            .description("The number of operations that timed out or deadlocked on the row locks of concurrent updates")
+            .tag("operation", operation)
+            .tag("outcome", outcome)
+            .register(registry);
+    }
+}
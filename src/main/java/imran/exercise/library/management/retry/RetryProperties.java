@@ -0,0 +1,21 @@
+package imran.exercise.library.management.retry;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Retries of operations timing out or deadlocking on the row locks of concurrent updates, configured by
+ * {@code library.retry.*}.
+ *
+ * @param maxAttempts - The maximum number of attempts of an operation, including the first one
+ * @param initialBackoff - The upper bound of the random delay before the first retry, doubled for every further retry
+ * @param maxBackoff - The maximum upper bound of the random delay before a retry
+ */
+@ConfigurationProperties("library.retry")
+public record RetryProperties(
+    @DefaultValue("5") int maxAttempts,
+    @DefaultValue("5ms") Duration initialBackoff,
+    @DefaultValue("200ms") Duration maxBackoff) {
+}
@@ -0,0 +1,347 @@
+package imran.exercise.library.management.search;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookHit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * An in-memory inverted index over book titles and authors, from each term to the books containing it.
+ * <p>
+ * A query matches the books containing every query term, the last term also matching as a prefix so
+ * that partial words find results while typing.  Results are ranked by the sum over the query terms of
+ * the term's inverse document frequency, weighted by whether it occurs in the title, the author or both,
+ * and halved for a prefix match.
+ * <p>
+ * Searches run concurrently under a read lock and are evaluated from the rarest query term, so their
+ * cost depends on the number of matching books rather than on the size of the catalogue.
+ * <p>
+ * Document ids are assigned in increasing order and not reused, so the documents are renumbered once the
+ * removed ones outnumber the indexed ones.  A removal advances a striped stamp of the ISBN, so a book read
+ * from the database before its removal is not indexed again by {@link #put(Book, long)}.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double AUTHOR_WEIGHT = 1.0;
+    private static final double PREFIX_WEIGHT = 0.5;
+    private static final int MAXIMUM_PREFIX_TERMS = 128;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int STRIPES = 64;
+    private static final Comparator<BookHit> RANKING =
+        Comparator.comparingDouble(BookHit::score).reversed().thenComparing(BookHit::isbn);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // guarded by lock
+    private final NavigableMap<String, Postings> postingsByTerm = new TreeMap<>();
+    private final Map<String, Integer> docsByIsbn = new HashMap<>();
+    private Document[] documents = new Document[INITIAL_CAPACITY];
+    private int nextDoc;
+    private final long[] removalStamps = new long[STRIPES];
+
+    /**
+     * Adds a book to the index, replacing the indexed book with the same ISBN
+     * @param book - The book to be indexed
+     */
+    public void put(Book book) {
+        Document document = new Document(book.isbn(), book.title(), book.author(), book.publicationYear());
+        List<String> titleTerms = Tokenizer.tokenize(book.title());
+        List<String> authorTerms = Tokenizer.tokenize(book.author());
+
+        lock.writeLock().lock();
+        try {
+            index(document, titleTerms, authorTerms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the current removal stamp of an ISBN, to be taken before the book is read from the database
+     * @param isbn - The ISBN of the book
+     * @return The stamp to be passed to {@link #put(Book, long)}
+     */
+    public long removalStamp(String isbn) {
+        lock.readLock().lock();
+        try {
+            return removalStamps[stripe(isbn)];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a book read from the database like {@link #put(Book)}, unless it was removed from the index since
+     * the removal stamp was taken
+     * @param book - The book to be indexed
+     * @param removalStamp - The removal stamp of the ISBN taken before the book was read
+     * @return true if the book was indexed
+     */
+    public boolean put(Book book, long removalStamp) {
+        Document document = new Document(book.isbn(), book.title(), book.author(), book.publicationYear());
+        List<String> titleTerms = Tokenizer.tokenize(book.title());
+        List<String> authorTerms = Tokenizer.tokenize(book.author());
+
+        lock.writeLock().lock();
+        try {
+            if (removalStamps[stripe(book.isbn())] != removalStamp) {
+                return false;
+            }
+            index(document, titleTerms, authorTerms);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a book from the index
+     * @param isbn - The ISBN of the book to be removed
+     */
+    public void remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            removalStamps[stripe(isbn)]++;
+            Integer doc = docsByIsbn.get(isbn);
+            if (doc != null) {
+                removeDocument(doc);
+                compactIfSparse();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the books matching all the terms of a query, best match first
+     * @param query - The words to search for in titles and authors, the last word matching as a prefix
+     * @param limit - The maximum number of books to return
+     * @return The matching books, ordered by descending score and then by ISBN
+     */
+    public List<BookHit> search(String query, int limit) {
+        List<String> terms = Tokenizer.tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<List<TermPostings>> matches = new ArrayList<>(terms.size());
+            for (int i = 0; i < terms.size(); i++) {
+                List<TermPostings> termMatches = matchingPostings(terms.get(i), i == terms.size() - 1);
+                if (termMatches.isEmpty()) {
+                    return List.of();
+                }
+                matches.add(termMatches);
+            }
+            matches.sort(Comparator.comparingInt(BookSearchIndex::documentFrequency));
+
+            Map<Integer, Double> scores = new HashMap<>();
+            for (TermPostings termPostings : matches.get(0)) {
+                Postings postings = termPostings.postings();
+                for (int i = 0; i < postings.length(); i++) {
+                    if (postings.fields(i) != 0) {
+                        scores.merge(postings.doc(i), termPostings.score(postings.fields(i)), Math::max);
+                    }
+                }
+            }
+            for (List<TermPostings> termMatches : matches.subList(1, matches.size())) {
+                Iterator<Map.Entry<Integer, Double>> candidates = scores.entrySet().iterator();
+                while (candidates.hasNext()) {
+                    Map.Entry<Integer, Double> candidate = candidates.next();
+                    double score = bestScore(termMatches, candidate.getKey());
+                    if (score == 0) {
+                        candidates.remove();
+                    } else {
+                        candidate.setValue(candidate.getValue() + score);
+                    }
+                }
+            }
+
+            return topHits(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of indexed books
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docsByIsbn.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postingsByTerm.clear();
+            docsByIsbn.clear();
+            documents = new Document[INITIAL_CAPACITY];
+            nextDoc = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                removalStamps[i]++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The number of document ids in use, including those of removed documents
+     */
+    int documentIds() {
+        lock.readLock().lock();
+        try {
+            return nextDoc;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(Document document, List<String> titleTerms, List<String> authorTerms) {
+        Integer existing = docsByIsbn.get(document.isbn());
+        if (existing != null) {
+            if (documents[existing].equals(document)) {
+                return;
+            }
+            removeDocument(existing);
+            compactIfSparse();
+        }
+
+        int doc = nextDoc++;
+        if (doc == documents.length) {
+            documents = Arrays.copyOf(documents, doc * 2);
+        }
+        documents[doc] = document;
+        docsByIsbn.put(document.isbn(), doc);
+        titleTerms.forEach(term -> postingsByTerm.computeIfAbsent(term, t -> new Postings()).add(doc, Postings.TITLE));
+        authorTerms.forEach(term -> postingsByTerm.computeIfAbsent(term, t -> new Postings()).add(doc, Postings.AUTHOR));
+    }
+
+    /**
+     * Renumbers the indexed documents in the same order once the removed ones outnumber them
+     */
+    private void compactIfSparse() {
+        int removedDocs = nextDoc - docsByIsbn.size();
+        if (removedDocs < INITIAL_CAPACITY || removedDocs <= docsByIsbn.size()) {
+            return;
+        }
+        int[] newDocs = new int[nextDoc];
+        Document[] compacted = new Document[Math.max(INITIAL_CAPACITY, docsByIsbn.size() * 2)];
+        int doc = 0;
+        for (int i = 0; i < nextDoc; i++) {
+            if (documents[i] != null) {
+                newDocs[i] = doc;
+                compacted[doc] = documents[i];
+                docsByIsbn.put(documents[i].isbn(), doc);
+                doc++;
+            }
+        }
+        postingsByTerm.values().forEach(postings -> postings.renumber(newDocs));
+        documents = compacted;
+        nextDoc = doc;
+    }
+
+    private void removeDocument(int doc) {
+        Document document = documents[doc];
+        documents[doc] = null;
+        docsByIsbn.remove(document.isbn());
+
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(document.title()));
+        terms.addAll(Tokenizer.tokenize(document.author()));
+        for (String term : terms) {
+            Postings postings = postingsByTerm.get(term);
+            postings.remove(doc);
+            if (postings.isEmpty()) {
+                postingsByTerm.remove(term);
+            }
+        }
+    }
+
+    private List<TermPostings> matchingPostings(String term, boolean prefix) {
+        List<TermPostings> matches = new ArrayList<>();
+        Postings exact = postingsByTerm.get(term);
+        if (exact != null) {
+            matches.add(new TermPostings(exact, inverseDocumentFrequency(exact)));
+        }
+        if (prefix) {
+            for (Postings postings : postingsByTerm.subMap(term, false, term + Character.MAX_VALUE, false).values()) {
+                if (matches.size() == MAXIMUM_PREFIX_TERMS) {
+                    break;
+                }
+                matches.add(new TermPostings(postings, inverseDocumentFrequency(postings) * PREFIX_WEIGHT));
+            }
+        }
+        return matches;
+    }
+
+    private double inverseDocumentFrequency(Postings postings) {
+        return Math.log(1 + (double) docsByIsbn.size() / postings.size());
+    }
+
+    private static int stripe(String isbn) {
+        int hash = isbn.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static double bestScore(List<TermPostings> termMatches, int doc) {
+        double best = 0;
+        for (TermPostings termPostings : termMatches) {
+            best = Math.max(best, termPostings.score(termPostings.postings().fieldsOf(doc)));
+        }
+        return best;
+    }
+
+    private static int documentFrequency(List<TermPostings> termMatches) {
+        int frequency = 0;
+        for (TermPostings termPostings : termMatches) {
+            frequency += termPostings.postings().size();
+        }
+        return frequency;
+    }
+
+    private List<BookHit> topHits(Map<Integer, Double> scores, int limit) {
+        PriorityQueue<BookHit> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        scores.forEach((doc, score) -> {
+            Document document = documents[doc];
+            top.add(new BookHit(document.isbn(), document.title(), document.author(), document.publicationYear(), score));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        List<BookHit> hits = new ArrayList<>(top);
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    private record Document(String isbn, String title, String author, Integer publicationYear) {
+    }
+
+    private record TermPostings(Postings postings, double weight) {
+
+        double score(byte fields) {
+            double fieldWeight = ((fields & Postings.TITLE) != 0 ? TITLE_WEIGHT : 0) + ((fields & Postings.AUTHOR) != 0 ? AUTHOR_WEIGHT : 0);
+            return weight * fieldWeight;
+        }
+    }
+}
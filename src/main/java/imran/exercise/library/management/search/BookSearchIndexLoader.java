@@ -0,0 +1,60 @@
+package imran.exercise.library.management.search;
+
+import imran.exercise.library.management.persistence.LibraryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the search index from the database at startup, reading the books page by page in ISBN order.
+ * The index is then kept up to date as books are added and removed.
+ * <p>
+ * The ISBNs of a page are read first and the removal stamps of the ISBNs taken before their books are read,
+ * so a book removed while the index is loading is not indexed again.
+ */
+@Component
+public class BookSearchIndexLoader implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndexLoader.class);
+    private static final int PAGE_SIZE = 1000;
+
+    private final BookSearchIndex searchIndex;
+    private final LibraryRepository libraryRepository;
+
+    public BookSearchIndexLoader(BookSearchIndex searchIndex, LibraryRepository libraryRepository) {
+        this.searchIndex = searchIndex;
+        this.libraryRepository = libraryRepository;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        String lastIsbn = "";
+        List<String> page;
+        do {
+            page = libraryRepository.findIsbnsAfter(lastIsbn, Limit.of(PAGE_SIZE));
+            if (!page.isEmpty()) {
+                indexPage(page);
+                lastIsbn = page.get(page.size() - 1);
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        log.info("Book search index loaded {} books in {} ms",
+            searchIndex.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void indexPage(List<String> page) {
+        Map<String, Long> removalStamps = new HashMap<>();
+        page.forEach(isbn -> removalStamps.put(isbn, searchIndex.removalStamp(isbn)));
+        libraryRepository.findVersionedBooks(page).forEach(versionedBook ->
+            searchIndex.put(versionedBook.book(), removalStamps.get(versionedBook.book().isbn())));
+    }
+}
@@ -0,0 +1,115 @@
+package imran.exercise.library.management.search;
+
+import java.util.Arrays;
+
+/**
+ * The documents containing a term, as a sorted array of document ids with the fields the term occurs in.
+ * Documents are appended in id order, since ids are assigned in increasing order.
+ * <p>
+ * A removed document is left in place as a tombstone with no fields, and the tombstones are swept out once
+ * they outnumber the documents, so a removal does not shift the arrays every time.
+ */
+final class Postings {
+
+    static final byte TITLE = 1;
+    static final byte AUTHOR = 2;
+
+    private int[] docs = new int[2];
+    private byte[] fields = new byte[2];
+    private int length;
+    private int removed;
+
+    void add(int doc, byte field) {
+        if (length > 0 && docs[length - 1] == doc) {
+            fields[length - 1] |= field;
+            return;
+        }
+        if (length == docs.length) {
+            if (removed > 0) {
+                sweep();
+            } else {
+                docs = Arrays.copyOf(docs, length * 2);
+                fields = Arrays.copyOf(fields, length * 2);
+            }
+        }
+        docs[length] = doc;
+        fields[length] = field;
+        length++;
+    }
+
+    void remove(int doc) {
+        int index = indexOf(doc);
+        if (index >= 0 && fields[index] != 0) {
+            fields[index] = 0;
+            removed++;
+            if (removed > size()) {
+                sweep();
+            }
+        }
+    }
+
+    /**
+     * Replaces the document ids after the documents were renumbered in the same order, dropping the tombstones
+     * @param newDocs - The new id of each document by its current id, for the documents still indexed
+     */
+    void renumber(int[] newDocs) {
+        sweep();
+        for (int i = 0; i < length; i++) {
+            docs[i] = newDocs[docs[i]];
+        }
+    }
+
+    /**
+     * @return The fields of the document containing the term, or 0 when the document does not contain it
+     */
+    byte fieldsOf(int doc) {
+        int index = indexOf(doc);
+        return index < 0 ? 0 : fields[index];
+    }
+
+    int doc(int index) {
+        return docs[index];
+    }
+
+    /**
+     * @return The fields of the document at an index, or 0 for a removed document
+     */
+    byte fields(int index) {
+        return fields[index];
+    }
+
+    /**
+     * @return The number of documents and tombstones, the bound of the indexes
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * @return The number of documents containing the term
+     */
+    int size() {
+        return length - removed;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private void sweep() {
+        int kept = 0;
+        for (int i = 0; i < length; i++) {
+            if (fields[i] != 0) {
+                docs[kept] = docs[i];
+                fields[kept] = fields[i];
+                kept++;
+            }
+        }
+        length = kept;
+        removed = 0;
+    }
+
+    private int indexOf(int doc) {
+        return Arrays.binarySearch(docs, 0, length, doc);
+    }
+}
@@ -0,0 +1,99 @@
+package imran.exercise.library.management.service;
+
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.cluster.CacheInvalidationBus;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.hold.HoldQueue;
+import imran.exercise.library.management.ledger.LoanLedger;
+import imran.exercise.library.management.persistence.VersionedBook;
+import imran.exercise.library.management.search.BookSearchIndex;
+
+/**
+ * The bookkeeping that follows a change of a book in the database, shared by {@link LibraryService} and
+ * {@link ReactiveLibraryService}: the cache, the absent ISBN filter, the search index, the loan ledger, the
+ * holds and the other instances of the cluster.  Publishing to the cluster may block on the jdbc transport.
+ */
+class BookChanges {
+
+    private final BookCache cache;
+    private final AbsentIsbnFilter absentIsbnFilter;
+    private final BookSearchIndex searchIndex;
+    private final CacheInvalidationBus invalidationBus;
+    private final LoanLedger loanLedger;
+    private final HoldQueue holdQueue;
+
+    BookChanges(
+        BookCache cache, AbsentIsbnFilter absentIsbnFilter, BookSearchIndex searchIndex,
+        CacheInvalidationBus invalidationBus, LoanLedger loanLedger, HoldQueue holdQueue) {
+        this.cache = cache;
+        this.absentIsbnFilter = absentIsbnFilter;
+        this.searchIndex = searchIndex;
+        this.invalidationBus = invalidationBus;
+        this.loanLedger = loanLedger;
+        this.holdQueue = holdQueue;
+    }
+
+    /**
+     * Records a book added to the database
+     * @param book - The added book
+     */
+    void added(Book book) {
+        absentIsbnFilter.added(book.isbn());
+        cache.put(book.isbn(), book);
+        searchIndex.put(book);
+        invalidationBus.bookAdded(book.isbn());
+    }
+
+    /**
+     * Records a book removed from the database, dropping its unprojected loans and cancelling its holds
+     * @param isbn - The ISBN of the removed book
+     */
+    void removed(String isbn) {
+        absentIsbnFilter.removed(isbn);
+        cache.remove(isbn);
+        searchIndex.remove(isbn);
+        loanLedger.forget(isbn);
+        holdQueue.cancelAll(isbn);
+        invalidationBus.bookRemoved(isbn);
+    }
+
+    /**
+     * Caches a book updated by this instance and tells the other instances to update their copy of it
+     * @param versionedBook - The book read after the update, with its version
+     * @param removalStamp - The removal stamp of the ISBN taken before the book was read
+     * @return The book, as read
+     */
+    Book updated(VersionedBook versionedBook, long removalStamp) {
+        Book book = cached(versionedBook, removalStamp);
+        published(versionedBook);
+        return book;
+    }
+
+    /**
+     * Tells the other instances to update their copy of a book updated by this instance.  Called in the
+     * transaction of the update, the jdbc transport publishes the event only if the update commits.
+     * @param versionedBook - The book read after the update, with its version
+     * @return The book, as read
+     */
+    VersionedBook published(VersionedBook versionedBook) {
+        invalidationBus.bookUpdated(versionedBook.book().isbn(), versionedBook.version());
+        return versionedBook;
+    }
+
+    /**
+     * Caches the book unless a newer version of it is already cached, so that a book read before a
+     * concurrent borrow or return never replaces the book updated by it.  A book read from the database
+     * is replaced by its state in the loan ledger, when the ledger has loans not yet projected.  A book
+     * removed since the removal stamp was taken is not cached, as it may have been read before its delete.
+     * @param versionedBook - The book read from the database, with its version
+     * @param removalStamp - The removal stamp of the ISBN taken before the book was read
+     * @return The book, as read
+     */
+    Book cached(VersionedBook versionedBook, long removalStamp) {
+        VersionedBook currentBook = loanLedger.overlay(versionedBook);
+        Book book = currentBook.book();
+        cache.putIfNewer(book.isbn(), book, currentBook.version(), removalStamp);
+        return book;
+    }
+}
@@ -0,0 +1,116 @@
+package imran.exercise.library.management.service;
+
+import imran.exercise.library.management.cluster.CacheEvent;
+import imran.exercise.library.management.cluster.CacheInvalidationBus;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookHold;
+import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.exception.BookUnavailableException;
+import imran.exercise.library.management.exception.HoldNotFoundException;
+import imran.exercise.library.management.hold.Hold;
+import imran.exercise.library.management.hold.HoldQueue;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Places holds on books, so that clients wait for a copy to be handed to them instead of retrying to
+ * borrow a book without available copies.  A copy returned to the library goes to the oldest waiting
+ * hold of the book (see {@link LibraryService#returnBook(String)}).
+ * <p>
+ * With a cluster transport, a copy returned to another instance is borrowed for the holds waiting on
+ * this instance once the other instance reports the book updated.
+ */
+@Service
+public class HoldService {
+
+    private final Library library;
+    private final HoldQueue holdQueue;
+
+    public HoldService(Library library, HoldQueue holdQueue, CacheInvalidationBus invalidationBus) {
+        this.library = library;
+        this.holdQueue = holdQueue;
+        if (invalidationBus.transport() != null) {
+            invalidationBus.transport().subscribe(event -> {
+                if (event.type() == CacheEvent.Type.UPDATED && !invalidationBus.nodeId().equals(event.nodeId())) {
+                    borrowForHolds(event.isbn());
+                }
+            });
+        }
+    }
+
+    /**
+     * Borrows a copy of a book when available, otherwise queues a hold for the next returned copy
+     * @param isbn - The ISBN of the book
+     * @return The fulfilled hold with the borrowed book, or the waiting hold with its position in the queue
+     */
+    public BookHold placeHold(String isbn) {
+        try {
+            return status(holdQueue.fulfilled(isbn, library.borrowBook(isbn)));
+        } catch (BookUnavailableException e) {
+            Hold hold = holdQueue.enqueue(isbn);
+            // a copy returned between the failed borrow and the enqueue was not handed to any hold
+            borrowForHolds(isbn);
+            return status(hold);
+        }
+    }
+
+    /**
+     * Returns a hold by its id
+     * @param id - The id of the hold
+     * @return The hold with its position in the queue
+     */
+    public BookHold findHold(String id) {
+        return status(hold(id));
+    }
+
+    /**
+     * Returns a future completed once a hold is fulfilled, cancelled or expired, without blocking
+     * @param id - The id of the hold
+     * @return The future of the completed hold
+     */
+    public CompletableFuture<BookHold> awaitHold(String id) {
+        return hold(id).completion().thenApply(this::status);
+    }
+
+    /**
+     * Cancels a waiting hold
+     * @param id - The id of the hold
+     * @return The hold, cancelled unless it had already completed
+     */
+    public BookHold cancelHold(String id) {
+        Hold hold = hold(id);
+        holdQueue.cancel(hold);
+        return status(hold);
+    }
+
+    /**
+     * Borrows copies of a book for its waiting holds, oldest first, until no copy or no hold is left
+     */
+    void borrowForHolds(String isbn) {
+        while (holdQueue.hasWaiting(isbn)) {
+            Book book;
+            try {
+                book = library.borrowBook(isbn);
+            } catch (BookUnavailableException | BookNotFoundException e) {
+                return;
+            }
+            if (!holdQueue.fulfilNext(isbn, book)) {
+                library.returnBook(isbn);
+                return;
+            }
+        }
+    }
+
+    private Hold hold(String id) {
+        Hold hold = holdQueue.find(id);
+        if (hold == null) {
+            throw new HoldNotFoundException();
+        }
+        return hold;
+    }
+
+    private BookHold status(Hold hold) {
+        return new BookHold(hold.id(), hold.isbn(), hold.status(), holdQueue.position(hold), hold.book());
+    }
+}
@@ -1,9 +1,13 @@
 package imran.exercise.library.management.service;
 
 import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookHit;
+import imran.exercise.library.management.dto.BookPage;
+import imran.exercise.library.management.dto.BookResult;
 import imran.exercise.library.management.exception.BookNotFoundException;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface Library {
 
@@ -15,8 +19,10 @@ public interface Library {
     Book addBook(Book book);
 
     /**
-     * Removes a book from the library by ISBN
+     * Removes a book from the library by ISBN, keeping the closed loans of its copies
      * @param isbn - The ISBN of the book to be removed
+     * @throws imran.exercise.library.management.exception.BookOnLoanException when a copy of the book is on loan
+     * to a member
      */
     void removeBook(String isbn);
 
@@ -27,6 +33,13 @@ public interface Library {
      */
     Book findBookByISBN(String isbn) throws BookNotFoundException;
 
+    /**
+     * Returns a book by its ISBN only if it is cached, without reading the database
+     * @param isbn - The ISBN of the book
+     * @return The cached book, or null when it is not cached
+     */
+    Book findCachedBook(String isbn);
+
     /**
      * Returns a list of books by a given author
      * @param author - The author of the book(s) in this Library
@@ -34,6 +47,37 @@ public interface Library {
      */
     List<Book> findBooksByAuthor(String author);
 
+    /**
+     * Returns the list of books by a given author only if it is cached, without reading the database
+     * @param author - The author of the book(s) in this Library
+     * @return The cached list of books by the given author, or null when it is not cached
+     */
+    List<Book> findCachedBooksByAuthor(String author);
+
+    /**
+     * Returns a page of books by a given author ordered by ISBN
+     * @param author - The author of the book(s) in this Library, or null for all books
+     * @param after - The cursor returned with the previous page, or null for the first page
+     * @param limit - The maximum number of books in the page
+     * @return The page of books, with the cursor of the next page or null for the last page
+     */
+    BookPage findBooksByAuthor(String author, String after, int limit);
+
+    /**
+     * Passes each book by a given author to an action in ISBN order, without loading all the books into memory
+     * @param author - The author of the book(s) in this Library, or null for all books
+     * @param action - The action handling each book
+     */
+    void forEachBookByAuthor(String author, Consumer<Book> action);
+
+    /**
+     * Returns the books whose title and author contain all the words of a query, best match first
+     * @param query - The words to search for, the last word matching as a prefix
+     * @param limit - The maximum number of books to return
+     * @return The matching books in this Library
+     */
+    List<BookHit> searchBooks(String query, int limit);
+
     /**
      * Decreases the available copies of a book by 1 in this Library
      * @param isbn - The ISBN of the book to be borrowed
@@ -47,4 +91,32 @@ public interface Library {
      * @return The book that is now returned
      */
     Book returnBook(String isbn);
+
+    /**
+     * Adds new books to the library in a single batch
+     * @param books - The books to be added
+     * @return The result for each book, in the given order
+     */
+    List<BookResult> addBooks(List<Book> books);
+
+    /**
+     * Returns books by their ISBNs, reading the books missing from the cache in a single query
+     * @param isbns - The ISBNs of the books
+     * @return The result for each ISBN, in the given order
+     */
+    List<BookResult> findBooksByISBN(List<String> isbns);
+
+    /**
+     * Decreases the available copies of each book by 1 in this Library in a single batch
+     * @param isbns - The ISBNs of the books to be borrowed, an ISBN appearing once per copy
+     * @return The result for each ISBN, in the given order
+     */
+    List<BookResult> borrowBooks(List<String> isbns);
+
+    /**
+     * Increases the available copies of each book by 1 in this Library in a single batch
+     * @param isbns - The ISBNs of the books to be returned, an ISBN appearing once per copy
+     * @return The result for each ISBN, in the given order
+     */
+    List<BookResult> returnBooks(List<String> isbns);
 }
@@ -1,55 +1,106 @@
 package imran.exercise.library.management.service;
 
 import imran.exercise.library.management.adapter.BookDtoToBookEntityAdapter;
-import imran.exercise.library.management.adapter.BookEntityToBookDtoAdapter;
-import imran.exercise.library.management.cache.SimpleNoExpiryCache;
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.cache.SingleFlight;
+import imran.exercise.library.management.cluster.CacheInvalidationBus;
 import imran.exercise.library.management.domain.BookEntity;
 import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookHit;
+import imran.exercise.library.management.dto.BookPage;
+import imran.exercise.library.management.dto.BookResult;
 import imran.exercise.library.management.exception.BookAlreadyExistsException;
 import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.exception.BookOnLoanException;
 import imran.exercise.library.management.exception.BookUnavailableException;
+import imran.exercise.library.management.hold.HoldQueue;
+import imran.exercise.library.management.ledger.LoanLedger;
 import imran.exercise.library.management.persistence.LibraryRepository;
-import org.springframework.data.domain.Example;
+import imran.exercise.library.management.persistence.VersionedBook;
+import imran.exercise.library.management.retry.RetryPolicy;
+import imran.exercise.library.management.search.BookSearchIndex;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static imran.exercise.library.management.dto.BookResult.Status.ALREADY_EXISTS;
+import static imran.exercise.library.management.dto.BookResult.Status.NOT_FOUND;
+import static imran.exercise.library.management.dto.BookResult.Status.UNAVAILABLE;
 
 @Service
+@Timed(value = "library.operation", histogram = true, description = "The latency of Library operations")
 public class LibraryService implements Library {
 
-    private final SimpleNoExpiryCache cache;
+    static final int MAXIMUM_PAGE_SIZE = 1000;
+
+    private final BookCache cache;
     private final LibraryRepository libraryRepository;
-    private final BookEntityToBookDtoAdapter toBookDtoAdapter;
     private final BookDtoToBookEntityAdapter toBookDomainAdapter;
-
-    private final ConcurrentHashMap<String, Object> borrowLocks = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<String, Object> returnLocks = new ConcurrentHashMap<>();
+    private final BookSearchIndex searchIndex;
+    private final RetryPolicy retryPolicy;
+    private final TransactionOperations transactionOperations;
+    private final AbsentIsbnFilter absentIsbnFilter;
+    private final LoanLedger loanLedger;
+    private final HoldQueue holdQueue;
+    private final BookChanges bookChanges;
+    private final SingleFlight<String, Book> bookLoads;
+    private final SingleFlight<String, List<Book>> authorLoads;
 
     public LibraryService(
-        SimpleNoExpiryCache cache, LibraryRepository libraryRepository,
-        BookEntityToBookDtoAdapter toBookDtoAdapter, BookDtoToBookEntityAdapter toBookDomainAdapter) {
+        BookCache cache, LibraryRepository libraryRepository, BookDtoToBookEntityAdapter toBookDomainAdapter,
+        BookSearchIndex searchIndex, RetryPolicy retryPolicy, TransactionOperations transactionOperations,
+        AbsentIsbnFilter absentIsbnFilter, CacheInvalidationBus invalidationBus, LoanLedger loanLedger,
+        HoldQueue holdQueue, MeterRegistry meterRegistry) {
         this.cache = cache;
         this.libraryRepository = libraryRepository;
-        this.toBookDtoAdapter = toBookDtoAdapter;
         this.toBookDomainAdapter = toBookDomainAdapter;
+        this.searchIndex = searchIndex;
+        this.retryPolicy = retryPolicy;
+        this.transactionOperations = transactionOperations;
+        this.absentIsbnFilter = absentIsbnFilter;
+        this.loanLedger = loanLedger;
+        this.holdQueue = holdQueue;
+        this.bookChanges = new BookChanges(cache, absentIsbnFilter, searchIndex, invalidationBus, loanLedger, holdQueue);
+        this.bookLoads = new SingleFlight<>("book", meterRegistry);
+        this.authorLoads = new SingleFlight<>("author", meterRegistry);
     }
 
     @Override
     public Book addBook(Book book) {
-        if (libraryRepository.findById(book.isbn()).isPresent()) {
+        if (libraryRepository.existsById(book.isbn())) {
             throw new BookAlreadyExistsException();
         }
-        BookEntity saved = libraryRepository.save(toBookDomainAdapter.adapt(book));
-        cache.put(book.isbn(), book);
-        return toBookDtoAdapter.adapt(saved);
+        libraryRepository.save(toBookDomainAdapter.adapt(book));
+        bookChanges.added(book);
+        return book;
     }
 
+    /**
+     * Removes a book with a single guarded delete, which keeps a book with copies on loan to members, and
+     * records the removal only when this call deleted the book
+     */
     @Override
     public void removeBook(String isbn) {
-        BookEntity bookEntity = libraryRepository.findById(isbn).orElseThrow(BookNotFoundException::new);
-        libraryRepository.delete(bookEntity);
-        cache.remove(isbn);
+        if (retryPolicy.execute("removeBook", () -> libraryRepository.deleteBook(isbn)) == 0) {
+            throw libraryRepository.existsById(isbn) ? new BookOnLoanException() : new BookNotFoundException();
+        }
+        bookChanges.removed(isbn);
     }
 
     @Override
@@ -60,59 +111,286 @@ public class LibraryService implements Library {
             return book;
         }
 
-        return libraryRepository.findById(isbn).map(toBookDtoAdapter::adapt).orElseThrow(BookNotFoundException::new);
+        if (absentIsbnFilter.isAbsent(isbn)) {
+            throw new BookNotFoundException();
+        }
+
+        Book loadedBook = bookLoads.load(isbn, () -> loadBook(isbn));
+        if (loadedBook == null) {
+            throw new BookNotFoundException();
+        }
+        return loadedBook;
+    }
+
+    @Override
+    public Book findCachedBook(String isbn) {
+        return cache.get(isbn);
     }
 
     @Override
     public List<Book> findBooksByAuthor(String author) {
-        List<Book> cachedList = cache.getAll().stream().filter(book -> book.author().equals(author)).toList();
-        if (!cachedList.isEmpty()) {
-            return cachedList;
+        if (author == null) {
+            return libraryRepository.findAllBooks();
         }
 
-        List<BookEntity> bookEntities = libraryRepository.findAll(booksByAuthor(author));
-        return toBookDtoAdapter.adapt(bookEntities);
+        List<Book> cachedBooks = cache.getByAuthor(author);
+        if (cachedBooks != null) {
+            return cachedBooks;
+        }
+
+        return authorLoads.load(author, () -> {
+            long stamp = cache.authorStamp(author);
+            List<Book> books = libraryRepository.findBooksByAuthor(author);
+            cache.putAuthor(author, books, stamp);
+            return books;
+        });
+    }
+
+    @Override
+    public List<Book> findCachedBooksByAuthor(String author) {
+        return cache.getByAuthor(author);
+    }
+
+    @Override
+    public BookPage findBooksByAuthor(String author, String after, int limit) {
+        Limit pageLimit = Limit.of(Math.max(1, Math.min(limit, MAXIMUM_PAGE_SIZE)));
+        String lastIsbn = after == null ? "" : after;
+        List<Book> page = author == null
+            ? libraryRepository.findBooksAfter(lastIsbn, pageLimit)
+            : libraryRepository.findBooksByAuthorAfter(author, lastIsbn, pageLimit);
+
+        String nextCursor = page.size() < pageLimit.max() ? null : page.get(page.size() - 1).isbn();
+        return new BookPage(page, nextCursor);
+    }
+
+    @Override
+    public void forEachBookByAuthor(String author, Consumer<Book> action) {
+        libraryRepository.forEachBook(author, action);
+    }
+
+    @Override
+    public List<BookHit> searchBooks(String query, int limit) {
+        return searchIndex.search(query, Math.max(1, Math.min(limit, MAXIMUM_PAGE_SIZE)));
     }
 
     @Override
     public Book borrowBook(String isbn) {
-        Object lock = borrowLocks.computeIfAbsent(isbn, key -> new Object());
+        if (loanLedger.isEnabled()) {
+            return ledgerUpdate(isbn, loanLedger::borrowCopy);
+        }
+        // A guarded update has no version to conflict on, but may time out waiting for the row lock of concurrent updates
+        return updatedBook(isbn, "borrowBook", () -> libraryRepository.decrementAvailableCopies(isbn) == 1, () ->
+            libraryRepository.existsById(isbn) ? new BookUnavailableException() : new BookNotFoundException());
+    }
 
-        synchronized (lock) {
-            try {
-                BookEntity bookEntity = libraryRepository.findById(isbn).orElseThrow(BookNotFoundException::new);
+    @Override
+    public Book returnBook(String isbn) {
+        Book handedBook = handToHold(isbn);
+        if (handedBook != null) {
+            return handedBook;
+        }
+        if (loanLedger.isEnabled()) {
+            return ledgerUpdate(isbn, loanLedger::returnCopy);
+        }
+        return updatedBook(isbn, "returnBook", () -> libraryRepository.incrementAvailableCopies(isbn) == 1,
+            BookNotFoundException::new);
+    }
 
-                if (bookEntity.availableCopies() <= 0) {
-                    throw new BookUnavailableException();
+    @Override
+    public List<BookResult> addBooks(List<Book> books) {
+        List<String> isbns = books.stream().map(Book::isbn).toList();
+        Set<String> existingIsbns = new HashSet<>(libraryRepository.findExistingIsbns(isbns));
+        while (true) {
+            try {
+                return insertBooks(books, new HashSet<>(existingIsbns));
+            } catch (DataIntegrityViolationException e) {
+                if (!existingIsbns.addAll(libraryRepository.findExistingIsbns(isbns))) {
+                    throw e;
                 }
+            }
+        }
+    }
 
-                bookEntity.setAvailableCopies(bookEntity.availableCopies() - 1);
-                libraryRepository.save(bookEntity);
-                return toBookDtoAdapter.adapt(bookEntity);
-            } finally {
-                borrowLocks.remove(isbn);
+    @Override
+    public List<BookResult> findBooksByISBN(List<String> isbns) {
+        Map<String, Book> books = new HashMap<>();
+        List<String> missingIsbns = new ArrayList<>();
+        for (String isbn : isbns) {
+            Book book = cache.get(isbn);
+            if (book != null) {
+                books.put(isbn, book);
+            } else if (!absentIsbnFilter.isAbsent(isbn)) {
+                missingIsbns.add(isbn);
             }
         }
+
+        if (!missingIsbns.isEmpty()) {
+            Map<String, Long> removalStamps = removalStamps(missingIsbns);
+            libraryRepository.findVersionedBooks(missingIsbns).forEach(versionedBook -> {
+                Book book = bookChanges.cached(versionedBook, removalStamps.get(versionedBook.book().isbn()));
+                books.put(book.isbn(), book);
+            });
+        }
+
+        return isbns.stream()
+            .map(isbn -> books.containsKey(isbn) ? BookResult.ok(books.get(isbn)) : BookResult.failed(isbn, NOT_FOUND))
+            .toList();
     }
 
     @Override
-    public Book returnBook(String isbn) {
-        Object lock = returnLocks.computeIfAbsent(isbn, key -> new Object());
+    public List<BookResult> borrowBooks(List<String> isbns) {
+        if (loanLedger.isEnabled()) {
+            return singleUpdates(isbns, isbn -> ledgerUpdate(isbn, loanLedger::borrowCopy));
+        }
+        return updatedBooks(isbns, "borrowBooks", libraryRepository::batchDecrementAvailableCopies, UNAVAILABLE);
+    }
 
-        synchronized (lock) {
-            try {
-                BookEntity bookEntity = libraryRepository.findById(isbn).orElseThrow(BookNotFoundException::new);
+    @Override
+    public List<BookResult> returnBooks(List<String> isbns) {
+        if (isbns.stream().anyMatch(holdQueue::hasWaiting)) {
+            return singleUpdates(isbns, this::returnBook);
+        }
+        if (loanLedger.isEnabled()) {
+            return singleUpdates(isbns, isbn -> ledgerUpdate(isbn, loanLedger::returnCopy));
+        }
+        return updatedBooks(isbns, "returnBooks", libraryRepository::batchIncrementAvailableCopies, NOT_FOUND);
+    }
+
+    /**
+     * Inserts the books whose ISBN is not in the given existing ISBNs in a single batch, which fails as a whole
+     * when one of the books was inserted concurrently, and is then tried again with that book already existing
+     */
+    private List<BookResult> insertBooks(List<Book> books, Set<String> existingIsbns) {
+        List<BookResult> results = new ArrayList<>(books.size());
+        List<BookEntity> newBooks = new ArrayList<>(books.size());
+        for (Book book : books) {
+            if (existingIsbns.add(book.isbn())) {
+                newBooks.add(toBookDomainAdapter.adapt(book));
+                results.add(BookResult.ok(book));
+            } else {
+                results.add(BookResult.failed(book.isbn(), ALREADY_EXISTS));
+            }
+        }
+
+        libraryRepository.insertAll(newBooks);
+        results.stream()
+            .filter(result -> result.book() != null)
+            .forEach(result -> bookChanges.added(result.book()));
+        return results;
+    }
+
+    /**
+     * Runs a batch update, reads the books it updated in a single query and tells the other instances about them
+     * in one transaction, then maps each update count to its result: the book after the whole batch when
+     * updated, otherwise not found or the given status for an existing book
+     */
+    private List<BookResult> updatedBooks(
+        List<String> isbns, String operation, Function<List<String>, int[]> update, BookResult.Status notUpdatedStatus) {
+        Map<String, Long> removalStamps = removalStamps(isbns);
+        UpdatedBooks updatedBooks = retryPolicy.execute(operation, () -> transactionOperations.execute(status ->
+            new UpdatedBooks(update.apply(isbns), libraryRepository.findVersionedBooks(removalStamps.keySet()).stream()
+                .map(bookChanges::published)
+                .toList())));
+        Map<String, Book> books = new HashMap<>();
+        updatedBooks.books().forEach(versionedBook -> {
+            Book book = bookChanges.cached(versionedBook, removalStamps.get(versionedBook.book().isbn()));
+            books.put(book.isbn(), book);
+        });
 
-                bookEntity.setAvailableCopies(bookEntity.availableCopies() + 1);
-                libraryRepository.save(bookEntity);
-                return toBookDtoAdapter.adapt(bookEntity);
-            } finally {
-                returnLocks.remove(isbn);
+        List<BookResult> results = new ArrayList<>(isbns.size());
+        for (int i = 0; i < isbns.size(); i++) {
+            String isbn = isbns.get(i);
+            Book book = books.get(isbn);
+            if (book == null) {
+                results.add(BookResult.failed(isbn, NOT_FOUND));
+            } else if (updatedBooks.updated()[i] == 0) {
+                results.add(BookResult.failed(isbn, notUpdatedStatus));
+            } else {
+                results.add(BookResult.ok(book));
             }
         }
+        return results;
+    }
+
+    /**
+     * Borrows or returns each book one at a time, through the loan ledger or to the holds of the book, the result
+     * of each ISBN holding the book after its update
+     */
+    private List<BookResult> singleUpdates(List<String> isbns, Function<String, Book> update) {
+        List<BookResult> results = new ArrayList<>(isbns.size());
+        for (String isbn : isbns) {
+            try {
+                results.add(BookResult.ok(update.apply(isbn)));
+            } catch (BookNotFoundException e) {
+                results.add(BookResult.failed(isbn, NOT_FOUND));
+            } catch (BookUnavailableException e) {
+                results.add(BookResult.failed(isbn, UNAVAILABLE));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Hands a returned copy of a book to the oldest hold waiting for it, leaving the available copies unchanged
+     * @return The book, or null when no hold is waiting for it
+     */
+    private Book handToHold(String isbn) {
+        if (!holdQueue.hasWaiting(isbn)) {
+            return null;
+        }
+        Book book = findBookByISBN(isbn);
+        return holdQueue.fulfilNext(isbn, book) ? book : null;
+    }
+
+    /**
+     * Reads a book missing from the cache and caches it, or remembers that it does not exist
+     * @return The book, or null when it does not exist
+     */
+    private Book loadBook(String isbn) {
+        long removalStamp = cache.removalStamp(isbn);
+        VersionedBook versionedBook = libraryRepository.findVersionedBook(isbn).orElse(null);
+        if (versionedBook == null) {
+            absentIsbnFilter.markAbsent(isbn);
+            return null;
+        }
+        return bookChanges.cached(versionedBook, removalStamp);
+    }
+
+    /**
+     * Updates a book, reads it and tells the other instances about it in one transaction, then caches it
+     * @return The book, as read
+     */
+    private Book updatedBook(
+        String isbn, String operation, BooleanSupplier update, Supplier<RuntimeException> notUpdated) {
+        long removalStamp = cache.removalStamp(isbn);
+        VersionedBook versionedBook = retryPolicy.execute(operation, () -> transactionOperations.execute(status ->
+            update.getAsBoolean()
+                ? libraryRepository.findVersionedBook(isbn).map(bookChanges::published).orElse(null)
+                : null));
+        if (versionedBook == null) {
+            throw notUpdated.get();
+        }
+        return bookChanges.cached(versionedBook, removalStamp);
+    }
+
+    /**
+     * Borrows or returns a book through the loan ledger, which reads the book when it is first borrowed or returned
+     */
+    private Book ledgerUpdate(String isbn, Function<String, VersionedBook> update) {
+        long removalStamp = cache.removalStamp(isbn);
+        return bookChanges.updated(update.apply(isbn), removalStamp);
+    }
+
+    /**
+     * Takes the removal stamps of books before they are read from the database
+     * @return The stamp of each distinct ISBN
+     */
+    private Map<String, Long> removalStamps(Collection<String> isbns) {
+        Map<String, Long> removalStamps = new HashMap<>();
+        isbns.forEach(isbn -> removalStamps.computeIfAbsent(isbn, cache::removalStamp));
+        return removalStamps;
     }
 
-    private Example<BookEntity> booksByAuthor(String author) {
-        return Example.of(new BookEntity(null, null, author, null, null));
+    private record UpdatedBooks(int[] updated, List<VersionedBook> books) {
     }
 }
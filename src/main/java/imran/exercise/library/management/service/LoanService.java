@@ -0,0 +1,207 @@
+package imran.exercise.library.management.service;
+
+import imran.exercise.library.management.domain.CopyEntity;
+import imran.exercise.library.management.domain.LoanEntity;
+import imran.exercise.library.management.domain.MemberEntity;
+import imran.exercise.library.management.dto.CopyCount;
+import imran.exercise.library.management.dto.Loan;
+import imran.exercise.library.management.dto.Member;
+import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.exception.BookUnavailableException;
+import imran.exercise.library.management.exception.LoanLimitExceededException;
+import imran.exercise.library.management.exception.LoanNotFoundException;
+import imran.exercise.library.management.exception.MemberNotFoundException;
+import imran.exercise.library.management.loan.LoanProperties;
+import imran.exercise.library.management.persistence.CopyRepository;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.LoanRepository;
+import imran.exercise.library.management.persistence.MemberRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lends the copies of books to members, recording who has which copy and until when.
+ * <p>
+ * The available copies of a book are the one count of the copies that can be borrowed, and the copies only
+ * record which copy a member has.  A copy lent to a member is thus also borrowed from the {@link Library}, and
+ * lending fails when the book has no available copies, even with a copy not on loan.  Borrow and return stay a
+ * single guarded update of the book.  Lending a copy locks the member while its open loans are counted, and
+ * claims a copy that is not on loan with a guarded update.
+ * <p>
+ * A returned copy is always put back, and returning the book hands it to a hold waiting for it, in which case
+ * the available copies of the book keep counting it as borrowed until the hold returns it.
+ */
+@Service
+public class LoanService {
+
+    static final int MAXIMUM_OVERDUE_LOANS = 1000;
+    private static final Limit CLAIM_CANDIDATES = Limit.of(4);
+
+    private final Library library;
+    private final LibraryRepository libraryRepository;
+    private final MemberRepository memberRepository;
+    private final CopyRepository copyRepository;
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration loanPeriod;
+    private final int defaultLoanLimit;
+
+    public LoanService(
+        Library library, LibraryRepository libraryRepository, MemberRepository memberRepository,
+        CopyRepository copyRepository, LoanRepository loanRepository, TransactionTemplate transactionTemplate,
+        LoanProperties properties) {
+        this.library = library;
+        this.libraryRepository = libraryRepository;
+        this.memberRepository = memberRepository;
+        this.copyRepository = copyRepository;
+        this.loanRepository = loanRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.loanPeriod = properties.loanPeriod();
+        this.defaultLoanLimit = properties.defaultLoanLimit();
+    }
+
+    /**
+     * Adds a new member
+     * @param member - The member to be added, without an id
+     * @return The new member with its id and loan limit
+     */
+    public Member addMember(Member member) {
+        int loanLimit = member.loanLimit() == null ? defaultLoanLimit : member.loanLimit();
+        MemberEntity memberEntity = memberRepository.save(new MemberEntity(member.name(), loanLimit));
+        return toMember(memberEntity);
+    }
+
+    /**
+     * Returns a member by its id
+     * @param id - The id of the member
+     * @return The member
+     */
+    public Member findMember(long id) {
+        return memberRepository.findById(id).map(LoanService::toMember).orElseThrow(MemberNotFoundException::new);
+    }
+
+    /**
+     * Adds copies of a book that can be lent to members, leaving the available copies of the book unchanged as
+     * they count the copies already
+     * @param isbn - The ISBN of the book
+     * @param count - The number of copies to be added
+     * @return The number of copies of the book not on loan to members
+     */
+    public CopyCount addCopies(String isbn, int count) {
+        if (!libraryRepository.existsById(isbn)) {
+            throw new BookNotFoundException();
+        }
+        List<CopyEntity> copies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            copies.add(new CopyEntity(libraryRepository.getReferenceById(isbn)));
+        }
+        copyRepository.saveAll(copies);
+        return availableCopies(List.of(isbn)).get(0);
+    }
+
+    /**
+     * Counts the copies of books that are not on loan to members, in a single query
+     * @param isbns - The ISBNs of the books
+     * @return The count for each ISBN, in the given order, 0 for a book without copies
+     */
+    public List<CopyCount> availableCopies(List<String> isbns) {
+        Map<String, Long> countsByIsbn = new HashMap<>();
+        copyRepository.countAvailableCopies(isbns).forEach(count -> countsByIsbn.put(count.isbn(), count.availableCopies()));
+        return isbns.stream().map(isbn -> new CopyCount(isbn, countsByIsbn.getOrDefault(isbn, 0L))).toList();
+    }
+
+    /**
+     * Lends a copy of a book to a member, due back after {@code library.loans.loan-period}.  The book is borrowed
+     * before the loan is recorded, and given back when recording the loan fails, so that a crash in between leaves
+     * a copy counted as borrowed without a loan rather than a loan of a copy that is still counted as available.
+     * @param memberId - The id of the member
+     * @param isbn - The ISBN of the book
+     * @return The new loan
+     * @throws LoanLimitExceededException when the member has as many copies on loan as its loan limit
+     * @throws BookUnavailableException when every copy of the book is on loan
+     */
+    public Loan lendCopy(long memberId, String isbn) {
+        library.borrowBook(isbn);
+        try {
+            return transactionTemplate.execute(status -> {
+                MemberEntity member = memberRepository.lockMember(memberId).orElseThrow(MemberNotFoundException::new);
+                if (loanRepository.countOpenLoans(memberId) >= member.loanLimit()) {
+                    throw new LoanLimitExceededException();
+                }
+                long copyId = claimCopy(isbn);
+                Instant borrowedAt = Instant.now();
+                LoanEntity loanEntity = loanRepository.save(new LoanEntity(
+                    copyRepository.getReferenceById(copyId), memberRepository.getReferenceById(memberId),
+                    borrowedAt, borrowedAt.plus(loanPeriod)));
+                return new Loan(loanEntity.id(), copyId, isbn, memberId, borrowedAt, loanEntity.dueAt(), null);
+            });
+        } catch (RuntimeException e) {
+            library.returnBook(isbn);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a lent copy, closing its loan, and returns its book, which hands it to a hold waiting for it
+     * @param id - The id of the loan
+     * @return The closed loan, unchanged when it was closed already
+     */
+    public Loan returnCopy(long id) {
+        Loan loan = loanRepository.findLoan(id).orElseThrow(LoanNotFoundException::new);
+        if (loanRepository.closeLoan(id, Instant.now()) == 1) {
+            copyRepository.releaseCopy(loan.copyId());
+            library.returnBook(loan.isbn());
+        }
+        return loanRepository.findLoan(id).orElseThrow(LoanNotFoundException::new);
+    }
+
+    /**
+     * Returns the copies on loan to a member
+     * @param memberId - The id of the member
+     * @return The open loans of the member, first due first
+     */
+    public List<Loan> findOpenLoans(long memberId) {
+        if (!memberRepository.existsById(memberId)) {
+            throw new MemberNotFoundException();
+        }
+        return loanRepository.findOpenLoans(memberId);
+    }
+
+    /**
+     * Returns the loans not returned by their due date
+     * @param asOf - The time the loans are overdue at
+     * @param limit - The maximum number of loans, capped at {@value #MAXIMUM_OVERDUE_LOANS}
+     * @return The overdue loans, longest overdue first
+     */
+    public List<Loan> findOverdueLoans(Instant asOf, int limit) {
+        return loanRepository.findOverdueLoans(asOf, Limit.of(Math.max(1, Math.min(limit, MAXIMUM_OVERDUE_LOANS))));
+    }
+
+    /**
+     * Marks a copy of a book on loan, trying the next copy when another loan claimed it first
+     * @return The id of the claimed copy
+     */
+    private long claimCopy(String isbn) {
+        List<Long> copyIds;
+        while (!(copyIds = copyRepository.findAvailableCopyIds(isbn, CLAIM_CANDIDATES)).isEmpty()) {
+            for (Long copyId : copyIds) {
+                if (copyRepository.lendCopy(copyId) == 1) {
+                    return copyId;
+                }
+            }
+        }
+        throw libraryRepository.existsById(isbn) ? new BookUnavailableException() : new BookNotFoundException();
+    }
+
+    private static Member toMember(MemberEntity memberEntity) {
+        return new Member(memberEntity.id(), memberEntity.name(), memberEntity.loanLimit());
+    }
+}
@@ -0,0 +1,70 @@
+package imran.exercise.library.management.service;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookPage;
+import imran.exercise.library.management.exception.BookAlreadyExistsException;
+import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.exception.BookOnLoanException;
+import imran.exercise.library.management.exception.BookUnavailableException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The non-blocking counterpart of {@link Library}, sharing its books, cache and search index.  Failures
+ * are signalled as errors of the returned publishers.
+ */
+public interface ReactiveLibrary {
+
+    /**
+     * Adds a new book to the library
+     * @param book - The book to be added
+     * @return The new book that is added, or a {@link BookAlreadyExistsException} error
+     */
+    Mono<Book> addBook(Book book);
+
+    /**
+     * Removes a book from the library by ISBN, keeping the closed loans of its copies
+     * @param isbn - The ISBN of the book to be removed
+     * @return Completes when the book is removed, or a {@link BookNotFoundException} error, or a
+     * {@link BookOnLoanException} error when a copy of the book is on loan to a member
+     */
+    Mono<Void> removeBook(String isbn);
+
+    /**
+     * Returns a book by its ISBN
+     * @param isbn - The ISBN of the book
+     * @return The book for given ISBN, or a {@link BookNotFoundException} error
+     */
+    Mono<Book> findBookByISBN(String isbn);
+
+    /**
+     * Returns the books by a given author in ISBN order, read from the database as they are requested
+     * @param author - The author of the book(s) in this Library, or null for all books
+     * @return The books by the given author
+     */
+    Flux<Book> findBooksByAuthor(String author);
+
+    /**
+     * Returns a page of books by a given author ordered by ISBN
+     * @param author - The author of the book(s) in this Library, or null for all books
+     * @param after - The cursor returned with the previous page, or null for the first page
+     * @param limit - The maximum number of books in the page
+     * @return The page of books, with the cursor of the next page or null for the last page
+     */
+    Mono<BookPage> findBooksByAuthor(String author, String after, int limit);
+
+    /**
+     * Decreases the available copies of a book by 1 in this Library
+     * @param isbn - The ISBN of the book to be borrowed
+     * @return The existing book that is now borrowed, or a {@link BookNotFoundException} or
+     * {@link BookUnavailableException} error
+     */
+    Mono<Book> borrowBook(String isbn);
+
+    /**
+     * Increases the available copies of a book by 1 in this Library
+     * @param isbn - The ISBN of the book to be returned
+     * @return The book that is now returned, or a {@link BookNotFoundException} error
+     */
+    Mono<Book> returnBook(String isbn);
+}
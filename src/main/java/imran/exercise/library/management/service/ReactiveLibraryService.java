@@ -0,0 +1,178 @@
+package imran.exercise.library.management.service;
+
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.cluster.CacheInvalidationBus;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookPage;
+import imran.exercise.library.management.exception.BookAlreadyExistsException;
+import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.exception.BookOnLoanException;
+import imran.exercise.library.management.exception.BookUnavailableException;
+import imran.exercise.library.management.hold.HoldQueue;
+import imran.exercise.library.management.ledger.LoanLedger;
+import imran.exercise.library.management.persistence.ReactiveLibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import imran.exercise.library.management.retry.RetryProperties;
+import imran.exercise.library.management.search.BookSearchIndex;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Implements the {@link ReactiveLibrary} with the reactive driver, keeping the cache, the absent ISBN filter,
+ * the search index and the other instances of the cluster up to date through the same {@link BookChanges} as
+ * {@link LibraryService}.
+ * <p>
+ * Borrow and return are retried on lock timeouts and deadlocks with the backoff of {@code library.retry}.  The
+ * bookkeeping of a change runs on the bounded elastic scheduler, as the jdbc cluster transport blocks.
+ */
+@Service
+public class ReactiveLibraryService implements ReactiveLibrary {
+
+    private final BookCache cache;
+    private final ReactiveLibraryRepository libraryRepository;
+    private final AbsentIsbnFilter absentIsbnFilter;
+    private final LoanLedger loanLedger;
+    private final HoldQueue holdQueue;
+    private final BookChanges bookChanges;
+    private final Retry retry;
+
+    public ReactiveLibraryService(
+        BookCache cache, ReactiveLibraryRepository libraryRepository, BookSearchIndex searchIndex,
+        AbsentIsbnFilter absentIsbnFilter, CacheInvalidationBus invalidationBus, LoanLedger loanLedger,
+        HoldQueue holdQueue, RetryProperties retryProperties) {
+        this.cache = cache;
+        this.libraryRepository = libraryRepository;
+        this.absentIsbnFilter = absentIsbnFilter;
+        this.loanLedger = loanLedger;
+        this.holdQueue = holdQueue;
+        this.bookChanges = new BookChanges(cache, absentIsbnFilter, searchIndex, invalidationBus, loanLedger, holdQueue);
+        this.retry = Retry.backoff(retryProperties.maxAttempts() - 1, retryProperties.initialBackoff())
+            .maxBackoff(retryProperties.maxBackoff())
+            .jitter(1.0)
+            .filter(PessimisticLockingFailureException.class::isInstance)
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    @Override
+    public Mono<Book> addBook(Book book) {
+        return libraryRepository.insert(book)
+            .onErrorMap(DuplicateKeyException.class, e -> new BookAlreadyExistsException())
+            .then(offload(() -> bookChanges.added(book)))
+            .thenReturn(book);
+    }
+
+    @Override
+    public Mono<Void> removeBook(String isbn) {
+        return libraryRepository.delete(isbn)
+            .flatMap(deleted -> deleted == 0
+                ? libraryRepository.existsById(isbn)
+                    .flatMap(exists -> Mono.<Void>error(exists ? new BookOnLoanException() : new BookNotFoundException()))
+                : offload(() -> bookChanges.removed(isbn)));
+    }
+
+    @Override
+    public Mono<Book> findBookByISBN(String isbn) {
+        Book book = cache.get(isbn);
+        if (book != null) {
+            return Mono.just(book);
+        }
+        if (absentIsbnFilter.isAbsent(isbn)) {
+            return Mono.error(new BookNotFoundException());
+        }
+
+        long removalStamp = cache.removalStamp(isbn);
+        return libraryRepository.findVersionedBook(isbn)
+            .map(versionedBook -> bookChanges.cached(versionedBook, removalStamp))
+            .switchIfEmpty(Mono.defer(() -> {
+                absentIsbnFilter.markAbsent(isbn);
+                return Mono.error(new BookNotFoundException());
+            }));
+    }
+
+    @Override
+    public Flux<Book> findBooksByAuthor(String author) {
+        List<Book> cachedBooks = author == null ? null : cache.getByAuthor(author);
+        return cachedBooks != null ? Flux.fromIterable(cachedBooks) : libraryRepository.findBooksByAuthor(author);
+    }
+
+    @Override
+    public Mono<BookPage> findBooksByAuthor(String author, String after, int limit) {
+        int pageLimit = Math.max(1, Math.min(limit, LibraryService.MAXIMUM_PAGE_SIZE));
+        return libraryRepository.findBooksAfter(author, after == null ? "" : after, pageLimit)
+            .collectList()
+            .map(page -> new BookPage(page, page.size() < pageLimit ? null : page.get(page.size() - 1).isbn()));
+    }
+
+    @Override
+    public Mono<Book> borrowBook(String isbn) {
+        if (loanLedger.isEnabled()) {
+            return ledgerUpdate(isbn, loanLedger::borrowCopy);
+        }
+        return Mono.defer(() -> libraryRepository.decrementAvailableCopies(isbn))
+            .retryWhen(retry)
+            .flatMap(updated -> updated > 0
+                ? updatedBook(isbn)
+                : libraryRepository.existsById(isbn).flatMap(exists ->
+                    Mono.error(exists ? new BookUnavailableException() : new BookNotFoundException())));
+    }
+
+    @Override
+    public Mono<Book> returnBook(String isbn) {
+        if (holdQueue.hasWaiting(isbn)) {
+            return findBookByISBN(isbn).flatMap(book -> holdQueue.fulfilNext(isbn, book) ? Mono.just(book) : returnCopy(isbn));
+        }
+        return returnCopy(isbn);
+    }
+
+    /**
+     * Increases the available copies of a book, when no hold is waiting for the returned copy
+     */
+    private Mono<Book> returnCopy(String isbn) {
+        if (loanLedger.isEnabled()) {
+            return ledgerUpdate(isbn, loanLedger::returnCopy);
+        }
+        return Mono.defer(() -> libraryRepository.incrementAvailableCopies(isbn))
+            .retryWhen(retry)
+            .flatMap(updated -> updated > 0 ? updatedBook(isbn) : Mono.error(new BookNotFoundException()));
+    }
+
+    /**
+     * Reads a book updated by this instance, caches it and tells the other instances to evict their copy of it
+     */
+    private Mono<Book> updatedBook(String isbn) {
+        return Mono.defer(() -> {
+            long removalStamp = cache.removalStamp(isbn);
+            return libraryRepository.findVersionedBook(isbn)
+                .switchIfEmpty(Mono.error(BookNotFoundException::new))
+                .flatMap(versionedBook -> Mono.fromCallable(() -> bookChanges.updated(versionedBook, removalStamp))
+                    .subscribeOn(Schedulers.boundedElastic()));
+        });
+    }
+
+    /**
+     * Borrows or returns a book through the loan ledger, on the bounded elastic scheduler as the ledger reads
+     * a book with the blocking driver when it is first borrowed or returned
+     */
+    private Mono<Book> ledgerUpdate(String isbn, Function<String, VersionedBook> update) {
+        return Mono.fromCallable(() -> {
+            long removalStamp = cache.removalStamp(isbn);
+            return bookChanges.cached(update.apply(isbn), removalStamp);
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Runs the bookkeeping of a change on the bounded elastic scheduler
+     */
+    private Mono<Void> offload(Runnable bookkeeping) {
+        return Mono.fromRunnable(bookkeeping).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+}
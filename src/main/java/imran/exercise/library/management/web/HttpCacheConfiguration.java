@@ -0,0 +1,9 @@
+package imran.exercise.library.management.web;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(HttpCacheProperties.class)
+public class HttpCacheConfiguration {
+}
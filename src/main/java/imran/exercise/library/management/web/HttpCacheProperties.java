@@ -0,0 +1,22 @@
+package imran.exercise.library.management.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+
+/**
+ * @param maxAge - The time clients and shared caches may reuse a book or a list of books without revalidating
+ * it, 0 to revalidate on every use
+ */
+@ConfigurationProperties(prefix = "library.http-cache")
+public record HttpCacheProperties(@DefaultValue("0s") Duration maxAge) {
+
+    /**
+     * @return The Cache-Control of the book responses carrying an entity tag
+     */
+    public CacheControl cacheControl() {
+        return maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge).mustRevalidate();
+    }
+}
@@ -0,0 +1,74 @@
+package imran.exercise.library.management.web.controller;
+
+import imran.exercise.library.management.dto.Book;
+
+import java.util.List;
+
+/**
+ * Strong entity tags of the JSON representations of books, hashed from the fields of the books without
+ * serializing them, so a conditional request for an unchanged book is answered without writing its JSON.
+ * Every borrow and return changes the available copies, and so the tag of the book.
+ */
+final class BookETags {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private BookETags() {
+    }
+
+    static String of(Book book) {
+        return format(hash(FNV_OFFSET_BASIS, book));
+    }
+
+    static String of(List<Book> books) {
+        long hash = hash(FNV_OFFSET_BASIS, books.size());
+        for (Book book : books) {
+            hash = hash(hash, book);
+        }
+        return format(hash);
+    }
+
+    /**
+     * Returns whether the entity tags of an If-None-Match header match a tag, comparing them weakly as the
+     * header requires
+     */
+    static boolean matches(List<String> ifNoneMatch, String eTag) {
+        for (String tag : ifNoneMatch) {
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long hash(long hash, Book book) {
+        hash = hash(hash, book.isbn());
+        hash = hash(hash, book.title());
+        hash = hash(hash, book.author());
+        hash = hash(hash, book.publicationYear() == null ? -1L : book.publicationYear() & 0xffffffffL);
+        return hash(hash, book.availableCopies() == null ? -1L : book.availableCopies() & 0xffffffffL);
+    }
+
+    private static long hash(long hash, String value) {
+        if (value == null) {
+            return hash(hash, -1L);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // the length separates the fields, so "ab" + "c" and "a" + "bc" hash differently
+        return hash(hash, value.length());
+    }
+
+    private static long hash(long hash, long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static String format(long hash) {
+        return "\"" + String.format("%016x", hash) + "\"";
+    }
+}
@@ -0,0 +1,114 @@
+package imran.exercise.library.management.web.controller;
+
+import imran.exercise.library.management.dto.BookHold;
+import imran.exercise.library.management.hold.HoldProperties;
+import imran.exercise.library.management.service.HoldService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Holds on books.  A client waiting for a copy is notified by a long-poll request or an event stream,
+ * neither of which holds a request thread while waiting.
+ */
+@RestController
+@RequestMapping("/api/books")
+public class HoldController {
+
+    private final HoldService holdService;
+    private final Duration pollTimeout;
+
+    public HoldController(HoldService holdService, HoldProperties properties) {
+        this.holdService = holdService;
+        this.pollTimeout = properties.pollTimeout();
+    }
+
+    /**
+     * Borrows a book when a copy is available, otherwise places a hold on the next returned copy
+     * @param isbn - The ISBN of the book to be borrowed
+     * @return The fulfilled hold with the borrowed book, or 202 Accepted with the waiting hold and its location
+     */
+    @PostMapping("/hold/{isbn}")
+    public ResponseEntity<BookHold> placeHold(@PathVariable String isbn) {
+        BookHold hold = holdService.placeHold(isbn);
+        if (hold.status() == BookHold.Status.WAITING) {
+            return ResponseEntity.accepted().location(URI.create("/api/books/holds/" + hold.id())).body(hold);
+        }
+        return ResponseEntity.ok(hold);
+    }
+
+    /**
+     * Returns a hold, optionally waiting for it to complete
+     * @param id - The id of the hold
+     * @param wait - Whether to wait up to {@code library.holds.poll-timeout} for a waiting hold to complete
+     * @return The hold, still waiting when the timeout elapsed
+     */
+    @ResponseBody
+    @GetMapping("/holds/{id}")
+    public DeferredResult<BookHold> getHold(
+        @PathVariable String id, @RequestParam(name = "wait", defaultValue = "false") boolean wait) {
+        BookHold hold = holdService.findHold(id);
+        DeferredResult<BookHold> result = new DeferredResult<>(pollTimeout.toMillis(), () -> holdService.findHold(id));
+        if (wait && hold.status() == BookHold.Status.WAITING) {
+            holdService.awaitHold(id).thenAccept(result::setResult);
+        } else {
+            result.setResult(hold);
+        }
+        return result;
+    }
+
+    /**
+     * Streams the events of a hold: the hold when subscribed, then the completed hold.  The stream ends after
+     * {@code library.holds.poll-timeout}, after which clients reconnect.
+     * @param id - The id of the hold
+     * @return The stream of events, named after the status of the hold
+     */
+    @GetMapping(path = "/holds/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamHold(@PathVariable String id) {
+        BookHold hold = holdService.findHold(id);
+        SseEmitter emitter = new SseEmitter(pollTimeout.toMillis());
+        send(emitter, hold);
+        if (hold.status() == BookHold.Status.WAITING) {
+            holdService.awaitHold(id).thenAccept(completedHold -> {
+                send(emitter, completedHold);
+                emitter.complete();
+            });
+        } else {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    /**
+     * Cancels a hold waiting for a copy
+     * @param id - The id of the hold
+     * @return The hold, cancelled unless it had already completed
+     */
+    @ResponseBody
+    @DeleteMapping("/holds/{id}")
+    public BookHold cancelHold(@PathVariable String id) {
+        return holdService.cancelHold(id);
+    }
+
+    private void send(SseEmitter emitter, BookHold hold) {
+        try {
+            emitter.send(SseEmitter.event().name(hold.status().name().toLowerCase()).data(hold, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // the client went away or the stream timed out
+            emitter.completeWithError(e);
+        }
+    }
+}
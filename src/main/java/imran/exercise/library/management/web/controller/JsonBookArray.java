@@ -0,0 +1,49 @@
+package imran.exercise.library.management.web.controller;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import imran.exercise.library.management.dto.Book;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A JSON array of books written while the books are read, so a listing of the whole catalogue is never held
+ * in memory.
+ */
+final class JsonBookArray {
+
+    private JsonBookArray() {
+    }
+
+    /**
+     * @param bookWriter - The writer of a single book
+     * @param books - Passes each book of the array to the given action, in order
+     * @return The body writing the array
+     */
+    static StreamingResponseBody of(ObjectWriter bookWriter, Consumer<Consumer<Book>> books) {
+        return outputStream -> {
+            OutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
+            AtomicBoolean first = new AtomicBoolean(true);
+            bufferedOutputStream.write('[');
+            books.accept(book -> write(bufferedOutputStream, bookWriter, book, first.getAndSet(false)));
+            bufferedOutputStream.write(']');
+            bufferedOutputStream.flush();
+        };
+    }
+
+    private static void write(OutputStream outputStream, ObjectWriter bookWriter, Book book, boolean first) {
+        try {
+            if (!first) {
+                outputStream.write(',');
+            }
+            outputStream.write(bookWriter.writeValueAsBytes(book));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
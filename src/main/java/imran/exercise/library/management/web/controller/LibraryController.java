@@ -1,50 +1,145 @@
 package imran.exercise.library.management.web.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookHit;
+import imran.exercise.library.management.dto.BookPage;
+import imran.exercise.library.management.dto.BookResult;
 import imran.exercise.library.management.service.Library;
+import imran.exercise.library.management.web.HttpCacheProperties;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/books")
 public class LibraryController {
 
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final Library library;
+    private final ObjectWriter bookWriter;
+    private final CacheControl cacheControl;
 
-    public LibraryController(Library library) {
+    public LibraryController(Library library, ObjectMapper objectMapper, HttpCacheProperties httpCacheProperties) {
         this.library = library;
+        this.bookWriter = objectMapper.writerFor(Book.class);
+        this.cacheControl = httpCacheProperties.cacheControl();
     }
 
     /**
-     * Returns a book by its ISBN
+     * Returns a book by its ISBN, tagged with an entity tag of its content.  A request whose If-None-Match
+     * matches the tag is answered with 304 Not Modified without writing the book, and without reading the
+     * database when the book is cached.
      * @param isbn - The ISBN of the book
+     * @param headers - The headers of the request
      * @return The book for given ISBN
      */
-    @ResponseBody
     @GetMapping("/{isbn}")
-    public Book getBook(@PathVariable String isbn) {
-        return library.findBookByISBN(isbn);
+    public ResponseEntity<Book> getBook(@PathVariable String isbn, @RequestHeader HttpHeaders headers) {
+        Book cachedBook = library.findCachedBook(isbn);
+        if (cachedBook != null && BookETags.matches(headers.getIfNoneMatch(), BookETags.of(cachedBook))) {
+            return notModified(BookETags.of(cachedBook));
+        }
+        Book book = library.findBookByISBN(isbn);
+        return ResponseEntity.ok().eTag(BookETags.of(book)).cacheControl(cacheControl).body(book);
     }
 
     /**
-     * Returns a list of books by a given author
+     * Returns a list of books by a given author, tagged with an entity tag of its content.  A request whose
+     * If-None-Match matches the tag is answered with 304 Not Modified without writing the books, and without
+     * reading the database when the list is cached.
      * @param author - The author of the book(s) in this Library
+     * @param headers - The headers of the request
      * @return The list of books by the given author
      */
+    @GetMapping(params = "author")
+    public ResponseEntity<List<Book>> getBooksByAuthor(
+        @RequestParam(name = "author") String author, @RequestHeader HttpHeaders headers) {
+        List<Book> cachedBooks = library.findCachedBooksByAuthor(author);
+        if (cachedBooks != null && BookETags.matches(headers.getIfNoneMatch(), BookETags.of(cachedBooks))) {
+            return notModified(BookETags.of(cachedBooks));
+        }
+        List<Book> books = library.findBooksByAuthor(author);
+        return ResponseEntity.ok().eTag(BookETags.of(books)).cacheControl(cacheControl).body(books);
+    }
+
+    /**
+     * Returns all books as a JSON array in ISBN order, streamed from the database so that the catalogue is never
+     * held in memory.  The list is not tagged, as its tag would hash the whole catalogue.
+     * @return The list of all books
+     */
+    @GetMapping(params = "!author")
+    public ResponseEntity<StreamingResponseBody> getAllBooks() {
+        StreamingResponseBody body = JsonBookArray.of(bookWriter, action -> library.forEachBookByAuthor(null, action));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Returns a page of books by a given author ordered by ISBN
+     * @param author - The author of the book(s) in this Library, or all books when not given
+     * @param after - The cursor returned with the previous page, or not given for the first page
+     * @param limit - The maximum number of books in the page, at most 1000
+     * @return The page of books, with the cursor of the next page or null for the last page
+     */
+    @ResponseBody
+    @GetMapping("/query/page")
+    public BookPage getBooksPageByAuthor(
+        @RequestParam(name = "author", required = false) String author,
+        @RequestParam(name = "after", required = false) String after,
+        @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        return library.findBooksByAuthor(author, after, limit);
+    }
+
+    /**
+     * Returns the books whose title and author contain all the words of a query, best match first
+     * @param query - The words to search for, the last word matching as a prefix
+     * @param limit - The maximum number of books to return, at most 1000
+     * @return The matching books with their scores
+     */
     @ResponseBody
-    @GetMapping
-    public List<Book> getBooksByAuthor(@RequestParam(name = "author", required = false) String author) {
-        return library.findBooksByAuthor(author);
+    @GetMapping("/query/search")
+    public List<BookHit> searchBooks(
+        @RequestParam(name = "q") String query,
+        @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        return library.searchBooks(query, limit);
+    }
+
+    /**
+     * Streams the books by a given author as newline delimited JSON, one book per line in ISBN order
+     * @param author - The author of the book(s) in this Library, or all books when not given
+     * @return The stream of books
+     */
+    @GetMapping("/query/stream")
+    public ResponseEntity<StreamingResponseBody> streamBooksByAuthor(
+        @RequestParam(name = "author", required = false) String author) {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream bufferedOutputStream = new BufferedOutputStream(outputStream);
+            library.forEachBookByAuthor(author, book -> writeLine(bufferedOutputStream, book));
+            bufferedOutputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
     }
 
     /**
@@ -88,4 +183,61 @@ public class LibraryController {
     public Book returnBook(@PathVariable String isbn) {
         return library.returnBook(isbn);
     }
+
+    /**
+     * Adds new books to the library in a single batch
+     * @param newBooks - The books to be added
+     * @return The result for each book, in the given order
+     */
+    @ResponseBody
+    @PostMapping("/batch")
+    public List<BookResult> addBooks(@RequestBody List<Book> newBooks) {
+        return library.addBooks(newBooks);
+    }
+
+    /**
+     * Returns books by their ISBNs
+     * @param isbns - The ISBNs of the books
+     * @return The result for each ISBN, in the given order
+     */
+    @ResponseBody
+    @PostMapping("/batch/lookup")
+    public List<BookResult> getBooks(@RequestBody List<String> isbns) {
+        return library.findBooksByISBN(isbns);
+    }
+
+    /**
+     * Decreases the available copies of each book by 1 in this Library in a single batch
+     * @param isbns - The ISBNs of the books to be borrowed, an ISBN appearing once per copy
+     * @return The result for each ISBN, in the given order
+     */
+    @ResponseBody
+    @PutMapping("/batch/borrow")
+    public List<BookResult> borrowBooks(@RequestBody List<String> isbns) {
+        return library.borrowBooks(isbns);
+    }
+
+    /**
+     * Increases the available copies of each book by 1 in this Library in a single batch
+     * @param isbns - The ISBNs of the books to be returned, an ISBN appearing once per copy
+     * @return The result for each ISBN, in the given order
+     */
+    @ResponseBody
+    @PutMapping("/batch/return")
+    public List<BookResult> returnBooks(@RequestBody List<String> isbns) {
+        return library.returnBooks(isbns);
+    }
+
+    private <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+    }
+
+    private void writeLine(OutputStream outputStream, Book book) {
+        try {
+            outputStream.write(bookWriter.writeValueAsBytes(book));
+            outputStream.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
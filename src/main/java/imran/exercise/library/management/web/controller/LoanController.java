@@ -0,0 +1,123 @@
+package imran.exercise.library.management.web.controller;
+
+import imran.exercise.library.management.dto.CopyCount;
+import imran.exercise.library.management.dto.Loan;
+import imran.exercise.library.management.dto.Member;
+import imran.exercise.library.management.service.LoanService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Members, the copies of books and the loans of copies to members.
+ */
+@RestController
+@RequestMapping("/api")
+public class LoanController {
+
+    private final LoanService loanService;
+
+    public LoanController(LoanService loanService) {
+        this.loanService = loanService;
+    }
+
+    /**
+     * Adds a new member
+     * @param newMember - The member to be added, without an id
+     * @return The new member with its id
+     */
+    @PostMapping("/members")
+    public Member addMember(@RequestBody Member newMember) {
+        return loanService.addMember(newMember);
+    }
+
+    /**
+     * Returns a member by its id
+     * @param id - The id of the member
+     * @return The member
+     */
+    @GetMapping("/members/{id}")
+    public Member getMember(@PathVariable long id) {
+        return loanService.findMember(id);
+    }
+
+    /**
+     * Adds copies of a book that can be lent to members
+     * @param isbn - The ISBN of the book
+     * @param count - The number of copies to be added
+     * @return The number of copies of the book now available to members
+     */
+    @PostMapping("/books/{isbn}/copies")
+    public CopyCount addCopies(@PathVariable String isbn, @RequestParam(name = "count", defaultValue = "1") int count) {
+        return loanService.addCopies(isbn, count);
+    }
+
+    /**
+     * Counts the copies of a book that are not on loan to members
+     * @param isbn - The ISBN of the book
+     * @return The number of copies available to members
+     */
+    @GetMapping("/books/{isbn}/copies")
+    public CopyCount getAvailableCopies(@PathVariable String isbn) {
+        return loanService.availableCopies(List.of(isbn)).get(0);
+    }
+
+    /**
+     * Counts the copies of books that are not on loan to members, in a single query
+     * @param isbns - The ISBNs of the books
+     * @return The count for each ISBN, in the given order
+     */
+    @PostMapping("/books/batch/copies")
+    public List<CopyCount> getAvailableCopies(@RequestBody List<String> isbns) {
+        return loanService.availableCopies(isbns);
+    }
+
+    /**
+     * Lends a copy of a book to a member
+     * @param id - The id of the member
+     * @param isbn - The ISBN of the book
+     * @return The new loan
+     */
+    @PostMapping("/members/{id}/loans/{isbn}")
+    public Loan lendCopy(@PathVariable long id, @PathVariable String isbn) {
+        return loanService.lendCopy(id, isbn);
+    }
+
+    /**
+     * Returns the copies on loan to a member
+     * @param id - The id of the member
+     * @return The open loans of the member, first due first
+     */
+    @GetMapping("/members/{id}/loans")
+    public List<Loan> getOpenLoans(@PathVariable long id) {
+        return loanService.findOpenLoans(id);
+    }
+
+    /**
+     * Returns a lent copy
+     * @param id - The id of the loan
+     * @return The closed loan
+     */
+    @PutMapping("/loans/{id}/return")
+    public Loan returnCopy(@PathVariable long id) {
+        return loanService.returnCopy(id);
+    }
+
+    /**
+     * Returns the loans not returned by their due date
+     * @param limit - The maximum number of loans
+     * @return The overdue loans, longest overdue first
+     */
+    @GetMapping("/loans/overdue")
+    public List<Loan> getOverdueLoans(@RequestParam(name = "limit", defaultValue = "100") int limit) {
+        return loanService.findOverdueLoans(Instant.now(), limit);
+    }
+}
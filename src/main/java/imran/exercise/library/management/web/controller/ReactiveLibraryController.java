@@ -0,0 +1,138 @@
+package imran.exercise.library.management.web.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookPage;
+import imran.exercise.library.management.service.ReactiveLibrary;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@link LibraryController} API on the {@link ReactiveLibrary}.  The response is written when the returned
+ * publisher completes.  The H2 driver runs each statement on the thread that subscribes to it, which is the
+ * request thread, so the database is still read on that thread; what is gained is backpressure on streams.
+ */
+@RestController
+@RequestMapping("/api/reactive/books")
+public class ReactiveLibraryController {
+
+    private final ReactiveLibrary library;
+    private final ObjectWriter bookWriter;
+
+    public ReactiveLibraryController(ReactiveLibrary library, ObjectMapper objectMapper) {
+        this.library = library;
+        this.bookWriter = objectMapper.writerFor(Book.class);
+    }
+
+    /**
+     * Returns a book by its ISBN
+     * @param isbn - The ISBN of the book
+     * @return The book for given ISBN
+     */
+    @GetMapping("/{isbn}")
+    public Mono<Book> getBook(@PathVariable String isbn) {
+        return library.findBookByISBN(isbn);
+    }
+
+    /**
+     * Returns a list of books by a given author
+     * @param author - The author of the book(s) in this Library
+     * @return The list of books by the given author
+     */
+    @GetMapping(params = "author")
+    public Flux<Book> getBooksByAuthor(@RequestParam(name = "author") String author) {
+        return library.findBooksByAuthor(author);
+    }
+
+    /**
+     * Returns all books as a JSON array in ISBN order, written as each book is read from the database, since a
+     * JSON list returned as a {@link Flux} would be collected into memory before it is written
+     * @return The list of all books
+     */
+    @GetMapping(params = "!author")
+    public ResponseEntity<StreamingResponseBody> getAllBooks() {
+        StreamingResponseBody body =
+            JsonBookArray.of(bookWriter, action -> library.findBooksByAuthor(null).toIterable().forEach(action));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Returns a page of books by a given author ordered by ISBN
+     * @param author - The author of the book(s) in this Library, or all books when not given
+     * @param after - The cursor returned with the previous page, or not given for the first page
+     * @param limit - The maximum number of books in the page, at most 1000
+     * @return The page of books, with the cursor of the next page or null for the last page
+     */
+    @GetMapping("/query/page")
+    public Mono<BookPage> getBooksPageByAuthor(
+        @RequestParam(name = "author", required = false) String author,
+        @RequestParam(name = "after", required = false) String after,
+        @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        return library.findBooksByAuthor(author, after, limit);
+    }
+
+    /**
+     * Streams the books by a given author as newline delimited JSON, one book per line in ISBN order.  Each
+     * book is read from the database once the previous one is written, so a slow client slows the query
+     * down instead of buffering the books.
+     * @param author - The author of the book(s) in this Library, or all books when not given
+     * @return The stream of books
+     */
+    @GetMapping(path = "/query/stream", produces = "application/x-ndjson")
+    public Flux<Book> streamBooksByAuthor(@RequestParam(name = "author", required = false) String author) {
+        return library.findBooksByAuthor(author);
+    }
+
+    /**
+     * Adds a new book to the library
+     * @param newBook - The book to be added
+     * @return The new book that is added
+     */
+    @PostMapping
+    public Mono<Book> addBook(@RequestBody Book newBook) {
+        return library.addBook(newBook);
+    }
+
+    /**
+     * Removes a book from the library by ISBN
+     * @param isbn - The ISBN of the book to be removed
+     * @return Completes when the book is removed
+     */
+    @DeleteMapping("/{isbn}")
+    public Mono<Void> removeBook(@PathVariable String isbn) {
+        return library.removeBook(isbn);
+    }
+
+    /**
+     * Decreases the available copies of a book by 1 in this Library
+     * @param isbn - The ISBN of the book to be borrowed
+     * @return The existing book that is now borrowed
+     */
+    @PutMapping("/borrow/{isbn}")
+    public Mono<Book> borrowBook(@PathVariable String isbn) {
+        return library.borrowBook(isbn);
+    }
+
+    /**
+     * Increases the available copies of a book by 1 in this Library
+     * @param isbn - The ISBN of the book to be returned
+     * @return The book that is now returned
+     */
+    @PutMapping("/return/{isbn}")
+    public Mono<Book> returnBook(@PathVariable String isbn) {
+        return library.returnBook(isbn);
+    }
+}
@@ -0,0 +1,11 @@
+create table book_entity (
+    isbn varchar(255) not null,
+    title varchar(255),
+    author varchar(255),
+    publication_year integer,
+    available_copies integer,
+    version bigint,
+    primary key (isbn)
+);
+
+create index book_entity_author_isbn_idx on book_entity (author, isbn);
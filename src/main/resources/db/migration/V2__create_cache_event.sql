@@ -0,0 +1,9 @@
+create table if not exists cache_event (
+    id bigint generated by default as identity,
+    node_id varchar(64) not null,
+    type varchar(16) not null,
+    isbn varchar(255) not null,
+    version bigint not null,
+    created_at timestamp not null,
+    primary key (id)
+);
@@ -0,0 +1,5 @@
+create table if not exists loan_projection (
+    id integer not null,
+    sequence bigint not null,
+    primary key (id)
+);
@@ -0,0 +1,32 @@
+create table member_entity (
+    id bigint generated by default as identity,
+    name varchar(255),
+    loan_limit integer not null,
+    primary key (id)
+);
+
+create table copy_entity (
+    id bigint generated by default as identity,
+    isbn varchar(255) not null,
+    on_loan boolean not null,
+    primary key (id),
+    constraint copy_entity_book_fk foreign key (isbn) references book_entity (isbn) on delete cascade
+);
+
+create index copy_entity_isbn_on_loan_idx on copy_entity (isbn, on_loan);
+
+create table loan_entity (
+    id bigint generated by default as identity,
+    copy_id bigint not null,
+    member_id bigint not null,
+    borrowed_at timestamp(6) with time zone not null,
+    due_at timestamp(6) with time zone not null,
+    returned_at timestamp(6) with time zone,
+    primary key (id),
+    constraint loan_entity_copy_fk foreign key (copy_id) references copy_entity (id) on delete cascade,
+    constraint loan_entity_member_fk foreign key (member_id) references member_entity (id)
+);
+
+create index loan_entity_copy_idx on loan_entity (copy_id);
+create index loan_entity_member_returned_idx on loan_entity (member_id, returned_at);
+create index loan_entity_returned_due_idx on loan_entity (returned_at, due_at);
@@ -0,0 +1,6 @@
+alter table loan_entity drop constraint loan_entity_copy_fk;
+alter table loan_entity add constraint loan_entity_copy_fk foreign key (copy_id) references copy_entity (id);
+
+alter table copy_entity drop constraint copy_entity_book_fk;
+alter table copy_entity alter column isbn set null;
+alter table copy_entity add constraint copy_entity_book_fk foreign key (isbn) references book_entity (isbn) on delete set null;
@@ -0,0 +1,111 @@
+package imran.exercise.library.management.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class AbsentIsbnFilterTest {
+
+    @Test
+    void isAbsent_BeforeLoaded_AssumesEveryIsbnExists() {
+        AbsentIsbnFilter underTest = absentIsbnFilter(true, Duration.ofSeconds(10));
+
+        assertThat(underTest.isAbsent("isbn"), is(false));
+    }
+
+    @Test
+    void isAbsent_OnceLoaded_IsTrueOnlyForUnknownIsbns() {
+        AbsentIsbnFilter underTest = absentIsbnFilter(true, Duration.ofSeconds(10));
+        underTest.added("isbn-1");
+        underTest.markLoaded();
+
+        assertThat(underTest.isAbsent("isbn-1"), is(false));
+        assertThat(underTest.isAbsent("isbn-2"), is(true));
+    }
+
+    @Test
+    void removed_BeforeLoaded_IsIgnored() {
+        AbsentIsbnFilter underTest = absentIsbnFilter(true, Duration.ofSeconds(10));
+        underTest.removed("isbn-1");
+        underTest.added("isbn-1");
+        underTest.markLoaded();
+
+        assertThat(underTest.isAbsent("isbn-1"), is(false));
+    }
+
+    @Test
+    void removed_Twice_RemovesIsbnOnce() {
+        AbsentIsbnFilter underTest = absentIsbnFilter(true, Duration.ofSeconds(10));
+        underTest.added("isbn-1");
+        underTest.added("isbn-1");
+        underTest.markLoaded();
+
+        underTest.removed("isbn-1");
+        underTest.removed("isbn-1");
+
+        assertThat(underTest.isAbsent("isbn-1"), is(false));
+    }
+
+    @Test
+    void removed_AfterIsbnIsAddedAgain_RemovesItAgain() {
+        AbsentIsbnFilter underTest = absentIsbnFilter(true, Duration.ofSeconds(10));
+        underTest.added("isbn-1");
+        underTest.markLoaded();
+
+        underTest.removed("isbn-1");
+        underTest.added("isbn-1");
+        underTest.removed("isbn-1");
+
+        assertThat(underTest.isAbsent("isbn-1"), is(true));
+    }
+
+    @Test
+    void startLoading_KeepsAnsweringFromCurrentFilter_UntilLoadingFinishes() {
+        AbsentIsbnFilter underTest = absentIsbnFilter(true, Duration.ofSeconds(10));
+        underTest.added("isbn-1");
+        underTest.markLoaded();
+
+        underTest.startLoading();
+        underTest.loaded("isbn-2");
+        underTest.added("isbn-3");
+        assertThat(underTest.isAbsent("isbn-1"), is(false));
+        assertThat(underTest.isAbsent("isbn-3"), is(false));
+
+        underTest.finishLoading();
+        assertThat(underTest.isAbsent("isbn-1"), is(true));
+        assertThat(underTest.isAbsent("isbn-2"), is(false));
+        assertThat(underTest.isAbsent("isbn-3"), is(false));
+    }
+
+    @Test
+    void markAbsent_RemembersIsbnUntilTtlExpiresOrBookIsAdded() throws InterruptedException {
+        AbsentIsbnFilter underTest = absentIsbnFilter(true, Duration.ofMillis(50));
+
+        underTest.markAbsent("isbn-1");
+        underTest.markAbsent("isbn-2");
+        assertThat(underTest.isAbsent("isbn-1"), is(true));
+
+        underTest.added("isbn-1");
+        assertThat(underTest.isAbsent("isbn-1"), is(false));
+
+        Thread.sleep(100);
+        assertThat(underTest.isAbsent("isbn-2"), is(false));
+    }
+
+    @Test
+    void isAbsent_WhenDisabled_IsAlwaysFalse() {
+        AbsentIsbnFilter underTest = absentIsbnFilter(false, Duration.ofSeconds(10));
+        underTest.markLoaded();
+        underTest.markAbsent("isbn-1");
+
+        assertThat(underTest.isAbsent("isbn-1"), is(false));
+        assertThat(underTest.isLoaded(), is(false));
+    }
+
+    private static AbsentIsbnFilter absentIsbnFilter(boolean enabled, Duration ttl) {
+        return new AbsentIsbnFilter(new BookCacheProperties.Negative(enabled, 1_000, 0.01, ttl, 100));
+    }
+}
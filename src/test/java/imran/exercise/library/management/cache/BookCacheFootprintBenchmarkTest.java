@@ -0,0 +1,77 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.dto.Book;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@Tag("benchmark")
+public class BookCacheFootprintBenchmarkTest {
+
+    private static final int books = 2_000_000;
+    private static final int authors = 100_000;
+    private static final int fullCollections = 5;
+    private static final long garbageBytes = 4L << 30;
+
+    @Test
+    void fill_MeasuresBytesPerEntryAndGcPauses() {
+        measure("simple", SimpleNoExpiryCache::new);
+        measure("bounded", () -> new BoundedBookCache(books, 0, null, null));
+        measure("off-heap", OffHeapBookCache::new);
+    }
+
+    private void measure(String name, Supplier<BookCache> cacheFactory) {
+        long heapBefore = usedHeapAfterGc();
+        BookCache cache = cacheFactory.get();
+        for (int i = 0; i < books; i++) {
+            String isbn = "978%010d".formatted(i);
+            cache.put(isbn, new Book(isbn, "Title of book " + i, "Author " + i % authors, 1900 + i % 125, 1 + i % 3));
+        }
+        long heapBytes = usedHeapAfterGc() - heapBefore;
+        long offHeapBytes = cache instanceof OffHeapBookCache offHeapCache ? offHeapCache.offHeapBytes() : 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < fullCollections; i++) {
+            System.gc();
+        }
+        long fullGcNanos = (System.nanoTime() - start) / fullCollections;
+
+        long[] collections = collections();
+        byte[][] recent = new byte[64][];
+        for (long allocated = 0; allocated < garbageBytes; allocated += 1024) {
+            recent[(int) (allocated >> 10) & 63] = new byte[1024];
+        }
+        long[] afterChurn = collections();
+
+        assertThat(cache.size(), is((long) books));
+        assertThat(recent[63].length, is(1024));
+        System.out.printf("%s cache, %d books: %.0f heap + %.0f off-heap bytes per book, full GC %d ms, " +
+                "%d collections of %d MB garbage took %d ms%n",
+            name, books, (double) heapBytes / books, (double) offHeapBytes / books,
+            TimeUnit.NANOSECONDS.toMillis(fullGcNanos),
+            afterChurn[0] - collections[0], garbageBytes >> 20, afterChurn[1] - collections[1]);
+        cache.clear();
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long[] collections() {
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        return new long[]{
+            collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum(),
+            collectors.stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum()
+        };
+    }
+}
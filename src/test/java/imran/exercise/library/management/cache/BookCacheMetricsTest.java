@@ -0,0 +1,40 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.dto.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class BookCacheMetricsTest {
+
+    private final BookCache cache = new BoundedBookCache(1, 0, null, null);
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void bindTo_PublishesCacheStatistics() {
+        new BookCacheMetrics(cache).bindTo(registry);
+
+        cache.put("isbn-1", new Book("isbn-1", "title", "author", 2024, 1));
+        cache.get("isbn-1");
+        cache.get("isbn-1");
+        cache.get("isbn-2");
+
+        assertThat(registry.get("library.cache.gets").tag("result", "hit").functionCounter().count(), is(2.0));
+        assertThat(registry.get("library.cache.gets").tag("result", "miss").functionCounter().count(), is(1.0));
+        assertThat(registry.get("library.cache.size").gauge().value(), is(1.0));
+        assertThat(registry.get("library.cache.hit.ratio").gauge().value(), is(2.0 / 3));
+        assertThat(registry.get("library.cache.evictions").functionCounter().count(), is(0.0));
+    }
+
+    @Test
+    void bindTo_PublishesOffHeapMemoryOfOffHeapCache() {
+        OffHeapBookCache offHeapCache = new OffHeapBookCache();
+
+        new BookCacheMetrics(offHeapCache).bindTo(registry);
+
+        assertThat(registry.get("library.cache.off.heap.bytes").gauge().value(), is((double) offHeapCache.offHeapBytes()));
+    }
+}
@@ -0,0 +1,278 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.dto.Book;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoundedBookCacheTest {
+
+    private static final Book book = new Book("isbn", "title", "author", 2024, 1);
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    @Test
+    void get_ReturnsCachedBook() {
+        BoundedBookCache underTest = cache(10, 0, null, null);
+
+        underTest.put(book.isbn(), book);
+
+        assertThat(underTest.get(book.isbn()), is(book));
+        assertThat(underTest.stats(), is(new CacheStats(1, 0, 0)));
+    }
+
+    @Test
+    void get_CountsMissForUnknownBook() {
+        BoundedBookCache underTest = cache(10, 0, null, null);
+
+        assertThat(underTest.get(book.isbn()), nullValue());
+        assertThat(underTest.stats(), is(new CacheStats(0, 1, 0)));
+    }
+
+    @Test
+    void put_ReturnsPreviousBook() {
+        BoundedBookCache underTest = cache(10, 0, null, null);
+        Book borrowed = new Book("isbn", "title", "author", 2024, 0);
+
+        underTest.put(book.isbn(), book);
+
+        assertThat(underTest.put(book.isbn(), borrowed), is(book));
+        assertThat(underTest.get(book.isbn()), is(borrowed));
+        assertThat(underTest.size(), is(1L));
+    }
+
+    @Test
+    void remove_RemovesCachedBook() {
+        BoundedBookCache underTest = cache(10, 0, null, null);
+        underTest.put(book.isbn(), book);
+
+        assertThat(underTest.remove(book.isbn()), is(book));
+        assertThat(underTest.get(book.isbn()), nullValue());
+        assertThat(underTest.size(), is(0L));
+        assertThat(underTest.weightedSize(), is(0L));
+    }
+
+    @Test
+    void put_EvictsBooksBeyondMaximumSize() {
+        BoundedBookCache underTest = cache(100, 0, null, null);
+
+        for (int i = 0; i < 10_000; i++) {
+            underTest.put("isbn-" + i, book(i));
+        }
+
+        assertThat(underTest.size(), is(100L));
+        assertThat(underTest.stats().evictionCount(), is(9_900L));
+    }
+
+    @Test
+    void put_EvictsBooksBeyondMaximumWeight() {
+        BoundedBookCache underTest = new BoundedBookCache(1_000, 50, null, null, value -> 10, ticker::get);
+
+        for (int i = 0; i < 100; i++) {
+            underTest.put("isbn-" + i, book(i));
+        }
+
+        assertThat(underTest.size(), is(5L));
+        assertThat(underTest.weightedSize(), lessThanOrEqualTo(50L));
+    }
+
+    @Test
+    void get_ExpiresBookAfterWrite() {
+        BoundedBookCache underTest = cache(10, 0, Duration.ofMinutes(1), null);
+        underTest.put(book.isbn(), book);
+
+        ticker.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertThat(underTest.get(book.isbn()), is(book));
+
+        ticker.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertThat(underTest.get(book.isbn()), nullValue());
+        assertThat(underTest.size(), is(0L));
+    }
+
+    @Test
+    void get_ExpiresBookAfterAccess() {
+        BoundedBookCache underTest = cache(10, 0, null, Duration.ofMinutes(1));
+        underTest.put(book.isbn(), book);
+
+        for (int i = 0; i < 5; i++) {
+            ticker.addAndGet(Duration.ofSeconds(50).toNanos());
+            assertThat(underTest.get(book.isbn()), is(book));
+        }
+
+        ticker.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertThat(underTest.get(book.isbn()), nullValue());
+    }
+
+    @Test
+    void put_KeepsFrequentlyReadBooksOverOneHitWonders() {
+        BoundedBookCache underTest = cache(100, 0, null, null);
+        for (int i = 0; i < 100; i++) {
+            underTest.put("isbn-" + i, book(i));
+            for (int j = 0; j < 5; j++) {
+                underTest.get("isbn-" + i);
+            }
+        }
+
+        for (int i = 100; i < 1_000; i++) {
+            underTest.put("isbn-" + i, book(i));
+        }
+
+        long resident = 0;
+        for (int i = 0; i < 100; i++) {
+            if (underTest.get("isbn-" + i) != null) {
+                resident++;
+            }
+        }
+        assertThat(resident, greaterThan(90L));
+    }
+
+    @Test
+    void get_StaysBoundedWithHighHitRateUnderZipfianWorkload() {
+        int catalogueSize = 100_000;
+        BoundedBookCache underTest = cache(1_000, 0, null, null);
+        ZipfianGenerator generator = new ZipfianGenerator(catalogueSize, 1.0, new Random(42));
+
+        for (int i = 0; i < 500_000; i++) {
+            String isbn = "isbn-" + generator.next();
+            if (underTest.get(isbn) == null) {
+                underTest.put(isbn, new Book(isbn, "title", "author", 2024, 1));
+            }
+            assertThat(underTest.size(), lessThanOrEqualTo(1_000L));
+        }
+
+        assertThat(underTest.stats().hitRate(), greaterThan(0.5));
+    }
+
+    @Test
+    void getByAuthor_ReturnsNullOnceABookOfTheAuthorIsEvicted() {
+        BoundedBookCache underTest = cache(100, 0, null, null);
+        underTest.putAuthor("author", List.of(book(0), book(1)), underTest.authorStamp("author"));
+        assertThat(underTest.getByAuthor("author"), contains(book(0), book(1)));
+
+        for (int i = 2; i < 1_000; i++) {
+            underTest.put("other-" + i, new Book("other-" + i, "title", "another author", 2024, 1));
+        }
+
+        assertThat(underTest.getByAuthor("author"), nullValue());
+    }
+
+    @Test
+    void putAuthor_DropsAuthorOnceABookOfTheAuthorIsEvicted_WithoutLookup() {
+        BoundedBookCache underTest = cache(100, 0, null, null);
+        underTest.putAuthor("author", List.of(book(0), book(1)), underTest.authorStamp("author"));
+        assertThat(underTest.indexedAuthors(), is(1));
+
+        for (int i = 2; i < 1_000; i++) {
+            underTest.put("other-" + i, new Book("other-" + i, "title", "another author", 2024, 1));
+        }
+
+        assertThat(underTest.indexedAuthors(), is(0));
+    }
+
+    @Test
+    void putAuthor_IndexesAtMostMaximumSizeAuthors() {
+        BoundedBookCache underTest = cache(10, 0, null, null);
+
+        for (int i = 0; i < 1_000; i++) {
+            underTest.putAuthor("author-" + i, List.of(), underTest.authorStamp("author-" + i));
+        }
+
+        assertThat(underTest.indexedAuthors(), lessThanOrEqualTo(10));
+        assertThat(underTest.getByAuthor("author-999"), is(List.of()));
+    }
+
+    @Test
+    void getByAuthor_ReturnsNullOnceABookOfTheAuthorExpires() {
+        BoundedBookCache underTest = cache(10, 0, Duration.ofMinutes(1), null);
+        underTest.putAuthor("author", List.of(book(0)), underTest.authorStamp("author"));
+
+        ticker.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertThat(underTest.getByAuthor("author"), nullValue());
+    }
+
+    @Test
+    void putIfAbsent_KeepsCachedBook() {
+        BoundedBookCache underTest = cache(10, 0, null, null);
+        underTest.put(book.isbn(), book);
+
+        assertThat(underTest.putIfAbsent(book.isbn(), new Book("isbn", "title", "author", 2024, 0)), is(book));
+        assertThat(underTest.get(book.isbn()), is(book));
+    }
+
+    @Test
+    void putIfNewer_KeepsNewerVersion() {
+        BoundedBookCache underTest = cache(10, 0, null, null);
+        Book borrowed = new Book("isbn", "title", "author", 2024, 0);
+        underTest.putIfNewer(borrowed.isbn(), borrowed, 2);
+
+        assertThat(underTest.putIfNewer(book.isbn(), book, 1), is(false));
+        assertThat(underTest.get(book.isbn()), is(borrowed));
+        assertThat(underTest.size(), is(1L));
+    }
+
+    @Test
+    void putIfNewer_ReplacesOlderOrExpiredVersion() {
+        BoundedBookCache underTest = cache(10, 0, Duration.ofMinutes(1), null);
+        Book borrowed = new Book("isbn", "title", "author", 2024, 0);
+        underTest.putIfNewer(book.isbn(), book, 1);
+
+        assertThat(underTest.putIfNewer(borrowed.isbn(), borrowed, 2), is(true));
+        assertThat(underTest.get(book.isbn()), is(borrowed));
+
+        ticker.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertThat(underTest.putIfNewer(book.isbn(), book, 1), is(true));
+        assertThat(underTest.get(book.isbn()), is(book));
+        assertThat(underTest.weightedSize(), is((long) BoundedBookCache.estimateWeight(book)));
+    }
+
+    @Test
+    void constructor_RejectsNonPositiveMaximumSize() {
+        assertThrows(IllegalArgumentException.class, () ->
+            cache(0, 0, null, null), "IllegalArgumentException error was expected");
+    }
+
+    private BoundedBookCache cache(long maximumSize, long maximumWeight, Duration expireAfterWrite, Duration expireAfterAccess) {
+        return new BoundedBookCache(
+            maximumSize, maximumWeight, expireAfterWrite, expireAfterAccess, BoundedBookCache::estimateWeight, ticker::get);
+    }
+
+    private static Book book(int i) {
+        return new Book("isbn-" + i, "title-" + i, "author", 2024, 1);
+    }
+
+    private static final class ZipfianGenerator {
+        private final double[] cumulativeProbabilities;
+        private final Random random;
+
+        private ZipfianGenerator(int size, double exponent, Random random) {
+            this.random = random;
+            this.cumulativeProbabilities = new double[size];
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cumulativeProbabilities[i] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulativeProbabilities[i] /= sum;
+            }
+        }
+
+        private int next() {
+            int index = Arrays.binarySearch(cumulativeProbabilities, random.nextDouble());
+            return index >= 0 ? index : Math.min(-index - 1, cumulativeProbabilities.length - 1);
+        }
+    }
+}
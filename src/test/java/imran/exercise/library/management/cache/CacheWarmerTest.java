@@ -0,0 +1,142 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class CacheWarmerTest {
+
+    private static final List<Book> books = IntStream.range(0, 10)
+        .mapToObj(i -> new Book("isbn-" + i, "title-" + i, "author", 2024, 1))
+        .toList();
+
+    private final LibraryRepository libraryRepository = mock(LibraryRepository.class);
+    private final BookCache cache = new SimpleNoExpiryCache();
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void run_LoadsAllBooksIntoCacheBeforeReturning() throws Exception {
+        givenRepositoryPages();
+        CacheWarmer underTest = cacheWarmer(new BookCacheProperties.Warmup(true, 3, 2, 0, true, Duration.ofMinutes(1)));
+
+        underTest.run(new DefaultApplicationArguments());
+
+        assertThat(underTest.isComplete(), is(true));
+        assertThat(underTest.loadedBooks(), is(10L));
+        assertThat(underTest.loadedPages(), is(4L));
+        assertThat(cache.size(), is(10L));
+        assertThat(cache.get("isbn-7"), is(new Book("isbn-7", "title-7", "author", 2024, 1)));
+        assertThat(registry.get("library.cache.warmup.books").functionCounter().count(), is(10.0));
+        assertThat(registry.get("library.cache.warmup.pages").functionCounter().count(), is(4.0));
+        assertThat(registry.get("library.cache.warmup.state").tag("state", "complete").gauge().value(), is(1.0));
+        assertThat(registry.get("library.cache.warmup.state").tag("state", "failed").gauge().value(), is(0.0));
+    }
+
+    @Test
+    void run_ReportsFailedWarmUp() throws Exception {
+        when(libraryRepository.findIsbnsAfter(any(), any()))
+            .thenReturn(List.of("isbn-0", "isbn-1", "isbn-2"))
+            .thenThrow(new IllegalStateException("database unavailable"));
+        CacheWarmer underTest = cacheWarmer(new BookCacheProperties.Warmup(true, 3, 2, 0, true, Duration.ofMinutes(1)));
+
+        underTest.run(new DefaultApplicationArguments());
+
+        assertThat(underTest.isComplete(), is(false));
+        assertThat(underTest.isFailed(), is(true));
+        assertThat(registry.get("library.cache.warmup.state").tag("state", "complete").gauge().value(), is(0.0));
+        assertThat(registry.get("library.cache.warmup.state").tag("state", "failed").gauge().value(), is(1.0));
+    }
+
+    @Test
+    void run_ReportsFailedWarmUpWhenPageCannotBeCached() throws Exception {
+        when(libraryRepository.findIsbnsAfter(any(), any())).thenReturn(List.of("isbn-0"));
+        when(libraryRepository.findVersionedBooks(any())).thenThrow(new IllegalStateException("database unavailable"));
+        CacheWarmer underTest = cacheWarmer(new BookCacheProperties.Warmup(true, 3, 2, 0, true, Duration.ofMinutes(1)));
+
+        underTest.run(new DefaultApplicationArguments());
+
+        assertThat(underTest.isComplete(), is(false));
+        assertThat(underTest.isFailed(), is(true));
+    }
+
+    @Test
+    void run_LoadsUpToMaximumEntries() throws Exception {
+        givenRepositoryPages();
+        CacheWarmer underTest = cacheWarmer(new BookCacheProperties.Warmup(true, 3, 2, 5, true, Duration.ofMinutes(1)));
+
+        underTest.run(new DefaultApplicationArguments());
+
+        assertThat(underTest.loadedBooks(), is(5L));
+        assertThat(cache.size(), is(5L));
+    }
+
+    @Test
+    void run_DoesNotCacheBookRemovedWhileItsPageIsRead() throws Exception {
+        givenRepositoryPages();
+        doAnswer(invocation -> {
+            Collection<String> isbns = invocation.getArgument(0);
+            if (isbns.contains("isbn-4")) {
+                cache.remove("isbn-4");
+            }
+            return versionedBooks(isbns);
+        }).when(libraryRepository).findVersionedBooks(any());
+        CacheWarmer underTest = cacheWarmer(new BookCacheProperties.Warmup(true, 3, 1, 0, true, Duration.ofMinutes(1)));
+
+        underTest.run(new DefaultApplicationArguments());
+
+        assertThat(underTest.isComplete(), is(true));
+        assertThat(cache.size(), is(9L));
+        assertThat(cache.get("isbn-4"), is((Book) null));
+    }
+
+    @Test
+    void run_DoesNothingWhenDisabled() throws Exception {
+        CacheWarmer underTest = cacheWarmer(new BookCacheProperties.Warmup(false, 3, 2, 0, true, Duration.ofMinutes(1)));
+
+        underTest.run(new DefaultApplicationArguments());
+
+        assertThat(underTest.isComplete(), is(false));
+        verifyNoInteractions(libraryRepository);
+    }
+
+    private void givenRepositoryPages() {
+        when(libraryRepository.findIsbnsAfter(any(), any())).thenAnswer(invocation -> {
+            String lastIsbn = invocation.getArgument(0);
+            Limit limit = invocation.getArgument(1);
+            return books.stream()
+                .map(Book::isbn)
+                .filter(isbn -> isbn.compareTo(lastIsbn) > 0)
+                .limit(limit.max())
+                .toList();
+        });
+        when(libraryRepository.findVersionedBooks(any()))
+            .thenAnswer(invocation -> versionedBooks(invocation.getArgument(0)));
+    }
+
+    private static List<VersionedBook> versionedBooks(Collection<String> isbns) {
+        return books.stream().filter(book -> isbns.contains(book.isbn())).map(book -> new VersionedBook(book, 0)).toList();
+    }
+
+    private CacheWarmer cacheWarmer(BookCacheProperties.Warmup warmup) {
+        BookCacheProperties properties = new BookCacheProperties(BookCacheProperties.Type.SIMPLE, 100, 0, null, null, warmup, null);
+        return new CacheWarmer(cache, libraryRepository, properties, registry);
+    }
+}
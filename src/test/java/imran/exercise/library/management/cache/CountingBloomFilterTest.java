@@ -0,0 +1,78 @@
+package imran.exercise.library.management.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+class CountingBloomFilterTest {
+
+    @Test
+    void mightContain_IsTrueForEveryAddedKey() {
+        CountingBloomFilter underTest = new CountingBloomFilter(10_000, 0.01);
+
+        for (int i = 0; i < 10_000; i++) {
+            underTest.add("isbn-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(underTest.mightContain("isbn-" + i), is(true));
+        }
+    }
+
+    @Test
+    void mightContain_HasFalsePositiveRateCloseToConfiguredProbability() {
+        CountingBloomFilter underTest = new CountingBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            underTest.add("isbn-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (underTest.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives, lessThan(2_000));
+    }
+
+    @Test
+    void remove_RemovesKeyButKeepsOtherKeys() {
+        CountingBloomFilter underTest = new CountingBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            underTest.add("isbn-" + i);
+        }
+
+        underTest.remove("isbn-7");
+
+        assertThat(underTest.mightContain("isbn-7"), is(false));
+        for (int i = 0; i < 1_000; i++) {
+            if (i != 7) {
+                assertThat(underTest.mightContain("isbn-" + i), is(true));
+            }
+        }
+    }
+
+    @Test
+    void remove_KeepsKeyAddedTwice() {
+        CountingBloomFilter underTest = new CountingBloomFilter(1_000, 0.01);
+        underTest.add("isbn");
+        underTest.add("isbn");
+
+        underTest.remove("isbn");
+
+        assertThat(underTest.mightContain("isbn"), is(true));
+    }
+
+    @Test
+    void clear_RemovesAllKeys() {
+        CountingBloomFilter underTest = new CountingBloomFilter(1_000, 0.01);
+        underTest.add("isbn");
+
+        underTest.clear();
+
+        assertThat(underTest.mightContain("isbn"), is(false));
+    }
+}
@@ -0,0 +1,48 @@
+package imran.exercise.library.management.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+class FrequencySketchTest {
+
+    @Test
+    void frequency_IsZeroForUnknownKey() {
+        FrequencySketch underTest = new FrequencySketch(512);
+
+        assertThat(underTest.frequency("isbn"), is(0));
+    }
+
+    @Test
+    void increment_IncreasesFrequencyUpToFifteen() {
+        FrequencySketch underTest = new FrequencySketch(512);
+
+        for (int i = 0; i < 5; i++) {
+            underTest.increment("isbn");
+        }
+        assertThat(underTest.frequency("isbn"), is(5));
+
+        for (int i = 0; i < 20; i++) {
+            underTest.increment("isbn");
+        }
+        assertThat(underTest.frequency("isbn"), is(15));
+    }
+
+    @Test
+    void increment_HalvesFrequenciesWhenSampleSizeIsReached() {
+        FrequencySketch underTest = new FrequencySketch(16);
+        for (int i = 0; i < 10; i++) {
+            underTest.increment("hot");
+        }
+
+        for (int i = 0; i < 200; i++) {
+            underTest.increment("key-" + i);
+        }
+
+        assertThat(underTest.frequency("hot"), lessThan(10));
+        assertThat(underTest.frequency("hot"), greaterThan(0));
+    }
+}
@@ -0,0 +1,138 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.dto.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OffHeapBookCacheTest {
+
+    private static final String author = "author";
+    private static final Book book1 = new Book("9780000000001", "title-1", author, 2024, 1);
+    private static final Book book2 = new Book("9780000000002", "title-2", author, 2024, 1);
+
+    private final OffHeapBookCache underTest = new OffHeapBookCache();
+
+    @Test
+    void get_MaterializesCachedBook() {
+        Book leadingZero = new Book("0000000000042", "Éléments", "Gödel", 1931, 0);
+        Book notIsbn13 = new Book("isbn-1", "title", "author", 2024, 3);
+        Book nulls = new Book("9780000000003", null, null, null, null);
+
+        underTest.put(leadingZero.isbn(), leadingZero);
+        underTest.put(notIsbn13.isbn(), notIsbn13);
+        underTest.put(nulls.isbn(), nulls);
+
+        assertThat(underTest.get(leadingZero.isbn()), is(leadingZero));
+        assertThat(underTest.get(notIsbn13.isbn()), is(notIsbn13));
+        assertThat(underTest.get(nulls.isbn()), is(nulls));
+        assertThat(underTest.get("isbn-2"), nullValue());
+        assertThat(underTest.get("42"), nullValue());
+    }
+
+    @Test
+    void put_ReplacesBookAndReturnsPrevious() {
+        Book borrowed = new Book(book1.isbn(), book1.title(), author, 2024, 0);
+        underTest.put(book1.isbn(), book1);
+
+        assertThat(underTest.put(borrowed.isbn(), borrowed), is(book1));
+        assertThat(underTest.get(book1.isbn()), is(borrowed));
+        assertThat(underTest.size(), is(1L));
+    }
+
+    @Test
+    void put_RejectsBookUnderAnotherIsbn() {
+        assertThrows(IllegalArgumentException.class, () -> underTest.put(book2.isbn(), book1));
+    }
+
+    @Test
+    void putIfAbsent_KeepsCachedBook() {
+        underTest.put(book1.isbn(), book1);
+
+        assertThat(underTest.putIfAbsent(book1.isbn(), new Book(book1.isbn(), "another title", author, 2024, 1)), is(book1));
+        assertThat(underTest.putIfAbsent(book2.isbn(), book2), nullValue());
+        assertThat(underTest.get(book1.isbn()), is(book1));
+    }
+
+    @Test
+    void putIfNewer_KeepsSameOrNewerVersion() {
+        Book stale = new Book(book1.isbn(), book1.title(), author, 2024, 5);
+        underTest.putIfNewer(book1.isbn(), book1, 2);
+
+        assertThat(underTest.putIfNewer(stale.isbn(), stale, 1), is(false));
+        assertThat(underTest.putIfNewer(stale.isbn(), stale, 2), is(false));
+        assertThat(underTest.putIfNewer(stale.isbn(), stale, 3), is(true));
+        assertThat(underTest.get(book1.isbn()), is(stale));
+    }
+
+    @Test
+    void remove_OnlyRemovesEqualBook() {
+        underTest.put(book1.isbn(), book1);
+
+        assertThat(underTest.remove(book1.isbn(), book2), is(false));
+        assertThat(underTest.remove(book1.isbn(), book1), is(true));
+        assertThat(underTest.remove(book1.isbn()), nullValue());
+        assertThat(underTest.size(), is(0L));
+    }
+
+    @Test
+    void getByAuthor_ReturnsAllBooksOfCachedAuthor() {
+        underTest.putAuthor(author, List.of(book2, book1), underTest.authorStamp(author));
+
+        assertThat(underTest.getByAuthor(author), contains(book1, book2));
+
+        underTest.remove(book1.isbn());
+
+        assertThat(underTest.getByAuthor(author), nullValue());
+    }
+
+    @Test
+    void put_KeepsBooksAcrossGrowthAndCompaction() {
+        List<Book> books = IntStream.range(0, 20_000)
+            .mapToObj(i -> new Book("978%010d".formatted(i), "title-" + i, "author-" + i % 100, 2000 + i % 25, i % 3))
+            .toList();
+        for (int round = 0; round < 3; round++) {
+            books.forEach(book -> underTest.put(book.isbn(), book));
+        }
+        books.stream().filter(book -> book.availableCopies() == 0).forEach(book -> underTest.remove(book.isbn()));
+
+        List<Book> remaining = books.stream().filter(book -> book.availableCopies() > 0).toList();
+        assertThat(underTest.size(), is((long) remaining.size()));
+        assertThat(underTest.getAll(), containsInAnyOrder(remaining.toArray()));
+        assertThat(underTest.get(books.get(12_346).isbn()), is(books.get(12_346)));
+        assertThat(underTest.offHeapBytes(), greaterThan(0L));
+        assertThat(underTest.offHeapBytes(), lessThan(remaining.size() * 200L));
+    }
+
+    @Test
+    void clear_RemovesAllBooks() {
+        underTest.put(book1.isbn(), book1);
+        underTest.putAuthor(author, List.of(book1), underTest.authorStamp(author));
+
+        underTest.clear();
+
+        assertThat(underTest.size(), is(0L));
+        assertThat(underTest.get(book1.isbn()), nullValue());
+        assertThat(underTest.getByAuthor(author), nullValue());
+    }
+
+    @Test
+    void get_CountsHitsAndMisses() {
+        underTest.put(book1.isbn(), book1);
+
+        underTest.get(book1.isbn());
+        underTest.get(book2.isbn());
+
+        assertThat(underTest.stats(), is(new CacheStats(1, 1, 0)));
+    }
+}
@@ -0,0 +1,148 @@
+package imran.exercise.library.management.cache;
+
+import imran.exercise.library.management.dto.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+class SimpleNoExpiryCacheTest {
+
+    private static final String author = "author";
+    private static final Book book1 = new Book("isbn-1", "title-1", author, 2024, 1);
+    private static final Book book2 = new Book("isbn-2", "title-2", author, 2024, 1);
+    private static final Book book3 = new Book("isbn-3", "title-3", author, 2024, 1);
+
+    private final SimpleNoExpiryCache underTest = new SimpleNoExpiryCache();
+
+    @Test
+    void getByAuthor_ReturnsNullForAuthorNotCached() {
+        underTest.put(book1.isbn(), book1);
+
+        assertThat(underTest.getByAuthor(author), nullValue());
+    }
+
+    @Test
+    void getByAuthor_ReturnsAllBooksOfCachedAuthor() {
+        assertThat(underTest.putAuthor(author, List.of(book2, book1), underTest.authorStamp(author)), is(true));
+
+        assertThat(underTest.getByAuthor(author), contains(book1, book2));
+        assertThat(underTest.get(book1.isbn()), is(book1));
+        assertThat(underTest.getByAuthor("another author"), nullValue());
+    }
+
+    @Test
+    void getByAuthor_ReturnsEmptyListForAuthorWithoutBooks() {
+        underTest.putAuthor(author, List.of(), underTest.authorStamp(author));
+
+        assertThat(underTest.getByAuthor(author), is(List.of()));
+    }
+
+    @Test
+    void put_AddsBookToCachedAuthor() {
+        underTest.putAuthor(author, List.of(book1), underTest.authorStamp(author));
+
+        underTest.put(book2.isbn(), book2);
+
+        assertThat(underTest.getByAuthor(author), contains(book1, book2));
+    }
+
+    @Test
+    void put_MovesBookToItsNewAuthor() {
+        Book renamed = new Book(book1.isbn(), book1.title(), "another author", 2024, 1);
+        underTest.putAuthor(author, List.of(book1, book2), underTest.authorStamp(author));
+
+        underTest.put(renamed.isbn(), renamed);
+
+        assertThat(underTest.getByAuthor(author), nullValue());
+    }
+
+    @Test
+    void remove_MakesAuthorIncomplete() {
+        underTest.putAuthor(author, List.of(book1, book2), underTest.authorStamp(author));
+
+        underTest.remove(book1.isbn());
+
+        assertThat(underTest.getByAuthor(author), nullValue());
+    }
+
+    @Test
+    void putAuthor_IgnoresBooksLoadedBeforeAConcurrentChange() {
+        long stamp = underTest.authorStamp(author);
+        underTest.put(book3.isbn(), book3);
+
+        assertThat(underTest.putAuthor(author, List.of(book1, book2), stamp), is(false));
+        assertThat(underTest.getByAuthor(author), nullValue());
+        assertThat(underTest.get(book1.isbn()), nullValue());
+    }
+
+    @Test
+    void putAuthor_KeepsAlreadyCachedBooks() {
+        Book borrowed = new Book(book1.isbn(), book1.title(), author, 2024, 0);
+        underTest.put(borrowed.isbn(), borrowed);
+
+        underTest.putAuthor(author, List.of(book1, book2), underTest.authorStamp(author));
+
+        assertThat(underTest.getByAuthor(author), contains(borrowed, book2));
+    }
+
+    @Test
+    void putIfNewer_ReplacesOlderVersion() {
+        Book borrowed = new Book(book1.isbn(), book1.title(), author, 2024, 0);
+        underTest.putIfNewer(book1.isbn(), book1, 1);
+
+        assertThat(underTest.putIfNewer(borrowed.isbn(), borrowed, 2), is(true));
+        assertThat(underTest.get(book1.isbn()), is(borrowed));
+    }
+
+    @Test
+    void putIfNewer_KeepsSameOrNewerVersion() {
+        Book stale = new Book(book1.isbn(), book1.title(), author, 2024, 5);
+        underTest.putIfNewer(book1.isbn(), book1, 2);
+
+        assertThat(underTest.putIfNewer(stale.isbn(), stale, 1), is(false));
+        assertThat(underTest.putIfNewer(stale.isbn(), stale, 2), is(false));
+        assertThat(underTest.get(book1.isbn()), is(book1));
+    }
+
+    @Test
+    void putIfNewer_ReplacesUnversionedBook() {
+        Book borrowed = new Book(book1.isbn(), book1.title(), author, 2024, 0);
+        underTest.put(book1.isbn(), book1);
+
+        assertThat(underTest.putIfNewer(borrowed.isbn(), borrowed, 0), is(true));
+        assertThat(underTest.get(book1.isbn()), is(borrowed));
+    }
+
+    @Test
+    void putIfNewer_IgnoresBookReadBeforeItWasRemoved() {
+        long removalStamp = underTest.removalStamp(book1.isbn());
+        underTest.remove(book1.isbn());
+
+        assertThat(underTest.putIfNewer(book1.isbn(), book1, 1, removalStamp), is(false));
+        assertThat(underTest.get(book1.isbn()), is(nullValue()));
+    }
+
+    @Test
+    void putIfNewer_CachesBookReadAfterItWasRemoved() {
+        underTest.remove(book1.isbn());
+        long removalStamp = underTest.removalStamp(book1.isbn());
+
+        assertThat(underTest.putIfNewer(book1.isbn(), book1, 1, removalStamp), is(true));
+        assertThat(underTest.get(book1.isbn()), is(book1));
+    }
+
+    @Test
+    void get_CountsHitsAndMisses() {
+        underTest.put(book1.isbn(), book1);
+
+        underTest.get(book1.isbn());
+        underTest.get(book2.isbn());
+
+        assertThat(underTest.stats(), is(new CacheStats(1, 1, 0)));
+    }
+}
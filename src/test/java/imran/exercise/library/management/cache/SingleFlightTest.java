@@ -0,0 +1,109 @@
+package imran.exercise.library.management.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    private static final int callers = 8;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> underTest = new SingleFlight<>("book", registry);
+
+    @Test
+    void load_RunsOneLoaderForConcurrentCallersOfSameKey() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loaderRuns = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> underTest.load("isbn", () -> {
+                    loaderRuns.incrementAndGet();
+                    awaitUninterruptibly(release);
+                    return "book";
+                })));
+            }
+            awaitCoalesced(callers - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS), is("book"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loaderRuns.get(), is(1));
+        assertThat(registry.get("library.cache.loads").tags("cache", "book", "result", "loaded").functionCounter().count(), is(1.0));
+        assertThat(registry.get("library.cache.loads").tags("cache", "book", "result", "coalesced").functionCounter().count(), is(7.0));
+    }
+
+    @Test
+    void load_RunsLoaderAgainOnceLoadCompleted() {
+        underTest.load("isbn", () -> "book");
+        underTest.load("isbn", () -> "book");
+
+        assertThat(underTest.loadedCount(), is(2L));
+        assertThat(underTest.coalescedCount(), is(0L));
+    }
+
+    @Test
+    void load_PassesLoaderExceptionToWaitingCallers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> underTest.load("isbn", () -> {
+                awaitUninterruptibly(release);
+                throw new IllegalStateException("database down");
+            }));
+            awaitLoaded(1);
+            Future<String> follower = executor.submit(() -> underTest.load("isbn", () -> "book"));
+            awaitCoalesced(1);
+            release.countDown();
+
+            Exception leaderException = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception followerException = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertThat(leaderException.getCause() instanceof IllegalStateException, is(true));
+            assertThat(followerException.getCause() instanceof IllegalStateException, is(true));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(underTest.load("isbn", () -> "book"), is("book"));
+    }
+
+    private void awaitLoaded(long count) throws InterruptedException {
+        while (underTest.loadedCount() < count) {
+            Thread.sleep(1);
+        }
+    }
+
+    private void awaitCoalesced(long count) throws InterruptedException {
+        while (underTest.coalescedCount() < count) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package imran.exercise.library.management.cluster;
+
+import imran.exercise.library.management.adapter.BookDtoToBookEntityAdapter;
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.cache.BookCacheProperties;
+import imran.exercise.library.management.cache.SimpleNoExpiryCache;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.hold.HoldProperties;
+import imran.exercise.library.management.hold.HoldQueue;
+import imran.exercise.library.management.ledger.LoanLedger;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import imran.exercise.library.management.retry.RetryPolicy;
+import imran.exercise.library.management.retry.RetryProperties;
+import imran.exercise.library.management.search.BookSearchIndex;
+import imran.exercise.library.management.service.LibraryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two instances sharing a mocked database and a loopback transport
+ */
+class CacheEventListenerTest {
+
+    private static final String isbn = "isbn";
+    private static final Book book = new Book(isbn, "title", "author", 2024, 2);
+    private static final Book borrowedBook = new Book(isbn, "title", "author", 2024, 1);
+
+    private final LibraryRepository libraryRepository = mock(LibraryRepository.class);
+    private final LoopbackCacheEventTransport transport = new LoopbackCacheEventTransport();
+
+    private Node node1;
+    private Node node2;
+
+    @BeforeEach
+    void setUp() {
+        node1 = new Node("node-1");
+        node2 = new Node("node-2");
+    }
+
+    @Test
+    void bookAdded_CachesBookOnOtherNodes() {
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.empty());
+        assertThrows(BookNotFoundException.class, () -> node2.library.findBookByISBN(isbn));
+        assertThat(node2.absentIsbnFilter.isAbsent(isbn), is(true));
+
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(new VersionedBook(book, 0)));
+        node1.library.addBook(book);
+
+        assertThat(node2.absentIsbnFilter.isAbsent(isbn), is(false));
+        assertThat(node2.cache.get(isbn), is(book));
+        assertThat(node2.searchIndex.size(), is(1));
+    }
+
+    @Test
+    void bookUpdated_UpdatesCachedBookOnOtherNodes() {
+        givenBookInDatabase();
+        node2.library.findBookByISBN(isbn);
+
+        when(libraryRepository.decrementAvailableCopies(isbn)).thenReturn(1);
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(new VersionedBook(borrowedBook, 1)));
+        node1.library.borrowBook(isbn);
+
+        assertThat(node1.cache.get(isbn), is(borrowedBook));
+        assertThat(node2.cache.get(isbn), is(borrowedBook));
+    }
+
+    @Test
+    void bookUpdated_WhenDatabaseReturnsOlderVersion_EvictsBookOnOtherNodes() {
+        givenBookInDatabase();
+        node2.library.findBookByISBN(isbn);
+
+        transport.publish(new CacheEvent("node-1", CacheEvent.Type.UPDATED, isbn, 1));
+
+        assertThat(node2.cache.get(isbn), is(nullValue()));
+    }
+
+    @Test
+    void bookUpdated_WhenBookIsNotCached_KeepsItUncachedOnOtherNodes() {
+        givenBookInDatabase();
+
+        when(libraryRepository.decrementAvailableCopies(isbn)).thenReturn(1);
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(new VersionedBook(borrowedBook, 1)));
+        node1.library.borrowBook(isbn);
+
+        assertThat(node2.cache.get(isbn), is(nullValue()));
+        assertThat(node2.library.findBookByISBN(isbn), is(borrowedBook));
+    }
+
+    @Test
+    void bookRemoved_RemovesBookOnOtherNodes() {
+        givenBookInDatabase();
+        node2.library.findBookByISBN(isbn);
+        node2.searchIndex.put(book);
+
+        when(libraryRepository.deleteBook(isbn)).thenReturn(1);
+        when(libraryRepository.findVersionedBook(any())).thenReturn(Optional.empty());
+        node1.library.removeBook(isbn);
+
+        assertThat(node2.cache.get(isbn), is(nullValue()));
+        assertThat(node2.searchIndex.size(), is(0));
+        assertThrows(BookNotFoundException.class, () -> node2.library.findBookByISBN(isbn));
+    }
+
+    @Test
+    void apply_IgnoresEventsOfOwnNode() {
+        node1.cache.put(isbn, book);
+
+        transport.publish(new CacheEvent("node-1", CacheEvent.Type.REMOVED, isbn, 0));
+
+        assertThat(node1.cache.get(isbn), is(book));
+    }
+
+    private void givenBookInDatabase() {
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(new VersionedBook(book, 0)));
+        node1.absentIsbnFilter.added(isbn);
+        node2.absentIsbnFilter.added(isbn);
+    }
+
+    private class Node {
+
+        final BookCache cache = new SimpleNoExpiryCache();
+        final BookSearchIndex searchIndex = new BookSearchIndex();
+        final AbsentIsbnFilter absentIsbnFilter =
+            new AbsentIsbnFilter(new BookCacheProperties.Negative(true, 1000, 0.01, Duration.ofSeconds(10), 1000));
+        final LibraryService library;
+
+        Node(String nodeId) {
+            CacheInvalidationBus bus = new CacheInvalidationBus(nodeId, transport);
+            new CacheEventListener(bus, cache, absentIsbnFilter, searchIndex, libraryRepository);
+            absentIsbnFilter.markLoaded();
+            library = new LibraryService(
+                cache,
+                libraryRepository,
+                new BookDtoToBookEntityAdapter(),
+                searchIndex,
+                new RetryPolicy(new RetryProperties(3, Duration.ZERO, Duration.ZERO), new SimpleMeterRegistry()),
+                TransactionOperations.withoutTransaction(),
+                absentIsbnFilter,
+                bus,
+                new LoanLedger(null, libraryRepository),
+                new HoldQueue(new HoldProperties(1000, Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofSeconds(30)), new SimpleMeterRegistry()),
+                new SimpleMeterRegistry());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package imran.exercise.library.management.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+class JdbcCacheEventTransportTest {
+
+    private static final Duration pollInterval = Duration.ofHours(1);
+
+    private final JdbcTemplate jdbcTemplate =
+        new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:cache-event;DB_CLOSE_DELAY=-1", "sa", ""));
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("create table cache_event (id bigint generated by default as identity primary key, " +
+            "node_id varchar(64) not null, type varchar(16) not null, isbn varchar(255) not null, " +
+            "version bigint not null, created_at timestamp not null)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table cache_event");
+    }
+
+    @Test
+    void poll_DeliversEventsPublishedByAnyInstanceInOrder() {
+        try (JdbcCacheEventTransport transport1 = new JdbcCacheEventTransport(jdbcTemplate, pollInterval, Duration.ofMinutes(1));
+             JdbcCacheEventTransport transport2 = new JdbcCacheEventTransport(jdbcTemplate, pollInterval, Duration.ofMinutes(1))) {
+            List<CacheEvent> received = new CopyOnWriteArrayList<>();
+            transport2.subscribe(received::add);
+            CacheEvent added = new CacheEvent("node-1", CacheEvent.Type.ADDED, "isbn-1", 0);
+            CacheEvent updated = new CacheEvent("node-2", CacheEvent.Type.UPDATED, "isbn-1", 3);
+
+            transport1.publish(added);
+            transport2.publish(updated);
+            transport2.poll();
+            transport2.poll();
+
+            assertThat(received, contains(added, updated));
+        }
+    }
+
+    @Test
+    void poll_SkipsEventsPublishedBeforeInstanceStarted() {
+        try (JdbcCacheEventTransport transport1 = new JdbcCacheEventTransport(jdbcTemplate, pollInterval, Duration.ofMinutes(1))) {
+            transport1.publish(new CacheEvent("node-1", CacheEvent.Type.REMOVED, "isbn-1", 0));
+
+            try (JdbcCacheEventTransport transport2 = new JdbcCacheEventTransport(jdbcTemplate, pollInterval, Duration.ofMinutes(1))) {
+                List<CacheEvent> received = new CopyOnWriteArrayList<>();
+                transport2.subscribe(received::add);
+                transport2.poll();
+
+                assertThat(received, is(empty()));
+            }
+        }
+    }
+
+    @Test
+    void poll_DeliversEventCommittedAfterALargerId_Once() {
+        try (JdbcCacheEventTransport transport = new JdbcCacheEventTransport(jdbcTemplate, pollInterval, Duration.ofMinutes(1), 10)) {
+            List<CacheEvent> received = new CopyOnWriteArrayList<>();
+            transport.subscribe(received::add);
+            insertEvent(5, "isbn-5");
+            transport.poll();
+
+            insertEvent(3, "isbn-3");
+            transport.poll();
+            transport.poll();
+
+            assertThat(received.stream().map(CacheEvent::isbn).toList(), contains("isbn-5", "isbn-3"));
+        }
+    }
+
+    @Test
+    void publish_InRolledBackTransaction_IsNotDelivered() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        try (JdbcCacheEventTransport transport = new JdbcCacheEventTransport(jdbcTemplate, pollInterval, Duration.ofMinutes(1))) {
+            List<CacheEvent> received = new CopyOnWriteArrayList<>();
+            transport.subscribe(received::add);
+            CacheEvent committed = new CacheEvent("node-1", CacheEvent.Type.UPDATED, "isbn-1", 1);
+
+            transactionTemplate.executeWithoutResult(status -> {
+                transport.publish(new CacheEvent("node-1", CacheEvent.Type.UPDATED, "isbn-2", 1));
+                status.setRollbackOnly();
+            });
+            transactionTemplate.executeWithoutResult(status -> transport.publish(committed));
+            transport.poll();
+
+            assertThat(received, contains(committed));
+        }
+    }
+
+    @Test
+    void poll_DeliversEventsAfterReadingThem() {
+        try (JdbcCacheEventTransport transport = new JdbcCacheEventTransport(jdbcTemplate, pollInterval, Duration.ofMinutes(1))) {
+            List<Integer> eventCounts = new CopyOnWriteArrayList<>();
+            transport.subscribe(event -> {
+                jdbcTemplate.update("delete from cache_event where isbn = ?", event.isbn());
+                eventCounts.add(jdbcTemplate.queryForObject("select count(*) from cache_event", Integer.class));
+            });
+            insertEvent(1, "isbn-1");
+            insertEvent(2, "isbn-2");
+
+            transport.poll();
+
+            assertThat(eventCounts, contains(1, 0));
+        }
+    }
+
+    @Test
+    void poll_DeletesEventsOlderThanRetention() throws InterruptedException {
+        try (JdbcCacheEventTransport transport = new JdbcCacheEventTransport(jdbcTemplate, pollInterval, Duration.ofMillis(10))) {
+            transport.publish(new CacheEvent("node-1", CacheEvent.Type.REMOVED, "isbn-1", 0));
+            Thread.sleep(20);
+
+            transport.poll();
+
+            assertThat(jdbcTemplate.queryForObject("select count(*) from cache_event", Integer.class), is(0));
+        }
+    }
+
+    private void insertEvent(long id, String isbn) {
+        jdbcTemplate.update("insert into cache_event (id, node_id, type, isbn, version, created_at) " +
+            "values (?, 'node-1', 'UPDATED', ?, 0, current_timestamp)", id, isbn);
+    }
+}
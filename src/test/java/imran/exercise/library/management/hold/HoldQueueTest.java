@@ -0,0 +1,89 @@
+package imran.exercise.library.management.hold;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookHold;
+import imran.exercise.library.management.exception.BookUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HoldQueueTest {
+
+    private static final String isbn = "isbn-1";
+    private static final Book book = new Book(isbn, "title", "author", 2024, 0);
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final HoldQueue underTest = new HoldQueue(
+        new HoldProperties(2, Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofSeconds(30)), registry, ticker::get);
+
+    @Test
+    void fulfilNext_HandsCopiesToHoldsInOrder() {
+        Hold first = underTest.enqueue(isbn);
+        Hold second = underTest.enqueue(isbn);
+
+        assertThat(underTest.position(first), is(1));
+        assertThat(underTest.position(second), is(2));
+        assertThat(underTest.fulfilNext(isbn, book), is(true));
+
+        assertThat(first.status(), is(BookHold.Status.FULFILLED));
+        assertThat(first.book(), is(book));
+        assertThat(first.completion().isDone(), is(true));
+        assertThat(underTest.position(second), is(1));
+        assertThat(second.completion().isDone(), is(false));
+    }
+
+    @Test
+    void fulfilNext_SkipsCancelledAndExpiredHolds() {
+        Hold expired = underTest.enqueue(isbn);
+        ticker.addAndGet(Duration.ofMinutes(2).toNanos());
+        Hold cancelled = underTest.enqueue(isbn);
+        underTest.cancel(cancelled);
+
+        assertThat(underTest.fulfilNext(isbn, book), is(false));
+
+        assertThat(expired.status(), is(BookHold.Status.EXPIRED));
+        assertThat(cancelled.status(), is(BookHold.Status.CANCELLED));
+        assertThat(underTest.hasWaiting(isbn), is(false));
+        assertThat(registry.get("library.holds").tag("result", "expired").counter().count(), is(1.0));
+    }
+
+    @Test
+    void enqueue_RejectsHoldWhenQueueIsFull() {
+        underTest.enqueue(isbn);
+        underTest.enqueue(isbn);
+
+        assertThrows(BookUnavailableException.class, () -> underTest.enqueue(isbn));
+        assertThat(underTest.waiting(), is(2L));
+    }
+
+    @Test
+    void cancelAll_CancelsAllHoldsOfBook() {
+        Hold hold = underTest.enqueue(isbn);
+
+        underTest.cancelAll(isbn);
+
+        assertThat(hold.status(), is(BookHold.Status.CANCELLED));
+        assertThat(underTest.hasWaiting(isbn), is(false));
+    }
+
+    @Test
+    void find_ForgetsCompletedHoldsAfterRetention() {
+        Hold hold = underTest.fulfilled(isbn, book);
+        ticker.addAndGet(Duration.ofMinutes(4).toNanos());
+
+        assertThat(underTest.find(hold.id()), is(hold));
+
+        ticker.addAndGet(Duration.ofMinutes(2).toNanos());
+
+        assertThat(underTest.find(hold.id()), nullValue());
+    }
+}
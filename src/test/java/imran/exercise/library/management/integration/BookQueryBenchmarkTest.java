@@ -0,0 +1,88 @@
+package imran.exercise.library.management.integration;
+
+import imran.exercise.library.management.adapter.BookEntityToBookDtoAdapter;
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Example;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest
+@Tag("benchmark")
+public class BookQueryBenchmarkTest {
+
+    private static final int rows = 1_000_000;
+    private static final int authors = 10_000;
+    private static final int batchSize = 10_000;
+
+    @Autowired
+    private LibraryRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookEntityToBookDtoAdapter toBookDtoAdapter;
+
+    @Test
+    void findBooksByAuthor_At1MillionRows() {
+        insertBooks();
+        try {
+            measure("query by example, entities", 200, author ->
+                toBookDtoAdapter.adapt(repository.findAll(Example.of(new BookEntity(null, null, author, null, null)))));
+            measure("indexed query, DTO projection", 2_000, repository::findBooksByAuthor);
+
+            jdbcTemplate.execute("drop index book_entity_author_isbn_idx");
+            try {
+                measure("table scan, DTO projection", 20, repository::findBooksByAuthor);
+            } finally {
+                jdbcTemplate.execute("create index book_entity_author_isbn_idx on book_entity (author, isbn)");
+            }
+        } finally {
+            jdbcTemplate.update("delete from book_entity where isbn like 'bench-%'");
+        }
+    }
+
+    private void measure(String name, int queries, Function<String, List<Book>> findBooksByAuthor) {
+        for (int i = 0; i < queries / 10; i++) {
+            findBooksByAuthor.apply(author(i));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            assertThat(findBooksByAuthor.apply(author(i * 7919)).size(), is(rows / authors));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%s at %d rows: %d queries in %d ms (%.1f us/query)%n",
+            name, rows, queries, TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed / 1e3 / queries);
+    }
+
+    private void insertBooks() {
+        for (int from = 0; from < rows; from += batchSize) {
+            List<Object[]> batch = new ArrayList<>(batchSize);
+            for (int i = from; i < from + batchSize; i++) {
+                batch.add(new Object[]{"bench-%07d".formatted(i), "Title " + i, author(i), 1900 + i % 125, 1});
+            }
+            jdbcTemplate.batchUpdate(
+                "insert into book_entity (isbn, title, author, publication_year, available_copies, version) values (?, ?, ?, ?, ?, 0)",
+                batch);
+        }
+    }
+
+    private static String author(int i) {
+        return "Author " + i % authors;
+    }
+}
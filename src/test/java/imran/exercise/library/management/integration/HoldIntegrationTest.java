@@ -0,0 +1,133 @@
+package imran.exercise.library.management.integration;
+
+import com.jayway.jsonpath.JsonPath;
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.hold.HoldQueue;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class HoldIntegrationTest {
+
+    private static final String isbn = "isbn-hold";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LibraryRepository repository;
+
+    @Autowired
+    private BookCache cache;
+
+    @Autowired
+    private AbsentIsbnFilter absentIsbnFilter;
+
+    @Autowired
+    private HoldQueue holdQueue;
+
+    @BeforeEach
+    void setUp() {
+        holdQueue.cancelAll(isbn);
+        cache.clear();
+        absentIsbnFilter.clear();
+        repository.deleteAll();
+        repository.save(new BookEntity(isbn, "Title", "Author", 2024, 1));
+    }
+
+    @Test
+    void placeHold_BorrowsAvailableCopy() throws Exception {
+        mockMvc.perform(post("/api/books/hold/" + isbn))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status", is("FULFILLED")))
+            .andExpect(jsonPath("$.book.availableCopies", is(0)));
+    }
+
+    @Test
+    void returnBook_HandsCopyToLongPollingHold() throws Exception {
+        mockMvc.perform(put("/api/books/borrow/" + isbn)).andExpect(status().isOk());
+        String id = placeWaitingHold();
+
+        MvcResult longPoll = mockMvc.perform(get("/api/books/holds/" + id + "?wait=true"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(put("/api/books/return/" + isbn))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.availableCopies", is(0)));
+
+        mockMvc.perform(asyncDispatch(longPoll))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status", is("FULFILLED")))
+            .andExpect(jsonPath("$.book.isbn", is(isbn)));
+        assertThat(repository.findById(isbn).orElseThrow().availableCopies(), is(0));
+    }
+
+    @Test
+    void returnBook_NotifiesHoldEventStream() throws Exception {
+        mockMvc.perform(put("/api/books/borrow/" + isbn)).andExpect(status().isOk());
+        String id = placeWaitingHold();
+
+        MvcResult events = mockMvc.perform(get("/api/books/holds/" + id + "/events"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        mockMvc.perform(put("/api/books/return/" + isbn)).andExpect(status().isOk());
+
+        mockMvc.perform(asyncDispatch(events))
+            .andExpect(content().string(containsString("event:waiting")))
+            .andExpect(content().string(containsString("event:fulfilled")));
+    }
+
+    @Test
+    void cancelHold_LeavesReturnedCopyAvailable() throws Exception {
+        mockMvc.perform(put("/api/books/borrow/" + isbn)).andExpect(status().isOk());
+        String id = placeWaitingHold();
+
+        mockMvc.perform(delete("/api/books/holds/" + id))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status", is("CANCELLED")))
+            .andExpect(jsonPath("$.book", nullValue()));
+        mockMvc.perform(put("/api/books/return/" + isbn))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.availableCopies", is(1)));
+    }
+
+    @Test
+    void getHold_ReturnsNotFoundForUnknownHold() throws Exception {
+        mockMvc.perform(get("/api/books/holds/unknown"))
+            .andExpect(status().isNotFound());
+    }
+
+    private String placeWaitingHold() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/books/hold/" + isbn))
+            .andExpect(status().isAccepted())
+            .andExpect(header().exists("Location"))
+            .andExpect(jsonPath("$.status", is("WAITING")))
+            .andExpect(jsonPath("$.position", is(1)))
+            .andReturn();
+        return JsonPath.read(result.getResponse().getContentAsString(), "$.id");
+    }
+}
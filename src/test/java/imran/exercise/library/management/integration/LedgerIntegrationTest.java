@@ -0,0 +1,108 @@
+package imran.exercise.library.management.integration;
+
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.ledger.LoanLedger;
+import imran.exercise.library.management.ledger.LoanProjector;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class LedgerIntegrationTest {
+
+    @TempDir
+    static Path ledgerDir;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LibraryRepository repository;
+
+    @Autowired
+    private LoanLedger ledger;
+
+    @Autowired
+    private LoanProjector projector;
+
+    @Autowired
+    private BookCache cache;
+
+    @Autowired
+    private AbsentIsbnFilter absentIsbnFilter;
+
+    @DynamicPropertySource
+    static void ledger(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:ledger");
+        registry.add("library.ledger.enabled", () -> "true");
+        registry.add("library.ledger.directory", () -> ledgerDir.toString());
+        registry.add("library.ledger.projection-interval", () -> "1h");
+    }
+
+    @BeforeEach
+    void setUp() {
+        ledger.forget("isbn-1");
+        projector.project();
+        cache.clear();
+        absentIsbnFilter.clear();
+        repository.deleteAll();
+        repository.save(new BookEntity("isbn-1", "Title 1", "Author 1", 2020, 2));
+    }
+
+    @Test
+    void borrowBook_AppendsToJournal_AndProjectorUpdatesDatabase() throws Exception {
+        mockMvc.perform(put("/api/books/borrow/isbn-1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.availableCopies", is(1)));
+        mockMvc.perform(put("/api/books/borrow/isbn-1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.availableCopies", is(0)));
+        mockMvc.perform(put("/api/books/borrow/isbn-1"))
+            .andExpect(status().isBadRequest());
+
+        assertThat(repository.findById("isbn-1").orElseThrow().availableCopies(), is(2));
+        assertThat(Files.size(ledgerDir.resolve("loans.journal.0")) > 0, is(true));
+        cache.clear();
+        mockMvc.perform(get("/api/books/isbn-1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.availableCopies", is(0)));
+
+        assertThat(projector.project(), is(2));
+        assertThat(repository.findById("isbn-1").orElseThrow().availableCopies(), is(0));
+        assertThat(repository.findById("isbn-1").orElseThrow().version(), is(2L));
+    }
+
+    @Test
+    void batchReturnBooks_ReturnsEachCopyThroughLedger() throws Exception {
+        mockMvc.perform(put("/api/books/batch/return")
+                .contentType("application/json")
+                .content("[\"isbn-1\", \"isbn-9\", \"isbn-1\"]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].book.availableCopies", is(3)))
+            .andExpect(jsonPath("$[1].status", is("NOT_FOUND")))
+            .andExpect(jsonPath("$[2].book.availableCopies", is(4)));
+
+        projector.project();
+        assertThat(repository.findById("isbn-1").orElseThrow().availableCopies(), is(4));
+    }
+}
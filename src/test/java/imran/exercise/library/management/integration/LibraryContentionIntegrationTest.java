@@ -0,0 +1,121 @@
+package imran.exercise.library.management.integration;
+
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.exception.BookUnavailableException;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.service.Library;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+public class LibraryContentionIntegrationTest {
+
+    private static final int threads = 64;
+    private static final String isbn = "isbn-contended";
+
+    @Autowired
+    private Library library;
+
+    @Autowired
+    private LibraryRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteById(isbn);
+    }
+
+    @Test
+    void borrowBook_FromManyThreads_NeverOversells() throws Exception {
+        repository.save(new BookEntity(isbn, "Title", "Author", 2024, 500));
+        AtomicInteger borrowed = new AtomicInteger();
+        AtomicInteger unavailable = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 20; i++) {
+                try {
+                    library.borrowBook(isbn);
+                    borrowed.incrementAndGet();
+                } catch (BookUnavailableException e) {
+                    unavailable.incrementAndGet();
+                }
+            }
+        });
+
+        assertThat(borrowed.get(), is(500));
+        assertThat(unavailable.get(), is(threads * 20 - 500));
+        assertThat(repository.findById(isbn).orElseThrow().availableCopies(), is(0));
+    }
+
+    @Test
+    void borrowAndReturnBook_FromManyThreads_LosesNoUpdates() throws Exception {
+        repository.save(new BookEntity(isbn, "Title", "Author", 2024, threads));
+
+        runConcurrently(() -> {
+            for (int i = 0; i < 20; i++) {
+                library.borrowBook(isbn);
+                library.returnBook(isbn);
+            }
+        });
+
+        assertThat(repository.findById(isbn).orElseThrow().availableCopies(), is(threads));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void borrowAndReturnBook_Throughput() throws Exception {
+        int operationsPerThread = 100;
+        repository.save(new BookEntity(isbn, "Title", "Author", 2024, threads));
+
+        long start = System.nanoTime();
+        runConcurrently(() -> {
+            for (int i = 0; i < operationsPerThread; i++) {
+                library.borrowBook(isbn);
+                library.returnBook(isbn);
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+
+        long operations = 2L * threads * operationsPerThread;
+        System.out.printf("borrow/return on one ISBN from %d threads: %d ops in %d ms (%.0f ops/s)%n",
+            threads, operations, TimeUnit.NANOSECONDS.toMillis(elapsed), operations * 1e9 / elapsed);
+        assertThat(repository.findById(isbn).orElseThrow().availableCopies(), is(threads));
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
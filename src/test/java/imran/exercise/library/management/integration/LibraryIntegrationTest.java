@@ -1,27 +1,41 @@
 package imran.exercise.library.management.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.AbsentIsbnFilterLoader;
+import imran.exercise.library.management.cache.BookCache;
 import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.dto.Book;
 import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.search.BookSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -41,6 +55,18 @@ public class LibraryIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private BookCache cache;
+
+    @Autowired
+    private BookSearchIndex searchIndex;
+
+    @Autowired
+    private AbsentIsbnFilter absentIsbnFilter;
+
+    @Autowired
+    private AbsentIsbnFilterLoader absentIsbnFilterLoader;
+
     @BeforeEach
     void setUp() {
         resetDatabase();
@@ -120,9 +146,23 @@ public class LibraryIntegrationTest {
             is(Optional.of(new BookEntity("isbn-1", "Title 1", "Author 1", 2020, 0))));
     }
 
+    @Test
+    void getBookByIsbn_AfterBorrowBook_ReturnsDecrementedCopies() throws Exception {
+        mockMvc.perform(get("/api/books/isbn-1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.availableCopies", is(1)));
+
+        mockMvc.perform(put("/api/books/borrow/isbn-1"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/books/isbn-1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.availableCopies", is(0)));
+    }
+
     @Test
     void returnBook_IncrementsNumberOfAvailableCopies() throws Exception {
-        repository.save(new BookEntity("isbn-1", "Title 1", "Author 1", 2020, 0));
+        repository.decrementAvailableCopies("isbn-1");
         assertThat(repository.findById("isbn-1"),
             is(Optional.of(new BookEntity("isbn-1", "Title 1", "Author 1", 2020, 0))));
 
@@ -139,7 +179,164 @@ public class LibraryIntegrationTest {
         assertThat(repository.findById("isbn-1"), is(Optional.of(book1)));
     }
 
+    @Test
+    void save_ThrowsOptimisticLockingFailure_WhenBookWasUpdatedSinceItWasRead() throws Exception {
+        BookEntity staleBook = repository.findById("isbn-1").orElseThrow();
+
+        mockMvc.perform(put("/api/books/borrow/isbn-1"))
+            .andExpect(status().isOk());
+
+        staleBook.setAvailableCopies(5);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> repository.save(staleBook));
+        assertThat(repository.findById("isbn-1").map(BookEntity::availableCopies), is(Optional.of(0)));
+    }
+
+    @Test
+    void getBookByIsbn_ReturnsNullPublicationYear_WhenYearIsUnknown() throws Exception {
+        repository.save(new BookEntity("isbn-4", "Title 4", "Author 4", null, 1));
+
+        mockMvc.perform(get("/api/books/isbn-4"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.publicationYear", nullValue()))
+            .andExpect(jsonPath("$.availableCopies", is(1)));
+        assertThat(repository.findBooksByAuthor("Author 4").get(0).publicationYear(), is(nullValue()));
+    }
+
+    @Test
+    void insertAll_ThrowsDataIntegrityViolation_AndInsertsNothing_WhenBookAlreadyExists() {
+        BookEntity newBook = new BookEntity("isbn-4", "Title 4", "Author 4", 2023, 1);
+        BookEntity existingBook = new BookEntity("isbn-1", "Title 1", "Author 1", 2020, 1);
+
+        assertThrows(DataIntegrityViolationException.class, () -> repository.insertAll(List.of(newBook, existingBook)));
+        assertThat(repository.existsById("isbn-4"), is(false));
+    }
+
+    @Test
+    void getBookByIsbn_WithLoadedAbsentIsbnFilter_FindsOnlyExistingAndAddedBooks() throws Exception {
+        absentIsbnFilterLoader.run(new DefaultApplicationArguments());
+
+        mockMvc.perform(get("/api/books/isbn-1"))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/books/isbn-3"))
+            .andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestBody())))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/books/isbn-3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.isbn", is(book3.isbn())));
+    }
+
+    @Test
+    void batchBorrowBooks_DecrementsEachBookOnlyWhileCopiesAreAvailable() throws Exception {
+        mockMvc.perform(put("/api/books/batch/borrow")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of("isbn-1", "isbn-1", "isbn-9"))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].status", is("OK")))
+            .andExpect(jsonPath("$[0].book.availableCopies", is(0)))
+            .andExpect(jsonPath("$[1].status", is("UNAVAILABLE")))
+            .andExpect(jsonPath("$[2].status", is("NOT_FOUND")));
+
+        assertThat(repository.findById("isbn-1").orElseThrow().availableCopies(), is(0));
+
+        mockMvc.perform(get("/api/books/isbn-1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.availableCopies", is(0)));
+    }
+
+    @Test
+    void batchAddBooks_AddsNewBooksToDatabase_ThenBatchLookupReturnsThem() throws Exception {
+        mockMvc.perform(post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(requestBody(), Map.of("isbn", "isbn-1")))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].status", is("OK")))
+            .andExpect(jsonPath("$[1].status", is("ALREADY_EXISTS")));
+
+        assertThat(repository.findById(book3.isbn()), is(Optional.of(book3)));
+
+        mockMvc.perform(post("/api/books/batch/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of("isbn-3", "isbn-2", "isbn-9"))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].book.title", is(book3.title())))
+            .andExpect(jsonPath("$[1].book.title", is(book2.title())))
+            .andExpect(jsonPath("$[2].status", is("NOT_FOUND")));
+    }
+
+    @Test
+    void batchReturnBooks_IncrementsNumberOfAvailableCopies() throws Exception {
+        mockMvc.perform(put("/api/books/batch/return")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of("isbn-1", "isbn-2"))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].book.availableCopies", is(2)))
+            .andExpect(jsonPath("$[1].book.availableCopies", is(2)));
+
+        assertThat(repository.findById("isbn-2").orElseThrow().availableCopies(), is(2));
+    }
+
+    @Test
+    void getBooksPage_FollowsCursorThroughAllBooks() throws Exception {
+        mockMvc.perform(get("/api/books/query/page?limit=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.books[0].isbn", is(book1.isbn())))
+            .andExpect(jsonPath("$.nextCursor", is(book1.isbn())));
+
+        mockMvc.perform(get("/api/books/query/page?limit=1&after=isbn-1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.books[0].isbn", is(book2.isbn())))
+            .andExpect(jsonPath("$.nextCursor", is(book2.isbn())));
+
+        mockMvc.perform(get("/api/books/query/page?limit=1&after=isbn-2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.books.length()", is(0)))
+            .andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+
+    @Test
+    void streamBooksByAuthor_WritesMatchingBooksAsNewlineDelimitedJson() throws Exception {
+        repository.save(book3);
+
+        MvcResult result = mockMvc.perform(get("/api/books/query/stream?author=Author 1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().string(
+                objectMapper.writeValueAsString(new Book("isbn-1", "Title 1", "Author 1", 2020, 1)) + "\n" +
+                objectMapper.writeValueAsString(new Book("isbn-2", "Title 2", "Author 1", 2021, 1)) + "\n"));
+    }
+
+    @Test
+    void searchBooks_FindsBooksAddedThroughTheApi_AndNotRemovedOnes() throws Exception {
+        mockMvc.perform(post("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestBody())))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/books/query/search?q=author 3 tit"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()", is(1)))
+            .andExpect(jsonPath("$[0].isbn", is(book3.isbn())));
+
+        mockMvc.perform(delete("/api/books/isbn-3"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/books/query/search?q=author 3 tit"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()", is(0)));
+    }
+
     private void resetDatabase() {
+        cache.clear();
+        searchIndex.clear();
+        absentIsbnFilter.clear();
         repository.deleteAll();
         repository.save(book1);
         repository.save(book2);
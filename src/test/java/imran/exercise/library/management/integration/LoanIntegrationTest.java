@@ -0,0 +1,236 @@
+package imran.exercise.library.management.integration;
+
+import com.jayway.jsonpath.JsonPath;
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.dto.Loan;
+import imran.exercise.library.management.persistence.CopyRepository;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.service.LoanService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class LoanIntegrationTest {
+
+    private static final String isbn = "isbn-loan";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LibraryRepository repository;
+
+    @Autowired
+    private CopyRepository copyRepository;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookCache cache;
+
+    @Autowired
+    private AbsentIsbnFilter absentIsbnFilter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache.clear();
+        absentIsbnFilter.clear();
+        jdbcTemplate.update("delete from loan_entity");
+        copyRepository.deleteAll();
+        repository.deleteAll();
+        repository.save(new BookEntity(isbn, "Title", "Author", 2024, 2));
+        mockMvc.perform(post("/api/books/" + isbn + "/copies?count=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.availableCopies", is(2)));
+    }
+
+    @Test
+    void lendCopy_RecordsLoan_AndBorrowsBook() throws Exception {
+        long memberId = addMember(2);
+
+        mockMvc.perform(post("/api/members/" + memberId + "/loans/" + isbn))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.isbn", is(isbn)))
+            .andExpect(jsonPath("$.dueAt", notNullValue()));
+
+        mockMvc.perform(get("/api/books/" + isbn + "/copies"))
+            .andExpect(jsonPath("$.availableCopies", is(1)));
+        mockMvc.perform(get("/api/books/" + isbn))
+            .andExpect(jsonPath("$.availableCopies", is(1)));
+        mockMvc.perform(get("/api/members/" + memberId + "/loans"))
+            .andExpect(jsonPath("$.length()", is(1)));
+    }
+
+    @Test
+    void lendCopy_RejectsLoanOverMemberLimit() throws Exception {
+        long memberId = addMember(1);
+        mockMvc.perform(post("/api/members/" + memberId + "/loans/" + isbn)).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/members/" + memberId + "/loans/" + isbn))
+            .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/books/" + isbn + "/copies"))
+            .andExpect(jsonPath("$.availableCopies", is(1)));
+        mockMvc.perform(get("/api/books/" + isbn))
+            .andExpect(jsonPath("$.availableCopies", is(1)));
+    }
+
+    @Test
+    void lendCopy_ReleasesCopyWhenBookHasNoAvailableCopies() throws Exception {
+        long memberId = addMember(2);
+        mockMvc.perform(put("/api/books/borrow/" + isbn)).andExpect(status().isOk());
+        mockMvc.perform(put("/api/books/borrow/" + isbn)).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/members/" + memberId + "/loans/" + isbn))
+            .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/books/" + isbn + "/copies"))
+            .andExpect(jsonPath("$.availableCopies", is(2)));
+        mockMvc.perform(get("/api/members/" + memberId + "/loans"))
+            .andExpect(jsonPath("$.length()", is(0)));
+    }
+
+    @Test
+    void returnCopy_ClosesLoan_AndReturnsBook() throws Exception {
+        long memberId = addMember(2);
+        Loan loan = loanService.lendCopy(memberId, isbn);
+
+        mockMvc.perform(put("/api/loans/" + loan.id() + "/return"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.returnedAt", notNullValue()));
+        mockMvc.perform(put("/api/loans/" + loan.id() + "/return"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/books/" + isbn + "/copies"))
+            .andExpect(jsonPath("$.availableCopies", is(2)));
+        mockMvc.perform(get("/api/books/" + isbn))
+            .andExpect(jsonPath("$.availableCopies", is(2)));
+    }
+
+    @Test
+    void findOverdueLoans_ReturnsOpenLoansPastDueDate() throws Exception {
+        long memberId = addMember(2);
+        Loan returned = loanService.lendCopy(memberId, isbn);
+        Loan open = loanService.lendCopy(memberId, isbn);
+        loanService.returnCopy(returned.id());
+
+        assertThat(loanService.findOverdueLoans(Instant.now(), 10), is(empty()));
+        assertThat(loanService.findOverdueLoans(Instant.now().plus(Duration.ofDays(22)), 10).stream().map(Loan::id).toList(),
+            contains(open.id()));
+    }
+
+    @Test
+    void returnCopy_HandsBookToWaitingHold_AndPutsCopyBack() throws Exception {
+        long memberId = addMember(2);
+        Loan loan = loanService.lendCopy(memberId, isbn);
+        loanService.lendCopy(memberId, isbn);
+        mockMvc.perform(post("/api/books/hold/" + isbn)).andExpect(status().isAccepted());
+
+        mockMvc.perform(put("/api/loans/" + loan.id() + "/return"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.returnedAt", notNullValue()));
+
+        mockMvc.perform(get("/api/books/" + isbn + "/copies"))
+            .andExpect(jsonPath("$.availableCopies", is(1)));
+        mockMvc.perform(get("/api/books/" + isbn))
+            .andExpect(jsonPath("$.availableCopies", is(0)));
+    }
+
+    @Test
+    void lendCopy_AfterHoldReturnsBookHandedToIt_LendsCopyAgain() throws Exception {
+        long memberId = addMember(2);
+        Loan loan = loanService.lendCopy(memberId, isbn);
+        loanService.lendCopy(memberId, isbn);
+        mockMvc.perform(post("/api/books/hold/" + isbn)).andExpect(status().isAccepted());
+        loanService.returnCopy(loan.id());
+
+        mockMvc.perform(put("/api/books/return/" + isbn)).andExpect(status().isOk());
+        mockMvc.perform(post("/api/members/" + memberId + "/loans/" + isbn)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/books/" + isbn + "/copies"))
+            .andExpect(jsonPath("$.availableCopies", is(0)));
+        mockMvc.perform(get("/api/books/" + isbn))
+            .andExpect(jsonPath("$.availableCopies", is(0)));
+        mockMvc.perform(get("/api/members/" + memberId + "/loans"))
+            .andExpect(jsonPath("$.length()", is(2)));
+    }
+
+    @Test
+    void removeBook_ReturnsConflict_WhenACopyIsOnLoan() throws Exception {
+        long memberId = addMember(2);
+        loanService.lendCopy(memberId, isbn);
+
+        mockMvc.perform(delete("/api/books/" + isbn)).andExpect(status().isConflict());
+
+        assertThat(repository.existsById(isbn), is(true));
+        assertThat(loanService.findOpenLoans(memberId).size(), is(1));
+    }
+
+    @Test
+    void removeBook_KeepsClosedLoans() throws Exception {
+        long memberId = addMember(2);
+        Loan loan = loanService.lendCopy(memberId, isbn);
+        loanService.returnCopy(loan.id());
+
+        mockMvc.perform(delete("/api/books/" + isbn)).andExpect(status().isOk());
+
+        assertThat(repository.existsById(isbn), is(false));
+        assertThat(copyRepository.existsById(loan.copyId()), is(true));
+        mockMvc.perform(put("/api/loans/" + loan.id() + "/return"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.returnedAt", notNullValue()));
+    }
+
+    @Test
+    void loanQueries_UseIndexes() {
+        assertThat(explain("select count(*) from copy_entity where isbn in ('a', 'b') and on_loan = false group by isbn"),
+            containsString("COPY_ENTITY_ISBN_ON_LOAN_IDX"));
+        assertThat(explain("select * from loan_entity where returned_at is null and due_at < current_timestamp order by due_at"),
+            containsString("LOAN_ENTITY_RETURNED_DUE_IDX"));
+        assertThat(explain("select count(*) from loan_entity where member_id = 1 and returned_at is null"),
+            containsString("LOAN_ENTITY_MEMBER_RETURNED_IDX"));
+    }
+
+    private long addMember(int loanLimit) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/members")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Member\", \"loanLimit\": " + loanLimit + "}"))
+            .andExpect(status().isOk())
+            .andReturn();
+        return ((Number) JsonPath.read(result.getResponse().getContentAsString(), "$.id")).longValue();
+    }
+
+    private String explain(String query) {
+        return jdbcTemplate.queryForObject("explain " + query, String.class).toUpperCase();
+    }
+}
@@ -0,0 +1,62 @@
+package imran.exercise.library.management.integration;
+
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class MetricsIntegrationTest {
+
+    private static final String isbn = "isbn-metrics";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LibraryRepository repository;
+
+    @Autowired
+    private AbsentIsbnFilter absentIsbnFilter;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteById(isbn);
+    }
+
+    @Test
+    void prometheus_ExposesOperationCacheAndRepositoryMetrics() throws Exception {
+        repository.save(new BookEntity(isbn, "Title", "Author", 2024, 1));
+        absentIsbnFilter.added(isbn);
+        mockMvc.perform(get("/api/books/" + isbn)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/books/" + isbn)).andExpect(status().isOk());
+        mockMvc.perform(put("/api/books/borrow/" + isbn)).andExpect(status().isOk());
+        mockMvc.perform(put("/api/books/borrow/" + isbn)).andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString(
+                "library_operation_seconds_bucket{class=\"imran.exercise.library.management.service.LibraryService\",exception=\"none\",method=\"findBookByISBN\"")))
+            .andExpect(content().string(containsString(
+                "library_operation_seconds_count{class=\"imran.exercise.library.management.service.LibraryService\",exception=\"BookUnavailableException\",method=\"borrowBook\"")))
+            .andExpect(content().string(containsString("library_cache_gets_total{result=\"hit\"}")))
+            .andExpect(content().string(containsString("library_cache_size ")))
+            .andExpect(content().string(containsString("library_cache_loads_total{cache=\"book\",result=\"loaded\"}")))
+            .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")))
+            .andExpect(content().string(containsString("method=\"decrementAvailableCopies\"")));
+    }
+}
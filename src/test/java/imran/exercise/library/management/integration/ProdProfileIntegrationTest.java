@@ -0,0 +1,49 @@
+package imran.exercise.library.management.integration;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.service.Library;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest
+@ActiveProfiles("prod")
+public class ProdProfileIntegrationTest {
+
+    @TempDir
+    static Path dataDir;
+
+    @Autowired
+    private Library library;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void dataDir(DynamicPropertyRegistry registry) {
+        registry.add("library.data-dir", () -> dataDir.toString());
+    }
+
+    @Test
+    void startsOnFileDatabaseMigratedByFlyway() {
+        Book book = new Book("isbn-prod", "Title", "Author", 2024, 1);
+
+        library.addBook(book);
+
+        assertThat(jdbcTemplate.queryForObject(
+            "select \"success\" from \"flyway_schema_history\" where \"version\" = '1'", Boolean.class), is(true));
+        assertThat(Files.exists(dataDir.resolve("library.mv.db")), is(true));
+        assertThat(library.borrowBook(book.isbn()).availableCopies(), is(0));
+    }
+}
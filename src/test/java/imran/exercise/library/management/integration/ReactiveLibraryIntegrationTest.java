@@ -0,0 +1,164 @@
+package imran.exercise.library.management.integration;
+
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.search.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReactiveLibraryIntegrationTest {
+
+    private static final BookEntity book1 = new BookEntity("isbn-1", "Title 1", "Author 1", 2020, 1);
+    private static final BookEntity book2 = new BookEntity("isbn-2", "Title 2", "Author 1", 2021, 1);
+    private static final Book book3 = new Book("isbn-3", "Title 3", "Author 3", 2022, 1);
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private LibraryRepository repository;
+
+    @Autowired
+    private BookCache cache;
+
+    @Autowired
+    private BookSearchIndex searchIndex;
+
+    @Autowired
+    private AbsentIsbnFilter absentIsbnFilter;
+
+    @BeforeEach
+    void setUp() {
+        cache.clear();
+        searchIndex.clear();
+        absentIsbnFilter.clear();
+        repository.deleteAll();
+        repository.save(book1);
+        repository.save(book2);
+    }
+
+    @Test
+    void getBookByIsbn_ReadsBookSavedByBlockingRepository() {
+        webTestClient.get().uri("/api/reactive/books/isbn-1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(Book.class).isEqualTo(new Book("isbn-1", "Title 1", "Author 1", 2020, 1));
+    }
+
+    @Test
+    void getBookByIsbn_ReturnsNotFound_WhenBookDoesNotExist() {
+        webTestClient.get().uri("/api/reactive/books/isbn-9")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
+    @Test
+    void getBooksByAuthor_ReturnsMatchingBooksInIsbnOrder() {
+        webTestClient.get().uri("/api/reactive/books?author=Author 1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(Book.class).hasSize(2)
+            .contains(new Book("isbn-1", "Title 1", "Author 1", 2020, 1), new Book("isbn-2", "Title 2", "Author 1", 2021, 1));
+    }
+
+    @Test
+    void getBooksByAuthor_WithoutAuthor_ReturnsAllBooksInIsbnOrder() {
+        webTestClient.get().uri("/api/reactive/books")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.length()").isEqualTo(2)
+            .jsonPath("$[0].isbn").isEqualTo("isbn-1")
+            .jsonPath("$[1].isbn").isEqualTo("isbn-2");
+    }
+
+    @Test
+    void streamBooksByAuthor_WritesBooksAsNewlineDelimitedJson() {
+        webTestClient.get().uri("/api/reactive/books/query/stream")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+            .returnResult(Book.class)
+            .getResponseBody()
+            .map(Book::isbn)
+            .collectList()
+            .doOnNext(isbns -> assertThat(isbns, is(List.of("isbn-1", "isbn-2"))))
+            .block();
+    }
+
+    @Test
+    void getBooksPage_ReturnsCursorOfNextPage() {
+        webTestClient.get().uri("/api/reactive/books/query/page?limit=1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.books.length()").isEqualTo(1)
+            .jsonPath("$.books[0].isbn").isEqualTo("isbn-1")
+            .jsonPath("$.nextCursor").isEqualTo("isbn-1");
+    }
+
+    @Test
+    void addBook_ThenBlockingApiFindsIt_AndAddingItAgainFails() {
+        webTestClient.post().uri("/api/reactive/books")
+            .bodyValue(book3)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(Book.class).isEqualTo(book3);
+
+        webTestClient.get().uri("/api/books/isbn-3")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(Book.class).isEqualTo(book3);
+        assertThat(repository.findById("isbn-3").isPresent(), is(true));
+
+        webTestClient.post().uri("/api/reactive/books")
+            .bodyValue(book3)
+            .exchange()
+            .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void borrowBook_ThenReturnBook_UpdatesAvailableCopies() {
+        webTestClient.put().uri("/api/reactive/books/borrow/isbn-1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody().jsonPath("$.availableCopies").isEqualTo(0);
+
+        webTestClient.put().uri("/api/reactive/books/borrow/isbn-1")
+            .exchange()
+            .expectStatus().isBadRequest();
+        assertThat(repository.findById("isbn-1").orElseThrow().availableCopies(), is(0));
+
+        webTestClient.put().uri("/api/reactive/books/return/isbn-1")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody().jsonPath("$.availableCopies").isEqualTo(1);
+        assertThat(cache.get("isbn-1").availableCopies(), is(1));
+    }
+
+    @Test
+    void removeBook_DeletesBookFromDatabase() {
+        webTestClient.delete().uri("/api/reactive/books/isbn-2")
+            .exchange()
+            .expectStatus().isOk();
+
+        assertThat(repository.existsById("isbn-2"), is(false));
+        webTestClient.delete().uri("/api/reactive/books/isbn-2")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+}
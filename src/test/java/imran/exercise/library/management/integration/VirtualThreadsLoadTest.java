@@ -0,0 +1,129 @@
+package imran.exercise.library.management.integration;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.service.Library;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Sends more concurrent requests than Tomcat has threads to the application running with the
+ * virtual-threads profile, each request held for a simulated 500 ms of blocking I/O.  With virtual
+ * threads the requests are all in flight at once, while the number of platform threads stays flat and
+ * the heap retained once they completed stays bounded.  Connections are closed after each request, so the heap
+ * is not held by idle keep-alive connections.  Run by {@code ./gradlew virtualThreadsTest}.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"server.tomcat.threads.max=50", "server.tomcat.max-keep-alive-requests=1", "spring.jpa.show-sql=false"})
+@ActiveProfiles("virtual-threads")
+@EnabledForJreRange(min = JRE.JAVA_21)
+@Tag("benchmark")
+public class VirtualThreadsLoadTest {
+
+    private static final int requests = 1_000;
+    private static final int tomcatThreads = 50;
+    private static final long simulatedLatencyMillis = 500;
+    private static final String isbn = "isbn-virtual";
+    private static final long maximumHeapGrowthBytes = 64L << 20;
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maximumInFlight = new AtomicInteger();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Library library;
+
+    @TestConfiguration
+    static class SimulatedLatencyConfiguration {
+
+        @Bean
+        FilterRegistrationBean<Filter> simulatedLatencyFilter() {
+            Filter filter = (request, response, chain) -> {
+                maximumInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(simulatedLatencyMillis);
+                    chain.doFilter(request, response);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            };
+            return new FilterRegistrationBean<>(filter);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        library.removeBook(isbn);
+    }
+
+    @Test
+    void getBook_ServesMoreConcurrentRequestsThanTomcatThreads_WithoutMorePlatformThreads() throws Exception {
+        library.addBook(new Book(isbn, "Title", "Author", 2024, 1));
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        int platformThreadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/" + isbn)).build();
+        long start = System.nanoTime();
+        List<CompletableFuture<Integer>> responses = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode));
+        }
+        List<Integer> statusCodes = responses.stream().map(CompletableFuture::join).toList();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        clientExecutor.shutdown();
+
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+        System.out.printf(
+            "%d requests of %d ms each in %d ms: %d in flight at most with %d Tomcat threads, " +
+                "platform threads %d before and %d at peak, heap used %d MB before and %d MB after%n",
+            requests, simulatedLatencyMillis, elapsedMillis, maximumInFlight.get(), tomcatThreads,
+            platformThreadsBefore, threads.getPeakThreadCount(), heapBefore >> 20, heapAfter >> 20);
+
+        assertThat(statusCodes, everyItem(is(200)));
+        assertThat(maximumInFlight.get(), greaterThan(tomcatThreads * 4));
+        assertThat(threads.getPeakThreadCount() - platformThreadsBefore, lessThan(tomcatThreads));
+        assertThat(heapAfter - heapBefore, lessThan(maximumHeapGrowthBytes));
+    }
+}
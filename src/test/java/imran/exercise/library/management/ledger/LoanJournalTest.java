@@ -0,0 +1,125 @@
+package imran.exercise.library.management.ledger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+class LoanJournalTest {
+
+    private static final int regionSize = 1 << 16;
+    private static final int recordSize = Integer.BYTES + Long.BYTES + Byte.BYTES + Short.BYTES + "isbn-1".length() + Integer.BYTES;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replay_ReturnsEventsAfterSequenceInOrder() throws IOException {
+        try (LoanJournal underTest = new LoanJournal(directory.resolve("loans.journal"), regionSize, false)) {
+            underTest.append(LoanEvent.Type.BORROWED, "isbn-1");
+            underTest.append(LoanEvent.Type.BORROWED, "isbn-2");
+            underTest.append(LoanEvent.Type.RETURNED, "isbn-1");
+
+            assertThat(replay(underTest, 1), contains(
+                new LoanEvent(2, LoanEvent.Type.BORROWED, "isbn-2"),
+                new LoanEvent(3, LoanEvent.Type.RETURNED, "isbn-1")));
+        }
+    }
+
+    @Test
+    void open_ContinuesExistingJournal() throws IOException {
+        Path file = directory.resolve("loans.journal");
+        try (LoanJournal journal = new LoanJournal(file, regionSize, false)) {
+            journal.append(LoanEvent.Type.BORROWED, "isbn-1");
+            journal.append(LoanEvent.Type.BORROWED, "isbn-2");
+        }
+
+        try (LoanJournal underTest = new LoanJournal(file, regionSize, true)) {
+            assertThat(underTest.lastSequence(), is(2L));
+            assertThat(underTest.append(LoanEvent.Type.RETURNED, "isbn-2"), is(new LoanEvent(3, LoanEvent.Type.RETURNED, "isbn-2")));
+            assertThat(replay(underTest, 0).size(), is(3));
+        }
+    }
+
+    @Test
+    void append_ContinuesInNextSegment_WhenSegmentIsFull() throws IOException {
+        Path file = directory.resolve("loans.journal");
+        try (LoanJournal journal = new LoanJournal(file, 64, false)) {
+            for (int i = 0; i < 10; i++) {
+                journal.append(LoanEvent.Type.BORROWED, "isbn-" + i);
+            }
+        }
+
+        try (LoanJournal underTest = new LoanJournal(file, 64, false)) {
+            List<LoanEvent> events = replay(underTest, 0);
+            assertThat(events.size(), is(10));
+            assertThat(events.get(9), is(new LoanEvent(10, LoanEvent.Type.BORROWED, "isbn-9")));
+            assertThat(underTest.lastSequence(), is(10L));
+            assertThat(underTest.segments(), is(5));
+        }
+        assertThat(Files.size(directory.resolve("loans.journal.8")), is(64L));
+    }
+
+    @Test
+    void truncate_DeletesSegmentsOfAppliedEvents_AndReplayStartsAfterThem() throws IOException {
+        Path file = directory.resolve("loans.journal");
+        try (LoanJournal underTest = new LoanJournal(file, 64, false)) {
+            for (int i = 0; i < 10; i++) {
+                underTest.append(LoanEvent.Type.BORROWED, "isbn-" + i);
+            }
+
+            underTest.truncate(5);
+
+            assertThat(underTest.segments(), is(3));
+            assertThat(Files.exists(directory.resolve("loans.journal.0")), is(false));
+            assertThat(Files.exists(directory.resolve("loans.journal.4")), is(true));
+            assertThat(replay(underTest, 5).get(0), is(new LoanEvent(6, LoanEvent.Type.BORROWED, "isbn-5")));
+
+            underTest.truncate(10);
+            assertThat(underTest.segments(), is(1));
+        }
+
+        try (LoanJournal underTest = new LoanJournal(file, 64, false)) {
+            assertThat(underTest.lastSequence(), is(10L));
+            assertThat(underTest.append(LoanEvent.Type.RETURNED, "isbn-1"), is(new LoanEvent(11, LoanEvent.Type.RETURNED, "isbn-1")));
+            assertThat(replay(underTest, 10), contains(new LoanEvent(11, LoanEvent.Type.RETURNED, "isbn-1")));
+        }
+    }
+
+    @Test
+    void open_DiscardsTornRecord_AndOverwritesIt() throws IOException {
+        Path file = directory.resolve("loans.journal");
+        try (LoanJournal journal = new LoanJournal(file, regionSize, false)) {
+            journal.append(LoanEvent.Type.BORROWED, "isbn-1");
+            journal.append(LoanEvent.Type.BORROWED, "isbn-2");
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(directory.resolve("loans.journal.0").toFile(), "rw")) {
+            raf.seek(recordSize + recordSize / 2);
+            raf.write('x');
+        }
+
+        try (LoanJournal underTest = new LoanJournal(file, regionSize, false)) {
+            assertThat(underTest.lastSequence(), is(1L));
+            underTest.append(LoanEvent.Type.RETURNED, "isbn-1");
+
+            assertThat(replay(underTest, 0), contains(
+                new LoanEvent(1, LoanEvent.Type.BORROWED, "isbn-1"),
+                new LoanEvent(2, LoanEvent.Type.RETURNED, "isbn-1")));
+        }
+    }
+
+    private static List<LoanEvent> replay(LoanJournal journal, long afterSequence) {
+        List<LoanEvent> events = new ArrayList<>();
+        journal.replay(afterSequence, events::add);
+        return events;
+    }
+}
@@ -0,0 +1,129 @@
+package imran.exercise.library.management.ledger;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.exception.BookUnavailableException;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LoanLedgerTest {
+
+    private static final String isbn = "isbn";
+    private static final Book book = new Book(isbn, "title", "author", 2024, 1);
+
+    @TempDir
+    Path directory;
+
+    private final LibraryRepository libraryRepository = mock(LibraryRepository.class);
+
+    private LoanLedger underTest;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        underTest = new LoanLedger(new LoanJournal(directory.resolve("loans.journal"), 1 << 16, false), libraryRepository);
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(new VersionedBook(book, 3)));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        underTest.close();
+    }
+
+    @Test
+    void borrowCopy_DecreasesCopiesInMemory_AndAppendsEvent() {
+        VersionedBook borrowed = underTest.borrowCopy(isbn);
+
+        assertThat(borrowed, is(new VersionedBook(new Book(isbn, "title", "author", 2024, 0), 4)));
+        assertThat(underTest.drain(), contains(new LoanEvent(1, LoanEvent.Type.BORROWED, isbn)));
+    }
+
+    @Test
+    void borrowCopy_ThrowsUnavailable_WithoutAppending_WhenNoCopyIsAvailable() {
+        underTest.borrowCopy(isbn);
+
+        assertThrows(BookUnavailableException.class, () -> underTest.borrowCopy(isbn));
+        assertThat(underTest.pendingEvents(), is(1));
+        assertThat(underTest.returnCopy(isbn).book().availableCopies(), is(1));
+        verify(libraryRepository, times(1)).findVersionedBook(isbn);
+    }
+
+    @Test
+    void borrowCopy_ThrowsNotFound_WhenBookDoesNotExist() {
+        when(libraryRepository.findVersionedBook("isbn-unknown")).thenReturn(Optional.empty());
+
+        assertThrows(BookNotFoundException.class, () -> underTest.borrowCopy("isbn-unknown"));
+        assertThat(underTest.pendingEvents(), is(0));
+    }
+
+    @Test
+    void overlay_ReplacesBookReadBeforeProjection_ByLedgerState() {
+        underTest.borrowCopy(isbn);
+
+        assertThat(underTest.overlay(new VersionedBook(book, 3)).book().availableCopies(), is(0));
+        assertThat(underTest.overlay(new VersionedBook(book, 5)), is(new VersionedBook(book, 5)));
+    }
+
+    @Test
+    void requeue_PutsEventsBackBeforeNewEvents() {
+        underTest.borrowCopy(isbn);
+        var events = underTest.drain();
+        underTest.returnCopy(isbn);
+
+        underTest.requeue(events);
+
+        assertThat(underTest.drain(), contains(
+            new LoanEvent(1, LoanEvent.Type.BORROWED, isbn),
+            new LoanEvent(2, LoanEvent.Type.RETURNED, isbn)));
+    }
+
+    @Test
+    void forget_AppendsRemovedEvent_AndBookIsReadAgain() {
+        underTest.borrowCopy(isbn);
+
+        underTest.forget(isbn);
+        underTest.returnCopy(isbn);
+
+        assertThat(underTest.drain(), contains(
+            new LoanEvent(1, LoanEvent.Type.BORROWED, isbn),
+            new LoanEvent(2, LoanEvent.Type.REMOVED, isbn),
+            new LoanEvent(3, LoanEvent.Type.RETURNED, isbn)));
+        verify(libraryRepository, times(2)).findVersionedBook(isbn);
+    }
+
+    @Test
+    void forget_DoesNotAppendRemovedEvent_WhenBookHasNoEvents() {
+        underTest.forget(isbn);
+
+        assertThat(underTest.pendingEvents(), is(0));
+    }
+
+    @Test
+    void borrowCopy_ThrowsNotFound_WhenBookIsRemovedWhileItIsRead() {
+        when(libraryRepository.findVersionedBook(isbn))
+            .thenAnswer(invocation -> {
+                underTest.forget(isbn);
+                return Optional.of(new VersionedBook(book, 3));
+            })
+            .thenReturn(Optional.empty());
+
+        assertThrows(BookNotFoundException.class, () -> underTest.borrowCopy(isbn));
+        assertThat(underTest.pendingEvents(), is(0));
+    }
+}
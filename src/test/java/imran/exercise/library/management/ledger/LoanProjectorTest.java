@@ -0,0 +1,158 @@
+package imran.exercise.library.management.ledger;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LoanProjectorTest {
+
+    private static final Duration interval = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+
+    private final DriverManagerDataSource dataSource =
+        new DriverManagerDataSource("jdbc:h2:mem:loan-projector;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    private final LibraryRepository libraryRepository = mock(LibraryRepository.class);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("create table book_entity (isbn varchar(255) primary key, available_copies integer, version bigint)");
+        jdbcTemplate.execute("create table loan_projection (id integer primary key, sequence bigint not null)");
+        jdbcTemplate.update("insert into book_entity values ('isbn-1', 2, 0), ('isbn-2', 1, 0)");
+        when(libraryRepository.findVersionedBook("isbn-1")).thenReturn(Optional.of(new VersionedBook(new Book("isbn-1", null, null, null, 2), 0)));
+        when(libraryRepository.findVersionedBook("isbn-2")).thenReturn(Optional.of(new VersionedBook(new Book("isbn-2", null, null, null, 1), 0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop all objects");
+    }
+
+    @Test
+    void project_AppliesEventsSummedByBook_AndIncrementsVersionPerEvent() throws Exception {
+        try (LoanLedger ledger = ledger();
+             LoanProjector underTest = new LoanProjector(ledger, jdbcTemplate, transactionTemplate, interval, new SimpleMeterRegistry())) {
+            ledger.borrowCopy("isbn-1");
+            ledger.borrowCopy("isbn-1");
+            ledger.returnCopy("isbn-1");
+            ledger.borrowCopy("isbn-2");
+            assertThat(book("isbn-1"), is(Map.of("AVAILABLE_COPIES", 2, "VERSION", 0L)));
+
+            assertThat(underTest.project(), is(4));
+
+            assertThat(book("isbn-1"), is(Map.of("AVAILABLE_COPIES", 1, "VERSION", 3L)));
+            assertThat(book("isbn-2"), is(Map.of("AVAILABLE_COPIES", 0, "VERSION", 1L)));
+            assertThat(ledger.overlay(new VersionedBook(new Book("isbn-1", null, null, null, 1), 3)).version(), is(3L));
+            assertThat(jdbcTemplate.queryForObject("select sequence from loan_projection", Long.class), is(4L));
+        }
+    }
+
+    @Test
+    void project_RecordsFlushLagAndBatchSizes() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        try (LoanLedger ledger = ledger();
+             LoanProjector underTest = new LoanProjector(ledger, jdbcTemplate, transactionTemplate, interval, registry)) {
+            ledger.borrowCopy("isbn-1");
+            ledger.borrowCopy("isbn-1");
+            ledger.borrowCopy("isbn-2");
+
+            underTest.project();
+
+            assertThat(registry.get("library.ledger.flush.lag").timer().count(), is(1L));
+            assertThat(registry.get("library.ledger.flush.lag").timer().totalTime(TimeUnit.NANOSECONDS) > 0, is(true));
+            assertThat(registry.get("library.ledger.batch.events").summary().totalAmount(), is(3.0));
+            assertThat(registry.get("library.ledger.batch.books").summary().totalAmount(), is(2.0));
+        }
+    }
+
+    @Test
+    void project_DoesNotApplyEventsOfARemovedBook() throws Exception {
+        try (LoanLedger ledger = ledger();
+             LoanProjector underTest = new LoanProjector(ledger, jdbcTemplate, transactionTemplate, interval, new SimpleMeterRegistry())) {
+            ledger.borrowCopy("isbn-1");
+            ledger.borrowCopy("isbn-2");
+            ledger.forget("isbn-1");
+            ledger.returnCopy("isbn-1");
+
+            assertThat(underTest.project(), is(4));
+
+            assertThat(book("isbn-1"), is(Map.of("AVAILABLE_COPIES", 3, "VERSION", 1L)));
+            assertThat(book("isbn-2"), is(Map.of("AVAILABLE_COPIES", 0, "VERSION", 1L)));
+        }
+    }
+
+    @Test
+    void project_DoesNotApplyEventsOfABookRemovedWhileTheyAreProjected() throws Exception {
+        try (LoanLedger ledger = ledger()) {
+            TransactionTemplate removingTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager()) {
+                @Override
+                public <T> T execute(TransactionCallback<T> action) {
+                    ledger.forget("isbn-1");
+                    return super.execute(action);
+                }
+            };
+            try (LoanProjector underTest = new LoanProjector(ledger, jdbcTemplate, removingTransactionTemplate, interval, new SimpleMeterRegistry())) {
+                ledger.borrowCopy("isbn-1");
+                ledger.borrowCopy("isbn-2");
+
+                assertThat(underTest.project(), is(2));
+
+                assertThat(book("isbn-1"), is(Map.of("AVAILABLE_COPIES", 2, "VERSION", 0L)));
+                assertThat(book("isbn-2"), is(Map.of("AVAILABLE_COPIES", 0, "VERSION", 1L)));
+            }
+        }
+    }
+
+    @Test
+    void constructor_AppliesEventsNotProjectedBeforeCrash() throws Exception {
+        try (LoanLedger ledger = ledger();
+             LoanProjector projector = new LoanProjector(ledger, jdbcTemplate, transactionTemplate, interval, new SimpleMeterRegistry())) {
+            ledger.borrowCopy("isbn-1");
+            projector.project();
+            ledger.borrowCopy("isbn-1");
+            ledger.borrowCopy("isbn-2");
+            ledger.drain();
+        }
+
+        try (LoanLedger ledger = ledger();
+             LoanProjector underTest = new LoanProjector(ledger, jdbcTemplate, transactionTemplate, interval, new SimpleMeterRegistry())) {
+            assertThat(underTest.projectedEvents(), is(2L));
+            assertThat(book("isbn-1"), is(Map.of("AVAILABLE_COPIES", 0, "VERSION", 2L)));
+            assertThat(book("isbn-2"), is(Map.of("AVAILABLE_COPIES", 0, "VERSION", 1L)));
+        }
+    }
+
+    private LoanLedger ledger() throws IOException {
+        return new LoanLedger(new LoanJournal(directory.resolve("loans.journal"), 1 << 16, false), libraryRepository);
+    }
+
+    private Map<String, Object> book(String isbn) {
+        return jdbcTemplate.queryForMap("select available_copies, version from book_entity where isbn = ?", isbn);
+    }
+}
@@ -0,0 +1,95 @@
+package imran.exercise.library.management.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RetryPolicyTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final RetryPolicy underTest = new RetryPolicy(new RetryProperties(3, Duration.ZERO, Duration.ZERO), registry);
+
+    @Test
+    void execute_ReturnsResultAfterConflicts_AndCountsRetries() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = underTest.execute("borrowBook", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("lock timeout");
+            }
+            return "borrowed";
+        });
+
+        assertThat(result, is("borrowed"));
+        assertThat(attempts.get(), is(3));
+        assertThat(conflicts("borrowBook", "retried"), is(2.0));
+        assertThat(conflicts("borrowBook", "exhausted"), is(0.0));
+    }
+
+    @Test
+    void execute_ThrowsLastConflict_WhenAttemptsAreExhausted() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(PessimisticLockingFailureException.class, () -> underTest.execute("returnBook", () -> {
+            attempts.incrementAndGet();
+            throw new PessimisticLockingFailureException("deadlock");
+        }));
+
+        assertThat(attempts.get(), is(3));
+        assertThat(conflicts("returnBook", "retried"), is(2.0));
+        assertThat(conflicts("returnBook", "exhausted"), is(1.0));
+    }
+
+    @Test
+    void execute_DoesNotRetryOtherFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> underTest.execute("borrowBook", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException();
+        }));
+
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    void execute_DoesNotRetryOptimisticLockingFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> underTest.execute("removeBook", () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("BookEntity", "isbn-1");
+        }));
+
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    void backoffBoundNanos_DoublesPerAttempt_UpToMaximum() {
+        RetryPolicy policy = new RetryPolicy(
+            new RetryProperties(10, Duration.ofMillis(5), Duration.ofMillis(30)), registry);
+
+        assertThat(policy.backoffBoundNanos(1), is(Duration.ofMillis(5).toNanos()));
+        assertThat(policy.backoffBoundNanos(2), is(Duration.ofMillis(10).toNanos()));
+        assertThat(policy.backoffBoundNanos(3), is(Duration.ofMillis(20).toNanos()));
+        assertThat(policy.backoffBoundNanos(4), is(Duration.ofMillis(30).toNanos()));
+        assertThat(policy.backoffBoundNanos(100), is(Duration.ofMillis(30).toNanos()));
+    }
+
+    private double conflicts(String operation, String outcome) {
+        var counter = registry.find("library.concurrency.conflicts")
+            .tags("operation", operation, "outcome", outcome)
+            .counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
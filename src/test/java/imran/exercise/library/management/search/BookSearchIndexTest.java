@@ -0,0 +1,151 @@
+package imran.exercise.library.management.search;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookHit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+class BookSearchIndexTest {
+
+    private static final Book dune = new Book("isbn-1", "Dune", "Frank Herbert", 1965, 1);
+    private static final Book duneMessiah = new Book("isbn-2", "Dune Messiah", "Frank Herbert", 1969, 1);
+    private static final Book germinal = new Book("isbn-3", "Germinal", "Émile Zola", 1885, 1);
+    private static final Book frankenstein = new Book("isbn-4", "Frankenstein", "Mary Shelley", 1818, 1);
+
+    private final BookSearchIndex underTest = new BookSearchIndex();
+
+    @Test
+    void search_MatchesAllTermsAcrossTitleAndAuthor() {
+        indexAll();
+
+        assertThat(isbns(underTest.search("dune herbert", 10)), contains("isbn-1", "isbn-2"));
+        assertThat(isbns(underTest.search("messiah herbert", 10)), contains("isbn-2"));
+        assertThat(underTest.search("dune shelley", 10), is(empty()));
+    }
+
+    @Test
+    void search_NormalizesCaseAndAccents() {
+        indexAll();
+
+        assertThat(isbns(underTest.search("EMILE zola", 10)), contains("isbn-3"));
+        assertThat(isbns(underTest.search("Émile", 10)), contains("isbn-3"));
+    }
+
+    @Test
+    void search_MatchesLastTermAsPrefix() {
+        indexAll();
+
+        assertThat(isbns(underTest.search("frank", 10)), containsInAnyOrder("isbn-1", "isbn-2", "isbn-4"));
+        assertThat(isbns(underTest.search("franken", 10)), contains("isbn-4"));
+    }
+
+    @Test
+    void search_RanksRarerTermsHigher() {
+        indexAll();
+
+        List<BookHit> hits = underTest.search("dune", 10);
+
+        assertThat(isbns(hits), contains("isbn-1", "isbn-2"));
+        assertThat(hits.get(0).score(), is(hits.get(1).score()));
+        assertThat(underTest.search("messiah", 1).get(0).score() > hits.get(0).score(), is(true));
+    }
+
+    @Test
+    void search_ReturnsAtMostLimitHits() {
+        indexAll();
+
+        assertThat(isbns(underTest.search("frank", 2)), contains("isbn-4", "isbn-1"));
+    }
+
+    @Test
+    void put_ReplacesIndexedBookWithSameIsbn() {
+        indexAll();
+
+        underTest.put(new Book("isbn-1", "Children of Dune", "Frank Herbert", 1976, 1));
+
+        assertThat(isbns(underTest.search("children", 10)), contains("isbn-1"));
+        assertThat(underTest.search("dune", 10).get(0).title(), is("Children of Dune"));
+        assertThat(underTest.size(), is(4));
+    }
+
+    @Test
+    void remove_RemovesBookFromResults() {
+        indexAll();
+
+        underTest.remove("isbn-1");
+
+        assertThat(isbns(underTest.search("dune", 10)), contains("isbn-2"));
+        assertThat(underTest.size(), is(3));
+    }
+
+    @Test
+    void put_WhenBookWasRemovedSinceStampWasTaken_DoesNotIndexBook() {
+        long removalStamp = underTest.removalStamp(dune.isbn());
+
+        underTest.remove(dune.isbn());
+
+        assertThat(underTest.put(dune, removalStamp), is(false));
+        assertThat(underTest.put(duneMessiah, underTest.removalStamp(duneMessiah.isbn())), is(true));
+        assertThat(isbns(underTest.search("dune", 10)), contains("isbn-2"));
+    }
+
+    @Test
+    void put_AfterManyReplacements_RenumbersDocuments() {
+        indexAll();
+
+        for (int i = 0; i < 10_000; i++) {
+            underTest.put(new Book("isbn-1", "Dune " + i, "Frank Herbert", 1965, 1));
+        }
+
+        assertThat(underTest.documentIds(), lessThan(2_100));
+        assertThat(isbns(underTest.search("dune", 10)), containsInAnyOrder("isbn-1", "isbn-2"));
+        assertThat(isbns(underTest.search("9999", 10)), contains("isbn-1"));
+        assertThat(isbns(underTest.search("germinal", 10)), contains("isbn-3"));
+        assertThat(underTest.size(), is(4));
+    }
+
+    @Test
+    void search_ForBlankQuery_ReturnsNoHits() {
+        indexAll();
+
+        assertThat(underTest.search(" - ", 10), is(empty()));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void search_OverMillionBooks_AnswersSelectiveQueriesWithinAMillisecond() {
+        for (int i = 0; i < 1_000_000; i++) {
+            underTest.put(new Book("isbn-" + i, "Title " + i + " volume " + (i % 1000), "Author " + (i % 10_000), 2000, 1));
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            underTest.search("author " + (i * 7 % 10_000) + " volume", 10);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(underTest.search("author " + (i * 7 % 10_000) + " volume", 10).size(), is(10));
+        }
+        long averageNanos = (System.nanoTime() - start) / 1_000;
+        System.out.printf("search over %d books: %.1f us/query%n", underTest.size(), averageNanos / 1e3);
+
+        assertThat(averageNanos, lessThan(TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+
+    private void indexAll() {
+        List.of(dune, duneMessiah, germinal, frankenstein).forEach(underTest::put);
+    }
+
+    private static List<String> isbns(List<BookHit> hits) {
+        return hits.stream().map(BookHit::isbn).toList();
+    }
+}
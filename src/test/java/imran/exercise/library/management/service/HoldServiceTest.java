@@ -0,0 +1,70 @@
+package imran.exercise.library.management.service;
+
+import imran.exercise.library.management.cluster.CacheInvalidationBus;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookHold;
+import imran.exercise.library.management.exception.BookUnavailableException;
+import imran.exercise.library.management.exception.HoldNotFoundException;
+import imran.exercise.library.management.hold.HoldProperties;
+import imran.exercise.library.management.hold.HoldQueue;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HoldServiceTest {
+
+    private static final String isbn = "isbn-1";
+    private static final Book borrowedBook = new Book(isbn, "title", "author", 2024, 0);
+
+    private final Library library = mock(Library.class);
+    private final HoldQueue holdQueue = new HoldQueue(
+        new HoldProperties(1000, Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofSeconds(30)), new SimpleMeterRegistry());
+    private final HoldService underTest = new HoldService(library, holdQueue, new CacheInvalidationBus("node", null));
+
+    @Test
+    void placeHold_QueuesHoldWhenNoCopyIsAvailable() {
+        when(library.borrowBook(isbn)).thenThrow(new BookUnavailableException());
+
+        BookHold hold = underTest.placeHold(isbn);
+
+        assertThat(hold.status(), is(BookHold.Status.WAITING));
+        assertThat(hold.position(), is(1));
+        verify(library, never()).returnBook(isbn);
+    }
+
+    @Test
+    void placeHold_HandsCopyReturnedWhileQueueingToTheHold() {
+        when(library.borrowBook(isbn)).thenThrow(new BookUnavailableException()).thenReturn(borrowedBook);
+
+        BookHold hold = underTest.placeHold(isbn);
+
+        assertThat(hold.status(), is(BookHold.Status.FULFILLED));
+        assertThat(hold.book(), is(borrowedBook));
+    }
+
+    @Test
+    void awaitHold_CompletesWhenCopyIsHandedToHold() {
+        when(library.borrowBook(isbn)).thenThrow(new BookUnavailableException());
+        BookHold hold = underTest.placeHold(isbn);
+        CompletableFuture<BookHold> completion = underTest.awaitHold(hold.id());
+
+        holdQueue.fulfilNext(isbn, borrowedBook);
+
+        assertThat(completion.getNow(null), is(new BookHold(hold.id(), isbn, BookHold.Status.FULFILLED, 0, borrowedBook)));
+    }
+
+    @Test
+    void cancelHold_ThrowsForUnknownHold() {
+        assertThrows(HoldNotFoundException.class, () -> underTest.cancelHold("unknown"));
+    }
+}
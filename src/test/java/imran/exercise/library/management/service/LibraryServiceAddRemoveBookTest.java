@@ -1,20 +1,36 @@
 package imran.exercise.library.management.service;
 
 import imran.exercise.library.management.adapter.BookDtoToBookEntityAdapter;
-import imran.exercise.library.management.adapter.BookEntityToBookDtoAdapter;
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCacheProperties;
 import imran.exercise.library.management.cache.SimpleNoExpiryCache;
+import imran.exercise.library.management.cluster.CacheInvalidationBus;
 import imran.exercise.library.management.domain.BookEntity;
 import imran.exercise.library.management.dto.Book;
 import imran.exercise.library.management.exception.BookAlreadyExistsException;
 import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.exception.BookOnLoanException;
+import imran.exercise.library.management.hold.HoldProperties;
+import imran.exercise.library.management.hold.HoldQueue;
+import imran.exercise.library.management.ledger.LoanLedger;
 import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.retry.RetryPolicy;
+import imran.exercise.library.management.retry.RetryProperties;
+import imran.exercise.library.management.search.BookSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionOperations;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.util.List;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -31,6 +47,9 @@ public class LibraryServiceAddRemoveBookTest {
     private static final BookEntity bookEntity = new BookEntity(isbn, title, author, publicationYear, availableCopies);
 
     private final LibraryRepository libraryRepository = mock(LibraryRepository.class);
+    private final AbsentIsbnFilter absentIsbnFilter =
+        new AbsentIsbnFilter(new BookCacheProperties.Negative(true, 1000, 0.01, Duration.ofSeconds(10), 1000));
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
 
     private Library underTest;
 
@@ -39,24 +58,32 @@ public class LibraryServiceAddRemoveBookTest {
         underTest = new LibraryService(
             new SimpleNoExpiryCache(),
             libraryRepository,
-            new BookEntityToBookDtoAdapter(),
-            new BookDtoToBookEntityAdapter());
+            new BookDtoToBookEntityAdapter(),
+            searchIndex,
+            new RetryPolicy(new RetryProperties(3, Duration.ZERO, Duration.ZERO), new SimpleMeterRegistry()),
+            TransactionOperations.withoutTransaction(),
+            absentIsbnFilter,
+            new CacheInvalidationBus("node", null),
+            new LoanLedger(null, libraryRepository),
+            new HoldQueue(new HoldProperties(1000, Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofSeconds(30)), new SimpleMeterRegistry()),
+            new SimpleMeterRegistry());
     }
 
     @Test
     void addBook_AddsNewNonExistingBook() {
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.empty());
+        when(libraryRepository.existsById(isbn)).thenReturn(false);
         when(libraryRepository.save(bookEntity)).thenReturn(bookEntity);
-        underTest.addBook(book);
+        Book added = underTest.addBook(book);
 
-        verify(libraryRepository).findById(isbn);
+        assertThat(added == book, is(true));
+        verify(libraryRepository).existsById(isbn);
         verify(libraryRepository).save(bookEntity);
         verifyNoMoreInteractions(libraryRepository);
     }
 
     @Test
     void addBook_ThrowsExceptionWhenBookAlreadyExists() {
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.of(bookEntity));
+        when(libraryRepository.existsById(isbn)).thenReturn(true);
 
         assertThrows(BookAlreadyExistsException.class, () ->
             underTest.addBook(book), "BookAlreadyExistsException error was expected");
@@ -64,18 +91,50 @@ public class LibraryServiceAddRemoveBookTest {
 
     @Test
     void removeBook_RemovesAnExistingBook() {
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.of(bookEntity));
+        when(libraryRepository.deleteBook(isbn)).thenReturn(1);
         underTest.removeBook(isbn);
 
-        verify(libraryRepository).findById(isbn);
-        verify(libraryRepository).delete(bookEntity);
+        verify(libraryRepository).deleteBook(isbn);
         verifyNoMoreInteractions(libraryRepository);
     }
 
+    @Test
+    void removeBook_ThrowsExceptionWhenACopyIsOnLoan() {
+        when(libraryRepository.deleteBook(isbn)).thenReturn(0);
+        when(libraryRepository.existsById(isbn)).thenReturn(true);
+
+        assertThrows(BookOnLoanException.class, () ->
+            underTest.removeBook(isbn), "BookOnLoanException error was expected");
+    }
+
     @Test
     void removeBook_ThrowsExceptionWhenBookDoesNotExists() {
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.empty());
+        when(libraryRepository.deleteBook(isbn)).thenReturn(0);
         assertThrows(BookNotFoundException.class, () ->
             underTest.removeBook(isbn), "BookNotFoundException error was expected");
     }
+
+    @Test
+    void removeBook_WhenDeleteTimesOutWaitingForARowLock_DeletesItAgain() {
+        when(libraryRepository.deleteBook(isbn))
+            .thenThrow(new CannotAcquireLockException("lock timeout"))
+            .thenReturn(1);
+
+        underTest.removeBook(isbn);
+
+        verify(libraryRepository, times(2)).deleteBook(isbn);
+    }
+
+    @Test
+    void addBook_ThenRemoveBook_UpdatesSearchIndex() {
+        when(libraryRepository.existsById(isbn)).thenReturn(false);
+        when(libraryRepository.deleteBook(isbn)).thenReturn(1);
+        when(libraryRepository.save(bookEntity)).thenReturn(bookEntity);
+
+        underTest.addBook(book);
+        assertThat(underTest.searchBooks("titl", 10).get(0).isbn(), is(isbn));
+
+        underTest.removeBook(isbn);
+        assertThat(underTest.searchBooks("titl", 10), is(List.of()));
+    }
 }
@@ -0,0 +1,135 @@
+package imran.exercise.library.management.service;
+
+import imran.exercise.library.management.adapter.BookDtoToBookEntityAdapter;
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.cache.BookCacheProperties;
+import imran.exercise.library.management.cache.SimpleNoExpiryCache;
+import imran.exercise.library.management.cluster.CacheInvalidationBus;
+import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookResult;
+import imran.exercise.library.management.hold.HoldProperties;
+import imran.exercise.library.management.hold.HoldQueue;
+import imran.exercise.library.management.ledger.LoanLedger;
+import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import imran.exercise.library.management.retry.RetryPolicy;
+import imran.exercise.library.management.retry.RetryProperties;
+import imran.exercise.library.management.search.BookSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static imran.exercise.library.management.dto.BookResult.Status.ALREADY_EXISTS;
+import static imran.exercise.library.management.dto.BookResult.Status.NOT_FOUND;
+import static imran.exercise.library.management.dto.BookResult.Status.UNAVAILABLE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LibraryServiceBatchTest {
+
+    private static final Book book1 = new Book("isbn-1", "title-1", "author", 2024, 1);
+    private static final Book book2 = new Book("isbn-2", "title-2", "author", 2024, 0);
+    private static final Book book3 = new Book("isbn-3", "title-3", "author", 2024, 1);
+
+    private final LibraryRepository libraryRepository = mock(LibraryRepository.class);
+    private final BookCache cache = new SimpleNoExpiryCache();
+
+    private Library underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new LibraryService(
+            cache,
+            libraryRepository,
+            new BookDtoToBookEntityAdapter(),
+            new BookSearchIndex(),
+            new RetryPolicy(new RetryProperties(3, Duration.ZERO, Duration.ZERO), new SimpleMeterRegistry()),
+            TransactionOperations.withoutTransaction(),
+            new AbsentIsbnFilter(new BookCacheProperties.Negative(true, 1000, 0.01, Duration.ofSeconds(10), 1000)),
+            new CacheInvalidationBus("node", null),
+            new LoanLedger(null, libraryRepository),
+            new HoldQueue(new HoldProperties(1000, Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofSeconds(30)), new SimpleMeterRegistry()),
+            new SimpleMeterRegistry());
+    }
+
+    @Test
+    void addBooks_InsertsOnlyNewBooks_ReturnsResultPerBook() {
+        when(libraryRepository.findExistingIsbns(List.of("isbn-1", "isbn-3", "isbn-3"))).thenReturn(List.of("isbn-1"));
+
+        List<BookResult> results = underTest.addBooks(List.of(book1, book3, book3));
+
+        assertThat(results, is(List.of(
+            BookResult.failed("isbn-1", ALREADY_EXISTS),
+            BookResult.ok(book3),
+            BookResult.failed("isbn-3", ALREADY_EXISTS))));
+        verify(libraryRepository).insertAll(List.of(new BookEntity("isbn-3", "title-3", "author", 2024, 1)));
+        assertThat(cache.get("isbn-3"), is(book3));
+    }
+
+    @Test
+    void addBooks_WhenBookIsInsertedConcurrently_InsertsTheOtherBooks() {
+        List<String> isbns = List.of("isbn-1", "isbn-3");
+        when(libraryRepository.findExistingIsbns(isbns)).thenReturn(List.of()).thenReturn(List.of("isbn-1"));
+        doThrow(new DuplicateKeyException("isbn-1")).doNothing().when(libraryRepository).insertAll(any());
+
+        List<BookResult> results = underTest.addBooks(List.of(book1, book3));
+
+        assertThat(results, is(List.of(BookResult.failed("isbn-1", ALREADY_EXISTS), BookResult.ok(book3))));
+        verify(libraryRepository).insertAll(List.of(new BookEntity("isbn-3", "title-3", "author", 2024, 1)));
+        assertThat(cache.get("isbn-1"), is(nullValue()));
+        assertThat(cache.get("isbn-3"), is(book3));
+    }
+
+    @Test
+    void findBooksByISBN_ReadsOnlyCacheMissesInOneQuery_ReturnsResultPerIsbn() {
+        cache.put("isbn-1", book1);
+        when(libraryRepository.findVersionedBooks(List.of("isbn-2", "isbn-9"))).thenReturn(List.of(new VersionedBook(book2, 0)));
+
+        List<BookResult> results = underTest.findBooksByISBN(List.of("isbn-1", "isbn-2", "isbn-9"));
+
+        assertThat(results, is(List.of(BookResult.ok(book1), BookResult.ok(book2), BookResult.failed("isbn-9", NOT_FOUND))));
+        assertThat(cache.get("isbn-2"), is(book2));
+    }
+
+    @Test
+    void borrowBooks_ReturnsResultPerIsbn() {
+        List<String> isbns = List.of("isbn-1", "isbn-2", "isbn-9");
+        when(libraryRepository.batchDecrementAvailableCopies(isbns)).thenReturn(new int[]{1, 0, 0});
+        when(libraryRepository.findVersionedBooks(any())).thenReturn(List.of(
+            new VersionedBook(new Book("isbn-1", "title-1", "author", 2024, 0), 1), new VersionedBook(book2, 0)));
+
+        List<BookResult> results = underTest.borrowBooks(isbns);
+
+        assertThat(results, is(List.of(
+            BookResult.ok(new Book("isbn-1", "title-1", "author", 2024, 0)),
+            BookResult.failed("isbn-2", UNAVAILABLE),
+            BookResult.failed("isbn-9", NOT_FOUND))));
+        verify(libraryRepository).findVersionedBooks(Set.of("isbn-1", "isbn-2", "isbn-9"));
+    }
+
+    @Test
+    void returnBooks_ReturnsResultPerIsbn() {
+        List<String> isbns = List.of("isbn-1", "isbn-9");
+        when(libraryRepository.batchIncrementAvailableCopies(isbns)).thenReturn(new int[]{1, 0});
+        when(libraryRepository.findVersionedBooks(any())).thenReturn(List.of(new VersionedBook(book1, 1)));
+
+        List<BookResult> results = underTest.returnBooks(isbns);
+
+        assertThat(results, is(List.of(BookResult.ok(book1), BookResult.failed("isbn-9", NOT_FOUND))));
+        assertThat(cache.get("isbn-1"), is(book1));
+    }
+}
@@ -1,22 +1,38 @@
 package imran.exercise.library.management.service;
 
 import imran.exercise.library.management.adapter.BookDtoToBookEntityAdapter;
-import imran.exercise.library.management.adapter.BookEntityToBookDtoAdapter;
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCacheProperties;
 import imran.exercise.library.management.cache.SimpleNoExpiryCache;
-import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.cluster.CacheInvalidationBus;
 import imran.exercise.library.management.dto.Book;
 import imran.exercise.library.management.exception.BookNotFoundException;
 import imran.exercise.library.management.exception.BookUnavailableException;
+import imran.exercise.library.management.hold.HoldProperties;
+import imran.exercise.library.management.hold.HoldQueue;
+import imran.exercise.library.management.ledger.LoanLedger;
 import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import imran.exercise.library.management.retry.RetryPolicy;
+import imran.exercise.library.management.retry.RetryProperties;
+import imran.exercise.library.management.search.BookSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class LibraryServiceBorrowReturnBookTest {
@@ -25,7 +41,6 @@ public class LibraryServiceBorrowReturnBookTest {
     private static final String title = "title";
     private static final String author = "author";
     private static final Integer publicationYear = 2024;
-    private static final Integer availableCopies = 1;
 
     private final LibraryRepository libraryRepository = mock(LibraryRepository.class);
 
@@ -36,27 +51,51 @@ public class LibraryServiceBorrowReturnBookTest {
         underTest = new LibraryService(
             new SimpleNoExpiryCache(),
             libraryRepository,
-            new BookEntityToBookDtoAdapter(),
-            new BookDtoToBookEntityAdapter());
+            new BookDtoToBookEntityAdapter(),
+            new BookSearchIndex(),
+            new RetryPolicy(new RetryProperties(3, Duration.ZERO, Duration.ZERO), new SimpleMeterRegistry()),
+            TransactionOperations.withoutTransaction(),
+            new AbsentIsbnFilter(new BookCacheProperties.Negative(true, 1000, 0.01, Duration.ofSeconds(10), 1000)),
+            new CacheInvalidationBus("node", null),
+            new LoanLedger(null, libraryRepository),
+            new HoldQueue(new HoldProperties(1000, Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofSeconds(30)), new SimpleMeterRegistry()),
+            new SimpleMeterRegistry());
     }
 
     @Test
     void borrowBook_DecrementsAvailableCopies() {
-        BookEntity bookEntity = new BookEntity(isbn, title, author, publicationYear, availableCopies);
+        VersionedBook versionedBook = new VersionedBook(new Book(isbn, title, author, publicationYear, 0), 1);
         Book borrowedBookExpected = new Book(isbn, title, author, publicationYear, 0);
 
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.of(bookEntity));
+        when(libraryRepository.decrementAvailableCopies(isbn)).thenReturn(1);
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(versionedBook));
 
         Book borrowedBookActual = underTest.borrowBook(isbn);
 
         assertThat(borrowedBookActual, is(borrowedBookExpected));
+        verify(libraryRepository).decrementAvailableCopies(isbn);
+        verify(libraryRepository, never()).save(any());
     }
 
     @Test
-    void borrowBook_ThrowsExceptionWhenNoAvailableCopies() {
-        BookEntity bookEntity = new BookEntity(isbn, title, author, publicationYear, 0);
+    void borrowBook_RetriesOnConcurrentUpdate() {
+        VersionedBook versionedBook = new VersionedBook(new Book(isbn, title, author, publicationYear, 0), 1);
+
+        when(libraryRepository.decrementAvailableCopies(isbn))
+            .thenThrow(new PessimisticLockingFailureException("lock timeout"))
+            .thenReturn(1);
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(versionedBook));
+
+        Book borrowedBookActual = underTest.borrowBook(isbn);
 
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.of(bookEntity));
+        assertThat(borrowedBookActual, is(new Book(isbn, title, author, publicationYear, 0)));
+        verify(libraryRepository, times(2)).decrementAvailableCopies(isbn);
+    }
+
+    @Test
+    void borrowBook_ThrowsExceptionWhenNoAvailableCopies() {
+        when(libraryRepository.decrementAvailableCopies(isbn)).thenReturn(0);
+        when(libraryRepository.existsById(isbn)).thenReturn(true);
 
         assertThrows(BookUnavailableException.class, () ->
             underTest.borrowBook(isbn), "BookUnavailableException error was expected");
@@ -64,7 +103,8 @@ public class LibraryServiceBorrowReturnBookTest {
 
     @Test
     void borrowBook_ThrowsBookNotFoundException() {
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.empty());
+        when(libraryRepository.decrementAvailableCopies(isbn)).thenReturn(0);
+        when(libraryRepository.existsById(isbn)).thenReturn(false);
 
         assertThrows(BookNotFoundException.class, () ->
             underTest.borrowBook(isbn), "BookNotFoundException error was expected");
@@ -72,19 +112,22 @@ public class LibraryServiceBorrowReturnBookTest {
 
     @Test
     void returnBook_IncrementsAvailableCopies() {
-        BookEntity bookEntity = new BookEntity(isbn, title, author, publicationYear, availableCopies);
+        VersionedBook versionedBook = new VersionedBook(new Book(isbn, title, author, publicationYear, 2), 1);
         Book returnedBookExpected = new Book(isbn, title, author, publicationYear, 2);
 
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.of(bookEntity));
+        when(libraryRepository.incrementAvailableCopies(isbn)).thenReturn(1);
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(versionedBook));
 
         Book returnedBookActual = underTest.returnBook(isbn);
 
         assertThat(returnedBookActual, is(returnedBookExpected));
+        verify(libraryRepository).incrementAvailableCopies(isbn);
+        verify(libraryRepository, never()).save(any());
     }
 
     @Test
     void returnBook_ThrowsBookNotFoundException() {
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.empty());
+        when(libraryRepository.incrementAvailableCopies(isbn)).thenReturn(0);
         assertThrows(BookNotFoundException.class, () ->
             underTest.returnBook(isbn), "BookNotFoundException error was expected");
     }
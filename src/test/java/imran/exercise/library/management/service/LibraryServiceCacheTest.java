@@ -1,22 +1,49 @@
 package imran.exercise.library.management.service;
 
 import imran.exercise.library.management.adapter.BookDtoToBookEntityAdapter;
-import imran.exercise.library.management.adapter.BookEntityToBookDtoAdapter;
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCacheProperties;
 import imran.exercise.library.management.cache.SimpleNoExpiryCache;
+import imran.exercise.library.management.cluster.CacheInvalidationBus;
 import imran.exercise.library.management.domain.BookEntity;
 import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.hold.HoldProperties;
+import imran.exercise.library.management.hold.HoldQueue;
+import imran.exercise.library.management.ledger.LoanLedger;
 import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import imran.exercise.library.management.retry.RetryPolicy;
+import imran.exercise.library.management.retry.RetryProperties;
+import imran.exercise.library.management.search.BookSearchIndex;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
@@ -32,7 +59,10 @@ public class LibraryServiceCacheTest {
     private static final BookEntity bookEntity = new BookEntity(isbn, title, author, publicationYear, availableCopies);
 
     private final LibraryRepository libraryRepository = mock(LibraryRepository.class);
+    private final AbsentIsbnFilter absentIsbnFilter =
+        new AbsentIsbnFilter(new BookCacheProperties.Negative(true, 1000, 0.01, Duration.ofSeconds(10), 1000));
     private final SimpleNoExpiryCache cache = new SimpleNoExpiryCache();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     private Library underTest;
 
@@ -42,13 +72,20 @@ public class LibraryServiceCacheTest {
         underTest = new LibraryService(
             cache,
             libraryRepository,
-            new BookEntityToBookDtoAdapter(),
-            new BookDtoToBookEntityAdapter());
+            new BookDtoToBookEntityAdapter(),
+            new BookSearchIndex(),
+            new RetryPolicy(new RetryProperties(3, Duration.ZERO, Duration.ZERO), new SimpleMeterRegistry()),
+            TransactionOperations.withoutTransaction(),
+            absentIsbnFilter,
+            new CacheInvalidationBus("node", null),
+            new LoanLedger(null, libraryRepository),
+            new HoldQueue(new HoldProperties(1000, Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofSeconds(30)), new SimpleMeterRegistry()),
+            meterRegistry);
     }
 
     @Test
     void addBook_AddsBookToCache() {
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.empty());
+        when(libraryRepository.existsById(isbn)).thenReturn(false);
         when(libraryRepository.save(bookEntity)).thenReturn(bookEntity);
 
         underTest.addBook(book);
@@ -59,13 +96,26 @@ public class LibraryServiceCacheTest {
     @Test
     void removeBook_RemovesBookFromCache() {
         cache.put(book.isbn(), book);
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.of(bookEntity));
+        when(libraryRepository.deleteBook(isbn)).thenReturn(1);
 
         underTest.removeBook(isbn);
 
         assertNull(cache.get(book.isbn()));
     }
 
+    @Test
+    void findBookByIsbn_DoesNotCacheBookRemovedWhileItWasRead() {
+        when(libraryRepository.deleteBook(isbn)).thenReturn(1);
+        when(libraryRepository.findVersionedBook(isbn)).thenAnswer(invocation -> {
+            underTest.removeBook(isbn);
+            return Optional.of(new VersionedBook(book, 0));
+        });
+
+        underTest.findBookByISBN(isbn);
+
+        assertNull(cache.get(isbn));
+    }
+
     @Test
     void findBookByIsbn_ReturnsBookFromCache() {
         cache.put(book.isbn(), book);
@@ -75,13 +125,206 @@ public class LibraryServiceCacheTest {
     }
 
     @Test
-    void findBookByAuthor_ReturnsMultipleBooks() {
+    void findBookByIsbn_CachesBookLoadedFromRepository() {
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(new VersionedBook(book, 0)));
+
+        underTest.findBookByISBN(isbn);
+
+        assertEquals(underTest.findBookByISBN(isbn), book);
+        verify(libraryRepository, times(1)).findVersionedBook(isbn);
+    }
+
+    @Test
+    void findBookByIsbn_WhenIsbnIsNotInLoadedFilter_ThrowsWithoutReadingRepository() {
+        absentIsbnFilter.added("anotherIsbn");
+        absentIsbnFilter.markLoaded();
+
+        BookNotFoundException exception = assertThrows(BookNotFoundException.class, () -> underTest.findBookByISBN(isbn));
+
+        assertThat(exception.getStackTrace().length, is(0));
+        verifyNoInteractions(libraryRepository);
+    }
+
+    @Test
+    void findBookByIsbn_RemembersIsbnNotFoundInRepository() {
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.empty());
+
+        assertThrows(BookNotFoundException.class, () -> underTest.findBookByISBN(isbn));
+        assertThrows(BookNotFoundException.class, () -> underTest.findBookByISBN(isbn));
+
+        verify(libraryRepository, times(1)).findVersionedBook(isbn);
+    }
+
+    @Test
+    void addBook_AfterIsbnWasNotFound_MakesBookFindable() {
+        absentIsbnFilter.markLoaded();
+        assertThrows(BookNotFoundException.class, () -> underTest.findBookByISBN(isbn));
+        when(libraryRepository.existsById(isbn)).thenReturn(false);
+        when(libraryRepository.save(bookEntity)).thenReturn(bookEntity);
+
+        underTest.addBook(book);
+        cache.clear();
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(new VersionedBook(book, 0)));
+
+        assertThat(underTest.findBookByISBN(isbn), is(book));
+    }
+
+    @Test
+    void removeBook_MakesIsbnAbsent() {
+        absentIsbnFilter.added(isbn);
+        absentIsbnFilter.markLoaded();
+        when(libraryRepository.deleteBook(isbn)).thenReturn(1);
+
+        underTest.removeBook(isbn);
+
+        assertThrows(BookNotFoundException.class, () -> underTest.findBookByISBN(isbn));
+        verify(libraryRepository, times(0)).findVersionedBook(isbn);
+    }
+
+    @Test
+    void removeBook_WhenBookWasAlreadyDeleted_DoesNotRecordRemovalAgain() {
+        absentIsbnFilter.added(isbn);
+        absentIsbnFilter.markLoaded();
+        when(libraryRepository.deleteBook(isbn)).thenReturn(0);
+
+        assertThrows(BookNotFoundException.class, () -> underTest.removeBook(isbn));
+
+        assertThat(absentIsbnFilter.isAbsent(isbn), is(false));
+    }
+
+    @Test
+    void findBookByIsbn_ConcurrentMisses_ReadRepositoryOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(libraryRepository.findVersionedBook(isbn)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(new VersionedBook(book, 0));
+        });
+
+        List<Book> books = concurrently(4, () -> underTest.findBookByISBN(isbn), release);
+
+        assertThat(books, is(List.of(book, book, book, book)));
+        verify(libraryRepository, times(1)).findVersionedBook(isbn);
+    }
+
+    @Test
+    void findBooksByAuthor_ConcurrentMisses_ReadRepositoryOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(libraryRepository.findBooksByAuthor(author)).thenAnswer(invocation -> {
+            release.await();
+            return List.of(book);
+        });
+
+        List<List<Book>> books = concurrently(4, () -> underTest.findBooksByAuthor(author), release);
+
+        assertThat(books, is(List.of(List.of(book), List.of(book), List.of(book), List.of(book))));
+        verify(libraryRepository, times(1)).findBooksByAuthor(author);
+    }
+
+    @Test
+    void borrowBook_UpdatesCachedBook() {
+        VersionedBook borrowedBook = new VersionedBook(new Book(isbn, title, author, publicationYear, 0), 1);
+        cache.put(book.isbn(), book);
+        when(libraryRepository.decrementAvailableCopies(isbn)).thenReturn(1);
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(borrowedBook));
+
+        underTest.borrowBook(isbn);
+
+        assertThat(underTest.findBookByISBN(isbn).availableCopies(), is(0));
+    }
+
+    @Test
+    void returnBook_UpdatesCachedBook() {
+        VersionedBook returnedBook = new VersionedBook(new Book(isbn, title, author, publicationYear, 2), 1);
+        cache.put(book.isbn(), book);
+        when(libraryRepository.incrementAvailableCopies(isbn)).thenReturn(1);
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(returnedBook));
+
+        underTest.returnBook(isbn);
+
+        assertThat(underTest.findBookByISBN(isbn).availableCopies(), is(2));
+    }
+
+    @Test
+    void borrowBook_DoesNotReplaceNewerCachedBook() {
+        VersionedBook staleBook = new VersionedBook(new Book(isbn, title, author, publicationYear, 1), 1);
+        Book newerBook = new Book(isbn, title, author, publicationYear, 0);
+        cache.putIfNewer(isbn, newerBook, 2L);
+        when(libraryRepository.decrementAvailableCopies(isbn)).thenReturn(1);
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(staleBook));
+
+        underTest.borrowBook(isbn);
+
+        assertEquals(cache.get(isbn), newerBook);
+    }
+
+    @Test
+    void findBookByAuthor_ReturnsMultipleBooksFromCacheOnceLoaded() {
         Book anotherBook = new Book("isbn2", "title2", author, 1999, 2);
+        when(libraryRepository.findBooksByAuthor(author)).thenReturn(List.of(book, anotherBook));
+
+        underTest.findBooksByAuthor(author);
 
+        assertThat(underTest.findBooksByAuthor(author), containsInAnyOrder(List.of(book, anotherBook).toArray()));
+        verify(libraryRepository, times(1)).findBooksByAuthor(author);
+    }
+
+    @Test
+    void findBookByAuthor_WhenAuthorIsPartiallyCached_ReturnsAllBooksFromRepository() {
+        Book anotherBook = new Book("isbn2", "title2", author, 1999, 2);
         cache.put(book.isbn(), book);
-        cache.put(anotherBook.isbn(), anotherBook);
+        when(libraryRepository.findBooksByAuthor(author)).thenReturn(List.of(book, anotherBook));
 
         assertThat(underTest.findBooksByAuthor(author), containsInAnyOrder(List.of(book, anotherBook).toArray()));
-        verifyNoInteractions(libraryRepository);
+    }
+
+    @Test
+    void addBook_AddsBookToCachedAuthor() {
+        Book anotherBook = new Book("isbn2", "title2", author, 1999, 2);
+        when(libraryRepository.findBooksByAuthor(author)).thenReturn(List.of(book));
+        when(libraryRepository.existsById(anotherBook.isbn())).thenReturn(false);
+        when(libraryRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        underTest.findBooksByAuthor(author);
+
+        underTest.addBook(anotherBook);
+
+        assertThat(underTest.findBooksByAuthor(author), containsInAnyOrder(List.of(book, anotherBook).toArray()));
+        verify(libraryRepository, times(1)).findBooksByAuthor(author);
+    }
+
+    @Test
+    void removeBook_RemovesBookFromCachedAuthor() {
+        when(libraryRepository.findBooksByAuthor(author)).thenReturn(List.of(book)).thenReturn(List.of());
+        when(libraryRepository.deleteBook(isbn)).thenReturn(1);
+        underTest.findBooksByAuthor(author);
+
+        underTest.removeBook(isbn);
+
+        assertThat(underTest.findBooksByAuthor(author), is(List.of()));
+    }
+
+    /**
+     * Runs the call from the given number of threads, releasing the repository once all callers are waiting
+     */
+    private <T> List<T> concurrently(int callers, Callable<T> call, CountDownLatch release) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(call));
+            }
+            while (meterRegistry.find("library.cache.loads").tag("result", "coalesced").functionCounters().stream()
+                .mapToDouble(FunctionCounter::count).sum() < callers - 1) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
     }
 }
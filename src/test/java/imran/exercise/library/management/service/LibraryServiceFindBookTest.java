@@ -1,22 +1,39 @@
 package imran.exercise.library.management.service;
 
 import imran.exercise.library.management.adapter.BookDtoToBookEntityAdapter;
-import imran.exercise.library.management.adapter.BookEntityToBookDtoAdapter;
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCacheProperties;
 import imran.exercise.library.management.cache.SimpleNoExpiryCache;
-import imran.exercise.library.management.domain.BookEntity;
+import imran.exercise.library.management.cluster.CacheInvalidationBus;
 import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookPage;
 import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.hold.HoldProperties;
+import imran.exercise.library.management.hold.HoldQueue;
+import imran.exercise.library.management.ledger.LoanLedger;
 import imran.exercise.library.management.persistence.LibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import imran.exercise.library.management.retry.RetryPolicy;
+import imran.exercise.library.management.retry.RetryProperties;
+import imran.exercise.library.management.search.BookSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -29,7 +46,6 @@ public class LibraryServiceFindBookTest {
     private static final Integer availableCopies = 1;
 
     private static final Book book = new Book(isbn, title, author, publicationYear, availableCopies);
-    private static final BookEntity bookEntity = new BookEntity(isbn, title, author, publicationYear, availableCopies);
 
     private final LibraryRepository libraryRepository = mock(LibraryRepository.class);
 
@@ -40,52 +56,92 @@ public class LibraryServiceFindBookTest {
         underTest = new LibraryService(
             new SimpleNoExpiryCache(),
             libraryRepository,
-            new BookEntityToBookDtoAdapter(),
-            new BookDtoToBookEntityAdapter());
+            new BookDtoToBookEntityAdapter(),
+            new BookSearchIndex(),
+            new RetryPolicy(new RetryProperties(3, Duration.ZERO, Duration.ZERO), new SimpleMeterRegistry()),
+            TransactionOperations.withoutTransaction(),
+            new AbsentIsbnFilter(new BookCacheProperties.Negative(true, 1000, 0.01, Duration.ofSeconds(10), 1000)),
+            new CacheInvalidationBus("node", null),
+            new LoanLedger(null, libraryRepository),
+            new HoldQueue(new HoldProperties(1000, Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofSeconds(30)), new SimpleMeterRegistry()),
+            new SimpleMeterRegistry());
     }
 
     @Test
     void findBookByIsbn_ReturnsBook() {
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.of(bookEntity));
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.of(new VersionedBook(book, 0)));
         assertThat(underTest.findBookByISBN(isbn), is(book));
     }
 
     @Test
     void findBookByIsbn_ThrowsBookNotFoundException() {
-        when(libraryRepository.findById(isbn)).thenReturn(Optional.empty());
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Optional.empty());
         assertThrows(BookNotFoundException.class, () ->
             underTest.findBookByISBN(isbn), "BookNotFoundException error was expected");
     }
 
     @Test
     void findBookByIsbn_ThrowsException() {
-        when(libraryRepository.findById(isbn)).thenThrow(new RuntimeException("junit test"));
+        when(libraryRepository.findVersionedBook(isbn)).thenThrow(new RuntimeException("junit test"));
         assertThrows(RuntimeException.class, () ->
             underTest.findBookByISBN(isbn), "RuntimeException error was expected");
     }
 
     @Test
     void findBookByAuthor_ReturnsABook() {
-        when(libraryRepository.findAll(booksByAuthor(author))).thenReturn(List.of(bookEntity));
+        when(libraryRepository.findBooksByAuthor(author)).thenReturn(List.of(book));
         assertThat(underTest.findBooksByAuthor(author), is(List.of(book)));
     }
 
     @Test
     void findBookByAuthor_ReturnsMultipleBooks() {
-        BookEntity anotherBookEntity = new BookEntity("isbn2", "title2", author, 1999, 2);
         Book anotherBook = new Book("isbn2", "title2", author, 1999, 2);
 
-        when(libraryRepository.findAll(booksByAuthor(author))).thenReturn(List.of(bookEntity, anotherBookEntity));
+        when(libraryRepository.findBooksByAuthor(author)).thenReturn(List.of(book, anotherBook));
         assertThat(underTest.findBooksByAuthor(author), is(List.of(book, anotherBook)));
     }
 
     @Test
     void findBookByAuthor_ReturnsEmptyList() {
-        when(libraryRepository.findAll(booksByAuthor(author))).thenReturn(List.of());
+        when(libraryRepository.findBooksByAuthor(author)).thenReturn(List.of());
         assertThat(underTest.findBooksByAuthor(author), is(List.of()));
     }
 
-    private Example<BookEntity> booksByAuthor(String author) {
-        return Example.of(new BookEntity(null, null, author, null, null));
+    @Test
+    void findBookByAuthor_WithoutAuthor_ReturnsAllBooks() {
+        when(libraryRepository.findAllBooks()).thenReturn(List.of(book));
+        assertThat(underTest.findBooksByAuthor(null), is(List.of(book)));
+    }
+
+    @Test
+    void findBooksByAuthorPage_ForFullPage_ReturnsNextCursor() {
+        Book anotherBook = new Book("testIsbn2", "title2", author, 1999, 2);
+        when(libraryRepository.findBooksByAuthorAfter(author, "", Limit.of(2))).thenReturn(List.of(book, anotherBook));
+
+        BookPage page = underTest.findBooksByAuthor(author, null, 2);
+
+        assertThat(page, is(new BookPage(List.of(book, anotherBook), "testIsbn2")));
+    }
+
+    @Test
+    void findBooksByAuthorPage_ForLastPage_ReturnsNoCursor() {
+        when(libraryRepository.findBooksAfter(isbn, Limit.of(LibraryService.MAXIMUM_PAGE_SIZE))).thenReturn(List.of(book));
+
+        BookPage page = underTest.findBooksByAuthor(null, isbn, Integer.MAX_VALUE);
+
+        assertThat(page, is(new BookPage(List.of(book), null)));
+    }
+
+    @Test
+    void forEachBookByAuthor_PassesEachBookToAction() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<Book>>getArgument(1).accept(book);
+            return null;
+        }).when(libraryRepository).forEachBook(eq(author), any());
+
+        List<Book> books = new ArrayList<>();
+        underTest.forEachBookByAuthor(author, books::add);
+
+        assertThat(books, is(List.of(book)));
     }
 }
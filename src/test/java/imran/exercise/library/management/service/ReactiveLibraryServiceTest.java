@@ -0,0 +1,154 @@
+package imran.exercise.library.management.service;
+
+import imran.exercise.library.management.cache.AbsentIsbnFilter;
+import imran.exercise.library.management.cache.BookCache;
+import imran.exercise.library.management.cache.BookCacheProperties;
+import imran.exercise.library.management.cache.SimpleNoExpiryCache;
+import imran.exercise.library.management.cluster.CacheInvalidationBus;
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.exception.BookAlreadyExistsException;
+import imran.exercise.library.management.exception.BookNotFoundException;
+import imran.exercise.library.management.exception.BookOnLoanException;
+import imran.exercise.library.management.exception.BookUnavailableException;
+import imran.exercise.library.management.hold.HoldProperties;
+import imran.exercise.library.management.hold.HoldQueue;
+import imran.exercise.library.management.ledger.LoanLedger;
+import imran.exercise.library.management.persistence.ReactiveLibraryRepository;
+import imran.exercise.library.management.persistence.VersionedBook;
+import imran.exercise.library.management.retry.RetryProperties;
+import imran.exercise.library.management.search.BookSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveLibraryServiceTest {
+
+    private static final String isbn = "isbn";
+    private static final Book book = new Book(isbn, "title", "author", 2024, 1);
+    private static final Book borrowedBook = new Book(isbn, "title", "author", 2024, 0);
+
+    private final ReactiveLibraryRepository libraryRepository = mock(ReactiveLibraryRepository.class);
+    private final BookCache cache = new SimpleNoExpiryCache();
+    private final AbsentIsbnFilter absentIsbnFilter =
+        new AbsentIsbnFilter(new BookCacheProperties.Negative(true, 1000, 0.01, Duration.ofSeconds(10), 1000));
+
+    private ReactiveLibraryService underTest;
+
+    @BeforeEach
+    void setUp() {
+        underTest = new ReactiveLibraryService(
+            cache,
+            libraryRepository,
+            new BookSearchIndex(),
+            absentIsbnFilter,
+            new CacheInvalidationBus("node", null),
+            new LoanLedger(null, null),
+            new HoldQueue(new HoldProperties(1000, Duration.ofHours(1), Duration.ofMinutes(5), Duration.ofSeconds(30)), new SimpleMeterRegistry()),
+            new RetryProperties(3, Duration.ZERO, Duration.ZERO));
+    }
+
+    @Test
+    void findBookByISBN_ReadsBookMissingFromCache_AndCachesIt() {
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Mono.just(new VersionedBook(book, 0)));
+
+        StepVerifier.create(underTest.findBookByISBN(isbn)).expectNext(book).verifyComplete();
+        StepVerifier.create(underTest.findBookByISBN(isbn)).expectNext(book).verifyComplete();
+
+        assertThat(cache.get(isbn), is(book));
+        verify(libraryRepository).findVersionedBook(isbn);
+    }
+
+    @Test
+    void findBookByISBN_SignalsNotFound_AndRemembersAbsentIsbn() {
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Mono.empty());
+
+        StepVerifier.create(underTest.findBookByISBN(isbn)).verifyError(BookNotFoundException.class);
+
+        assertThat(absentIsbnFilter.isAbsent(isbn), is(true));
+    }
+
+    @Test
+    void findBooksByAuthor_ReturnsCachedAuthorBooks_WithoutReadingDatabase() {
+        cache.putAuthor("author", List.of(book), cache.authorStamp("author"));
+
+        StepVerifier.create(underTest.findBooksByAuthor("author")).expectNext(book).verifyComplete();
+
+        verify(libraryRepository, never()).findBooksByAuthor("author");
+    }
+
+    @Test
+    void findBooksByAuthor_ReturnsCursorOfFullPage() {
+        when(libraryRepository.findBooksAfter("author", "", 1)).thenReturn(Flux.just(book));
+
+        StepVerifier.create(underTest.findBooksByAuthor("author", null, 1))
+            .assertNext(page -> assertThat(page.nextCursor(), is(isbn)))
+            .verifyComplete();
+    }
+
+    @Test
+    void addBook_SignalsAlreadyExists_OnDuplicateKey() {
+        when(libraryRepository.insert(book)).thenReturn(Mono.error(new DuplicateKeyException("duplicate")));
+
+        StepVerifier.create(underTest.addBook(book)).verifyError(BookAlreadyExistsException.class);
+
+        assertThat(cache.get(isbn), is(nullValue()));
+    }
+
+    @Test
+    void removeBook_SignalsOnLoan_OrNotFound_WhenNotDeleted() {
+        when(libraryRepository.delete(isbn)).thenReturn(Mono.just(0L));
+        when(libraryRepository.existsById(isbn)).thenReturn(Mono.just(true)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(underTest.removeBook(isbn)).verifyError(BookOnLoanException.class);
+        StepVerifier.create(underTest.removeBook(isbn)).verifyError(BookNotFoundException.class);
+    }
+
+    @Test
+    void borrowBook_CachesUpdatedBook() {
+        when(libraryRepository.decrementAvailableCopies(isbn)).thenReturn(Mono.just(1L));
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Mono.just(new VersionedBook(borrowedBook, 1)));
+
+        StepVerifier.create(underTest.borrowBook(isbn)).expectNext(borrowedBook).verifyComplete();
+
+        assertThat(cache.get(isbn), is(borrowedBook));
+    }
+
+    @Test
+    void borrowBook_SignalsUnavailable_OrNotFound_WhenNotUpdated() {
+        when(libraryRepository.decrementAvailableCopies(isbn)).thenReturn(Mono.just(0L));
+        when(libraryRepository.existsById(isbn)).thenReturn(Mono.just(true)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(underTest.borrowBook(isbn)).verifyError(BookUnavailableException.class);
+        StepVerifier.create(underTest.borrowBook(isbn)).verifyError(BookNotFoundException.class);
+    }
+
+    @Test
+    void returnBook_RetriesConcurrencyFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+        when(libraryRepository.incrementAvailableCopies(isbn)).thenReturn(Mono.defer(() -> attempts.incrementAndGet() < 3
+            ? Mono.error(new PessimisticLockingFailureException("lock timeout"))
+            : Mono.just(1L)));
+        when(libraryRepository.findVersionedBook(isbn)).thenReturn(Mono.just(new VersionedBook(book, 2)));
+
+        StepVerifier.create(underTest.returnBook(isbn)).expectNext(book).verifyComplete();
+
+        assertThat(attempts.get(), is(3));
+    }
+}
@@ -0,0 +1,98 @@
+package imran.exercise.library.management.web.controller;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookResult;
+import imran.exercise.library.management.service.LibraryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static imran.exercise.library.management.dto.BookResult.Status.NOT_FOUND;
+import static imran.exercise.library.management.dto.BookResult.Status.UNAVAILABLE;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+class LibraryControllerBatchTest {
+
+    private static final Book book = new Book("isbn-1", "title", "author", 2024, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LibraryService library;
+
+    @Test
+    void addBooks_ReturnsResultPerBook() throws Exception {
+        when(library.addBooks(List.of(book))).thenReturn(List.of(BookResult.ok(book)));
+
+        mockMvc.perform(post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"isbn\":\"isbn-1\",\"title\":\"title\",\"author\":\"author\",\"publicationYear\":2024,\"availableCopies\":1}]"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+            .andExpect(jsonPath("$[0].isbn", is("isbn-1")))
+            .andExpect(jsonPath("$[0].status", is("OK")))
+            .andExpect(jsonPath("$[0].book.title", is("title")));
+
+        verify(library).addBooks(List.of(book));
+    }
+
+    @Test
+    void getBooks_ReturnsResultPerIsbn() throws Exception {
+        when(library.findBooksByISBN(List.of("isbn-1", "isbn-2")))
+            .thenReturn(List.of(BookResult.ok(book), BookResult.failed("isbn-2", NOT_FOUND)));
+
+        mockMvc.perform(post("/api/books/batch/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"isbn-1\",\"isbn-2\"]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()", is(2)))
+            .andExpect(jsonPath("$[0].status", is("OK")))
+            .andExpect(jsonPath("$[1].isbn", is("isbn-2")))
+            .andExpect(jsonPath("$[1].status", is("NOT_FOUND")))
+            .andExpect(jsonPath("$[1].book", nullValue()));
+    }
+
+    @Test
+    void borrowBooks_ReturnsResultPerIsbn() throws Exception {
+        when(library.borrowBooks(List.of("isbn-1"))).thenReturn(List.of(BookResult.failed("isbn-1", UNAVAILABLE)));
+
+        mockMvc.perform(put("/api/books/batch/borrow")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"isbn-1\"]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].status", is("UNAVAILABLE")));
+
+        verify(library).borrowBooks(List.of("isbn-1"));
+    }
+
+    @Test
+    void returnBooks_ReturnsResultPerIsbn() throws Exception {
+        when(library.returnBooks(List.of("isbn-1"))).thenReturn(List.of(BookResult.ok(book)));
+
+        mockMvc.perform(put("/api/books/batch/return")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"isbn-1\"]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].status", is("OK")))
+            .andExpect(jsonPath("$[0].book.availableCopies", is(1)));
+
+        verify(library).returnBooks(List.of("isbn-1"));
+    }
+}
@@ -9,17 +9,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
@@ -115,4 +126,107 @@ class LibraryControllerGetBookTest {
 
         verify(library).findBooksByAuthor(author);
     }
+
+    @Test
+    void getBookByIsbn_ReturnsETagAndCacheControl() throws Exception {
+        when(library.findBookByISBN(isbn)).thenReturn(book);
+
+        mockMvc.perform(get("/api/books/" + isbn))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, BookETags.of(book)))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    @Test
+    void getBookByIsbn_WhenETagMatches_ReturnsNotModifiedWithoutBody() throws Exception {
+        when(library.findBookByISBN(isbn)).thenReturn(book);
+
+        mockMvc.perform(get("/api/books/" + isbn)
+                .header(HttpHeaders.IF_NONE_MATCH, BookETags.of(book)))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, BookETags.of(book)))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    void getBookByIsbn_WhenBookChanged_ReturnsBookWithNewETag() throws Exception {
+        Book borrowedBook = new Book(isbn, title, author, publicationYear, availableCopies - 1);
+        when(library.findBookByISBN(isbn)).thenReturn(borrowedBook);
+
+        mockMvc.perform(get("/api/books/" + isbn)
+                .header(HttpHeaders.IF_NONE_MATCH, BookETags.of(book)))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(BookETags.of(book))))
+            .andExpect(jsonPath("availableCopies", is(availableCopies - 1)));
+    }
+
+    @Test
+    void getBooksByAuthor_WhenETagMatches_ReturnsNotModified() throws Exception {
+        when(library.findBooksByAuthor(author)).thenReturn(List.of(book));
+
+        mockMvc.perform(get("/api/books?author=" + author)
+                .header(HttpHeaders.IF_NONE_MATCH, BookETags.of(List.of(book))))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    void getBookByIsbn_WhenETagMatchesCachedBook_ReturnsNotModifiedWithoutReadingTheBook() throws Exception {
+        when(library.findCachedBook(isbn)).thenReturn(book);
+
+        mockMvc.perform(get("/api/books/" + isbn)
+                .header(HttpHeaders.IF_NONE_MATCH, "W/" + BookETags.of(book)))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, BookETags.of(book)))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andExpect(content().string(""));
+        verify(library, never()).findBookByISBN(isbn);
+    }
+
+    @Test
+    void getBookByIsbn_WhenETagDoesNotMatchCachedBook_ReturnsBook() throws Exception {
+        Book borrowedBook = new Book(isbn, title, author, publicationYear, availableCopies - 1);
+        when(library.findCachedBook(isbn)).thenReturn(borrowedBook);
+        when(library.findBookByISBN(isbn)).thenReturn(borrowedBook);
+
+        mockMvc.perform(get("/api/books/" + isbn)
+                .header(HttpHeaders.IF_NONE_MATCH, BookETags.of(book)))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, BookETags.of(borrowedBook)));
+    }
+
+    @Test
+    void getBooksByAuthor_WhenETagMatchesCachedBooks_ReturnsNotModifiedWithoutReadingTheBooks() throws Exception {
+        when(library.findCachedBooksByAuthor(author)).thenReturn(List.of(book));
+
+        mockMvc.perform(get("/api/books?author=" + author)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + BookETags.of(List.of(book))))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+        verify(library, never()).findBooksByAuthor(author);
+    }
+
+    @Test
+    void getBooksByAuthor_WithoutAuthor_StreamsAllBooksWithoutETag() throws Exception {
+        Book otherBook = new Book("otherIsbn", title, "otherAuthor", publicationYear, availableCopies);
+        doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(1);
+            action.accept(book);
+            action.accept(otherBook);
+            return null;
+        }).when(library).forEachBookByAuthor(isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/books"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+            .andExpect(jsonPath("$.length()", is(2)))
+            .andExpect(jsonPath("$[0].isbn", is(isbn)))
+            .andExpect(jsonPath("$[1].isbn", is("otherIsbn")));
+        verify(library, never()).findBooksByAuthor(null);
+    }
 }
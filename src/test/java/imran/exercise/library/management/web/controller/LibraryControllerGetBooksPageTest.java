@@ -0,0 +1,88 @@
+package imran.exercise.library.management.web.controller;
+
+import imran.exercise.library.management.dto.Book;
+import imran.exercise.library.management.dto.BookPage;
+import imran.exercise.library.management.service.LibraryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+class LibraryControllerGetBooksPageTest {
+
+    private static final String author = "author";
+    private static final Book book1 = new Book("isbn-1", "title-1", author, 2024, 1);
+    private static final Book book2 = new Book("isbn-2", "title-2", author, 2024, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LibraryService library;
+
+    @Test
+    void getBooksPageByAuthor_ReturnsBooksAndNextCursor() throws Exception {
+        when(library.findBooksByAuthor(author, "isbn-0", 2)).thenReturn(new BookPage(List.of(book1, book2), "isbn-2"));
+
+        mockMvc.perform(get("/api/books/query/page?author=author&after=isbn-0&limit=2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.books.length()", is(2)))
+            .andExpect(jsonPath("$.books[1].isbn", is("isbn-2")))
+            .andExpect(jsonPath("$.nextCursor", is("isbn-2")));
+
+        verify(library).findBooksByAuthor(author, "isbn-0", 2);
+    }
+
+    @Test
+    void getBooksPageByAuthor_WithoutParameters_ReturnsFirstPageOfAllBooks() throws Exception {
+        when(library.findBooksByAuthor(null, null, 100)).thenReturn(new BookPage(List.of(book1), null));
+
+        mockMvc.perform(get("/api/books/query/page"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.books[0].isbn", is("isbn-1")))
+            .andExpect(jsonPath("$.nextCursor", nullValue()));
+    }
+
+    @Test
+    void streamBooksByAuthor_WritesOneBookPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(1);
+            action.accept(book1);
+            action.accept(book2);
+            return null;
+        }).when(library).forEachBookByAuthor(eq(author), any());
+
+        MvcResult result = mockMvc.perform(get("/api/books/query/stream?author=author"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(LibraryController.APPLICATION_NDJSON))
+            .andExpect(content().string(
+                "{\"isbn\":\"isbn-1\",\"title\":\"title-1\",\"author\":\"author\",\"publicationYear\":2024,\"availableCopies\":1}\n" +
+                "{\"isbn\":\"isbn-2\",\"title\":\"title-2\",\"author\":\"author\",\"publicationYear\":2024,\"availableCopies\":1}\n"));
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -58,6 +59,17 @@ class LibraryControllerRemoveBookTest {
         verify(library).removeBook(isbn);
     }
 
+    @Test
+    void removeBook_WhenBookStaysLockedByConcurrentUpdates_ReturnsConflict() throws Exception {
+        doThrow(new PessimisticLockingFailureException("lock timeout")).when(library).removeBook(isbn);
+
+        mockMvc.perform(delete("/api/books/" + isbn)
+                .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isConflict());
+
+        verify(library).removeBook(isbn);
+    }
+
     @Test
     void removeBook_WhenServiceCallFails_ReturnsInternalServerError() throws Exception {
         doThrow(new RuntimeException()).when(library).removeBook(isbn);
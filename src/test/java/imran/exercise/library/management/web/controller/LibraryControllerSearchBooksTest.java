@@ -0,0 +1,52 @@
+package imran.exercise.library.management.web.controller;
+
+import imran.exercise.library.management.dto.BookHit;
+import imran.exercise.library.management.service.LibraryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@AutoConfigureMockMvc
+class LibraryControllerSearchBooksTest {
+
+    private static final BookHit hit = new BookHit("isbn-1", "Dune", "Frank Herbert", 1965, 2.5);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LibraryService library;
+
+    @Test
+    void searchBooks_ReturnsHits() throws Exception {
+        when(library.searchBooks("dune herb", 5)).thenReturn(List.of(hit));
+
+        mockMvc.perform(get("/api/books/query/search?q=dune herb&limit=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()", is(1)))
+            .andExpect(jsonPath("$[0].isbn", is("isbn-1")))
+            .andExpect(jsonPath("$[0].title", is("Dune")))
+            .andExpect(jsonPath("$[0].score", is(2.5)));
+
+        verify(library).searchBooks("dune herb", 5);
+    }
+
+    @Test
+    void searchBooks_WithoutQuery_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/books/query/search"))
+            .andExpect(status().isBadRequest());
+    }
+}